@@ -0,0 +1,767 @@
+/*
+ * Non-blocking front end to the calculator functions for callers that produce requests in bursts.
+ * Requests go into one bounded queue and are run by a fixed number of worker threads. Each worker takes a batch of
+ * waiting requests at a time, so the queue lock and thread wake-ups are paid once per batch instead of per request.
+ * Nothing is ever queued without bound. When the queue is full a submitted request fails at once with a
+ * RejectedExecutionException instead of waiting, so callers see overload straight away.
+ * Requests can be submitted in two ways:
+ *    - submit, operation, convertSizeUnit, and calculateLoadTime return a CompletableFuture per request
+ *    - processor returns a Flow.Processor that only asks its publisher for as many requests as it has room for and its
+ *      subscriber has asked for, so a fast publisher is slowed down to the rate the workers keep up with
+ * Results are completed and delivered on the worker threads.
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiConsumer;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+class AsyncCalculator implements AutoCloseable {
+
+    private final BlockingQueue<Task<?>> queue;
+    private final int batchSize;
+    private final ExecutorService workers;
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile boolean closed;
+
+    /**
+     * Creates the calculator and starts its worker threads
+     * @param threads - Number of worker threads
+     * @param capacity - Most requests that can wait in the queue
+     * @param batchSize - Most requests a worker takes from the queue at a time
+     */
+    AsyncCalculator(int threads, int capacity, int batchSize) {
+        if (threads < 1 || capacity < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Not a valid size");
+        }
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "calculator-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < threads; i++) {
+            workers.execute(this::work);
+        }
+    }
+
+    /**
+     * Submits a request to run on the worker threads
+     * @param request - Request to run
+     * @return CompletableFuture - Completes with the result, or exceptionally if the request fails or the queue is full
+     */
+    <T> CompletableFuture<T> submit(Request<T> request) {
+        if (request == null) {
+            throw new IllegalArgumentException("Cannot be null");
+        }
+        CompletableFuture<T> future = new CompletableFuture<>();
+        enqueue(new Task<>(request, (value, error) -> {
+            if (error == null) {
+                future.complete(value);
+            } else {
+                future.completeExceptionally(error);
+            }
+        }));
+        return future;
+    }
+
+    /**
+     * Submits Calculator.operation
+     * @param operator - "+", "-", "*", or "/"
+     * @param a - First binary or hexadecimal value
+     * @param b - Second binary or hexadecimal value
+     * @param type - "binary" or "hexadecimal"
+     * @return CompletableFuture - Result of the operation
+     */
+    CompletableFuture<String> operation(String operator, String a, String b, String type) {
+        return submit(Request.operation(operator, a, b, type));
+    }
+
+    /**
+     * Submits Calculator.convertSizeUnit
+     * @param fromUnit - Original unit of data size value
+     * @param toUnit - Unit to convert to
+     * @param num - Value of data size
+     * @return CompletableFuture - Converted value
+     */
+    CompletableFuture<Double> convertSizeUnit(String fromUnit, String toUnit, double num) {
+        return submit(Request.convertSizeUnit(fromUnit, toUnit, num));
+    }
+
+    /**
+     * Submits Calculator.calculateLoadTime
+     * @param size - Value of the file size
+     * @param sizeUnit - Unit of the file size
+     * @param bandwidth - Value of the bandwidth
+     * @param bandwidthUnit - Unit of the bandwidth
+     * @return CompletableFuture - Load time as text
+     */
+    CompletableFuture<String> calculateLoadTime(double size, String sizeUnit, double bandwidth, String bandwidthUnit) {
+        return submit(Request.calculateLoadTime(size, sizeUnit, bandwidth, bandwidthUnit));
+    }
+
+    /**
+     * Creates a processor that runs the requests it receives and publishes their results
+     * @param window - Most requests the processor has asked for but not yet delivered the results of
+     * @return Flow.Processor - New processor for one publisher and one subscriber
+     */
+    Flow.Processor<Request<?>, Result> processor(int window) {
+        if (window < 1) {
+            throw new IllegalArgumentException("Not a valid window");
+        }
+        return new BatchProcessor(window);
+    }
+
+    /**
+     * Returns the number of requests waiting in the queue
+     * @return int - Number of requests
+     */
+    int queued() {
+        return queue.size();
+    }
+
+    /**
+     * Returns the number of requests turned away because the queue was full
+     * @return long - Number of requests
+     */
+    long rejected() {
+        return rejected.get();
+    }
+
+    /**
+     * Stops the worker threads. Requests still in the queue fail with a RejectedExecutionException.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        workers.shutdownNow();
+        try {
+            workers.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Task<?> task;
+        while ((task = queue.poll()) != null) {
+            task.fail(new RejectedExecutionException("Calculator is closed"));
+        }
+    }
+
+    /**
+     * Puts the task in the queue, or fails it at once if the queue is full
+     * @param task - Task to run
+     */
+    private void enqueue(Task<?> task) {
+        if (closed) {
+            task.fail(new RejectedExecutionException("Calculator is closed"));
+        } else if (!queue.offer(task)) {
+            rejected.incrementAndGet();
+            task.fail(new RejectedExecutionException("Calculator is overloaded"));
+        } else if (closed && queue.remove(task)) {
+            // Closed after the first check, possibly after close emptied the queue, so no worker will run the task
+            task.fail(new RejectedExecutionException("Calculator is closed"));
+        }
+    }
+
+    /**
+     * Runs requests from the queue a batch at a time until the calculator is closed
+     */
+    private void work() {
+        List<Task<?>> batch = new ArrayList<>(batchSize);
+        int next = 0;
+        try {
+            while (!closed) {
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - 1);
+                while (next < batch.size()) {
+                    batch.get(next++).run();
+                }
+                batch.clear();
+                next = 0;
+            }
+        } catch (InterruptedException e) {
+            // Closed
+        } finally {
+            // Tasks taken but not run, if the calculator closed or a result handler threw
+            for (int i = next; i < batch.size(); i++) {
+                batch.get(i).fail(new RejectedExecutionException("Calculator is closed"));
+            }
+        }
+    }
+
+    /**
+     * A calculation to run, e.g. Request.operation("+", "1010", "11", "binary")
+     */
+    static final class Request<T> {
+
+        private final String description;
+        private final Supplier<T> calculation;
+
+        private Request(String description, Supplier<T> calculation) {
+            this.description = description;
+            this.calculation = calculation;
+        }
+
+        /**
+         * Creates a request for Calculator.operation
+         * @param operator - "+", "-", "*", or "/"
+         * @param a - First binary or hexadecimal value
+         * @param b - Second binary or hexadecimal value
+         * @param type - "binary" or "hexadecimal"
+         * @return Request - New request
+         */
+        static Request<String> operation(String operator, String a, String b, String type) {
+            return new Request<>("operation " + a + " " + operator + " " + b,
+                    () -> Calculator.operation(operator, a, b, type));
+        }
+
+        /**
+         * Creates a request for Calculator.convertSizeUnit
+         * @param fromUnit - Original unit of data size value
+         * @param toUnit - Unit to convert to
+         * @param num - Value of data size
+         * @return Request - New request
+         */
+        static Request<Double> convertSizeUnit(String fromUnit, String toUnit, double num) {
+            return new Request<>("convertSizeUnit " + num + " " + fromUnit + " to " + toUnit,
+                    () -> Calculator.convertSizeUnit(fromUnit, toUnit, num));
+        }
+
+        /**
+         * Creates a request for Calculator.calculateLoadTime
+         * @param size - Value of the file size
+         * @param sizeUnit - Unit of the file size
+         * @param bandwidth - Value of the bandwidth
+         * @param bandwidthUnit - Unit of the bandwidth
+         * @return Request - New request
+         */
+        static Request<String> calculateLoadTime(double size, String sizeUnit, double bandwidth, String bandwidthUnit) {
+            return new Request<>("calculateLoadTime " + size + " " + sizeUnit + " at " + bandwidth + " " + bandwidthUnit,
+                    () -> Calculator.calculateLoadTime(size, sizeUnit, bandwidth, bandwidthUnit));
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+
+    /**
+     * The outcome of a request run by a processor: either a value or an error
+     */
+    static final class Result {
+
+        private final Request<?> request;
+        private final Object value;
+        private final Throwable error;
+        private final long nanos;
+
+        private Result(Request<?> request, Object value, Throwable error, long nanos) {
+            this.request = request;
+            this.value = value;
+            this.error = error;
+            this.nanos = nanos;
+        }
+
+        /**
+         * Returns the request this is the result of
+         * @return Request - The request
+         */
+        Request<?> getRequest() {
+            return request;
+        }
+
+        /**
+         * Returns the value calculated, or null if the request failed
+         * @return Object - Value of the calculation
+         */
+        Object getValue() {
+            return value;
+        }
+
+        /**
+         * Returns why the request failed, or null if it succeeded
+         * @return Throwable - The error
+         */
+        Throwable getError() {
+            return error;
+        }
+
+        /**
+         * Returns the time from the processor receiving the request to the result being ready
+         * @return long - Latency in nanoseconds
+         */
+        long getLatencyNanos() {
+            return nanos;
+        }
+    }
+
+    /**
+     * A request in the queue and what to do with its result
+     */
+    private static final class Task<T> {
+
+        private final Request<T> request;
+        private final BiConsumer<T, Throwable> done;
+
+        private Task(Request<T> request, BiConsumer<T, Throwable> done) {
+            this.request = request;
+            this.done = done;
+        }
+
+        /**
+         * Runs the request and hands on its result, or whatever it threw, including Errors
+         */
+        void run() {
+            T value;
+            try {
+                value = request.calculation.get();
+            } catch (Throwable e) {
+                done.accept(null, e);
+                return;
+            }
+            done.accept(value, null);
+        }
+
+        /**
+         * Hands on an error without running the request
+         * @param error - Why the request was not run
+         */
+        void fail(Throwable error) {
+            done.accept(null, error);
+        }
+    }
+
+    /**
+     * Processor that runs each request it receives on the workers.
+     * It keeps count of the requests it has asked its publisher for but not yet delivered the results of. It asks
+     * for more only while that count is below the window and below what its subscriber has asked for, and then in
+     * batches. Results are delivered by whichever thread finds them ready, one thread at a time.
+     */
+    private final class BatchProcessor implements Flow.Processor<Request<?>, Result>, Flow.Subscription {
+
+        private final int window;
+        private final Queue<Result> ready = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger drains = new AtomicInteger();
+        private final AtomicLong demand = new AtomicLong();
+        // Requests received whose results have not been delivered yet
+        private final AtomicLong running = new AtomicLong();
+        private volatile Flow.Subscription upstream;
+        private volatile Flow.Subscriber<? super Result> downstream;
+        private volatile boolean upstreamDone;
+        private volatile Throwable upstreamError;
+        // Set by an invalid request(n) and signalled by the drain loop, so it never overlaps onNext
+        private volatile Throwable requestError;
+        private volatile boolean cancelled;
+        // Only used while draining
+        private long outstanding;
+        private boolean terminated;
+
+        private BatchProcessor(int window) {
+            this.window = window;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super Result> subscriber) {
+            if (subscriber == null) {
+                throw new NullPointerException("Cannot be null");
+            }
+            synchronized (this) {
+                if (downstream != null) {
+                    subscriber.onSubscribe(new Flow.Subscription() {
+                        @Override
+                        public void request(long n) {
+                        }
+
+                        @Override
+                        public void cancel() {
+                        }
+                    });
+                    subscriber.onError(new IllegalStateException("Processor already has a subscriber"));
+                    return;
+                }
+                downstream = subscriber;
+            }
+            subscriber.onSubscribe(this);
+            drain();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            synchronized (this) {
+                if (upstream != null || cancelled) {
+                    subscription.cancel();
+                    return;
+                }
+                upstream = subscription;
+            }
+            drain();
+        }
+
+        @Override
+        public void onNext(Request<?> request) {
+            running.incrementAndGet();
+            run(request, System.nanoTime());
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            upstreamError = throwable;
+            upstreamDone = true;
+            drain();
+        }
+
+        @Override
+        public void onComplete() {
+            upstreamDone = true;
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                requestError = new IllegalArgumentException("Not a valid number of items");
+                drain();
+                return;
+            }
+            demand.getAndAccumulate(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            Flow.Subscription subscription = upstream;
+            if (subscription != null) {
+                subscription.cancel();
+            }
+            ready.clear();
+        }
+
+        /**
+         * Submits a request to the workers and makes its result ready for delivery
+         * @param request - Request to run
+         * @param received - Time the request arrived in nanoseconds
+         */
+        private <T> void run(Request<T> request, long received) {
+            enqueue(new Task<>(request, (value, error) -> {
+                ready.offer(new Result(request, value, error, System.nanoTime() - received));
+                drain();
+            }));
+        }
+
+        /**
+         * Delivers ready results as far as the subscriber has asked, asks the publisher for more, and passes on the
+         * end of the stream once every result has been delivered
+         */
+        private void drain() {
+            if (drains.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                Flow.Subscriber<? super Result> subscriber = downstream;
+                if (subscriber != null && !cancelled && !terminated && requestError != null) {
+                    terminated = true;
+                    cancel();
+                    subscriber.onError(requestError);
+                } else if (subscriber != null && !cancelled && !terminated) {
+                    long wanted = demand.get();
+                    long delivered = 0;
+                    Result result;
+                    while (delivered != wanted && (result = ready.poll()) != null) {
+                        subscriber.onNext(result);
+                        delivered++;
+                    }
+                    if (delivered != 0) {
+                        outstanding -= delivered;
+                        running.addAndGet(-delivered);
+                        wanted = demand.addAndGet(-delivered);
+                    }
+                    if (upstreamDone && running.get() == 0) {
+                        terminated = true;
+                        Throwable error = upstreamError;
+                        if (error != null) {
+                            subscriber.onError(error);
+                        } else {
+                            subscriber.onComplete();
+                        }
+                    } else {
+                        requestMore(wanted);
+                    }
+                }
+                missed = drains.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        /**
+         * Asks the publisher for more requests if there is room, in batches where possible
+         * @param wanted - Results the subscriber has asked for and not yet received
+         */
+        private void requestMore(long wanted) {
+            Flow.Subscription subscription = upstream;
+            if (subscription == null || upstreamDone) {
+                return;
+            }
+            long more = Math.min(window - outstanding, wanted - outstanding);
+            if (more >= Math.min(batchSize, window) || (more > 0 && outstanding == 0)) {
+                outstanding += more;
+                subscription.request(more);
+            }
+        }
+    }
+
+    /**
+     * Feeds requests to a subscriber, only as many as it has asked for, until there are no more
+     * @param subscriber - Subscriber to feed, e.g. a processor
+     * @param next - Returns the request with the given number (counting from 0), or null when there are no more
+     */
+    static void publish(Flow.Subscriber<? super Request<?>> subscriber, LongFunction<Request<?>> next) {
+        if (subscriber == null || next == null) {
+            throw new IllegalArgumentException("Cannot be null");
+        }
+        subscriber.onSubscribe(new Flow.Subscription() {
+            private final AtomicLong requested = new AtomicLong();
+            private final AtomicInteger emitting = new AtomicInteger();
+            private long count;
+            private volatile boolean done;
+
+            @Override
+            public void request(long n) {
+                requested.getAndAccumulate(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+                // Requests from inside onNext only add to the count; the thread already emitting sends them
+                if (emitting.getAndIncrement() != 0) {
+                    return;
+                }
+                int missed = 1;
+                do {
+                    while (!done && requested.get() > 0) {
+                        Request<?> request = next.apply(count++);
+                        if (request == null) {
+                            done = true;
+                            subscriber.onComplete();
+                            break;
+                        }
+                        requested.decrementAndGet();
+                        subscriber.onNext(request);
+                    }
+                    missed = emitting.addAndGet(-missed);
+                } while (missed != 0);
+            }
+
+            @Override
+            public void cancel() {
+                done = true;
+            }
+        });
+    }
+
+    /**
+     * Measures the calculator under overload: producer threads submit futures as fast as they can for the given time
+     * @param threads - Worker threads
+     * @param capacity - Queue capacity
+     * @param batchSize - Most requests a worker takes at a time
+     * @param producers - Producer threads
+     * @param seconds - How long to keep submitting
+     * @return Map with keys "submitted", "completed", and "rejected" (per second), "p50", "p99", and "max"
+     * (latency of completed requests in seconds, to within a factor of 2), and "maxQueued"
+     * @throws InterruptedException if interrupted while waiting for the producers
+     */
+    static Map<String, Double> benchmarkFutures(int threads, int capacity, int batchSize, int producers, double seconds)
+            throws InterruptedException {
+        LatencyHistogram latencies = new LatencyHistogram();
+        AtomicLong submitted = new AtomicLong();
+        AtomicLong maxQueued = new AtomicLong();
+        long nanos = (long) (seconds * 1e9);
+        long start;
+        try (AsyncCalculator calculator = new AsyncCalculator(threads, capacity, batchSize)) {
+            CountDownLatch finished = new CountDownLatch(producers);
+            start = System.nanoTime();
+            for (int p = 0; p < producers; p++) {
+                int producer = p;
+                Thread thread = new Thread(() -> {
+                    long count = 0;
+                    while (System.nanoTime() - start < nanos) {
+                        long submittedAt = System.nanoTime();
+                        calculator.submit(benchmarkRequest(producer, count++)).whenComplete((value, error) -> {
+                            if (error == null) {
+                                latencies.add(System.nanoTime() - submittedAt);
+                            }
+                        });
+                        if ((count & 0xFF) == 0) {
+                            maxQueued.accumulateAndGet(calculator.queued(), Math::max);
+                        }
+                    }
+                    submitted.addAndGet(count);
+                    finished.countDown();
+                });
+                thread.setDaemon(true);
+                thread.start();
+            }
+            finished.await();
+            // Let the queue empty before stopping the workers
+            while (calculator.queued() > 0) {
+                Thread.sleep(1);
+            }
+            double elapsed = (System.nanoTime() - start) / 1e9;
+            Map<String, Double> results = latencies.summary();
+            results.put("submitted", submitted.get() / elapsed);
+            results.put("completed", latencies.count() / elapsed);
+            results.put("rejected", calculator.rejected() / elapsed);
+            results.put("maxQueued", (double) maxQueued.get());
+            return results;
+        }
+    }
+
+    /**
+     * Measures a processor fed by a publisher that offers requests as fast as it is allowed to for the given time
+     * @param threads - Worker threads
+     * @param capacity - Queue capacity
+     * @param batchSize - Most requests a worker takes at a time
+     * @param window - Processor window
+     * @param seconds - How long to keep publishing
+     * @return Map with keys "completed" (per second), "p50", "p99", and "max" (latency in seconds from the
+     * processor receiving a request to its result being ready, to within a factor of 2), "maxQueued", and
+     * "failed" (results with an error)
+     * @throws InterruptedException if interrupted while waiting for the results
+     */
+    static Map<String, Double> benchmarkProcessor(int threads, int capacity, int batchSize, int window, double seconds)
+            throws InterruptedException {
+        LatencyHistogram latencies = new LatencyHistogram();
+        AtomicLong failed = new AtomicLong();
+        AtomicLong maxQueued = new AtomicLong();
+        CountDownLatch finished = new CountDownLatch(1);
+        long nanos = (long) (seconds * 1e9);
+        try (AsyncCalculator calculator = new AsyncCalculator(threads, capacity, batchSize)) {
+            Flow.Processor<Request<?>, Result> processor = calculator.processor(window);
+            long start = System.nanoTime();
+            publish(processor, count -> {
+                if (System.nanoTime() - start >= nanos) {
+                    return null;
+                }
+                if ((count & 0xFF) == 0) {
+                    maxQueued.accumulateAndGet(calculator.queued(), Math::max);
+                }
+                return benchmarkRequest(0, count);
+            });
+            processor.subscribe(new Flow.Subscriber<Result>() {
+                private Flow.Subscription subscription;
+                private long received;
+
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    this.subscription = subscription;
+                    subscription.request(window);
+                }
+
+                @Override
+                public void onNext(Result result) {
+                    if (result.getError() != null) {
+                        failed.incrementAndGet();
+                    } else {
+                        latencies.add(result.getLatencyNanos());
+                    }
+                    // Ask for more in halves of the window
+                    if (++received % Math.max(1, window / 2) == 0) {
+                        subscription.request(Math.max(1, window / 2));
+                    }
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    finished.countDown();
+                }
+
+                @Override
+                public void onComplete() {
+                    finished.countDown();
+                }
+            });
+            finished.await();
+            double elapsed = (System.nanoTime() - start) / 1e9;
+            Map<String, Double> results = latencies.summary();
+            results.put("completed", latencies.count() / elapsed);
+            results.put("maxQueued", (double) maxQueued.get());
+            results.put("failed", (double) failed.get());
+            return results;
+        }
+    }
+
+    /**
+     * Returns one of a mix of benchmark requests
+     * @param producer - Number of the producer
+     * @param count - Number of the request
+     * @return Request - New request
+     */
+    private static Request<?> benchmarkRequest(int producer, long count) {
+        int value = (int) ((count + producer) & 0xFFFF);
+        return switch ((int) (count % 3)) {
+            case 0 -> Request.operation("+", Integer.toHexString(value).toUpperCase(), "FF", "hexadecimal");
+            case 1 -> Request.convertSizeUnit("MB", "gb", value);
+            default -> Request.calculateLoadTime(value + 1, "MB", 3.2, "Mbit/s");
+        };
+    }
+
+    /**
+     * Counts latencies in power-of-two buckets of nanoseconds, from any number of threads
+     */
+    private static final class LatencyHistogram {
+
+        private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE);
+
+        void add(long nanos) {
+            buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(Math.max(1, nanos)) - 1);
+        }
+
+        long count() {
+            long count = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                count += buckets.get(i);
+            }
+            return count;
+        }
+
+        /**
+         * Returns the 50th and 99th percentile and the largest latency, as the top of their bucket in seconds
+         * @return Map with keys "p50", "p99", and "max"
+         */
+        Map<String, Double> summary() {
+            long count = count();
+            Map<String, Double> summary = new HashMap<>();
+            long seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                long inBucket = buckets.get(i);
+                if (inBucket == 0) {
+                    continue;
+                }
+                seen += inBucket;
+                double top = Math.pow(2, i + 1) / 1e9;
+                if (!summary.containsKey("p50") && seen >= count * 0.50) {
+                    summary.put("p50", top);
+                }
+                if (!summary.containsKey("p99") && seen >= count * 0.99) {
+                    summary.put("p99", top);
+                }
+                summary.put("max", top);
+            }
+            return summary;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Monte Carlo simulation of website bandwidth, as a counterpart to calculateWebsiteBandwidth's single average.
+ * Each simulated second draws a number of page views and their page sizes, so the result is a distribution of
+ * per-second bandwidth instead of one number. Busy seconds draw the total size of their pages in one go.
+ * Page views arrive either as a Poisson process at the average rate or with a daily cycle that peaks 50% above and
+ * dips 50% below the average. Page sizes are log-normal with the given average and coefficient of variation.
+ * Seconds are simulated in fixed chunks spread across cores, each with its own SplittableRandom split off in order,
+ * so a given seed gives the same results on any number of cores.
+ */
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+class BandwidthSimulation {
+
+    static final String POISSON = "poisson";
+    static final String DIURNAL = "diurnal";
+    static final String[] ARRIVALS = {POISSON, DIURNAL};
+
+    private static final int CHUNKS = 256;
+    private static final double DIURNAL_AMPLITUDE = 0.5;
+    private static final double SECONDS_PER_DAY = 86400;
+    // Above this many views in a second, the total page size is drawn as one log-normal instead of per page
+    private static final int EXACT_VIEW_LIMIT = 16;
+
+    private final String arrivals;
+    private final double sizeVariation;
+    private final long seed;
+
+    /**
+     * Creates a simulation
+     * @param arrivals - How page views arrive: "poisson" or "diurnal"
+     * @param sizeVariation - Coefficient of variation of the page size (standard deviation / mean), 0 for fixed
+     * @param seed - Seed for the random numbers
+     */
+    BandwidthSimulation(String arrivals, double sizeVariation, long seed) {
+        if (arrivals == null) {
+            throw new IllegalArgumentException("Cannot be null");
+        }
+        if (!arrivals.equals(POISSON) && !arrivals.equals(DIURNAL)) {
+            throw new IllegalArgumentException("Not a valid arrival pattern");
+        }
+        if (!(sizeVariation >= 0) || Double.isInfinite(sizeVariation)) {
+            throw new IllegalArgumentException("Not a valid size variation");
+        }
+        this.arrivals = arrivals;
+        this.sizeVariation = sizeVariation;
+        this.seed = seed;
+    }
+
+    /**
+     * Simulates the bandwidth of a website second by second and returns statistics of the results.
+     * size units: "b", "kb", "mb", "gb", "tb", "B", "KB", "MB", "GB", and "TB"
+     * time units: "seconds", "minutes", "hours", "days", and "months"
+     * @param views - Average number of views of the page
+     * @param timeUnit - Time unit for the average views
+     * @param pageSize - Average page data size
+     * @param sizeUnit - Unit of the page data size
+     * @param redundancy - The redundancy factor
+     * @param capacity - Link capacity in Mbit/s to compare against
+     * @param seconds - Number of seconds to simulate
+     * @return Map of the results in Mbit/s with keys:
+     * "mean", "p50", "p95", "p99", "max", and "exceedProbability" (share of seconds above the capacity)
+     */
+    Map<String, Double> run(double views, String timeUnit, double pageSize, String sizeUnit, double redundancy,
+                            double capacity, int seconds) {
+        if (seconds <= 0) {
+            throw new IllegalArgumentException("Not a valid number of seconds");
+        }
+        double viewsPerSecond = views / Calculator.convertTimeUnit(timeUnit, "seconds", 1);
+        double pageMegabits = Calculator.convertSizeUnit(sizeUnit, "mb", pageSize);
+        // Log-normal parameters that give the requested mean and coefficient of variation
+        double sigma = Math.sqrt(Math.log1p(sizeVariation * sizeVariation));
+        double mu = Math.log(pageMegabits) - sigma * sigma / 2;
+
+        double[] bandwidth = new double[seconds];
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] randoms = new SplittableRandom[CHUNKS];
+        for (int c = 0; c < CHUNKS; c++) {
+            randoms[c] = root.split();
+        }
+        IntStream.range(0, CHUNKS).parallel().forEach(c -> {
+            SplittableRandom random = randoms[c];
+            int end = (int) ((long) seconds * (c + 1) / CHUNKS);
+            for (int t = (int) ((long) seconds * c / CHUNKS); t < end; t++) {
+                double rate = viewsPerSecond;
+                if (arrivals.equals(DIURNAL)) {
+                    rate *= 1 + DIURNAL_AMPLITUDE * Math.sin(2 * Math.PI * t / SECONDS_PER_DAY);
+                }
+                long count = poisson(random, rate);
+                bandwidth[t] = totalSize(random, count, pageMegabits, mu, sigma) * redundancy;
+            }
+        });
+
+        double sum = 0;
+        long exceeded = 0;
+        for (double b : bandwidth) {
+            sum += b;
+            if (b > capacity) {
+                exceeded++;
+            }
+        }
+        Arrays.parallelSort(bandwidth);
+
+        Map<String, Double> results = new HashMap<>();
+        results.put("mean", sum / seconds);
+        results.put("p50", percentile(bandwidth, 0.50));
+        results.put("p95", percentile(bandwidth, 0.95));
+        results.put("p99", percentile(bandwidth, 0.99));
+        results.put("max", bandwidth[seconds - 1]);
+        results.put("exceedProbability", (double) exceeded / seconds);
+        return results;
+    }
+
+    /**
+     * Returns the value at the given fraction of sorted values (nearest rank)
+     * @param sorted - Values in ascending order
+     * @param fraction - Fraction between 0 and 1
+     * @return double - Percentile value
+     */
+    private static double percentile(double[] sorted, double fraction) {
+        int rank = (int) Math.ceil(fraction * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    /**
+     * Draws the total size of the given number of pages
+     * @param random - Random numbers
+     * @param count - Number of pages
+     * @param mean - Average page size
+     * @param mu - Log-normal location
+     * @param sigma - Log-normal scale
+     * @return double - Total size of the pages
+     */
+    private double totalSize(SplittableRandom random, long count, double mean, double mu, double sigma) {
+        if (count == 0) {
+            return 0;
+        }
+        if (sizeVariation == 0) {
+            return count * mean;
+        }
+        if (count > EXACT_VIEW_LIMIT) {
+            // Fenton-Wilkinson: a sum of log-normal sizes is close to a log-normal with the same mean and variance
+            double variation = sizeVariation * sizeVariation / count;
+            double sumSigma = Math.sqrt(Math.log1p(variation));
+            double sumMu = Math.log(count * mean) - sumSigma * sumSigma / 2;
+            return Math.exp(sumMu + sumSigma * gaussian(random));
+        }
+        double total = 0;
+        for (long i = 0; i < count; i++) {
+            total += Math.exp(mu + sigma * gaussian(random));
+        }
+        return total;
+    }
+
+    /**
+     * Draws a Poisson distributed count. Small rates multiply uniform numbers (Knuth); larger rates use
+     * transformed rejection (Hoermann's PTRS), which takes about one try per draw however large the rate is.
+     * @param random - Random numbers
+     * @param rate - Average count
+     * @return long - Count
+     */
+    static long poisson(SplittableRandom random, double rate) {
+        if (rate <= 0) {
+            return 0;
+        }
+        if (rate < 10) {
+            double limit = Math.exp(-rate);
+            double product = random.nextDouble();
+            long count = 0;
+            while (product > limit) {
+                product *= random.nextDouble();
+                count++;
+            }
+            return count;
+        }
+        double logRate = Math.log(rate);
+        double b = 0.931 + 2.53 * Math.sqrt(rate);
+        double a = -0.059 + 0.02483 * b;
+        double inverseAlpha = 1.1239 + 1.1328 / (b - 3.4);
+        double vr = 0.9277 - 3.6224 / (b - 2);
+        while (true) {
+            double u = random.nextDouble() - 0.5;
+            double v = random.nextDouble();
+            double us = 0.5 - Math.abs(u);
+            double k = Math.floor((2 * a / us + b) * u + rate + 0.43);
+            if (us >= 0.07 && v <= vr) {
+                return (long) k;
+            }
+            if (k < 0 || (us < 0.013 && v > us)) {
+                continue;
+            }
+            double log = Math.log(v * inverseAlpha / (a / (us * us) + b));
+            if (log <= -rate + k * logRate - logFactorial(k)) {
+                return (long) k;
+            }
+        }
+    }
+
+    /**
+     * Returns log(k!) using Stirling's series for larger k
+     * @param k - Non-negative whole number
+     * @return double - Natural log of k factorial
+     */
+    private static double logFactorial(double k) {
+        if (k < 10) {
+            double result = 0;
+            for (int i = 2; i <= k; i++) {
+                result += Math.log(i);
+            }
+            return result;
+        }
+        double inverse = 1 / k;
+        return (k + 0.5) * Math.log(k) - k + 0.5 * Math.log(2 * Math.PI)
+                + inverse * (1.0 / 12 - inverse * inverse * (1.0 / 360 - inverse * inverse / 1260));
+    }
+
+    /**
+     * Draws a standard normal number with the Marsaglia polar method
+     * @param random - Random numbers
+     * @return double - Normal number with mean 0 and standard deviation 1
+     */
+    private static double gaussian(SplittableRandom random) {
+        double x;
+        double y;
+        double s;
+        do {
+            x = 2 * random.nextDouble() - 1;
+            y = 2 * random.nextDouble() - 1;
+            s = x * x + y * y;
+        } while (s >= 1 || s == 0);
+        return x * Math.sqrt(-2 * Math.log(s) / s);
+    }
+}
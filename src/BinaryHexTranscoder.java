@@ -0,0 +1,364 @@
+/*
+ * Converts between binary and hexadecimal text directly, without going through a decimal value.
+ * Every hexadecimal digit is exactly four binary digits, so digits are mapped group by group and inputs of any length
+ * can be streamed from one channel to another through two fixed-size buffers.
+ * Binary input is checked and packed eight digits at a time by treating them as one long.
+ * Two layouts are supported:
+ *    - "number": the input is a value; binary is padded with zeros on the left to whole groups of four, and leading
+ *      zeros are left out of the output (at least one digit is written). Left padding needs the number of digits,
+ *      so binary input must be seekable (e.g. a file); it is read twice.
+ *    - "stream": the input is a dump of bits; the last binary group is padded with zeros on the right and every digit
+ *      is kept, so any channel can be used.
+ * Spaces, tabs, line breaks, and underscores in the input are skipped. The output can be split into groups of a
+ * given number of digits, counted from the start of the output as in a dump.
+ * Transcoders are immutable and safe to share between threads.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+class BinaryHexTranscoder {
+
+    static final String NUMBER = "number";
+    static final String STREAM = "stream";
+    static final String[] LAYOUTS = {NUMBER, STREAM};
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    // Every byte of a long of binary digits is '0' (0x30) or '1' (0x31) exactly when these checks hold
+    private static final long DIGIT_BITS = 0x0101010101010101L;
+    private static final long ZERO_DIGITS = 0x3030303030303030L;
+    // Moves the low bit of each of the eight bytes into the top byte, first byte first
+    private static final long GATHER_BITS = 0x0102040810204080L;
+
+    private static final byte[] HEX_DIGITS = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+    // Value of each byte as a hexadecimal digit, or -1
+    private static final byte[] HEX_VALUES = new byte[256];
+    // Four binary digits of each hexadecimal digit, as ASCII packed into an int
+    private static final int[] NIBBLE_DIGITS = new int[16];
+
+    static {
+        Arrays.fill(HEX_VALUES, (byte) -1);
+        for (int i = 0; i < 16; i++) {
+            HEX_VALUES[HEX_DIGITS[i]] = (byte) i;
+            HEX_VALUES[Character.toLowerCase(HEX_DIGITS[i])] = (byte) i;
+            int digits = 0;
+            for (int bit = 3; bit >= 0; bit--) {
+                digits = (digits << 8) | ('0' + ((i >> bit) & 1));
+            }
+            NIBBLE_DIGITS[i] = digits;
+        }
+    }
+
+    private final boolean number;
+    private final int groupDigits;
+    private final byte separator;
+
+    /**
+     * Creates a transcoder
+     * @param layout - "number" or "stream"
+     * @param groupDigits - Output digits per group, or 0 to not split the output
+     * @param separator - Character written between groups
+     */
+    BinaryHexTranscoder(String layout, int groupDigits, char separator) {
+        if (layout == null) {
+            throw new IllegalArgumentException("Cannot be null");
+        }
+        if (!layout.equals(NUMBER) && !layout.equals(STREAM)) {
+            throw new IllegalArgumentException("Not a valid layout");
+        }
+        if (groupDigits < 0) {
+            throw new IllegalArgumentException("Not a valid group size");
+        }
+        if (separator > 127 || isDigit(separator)) {
+            throw new IllegalArgumentException("Not a valid separator");
+        }
+        this.number = layout.equals(NUMBER);
+        this.groupDigits = groupDigits;
+        this.separator = (byte) separator;
+    }
+
+    /**
+     * Converts binary text to hexadecimal text
+     * @param binary - Binary digits
+     * @return String - Hexadecimal digits
+     */
+    String binaryToHex(String binary) {
+        return transcode(binary, true);
+    }
+
+    /**
+     * Converts hexadecimal text to binary text
+     * @param hex - Hexadecimal digits
+     * @return String - Binary digits
+     */
+    String hexToBinary(String hex) {
+        return transcode(hex, false);
+    }
+
+    /**
+     * Streams binary text from one channel to hexadecimal text in another
+     * @param in - Binary input; must be seekable for the "number" layout, and is read from its current position
+     * @param out - Output for the hexadecimal text
+     * @return long - Number of hexadecimal digits written
+     * @throws IOException if the input is not binary text or a channel cannot be used
+     */
+    long binaryToHex(ReadableByteChannel in, WritableByteChannel out) throws IOException {
+        if (in == null || out == null) {
+            throw new IllegalArgumentException("Cannot be null");
+        }
+        long binaryDigits = -1;
+        if (number) {
+            if (!(in instanceof SeekableByteChannel)) {
+                throw new IllegalArgumentException("The number layout needs a seekable input");
+            }
+            SeekableByteChannel seekable = (SeekableByteChannel) in;
+            long start = seekable.position();
+            binaryDigits = countBinaryDigits(seekable);
+            seekable.position(start);
+        }
+        return transcode(in, out, true, binaryDigits);
+    }
+
+    /**
+     * Streams hexadecimal text from one channel to binary text in another
+     * @param in - Hexadecimal input
+     * @param out - Output for the binary text
+     * @return long - Number of binary digits written
+     * @throws IOException if the input is not hexadecimal text or a channel cannot be used
+     */
+    long hexToBinary(ReadableByteChannel in, WritableByteChannel out) throws IOException {
+        if (in == null || out == null) {
+            throw new IllegalArgumentException("Cannot be null");
+        }
+        return transcode(in, out, false, -1);
+    }
+
+    /**
+     * Converts text held in memory
+     * @param text - Input digits
+     * @param toHex - True for binary to hexadecimal, false for the reverse
+     * @return String - Output digits
+     */
+    private String transcode(String text, boolean toHex) {
+        if (text == null) {
+            throw new IllegalArgumentException("Cannot be null");
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+        long binaryDigits = 0;
+        for (byte b : bytes) {
+            if (b == '0' || b == '1') {
+                binaryDigits++;
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(toHex ? bytes.length / 4 + 1 : bytes.length * 4);
+        try {
+            transcode(Channels.newChannel(new ByteArrayInputStream(bytes)), Channels.newChannel(out), toHex,
+                    binaryDigits);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e.getMessage());
+        }
+        return out.toString(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Streams the conversion from one channel to another
+     * @param in - Input digits
+     * @param out - Output for the converted digits
+     * @param toHex - True for binary to hexadecimal, false for the reverse
+     * @param binaryDigits - Number of binary digits in the input for the "number" layout, otherwise ignored
+     * @return long - Number of digits written
+     * @throws IOException if the input is not valid or a channel cannot be used
+     */
+    private long transcode(ReadableByteChannel in, WritableByteChannel out, boolean toHex, long binaryDigits)
+            throws IOException {
+        ByteBuffer input = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.BIG_ENDIAN);
+        byte[] bytes = input.array();
+        Output output = new Output(out);
+        long position = 0;
+        // Binary digits collected towards the next hexadecimal digit
+        int nibble = 0;
+        int bits = number && toHex ? (int) ((4 - binaryDigits % 4) % 4) : 0;
+
+        while (in.read(input) >= 0) {
+            int end = input.position();
+            int i = 0;
+            if (toHex) {
+                while (i < end) {
+                    if (bits == 0 && i + 8 <= end) {
+                        long word = input.getLong(i);
+                        if ((word & ~DIGIT_BITS) == ZERO_DIGITS) {
+                            int packed = (int) (((word & DIGIT_BITS) * GATHER_BITS) >>> 56);
+                            output.digit(HEX_DIGITS[packed >>> 4]);
+                            output.digit(HEX_DIGITS[packed & 0xF]);
+                            i += 8;
+                            continue;
+                        }
+                    }
+                    byte b = bytes[i];
+                    if (b == '0' || b == '1') {
+                        nibble = (nibble << 1) | (b & 1);
+                        if (++bits == 4) {
+                            output.digit(HEX_DIGITS[nibble]);
+                            nibble = 0;
+                            bits = 0;
+                        }
+                    } else if (!isSkipped(b)) {
+                        throw new IOException("Not a valid binary digit at byte " + (position + i));
+                    }
+                    i++;
+                }
+            } else {
+                for (; i < end; i++) {
+                    int value = HEX_VALUES[bytes[i] & 0xFF];
+                    if (value >= 0) {
+                        output.digits(NIBBLE_DIGITS[value]);
+                    } else if (!isSkipped(bytes[i])) {
+                        throw new IOException("Not a valid hexadecimal digit at byte " + (position + i));
+                    }
+                }
+            }
+            position += end;
+            input.clear();
+        }
+        if (bits != 0) {
+            // Only in the stream layout: pad the last group on the right
+            output.digit(HEX_DIGITS[nibble << (4 - bits)]);
+        }
+        return output.finish();
+    }
+
+    /**
+     * Counts the binary digits left in the channel
+     * @param in - Input to read to the end
+     * @return long - Number of binary digits
+     * @throws IOException if the channel cannot be read
+     */
+    private static long countBinaryDigits(ReadableByteChannel in) throws IOException {
+        ByteBuffer input = ByteBuffer.allocate(BUFFER_SIZE);
+        byte[] bytes = input.array();
+        long count = 0;
+        while (in.read(input) >= 0) {
+            int end = input.position();
+            for (int i = 0; i < end; i++) {
+                count += (bytes[i] & 0xFE) == '0' ? 1 : 0;
+            }
+            input.clear();
+        }
+        return count;
+    }
+
+    /**
+     * Determines if the byte is a separator that is skipped in the input
+     * @param b - Byte of input
+     * @return boolean - True if the byte is skipped
+     */
+    private static boolean isSkipped(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '_';
+    }
+
+    /**
+     * Determines if the character is a binary or hexadecimal digit
+     * @param c - Character to test
+     * @return boolean - True if the character is a digit
+     */
+    private static boolean isDigit(char c) {
+        return c < 128 && HEX_VALUES[c] >= 0;
+    }
+
+    /**
+     * Buffers output digits, leaving out leading zeros for the "number" layout and adding group separators
+     */
+    private final class Output {
+
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.BIG_ENDIAN);
+        private final byte[] bytes = buffer.array();
+        private int length;
+        private long written;
+        private boolean leading = number;
+        private boolean anyDigit;
+
+        private Output(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Writes one digit
+         * @param digit - ASCII digit
+         * @throws IOException if the channel cannot be written
+         */
+        void digit(byte digit) throws IOException {
+            anyDigit = true;
+            if (leading) {
+                if (digit == '0') {
+                    return;
+                }
+                leading = false;
+            }
+            if (length > BUFFER_SIZE - 2) {
+                drain();
+            }
+            if (groupDigits != 0 && written != 0 && written % groupDigits == 0) {
+                bytes[length++] = separator;
+            }
+            bytes[length++] = digit;
+            written++;
+        }
+
+        /**
+         * Writes four binary digits
+         * @param digits - Four ASCII digits packed into an int, first digit in the top byte
+         * @throws IOException if the channel cannot be written
+         */
+        void digits(int digits) throws IOException {
+            if (leading || groupDigits != 0) {
+                for (int shift = 24; shift >= 0; shift -= 8) {
+                    digit((byte) (digits >>> shift));
+                }
+                return;
+            }
+            anyDigit = true;
+            if (length > BUFFER_SIZE - 4) {
+                drain();
+            }
+            buffer.putInt(length, digits);
+            length += 4;
+            written += 4;
+        }
+
+        /**
+         * Writes what is left in the buffer; a number that was all zeros is written as "0"
+         * @return long - Number of digits written
+         * @throws IOException if the channel cannot be written
+         */
+        long finish() throws IOException {
+            if (leading && anyDigit) {
+                leading = false;
+                digit((byte) '0');
+            }
+            drain();
+            return written;
+        }
+
+        /**
+         * Writes the buffer to the channel
+         * @throws IOException if the channel cannot be written
+         */
+        private void drain() throws IOException {
+            buffer.clear().limit(length);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            length = 0;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Bulk bitwise operations over bitmap files for the binary calculator.
+ * Both inputs and the output are memory-mapped and processed 64 bits at a time in fixed-size chunks.
+ * Chunks are spread across all cores, and each chunk is copied into long arrays so the inner loops
+ * are simple enough for the JIT compiler to vectorize.
+ */
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.LongStream;
+
+class BitmapFileOperations {
+
+    static final String[] OPERATORS = {"AND", "OR", "XOR", "ANDNOT"};
+
+    // Bytes mapped per task. Must be a multiple of 8 so every chunk but the last holds whole words.
+    private static final int CHUNK_SIZE = 1 << 26;
+    // Words copied into the working arrays at a time
+    private static final int BLOCK_WORDS = 1 << 13;
+
+    private BitmapFileOperations() {
+    }
+
+    /**
+     * Applies the operator to the two bitmap files, writes the result to the output file, and returns its popcount.
+     * The output is as long as the longer input; the shorter input is treated as if padded with zero bits.
+     * Operators: "AND", "OR", "XOR", and "ANDNOT" (first AND NOT second).
+     * @param operator - Operator to apply
+     * @param first - Path of the first bitmap
+     * @param second - Path of the second bitmap
+     * @param output - Path of the file to write (created or replaced), which cannot be one of the inputs
+     * @return long - Number of bits set in the output
+     * @throws IOException if a file cannot be read or written
+     */
+    static long apply(String operator, Path first, Path second, Path output) throws IOException {
+        return apply(operator, first, second, output, CHUNK_SIZE);
+    }
+
+    /**
+     * Applies the operator to the two bitmap files in chunks of the given size
+     * @param operator - Operator to apply
+     * @param first - Path of the first bitmap
+     * @param second - Path of the second bitmap
+     * @param output - Path of the file to write (created or replaced), which cannot be one of the inputs
+     * @param chunkSize - Bytes per chunk, a multiple of 8
+     * @return long - Number of bits set in the output
+     * @throws IOException if a file cannot be read or written
+     */
+    static long apply(String operator, Path first, Path second, Path output, int chunkSize) throws IOException {
+        if (operator == null || first == null || second == null || output == null) {
+            throw new IllegalArgumentException("Cannot be null");
+        }
+        if (chunkSize <= 0 || chunkSize % 8 != 0) {
+            throw new IllegalArgumentException("Not a valid size");
+        }
+        // Truncating the output would empty an input before it is read
+        if (isInput(output, first, second)) {
+            throw new IllegalArgumentException("Not a valid output file");
+        }
+        int op = switch (operator) {
+            case "AND" -> 0;
+            case "OR" -> 1;
+            case "XOR" -> 2;
+            case "ANDNOT" -> 3;
+            default -> throw new IllegalArgumentException("Not a valid operation");
+        };
+
+        try (FileChannel a = FileChannel.open(first, StandardOpenOption.READ);
+             FileChannel b = FileChannel.open(second, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long aSize = a.size();
+            long bSize = b.size();
+            long size = Math.max(aSize, bSize);
+            if (size == 0) {
+                return 0;
+            }
+            // Extend the output to its final size so every chunk can be mapped independently
+            out.write(ByteBuffer.allocate(1), size - 1);
+
+            long chunks = (size + chunkSize - 1) / chunkSize;
+            try {
+                return LongStream.range(0, chunks).parallel().map(chunk -> {
+                    long position = chunk * chunkSize;
+                    int length = (int) Math.min(chunkSize, size - position);
+                    try {
+                        return applyChunk(op, map(a, aSize, position, length), map(b, bSize, position, length),
+                                out.map(FileChannel.MapMode.READ_WRITE, position, length), length);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }).sum();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Checks whether the output path names an existing file that is one of the inputs, including through links
+     * @param output - Path of the file to write
+     * @param first - Path of the first bitmap
+     * @param second - Path of the second bitmap
+     * @return boolean - True if writing the output would overwrite an input
+     * @throws IOException if the files cannot be compared
+     */
+    static boolean isInput(Path output, Path first, Path second) throws IOException {
+        return Files.exists(output) && (Files.isSameFile(output, first) || Files.isSameFile(output, second));
+    }
+
+    /**
+     * Maps the part of the file that overlaps the given range
+     * @param channel - File to map
+     * @param fileSize - Size of the file
+     * @param position - Start of the range
+     * @param length - Length of the range
+     * @return ByteBuffer - Mapped bytes, shorter than length (or empty) where the file ends early
+     * @throws IOException if the file cannot be mapped
+     */
+    private static ByteBuffer map(FileChannel channel, long fileSize, long position, int length) throws IOException {
+        if (position >= fileSize) {
+            return ByteBuffer.allocate(0);
+        }
+        int available = (int) Math.min(length, fileSize - position);
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, available);
+    }
+
+    /**
+     * Applies the operator to one chunk and returns the popcount of the written result
+     * @param op - 0 for AND, 1 for OR, 2 for XOR, 3 for ANDNOT
+     * @param a - Bytes of the first input (may be shorter than length)
+     * @param b - Bytes of the second input (may be shorter than length)
+     * @param out - Bytes to write the result to
+     * @param length - Length of the chunk
+     * @return long - Number of bits set in the result
+     */
+    private static long applyChunk(int op, ByteBuffer a, ByteBuffer b, MappedByteBuffer out, int length) {
+        a.order(ByteOrder.nativeOrder());
+        b.order(ByteOrder.nativeOrder());
+        out.order(ByteOrder.nativeOrder());
+        LongBuffer aWords = a.asLongBuffer();
+        LongBuffer bWords = b.asLongBuffer();
+        LongBuffer outWords = out.asLongBuffer();
+        long[] x = new long[BLOCK_WORDS];
+        long[] y = new long[BLOCK_WORDS];
+        long popcount = 0;
+
+        int words = length / 8;
+        for (int start = 0; start < words; start += BLOCK_WORDS) {
+            int count = Math.min(BLOCK_WORDS, words - start);
+            fill(a, aWords, start, x, count);
+            fill(b, bWords, start, y, count);
+            switch (op) {
+                case 0 -> {
+                    for (int i = 0; i < count; i++) {
+                        x[i] &= y[i];
+                    }
+                }
+                case 1 -> {
+                    for (int i = 0; i < count; i++) {
+                        x[i] |= y[i];
+                    }
+                }
+                case 2 -> {
+                    for (int i = 0; i < count; i++) {
+                        x[i] ^= y[i];
+                    }
+                }
+                default -> {
+                    for (int i = 0; i < count; i++) {
+                        x[i] &= ~y[i];
+                    }
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                popcount += Long.bitCount(x[i]);
+            }
+            outWords.put(start, x, 0, count);
+        }
+
+        // Leftover bytes at the end of the file
+        for (int i = words * 8; i < length; i++) {
+            int x0 = i < a.limit() ? a.get(i) & 0xFF : 0;
+            int y0 = i < b.limit() ? b.get(i) & 0xFF : 0;
+            int r = switch (op) {
+                case 0 -> x0 & y0;
+                case 1 -> x0 | y0;
+                case 2 -> x0 ^ y0;
+                default -> x0 & ~y0 & 0xFF;
+            };
+            popcount += Integer.bitCount(r);
+            out.put(i, (byte) r);
+        }
+        return popcount;
+    }
+
+    /**
+     * Copies words from the buffer into the array, padding with zeros past the end of the buffer.
+     * A partial word at the end of the buffer is copied with its missing bytes set to zero.
+     * @param bytes - Bytes the words are read from
+     * @param words - Whole words of the bytes
+     * @param start - Index of the first word
+     * @param target - Array to copy into
+     * @param count - Number of words to copy
+     */
+    private static void fill(ByteBuffer bytes, LongBuffer words, int start, long[] target, int count) {
+        int available = Math.max(0, Math.min(count, words.limit() - start));
+        if (available > 0) {
+            words.get(start, target, 0, available);
+        }
+        int partial = start + available;
+        if (available < count && (long) partial * 8 < bytes.limit()) {
+            ByteBuffer word = ByteBuffer.allocate(8).order(ByteOrder.nativeOrder());
+            for (int i = partial * 8; i < bytes.limit(); i++) {
+                word.put(bytes.get(i));
+            }
+            target[available++] = word.getLong(0);
+        }
+        for (int i = available; i < count; i++) {
+            target[i] = 0;
+        }
+    }
+}
@@ -7,61 +7,191 @@
  *    - Binary calculator
  *    - Hexadecimal calculator
  *    - Bandwidth calculator
+ * The public static methods can also be used as a library. They only read constants and their arguments, so they
+ * need no setup and are safe to call from many threads at once; printing is kept in separate methods.
+ * Run with "--journal <directory>" to record every calculation in an OperationJournal, and with
+ * "--replay <directory>" to check a journal's results against this version and exit.
+ * Run with "--self-check [seconds]" to run every test quietly on all cores, repeating each for the given time
+ * (default 0.1 seconds), and report pass or fail and calls per second; the exit status is 1 if a test fails.
+ * Run with "--radix-benchmark [digits]" to time converting random decimal numbers of 10^3 digits up to the given
+ * number of digits (default 10^7) to hexadecimal and back.
+ * Run with "--async-benchmark [seconds]" to overload an AsyncCalculator for the given time (default 2 seconds), through
+ * futures and through its processor, and print throughput, latency, and the deepest the queue got.
+ * Run with "--scaling-benchmark [seconds]" to call the library functions from 1, 2, 4, ... up to one thread per core
+ * for the given time each (default 1 second) and print calls per second and the speedup over one thread.
+ * Run with "--prefix-benchmark [prefixes]" to time loading the given number of random IPv4 prefixes (default 10^6)
+ * into a PrefixTrie, aggregating them, and looking up random addresses.
+ * Run with "--startup-benchmark [runs] [archive]" to time launching the calculator the given number of times (default
+ * 20) to convert one value and quit, as a shell script would. With an archive path it also times launches that use
+ * that AppCDS archive, and first creates it with a training run if the file does not exist yet. AppCDS only archives
+ * classes from jars, so run it from a jar made with "jar cf calculator.jar -C <classes> .". The same can be done by
+ * hand with "java -XX:ArchiveClassesAtExit=calculator.jsa -cp calculator.jar Calculator" and then
+ * "java -XX:SharedArchiveFile=calculator.jsa -cp calculator.jar Calculator".
+ * Only the menus and the number formatter are loaded at startup; every other part is loaded the first time it is
+ * selected.
+ * Select "p" in the main menu, or run with "--profile", to record the bytes allocated and CPU time used per call of
+ * each calculator function; selecting "p" again, or quitting, prints the summary.
  */
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
 
 public class Calculator {
 
-    // Keeps track of data, time, and bandwidth units used by the calculators and their conversion tables.
-    private static final Map<String, Long> SIZE_UNIT_CONVERSIONS = new HashMap<>();
-    private static final Map<String, Long> BANDWIDTH_UNIT_CONVERSIONS = new HashMap<>();
-    private static final Map<String, Double> TIME_UNIT_CONVERSIONS = new HashMap<>();
-    private static final String[] SIZE_UNITS = {"b", "kb", "mb", "gb", "tb", "B", "KB", "MB", "GB", "TB"};
+    // Keeps track of data, time, and bandwidth units used by the calculators.
+    static final String[] SIZE_UNITS = {"b", "kb", "mb", "gb", "tb", "B", "KB", "MB", "GB", "TB"};
     private static final String[] BIG_SIZE_UNITS = {"B", "KB", "MB", "GB", "TB"};
-    private static final String[] BANDWIDTH_UNITS = {"bit/s", "Kbit/s", "Mbit/s", "Gbit/s", "Tbit/s"};
-    private static final String[] TIME_UNITS = {"seconds", "minutes", "hours", "days", "months"};
+    static final String[] BANDWIDTH_UNITS = {"bit/s", "Kbit/s", "Mbit/s", "Gbit/s", "Tbit/s"};
+    static final String[] TIME_UNITS = {"seconds", "minutes", "hours", "days", "months"};
+    private static final String[] FIXED_WIDTH_OPERATORS = {
+            "+", "-", "*", "/", "&", "|", "^", "~", "<<", ">>>", ">>", "rol", "ror", "popcount", "clz", "ctz"
+    };
+
+    // Everything the calculators print is buffered here and written once input is needed
+    private static final ConsoleOutput OUT = new ConsoleOutput(System.out);
+    // Formats for printed results; like OUT they are only used from the menu thread
+    private static final DoubleFormatter COMPACT_FORMAT = DoubleFormatter.compact();
+    private static final DoubleFormatter SECONDS_FORMAT = DoubleFormatter.fixed(3);
+    // Format for load times returned by the library functions, which any thread may call, so one per thread
+    private static final ThreadLocal<DoubleFormatter> LOAD_TIME_FORMAT =
+            ThreadLocal.withInitial(DoubleFormatter::shortest);
+    // Records every calculation while set; null when journaling is off
+    private static volatile OperationJournal journal;
+    private static final double DEFAULT_SELF_CHECK_SECONDS = 0.1;
+    private static final int DEFAULT_RADIX_BENCHMARK_DIGITS = 10_000_000;
+    private static final double DEFAULT_ASYNC_BENCHMARK_SECONDS = 2;
+    private static final double DEFAULT_SCALING_BENCHMARK_SECONDS = 1;
+    private static final int DEFAULT_PREFIX_BENCHMARK_PREFIXES = 1_000_000;
+    private static final int PREFIX_BENCHMARK_LOOKUPS = 10_000_000;
+    private static final int DEFAULT_STARTUP_BENCHMARK_RUNS = 20;
+    // Converts 1.5 GB to every data unit and quits
+    private static final String STARTUP_BENCHMARK_INPUT = "3\n1\nGB\n1.5\nq\nq\n";
+    private static final String STARTUP_BENCHMARK_RESULT = "1500 MB";
+    private static final int MAX_TRAFFIC_CLASSES = 8;
+    // Most values in one range of a what-if table, so a table is at most 4 million cells (32 MB)
+    private static final int MAX_SWEEP_POINTS = 2000;
+    private static final int MAX_LINKS_SHOWN = 8;
+
+    // Measures allocation and CPU time of the functions below while set; null when profiling is off
+    private static volatile FunctionProfiler profiler;
+    private static final String[] PROFILED_FUNCTIONS = {
+            "operation", "getBinaryFromDecimal", "getDecimalFromBinary", "getHexFromDecimal", "getDecimalFromHex",
+            "convertSizeUnit", "calculateLoadTime", "calculateLoadTimeSeconds", "calculateWebsiteBandwidth",
+            "convertUsageToBandwidth", "convertBandwidthToUsage"
+    };
+    private static final int PROFILE_OPERATION = 0;
+    private static final int PROFILE_GET_BINARY_FROM_DECIMAL = 1;
+    private static final int PROFILE_GET_DECIMAL_FROM_BINARY = 2;
+    private static final int PROFILE_GET_HEX_FROM_DECIMAL = 3;
+    private static final int PROFILE_GET_DECIMAL_FROM_HEX = 4;
+    private static final int PROFILE_CONVERT_SIZE_UNIT = 5;
+    private static final int PROFILE_CALCULATE_LOAD_TIME = 6;
+    private static final int PROFILE_CALCULATE_LOAD_TIME_SECONDS = 7;
+    private static final int PROFILE_CALCULATE_WEBSITE_BANDWIDTH = 8;
+    private static final int PROFILE_CONVERT_USAGE_TO_BANDWIDTH = 9;
+    private static final int PROFILE_CONVERT_BANDWIDTH_TO_USAGE = 10;
+
+    // Unit conversion tables. Each value is how many of the unit make up one terabyte, one terabit per second, or one
+    // month. They are compile-time constants so nothing has to be built at startup.
+    private static final long TB_PER_TB = 1;
+    private static final long GB_PER_TB = 1000 * TB_PER_TB;
+    private static final long MB_PER_TB = 1000 * GB_PER_TB;
+    private static final long KB_PER_TB = 1000 * MB_PER_TB;
+    private static final long B_PER_TB = 1000 * KB_PER_TB;
+    private static final long TERABITS_PER_TB = 8 * TB_PER_TB;
+    private static final long GIGABITS_PER_TB = 8 * GB_PER_TB;
+    private static final long MEGABITS_PER_TB = 8 * MB_PER_TB;
+    private static final long KILOBITS_PER_TB = 8 * KB_PER_TB;
+    private static final long BITS_PER_TB = 8 * B_PER_TB;
+
+    private static final long TBIT_PER_TBIT = 1;
+    private static final long GBIT_PER_TBIT = 1000 * TBIT_PER_TBIT;
+    private static final long MBIT_PER_TBIT = 1000 * GBIT_PER_TBIT;
+    private static final long KBIT_PER_TBIT = 1000 * MBIT_PER_TBIT;
+    private static final long BIT_PER_TBIT = 1000 * KBIT_PER_TBIT;
+
+    // A month is 365.25 / 12 days, so time units are counted per 48 months to keep every factor a whole number
+    private static final long MONTHS_PER_48_MONTHS = 48;
+    private static final long DAYS_PER_48_MONTHS = 1461;
+    private static final long HOURS_PER_48_MONTHS = 24 * DAYS_PER_48_MONTHS;
+    private static final long MINUTES_PER_48_MONTHS = 60 * HOURS_PER_48_MONTHS;
+    private static final long SECONDS_PER_48_MONTHS = 60 * MINUTES_PER_48_MONTHS;
+
+    private static final double MONTHS_PER_MONTH = MONTHS_PER_48_MONTHS / 48.0;
+    private static final double DAYS_PER_MONTH = DAYS_PER_48_MONTHS / 48.0;
+    private static final double HOURS_PER_MONTH = HOURS_PER_48_MONTHS / 48.0;
+    private static final double MINUTES_PER_MONTH = MINUTES_PER_48_MONTHS / 48.0;
+    private static final double SECONDS_PER_MONTH = SECONDS_PER_48_MONTHS / 48.0;
 
     // Binary calculator functions
 
     /**
      * Adds two binary values and returns and prints the result
+     * @param out - Output to print to
      * @param a - String representing a binary number
      * @param b - String representing a binary number
      * @return String - Binary sum
      */
-    private static String addBinary(String a, String b) {
-        return operation("+", a, b, "binary");
+    private static String addBinary(ConsoleOutput out, String a, String b) {
+        return printOperation(out, "+", a, b, "binary");
     }
 
     /**
      * Subtracts the first binary value by the second and returns and prints the result
+     * @param out - Output to print to
      * @param a - String representing a binary number
      * @param b - String representing a binary number
      * @return String - Binary difference
      */
-    private static String subtractBinary(String a, String b) {
-        return operation("-", a, b, "binary");
+    private static String subtractBinary(ConsoleOutput out, String a, String b) {
+        return printOperation(out, "-", a, b, "binary");
     }
 
     /**
      * Multiplies two binary values and returns and prints the result
+     * @param out - Output to print to
      * @param a - String representing a binary number
      * @param b - String representing a binary number
      * @return String - Binary product
      */
-    private static String multiplyBinary(String a, String b) {
-        return operation("*", a, b, "binary");
+    private static String multiplyBinary(ConsoleOutput out, String a, String b) {
+        return printOperation(out, "*", a, b, "binary");
     }
 
     /**
      * Divides the first binary number by the second and returns and prints the result
+     * @param out - Output to print to
      * @param a - String representing a binary number
      * @param b - String representing a binary number
      * @return String - Binary quotient
      */
-    private static String divideBinary(String a, String b) {
-        return operation("/", a, b, "binary");
+    private static String divideBinary(ConsoleOutput out, String a, String b) {
+        return printOperation(out, "/", a, b, "binary");
     }
 
     /**
@@ -70,6 +200,18 @@ public class Calculator {
      * @return String representation of a binary value
      */
     private static String getBinaryFromDecimal(int n) {
+        if (profiler == null) {
+            return getBinaryFromDecimalUnprofiled(n);
+        }
+        return profiled(PROFILE_GET_BINARY_FROM_DECIMAL, () -> getBinaryFromDecimalUnprofiled(n));
+    }
+
+    /**
+     * Does the work of getBinaryFromDecimal, which profiles the call while profiling is on
+     * @param n - A non-negative integer
+     * @return String representation of a binary value
+     */
+    private static String getBinaryFromDecimalUnprofiled(int n) {
         if (n == 0) {
             return "0";
         }
@@ -87,6 +229,18 @@ public class Calculator {
      * @return integer value of the given binary number
      */
     private static int getDecimalFromBinary(String binary) {
+        if (profiler == null) {
+            return getDecimalFromBinaryUnprofiled(binary);
+        }
+        return profiled(PROFILE_GET_DECIMAL_FROM_BINARY, () -> getDecimalFromBinaryUnprofiled(binary));
+    }
+
+    /**
+     * Does the work of getDecimalFromBinary, which profiles the call while profiling is on
+     * @param binary - String representation of a binary value
+     * @return integer value of the given binary number
+     */
+    private static int getDecimalFromBinaryUnprofiled(String binary) {
         validateBinaryInput(binary);
         int sum = 0;
         for (int i = 0; i < binary.length(); i++) {
@@ -117,42 +271,46 @@ public class Calculator {
 
     /**
      * Adds two hexadecimal values and prints the result
+     * @param out - Output to print to
      * @param a - String representing first hexadecimal value
      * @param b - String representing second hexadecimal value
      * @return String - Hexadecimal sum
      */
-    private static String addHex(String a, String b) {
-        return operation("+", a, b, "hexadecimal");
+    private static String addHex(ConsoleOutput out, String a, String b) {
+        return printOperation(out, "+", a, b, "hexadecimal");
     }
 
     /**
      * Subtracts the first hexadecimal value by the second and prints the result
+     * @param out - Output to print to
      * @param a - String representing first hexadecimal value
      * @param b - String representing second hexadecimal value
      * @return String - Hexadecimal difference
      */
-    private static String subtractHex(String a, String b) {
-        return operation("-", a, b, "hexadecimal");
+    private static String subtractHex(ConsoleOutput out, String a, String b) {
+        return printOperation(out, "-", a, b, "hexadecimal");
     }
 
     /**
      * Multiplies two hexadecimal values and prints the result
+     * @param out - Output to print to
      * @param a - String representing first hexadecimal value
      * @param b - String representing second hexadecimal value
      * @return String - Hexadecimal product
      */
-    private static String multiplyHex(String a, String b) {
-        return operation("*", a, b, "hexadecimal");
+    private static String multiplyHex(ConsoleOutput out, String a, String b) {
+        return printOperation(out, "*", a, b, "hexadecimal");
     }
 
     /**
      * Divides the first hexadecimal value by the second and prints the result
+     * @param out - Output to print to
      * @param a - String representing first hexadecimal value
      * @param b - String representing second hexadecimal value
      * @return String - Hexadecimal quotient
      */
-    private static String divideHex(String a, String b) {
-        return operation("/", a, b, "hexadecimal");
+    private static String divideHex(ConsoleOutput out, String a, String b) {
+        return printOperation(out, "/", a, b, "hexadecimal");
     }
 
     /**
@@ -182,6 +340,18 @@ public class Calculator {
      * @return String representation of hexadecimal value
      */
     private static String getHexFromDecimal(int n) {
+        if (profiler == null) {
+            return getHexFromDecimalUnprofiled(n);
+        }
+        return profiled(PROFILE_GET_HEX_FROM_DECIMAL, () -> getHexFromDecimalUnprofiled(n));
+    }
+
+    /**
+     * Does the work of getHexFromDecimal, which profiles the call while profiling is on
+     * @param n - Positive integer to convert
+     * @return String representation of hexadecimal value
+     */
+    private static String getHexFromDecimalUnprofiled(int n) {
         if (n == 0) {
             return "0";
         }
@@ -205,6 +375,18 @@ public class Calculator {
      * @return int - decimal value
      */
     private static int getDecimalFromHex(String hex) {
+        if (profiler == null) {
+            return getDecimalFromHexUnprofiled(hex);
+        }
+        return profiled(PROFILE_GET_DECIMAL_FROM_HEX, () -> getDecimalFromHexUnprofiled(hex));
+    }
+
+    /**
+     * Does the work of getDecimalFromHex, which profiles the call while profiling is on
+     * @param hex - String representation of hexadecimal value
+     * @return int - decimal value
+     */
+    private static int getDecimalFromHexUnprofiled(String hex) {
         if (hex == null) {
             throw new IllegalArgumentException("Cannot be null");
         }
@@ -232,37 +414,30 @@ public class Calculator {
     // Bandwidth calculator functions
 
     /**
-     * Converts the given data value and unit and converts it to each of the units:
+     * Converts the given data value and unit to each of the units:
      * "b", "kb", "mb", "gb", "tb", "B", "KB", "MB", "GB", and "TB"
-     * and prints the results and returns it as a list.
+     * and returns the results as a list. Each conversion is only computed and formatted when it is asked for.
+     * Use printSizeUnits to print all of them.
      * @param num - Value of data size
-     * @param unit - Unit of the data size value
-     * @return List of Strings - Values of num converted to all units
+     * @param unit - Unit of the data size
+     * @return SizeConversions - Values of num converted to all other units
+     */
+    private static SizeConversions convertSizeUnits(double num, String unit) {
+        return new SizeConversions(num, unit);
+    }
+
+    /**
+     * Prints the original value of the given conversions followed by its value in every other unit
+     * @param out - Output to print to
+     * @param conversions - Conversions returned by convertSizeUnits
      */
-    private static List<String> convertSizeUnits(double num, String unit) {
+    private static void printSizeUnits(ConsoleOutput out, SizeConversions conversions) {
         // Display as a whole number if possible
-        if (num == Math.floor(num)) {
-            System.out.println((long) num + " " + unit + " is equivalent to any of the following:");
-        } else {
-            System.out.println(num + " " + unit + " is equivalent to any of the following:");
-        }
-        List<String> results = new ArrayList<>();
-        // Use custom array to choose ordering of units from smallest to largest
-        String dataWithUnit;
-        for (String u : SIZE_UNITS) {
-            if (!u.equals(unit)) {
-                double converted = convertSizeUnit(unit, u, num);
-                // Display as a whole number if possible
-                if (converted == Math.floor(converted)) {
-                    dataWithUnit = (long) converted + " " + u;
-                } else {
-                    dataWithUnit = converted + " " + u;
-                }
-                results.add(dataWithUnit);
-                System.out.println(dataWithUnit);
-            }
+        out.print(conversions.getValue(), COMPACT_FORMAT)
+                .println(" " + conversions.getUnit() + " is equivalent to any of the following:");
+        for (String dataWithUnit : conversions) {
+            out.println(dataWithUnit);
         }
-        return results;
     }
 
     /**
@@ -274,9 +449,23 @@ public class Calculator {
      * @param num - Value of data size
      * @return double - value of num converted to the given unit
      */
-    private static double convertSizeUnit(String fromUnit, String toUnit, double num) {
-        long from = SIZE_UNIT_CONVERSIONS.get(fromUnit);
-        long to = SIZE_UNIT_CONVERSIONS.get(toUnit);
+    public static double convertSizeUnit(String fromUnit, String toUnit, double num) {
+        if (profiler == null) {
+            return convertSizeUnitUnprofiled(fromUnit, toUnit, num);
+        }
+        return profiled(PROFILE_CONVERT_SIZE_UNIT, () -> convertSizeUnitUnprofiled(fromUnit, toUnit, num));
+    }
+
+    /**
+     * Does the work of convertSizeUnit, which profiles the call while profiling is on
+     * @param fromUnit - Original unit of data size value
+     * @param toUnit - Unit to convert to
+     * @param num - Value of data size
+     * @return double - value of num converted to the given unit
+     */
+    private static double convertSizeUnitUnprofiled(String fromUnit, String toUnit, double num) {
+        long from = getSizeUnitFactor(fromUnit);
+        long to = getSizeUnitFactor(toUnit);
 
         return num * ((double) to / from);
     }
@@ -291,8 +480,8 @@ public class Calculator {
      * @return double - value of num converted into the given unit
      */
     public static double convertBandwidthUnit(String fromUnit, String toUnit, double num) {
-        long from = BANDWIDTH_UNIT_CONVERSIONS.get(fromUnit);
-        long to = BANDWIDTH_UNIT_CONVERSIONS.get(toUnit);
+        long from = getBandwidthUnitFactor(fromUnit);
+        long to = getBandwidthUnitFactor(toUnit);
 
         return num * ((double) to / from);
     }
@@ -307,8 +496,8 @@ public class Calculator {
      * @return double - value of the given time converted into the given unit
      */
     public static double convertTimeUnit(String fromUnit, String toUnit, double time) {
-        double from = TIME_UNIT_CONVERSIONS.get(fromUnit);
-        double to = TIME_UNIT_CONVERSIONS.get(toUnit);
+        double from = getTimeUnitFactor(fromUnit);
+        double to = getTimeUnitFactor(toUnit);
 
         return time * (to / from);
     }
@@ -323,33 +512,128 @@ public class Calculator {
      * @param bandwidthUnit - Unit of the bandwidth
      * @return String - load time
      */
-    private static String calculateLoadTime(double size, String sizeUnit, double bandwidth, String bandwidthUnit) {
+    public static String calculateLoadTime(double size, String sizeUnit, double bandwidth, String bandwidthUnit) {
+        if (profiler == null) {
+            return calculateLoadTimeUnprofiled(size, sizeUnit, bandwidth, bandwidthUnit);
+        }
+        return profiled(PROFILE_CALCULATE_LOAD_TIME, () -> calculateLoadTimeUnprofiled(size, sizeUnit, bandwidth, bandwidthUnit));
+    }
+
+    /**
+     * Does the work of calculateLoadTime, which profiles the call while profiling is on
+     * @param size - Value of the file size
+     * @param sizeUnit - Unit of the file size
+     * @param bandwidth - Value of the bandwidth
+     * @param bandwidthUnit - Unit of the bandwidth
+     * @return String - load time
+     */
+    private static String calculateLoadTimeUnprofiled(double size, String sizeUnit, double bandwidth, String bandwidthUnit) {
+        return formatLoadTime(calculateLoadTimeSeconds(size, sizeUnit, bandwidth, bandwidthUnit));
+    }
+
+    /**
+     * Calculates the upload/download time for the given file size and bandwidth, using the given network model for
+     * round trips, slow start, and packet overhead, and returns the result.
+     * size units: "b", "kb", "mb", "gb", "tb", "B", "KB", "MB", "GB", and "TB"
+     * bandwidth units: "bit/s", "Kbit/s", "Mbit/s", "Gbit/s", and "Tbit/s"
+     * @param size - Value of the file size
+     * @param sizeUnit - Unit of the file size
+     * @param bandwidth - Value of the bandwidth
+     * @param bandwidthUnit - Unit of the bandwidth
+     * @param model - Network model
+     * @return String - load time
+     */
+    static String calculateLoadTime(double size, String sizeUnit, double bandwidth, String bandwidthUnit, TransferModel model) {
+        return formatLoadTime(calculateLoadTimeSeconds(size, sizeUnit, bandwidth, bandwidthUnit, model));
+    }
+
+    /**
+     * Calculates the upload/download time for the given file size and bandwidth and returns it in seconds.
+     * size units: "b", "kb", "mb", "gb", "tb", "B", "KB", "MB", "GB", and "TB"
+     * bandwidth units: "bit/s", "Kbit/s", "Mbit/s", "Gbit/s", and "Tbit/s"
+     * @param size - Value of the file size
+     * @param sizeUnit - Unit of the file size
+     * @param bandwidth - Value of the bandwidth
+     * @param bandwidthUnit - Unit of the bandwidth
+     * @return double - load time in seconds
+     */
+    public static double calculateLoadTimeSeconds(double size, String sizeUnit, double bandwidth, String bandwidthUnit) {
+        if (profiler == null) {
+            return calculateLoadTimeSecondsUnprofiled(size, sizeUnit, bandwidth, bandwidthUnit);
+        }
+        return profiled(PROFILE_CALCULATE_LOAD_TIME_SECONDS, () -> calculateLoadTimeSecondsUnprofiled(size, sizeUnit, bandwidth, bandwidthUnit));
+    }
+
+    /**
+     * Does the work of calculateLoadTimeSeconds, which profiles the call while profiling is on
+     * @param size - Value of the file size
+     * @param sizeUnit - Unit of the file size
+     * @param bandwidth - Value of the bandwidth
+     * @param bandwidthUnit - Unit of the bandwidth
+     * @return double - load time in seconds
+     */
+    private static double calculateLoadTimeSecondsUnprofiled(double size, String sizeUnit, double bandwidth, String bandwidthUnit) {
         double sizeConverted = convertSizeUnit(sizeUnit, "MB", size);
         double bandwidthConverted = convertBandwidthUnit(bandwidthUnit, "Mbit/s", bandwidth);
         double loadTime = sizeConverted / convertSizeUnit("mb", "MB", bandwidthConverted);
+        OperationJournal j = journal;
+        if (j != null) {
+            j.recordCalculation(OperationJournal.KIND_LOAD_TIME, OperationJournal.indexOf(SIZE_UNITS, sizeUnit),
+                    OperationJournal.indexOf(BANDWIDTH_UNITS, bandwidthUnit), size, bandwidth, 0, loadTime, 0);
+        }
+        return loadTime;
+    }
+
+    /**
+     * Calculates the upload/download time for the given file size and bandwidth with the given network model and
+     * returns it in seconds.
+     * @param size - Value of the file size
+     * @param sizeUnit - Unit of the file size
+     * @param bandwidth - Value of the bandwidth
+     * @param bandwidthUnit - Unit of the bandwidth
+     * @param model - Network model
+     * @return double - load time in seconds
+     */
+    static double calculateLoadTimeSeconds(double size, String sizeUnit, double bandwidth, String bandwidthUnit, TransferModel model) {
+        if (model == null) {
+            throw new IllegalArgumentException("Cannot be null");
+        }
+        return model.seconds(size, sizeUnit, bandwidth, bandwidthUnit);
+    }
 
-        String timeString = "";
-        if ((int) loadTime >= 60) {
-            timeString = (loadTime % 60) + " seconds " + timeString;
-            loadTime /= 60; // go to minutes
-            timeString = (int) (loadTime % 60) + " minutes " + timeString;
-            loadTime /= 60; // go to hours
+    /**
+     * Formats a load time as days, hours, minutes, and seconds.
+     * Times under a minute give an empty String.
+     * @param loadTime - Load time in seconds
+     * @return String - load time
+     */
+    private static String formatLoadTime(double loadTime) {
+        if ((int) loadTime < 60) {
+            return "";
+        }
+        double seconds = loadTime % 60;
+        loadTime /= 60; // go to minutes
+        int minutes = (int) (loadTime % 60);
+        loadTime /= 60; // go to hours
 
-            if ((int) loadTime > 0) {
-                timeString = (int) loadTime + " hours " + timeString;
-                loadTime /= 24; // go to days
+        StringBuilder timeString = new StringBuilder(48);
+        if ((int) loadTime > 0) {
+            int hours = (int) loadTime;
+            loadTime /= 24; // go to days
 
-                if ((int) loadTime > 0) {
-                    timeString = (int) loadTime + " days " + timeString;
-                }
+            if ((int) loadTime > 0) {
+                timeString.append((int) loadTime).append(" days ");
             }
+            timeString.append(hours).append(" hours ");
         }
-        return timeString.strip();
+        timeString.append(minutes).append(" minutes ");
+        LOAD_TIME_FORMAT.get().append(timeString, seconds).append(" seconds");
+        return timeString.toString();
     }
 
     /**
      * Calculates the bandwidth needed for a website given the average page views per time unit, the average page size,
-     * and the redundancy factor (a positive number). Prints out the results.
+     * and the redundancy factor (a positive number).
      * size units: "b", "kb", "mb", "gb", "tb", "B", "KB", "MB", "GB", and "TB"
      * time units: "seconds", "minutes", "hours", "days", and "months"
      * @param views - Average number of views of the page
@@ -360,7 +644,23 @@ public class Calculator {
      * @return Map of the results with keys:
      * "bandwidthSeconds", "bandwidthMonths", "redundancy", "bandwidthSecondsRedundancy", "bandwidthMonthsRedundancy"
      */
-    private static Map<String, Double> calculateWebsiteBandwidth(double views, String timeUnit, double pageSize, String sizeUnit, double redundancy) {
+    public static Map<String, Double> calculateWebsiteBandwidth(double views, String timeUnit, double pageSize, String sizeUnit, double redundancy) {
+        if (profiler == null) {
+            return calculateWebsiteBandwidthUnprofiled(views, timeUnit, pageSize, sizeUnit, redundancy);
+        }
+        return profiled(PROFILE_CALCULATE_WEBSITE_BANDWIDTH, () -> calculateWebsiteBandwidthUnprofiled(views, timeUnit, pageSize, sizeUnit, redundancy));
+    }
+
+    /**
+     * Does the work of calculateWebsiteBandwidth, which profiles the call while profiling is on
+     * @param views - Average number of views of the page
+     * @param timeUnit - Time unit for the average views
+     * @param pageSize - Value of the page data size
+     * @param sizeUnit - Unit fo the page data size
+     * @param redundancy - The redundancy factor
+     * @return Map of the results, with the keys listed on calculateWebsiteBandwidth
+     */
+    private static Map<String, Double> calculateWebsiteBandwidthUnprofiled(double views, String timeUnit, double pageSize, String sizeUnit, double redundancy) {
         double months = convertTimeUnit(timeUnit, "months", 1);
         double viewsPerMonth = views / months;
         double actualBandwidthMonths = convertSizeUnit(sizeUnit, "GB", pageSize) * viewsPerMonth;
@@ -368,20 +668,37 @@ public class Calculator {
         double secondsInMonth = convertTimeUnit("months", "seconds", 1);
         actualBandwidthSeconds /= secondsInMonth;
 
-        System.out.println("Actual bandwidth needed is " + actualBandwidthSeconds + " Mbit/s or " + actualBandwidthMonths + " GB per month.");
-        if (redundancy != 1) {
-            System.out.println("With redundancy factor " + redundancy + ", the bandwidth needed is " + actualBandwidthSeconds * redundancy + " Mbit/s or " + actualBandwidthMonths * redundancy + " GB per month.");
-        }
-
         Map<String, Double> results = new HashMap<>();
         results.put("bandwidthSeconds", actualBandwidthSeconds);
         results.put("bandwidthMonths", actualBandwidthMonths);
         results.put("redundancy", redundancy);
         results.put("bandwidthSecondsRedundancy", actualBandwidthSeconds * redundancy);
         results.put("bandwidthMonthsRedundancy", actualBandwidthMonths * redundancy);
+        OperationJournal j = journal;
+        if (j != null) {
+            j.recordCalculation(OperationJournal.KIND_WEBSITE_BANDWIDTH, OperationJournal.indexOf(TIME_UNITS, timeUnit),
+                    OperationJournal.indexOf(SIZE_UNITS, sizeUnit), views, pageSize, redundancy,
+                    actualBandwidthSeconds, actualBandwidthMonths);
+        }
         return results;
     }
 
+    /**
+     * Prints the results of calculateWebsiteBandwidth
+     * @param out - Output to print to
+     * @param results - Map returned by calculateWebsiteBandwidth
+     */
+    private static void printWebsiteBandwidth(ConsoleOutput out, Map<String, Double> results) {
+        out.print("Actual bandwidth needed is ").print(results.get("bandwidthSeconds"))
+                .print(" Mbit/s or ").print(results.get("bandwidthMonths")).println(" GB per month.");
+        double redundancy = results.get("redundancy");
+        if (redundancy != 1) {
+            out.print("With redundancy factor ").print(redundancy)
+                    .print(", the bandwidth needed is ").print(results.get("bandwidthSecondsRedundancy"))
+                    .print(" Mbit/s or ").print(results.get("bandwidthMonthsRedundancy")).println(" GB per month.");
+        }
+    }
+
     /**
      * Converts the given monthly usage to the given bandwidth unit and returns the result
      * size units: "b", "kb", "mb", "gb", "tb", "B", "KB", "MB", "GB", and "TB"
@@ -391,10 +708,29 @@ public class Calculator {
      * @param bandwidthUnit - Bandwidth unit to convert to
      * @return double - Bandwidth value
      */
-    private static double convertUsageToBandwidth(double usage, String sizeUnit, String bandwidthUnit) {
+    public static double convertUsageToBandwidth(double usage, String sizeUnit, String bandwidthUnit) {
+        if (profiler == null) {
+            return convertUsageToBandwidthUnprofiled(usage, sizeUnit, bandwidthUnit);
+        }
+        return profiled(PROFILE_CONVERT_USAGE_TO_BANDWIDTH, () -> convertUsageToBandwidthUnprofiled(usage, sizeUnit, bandwidthUnit));
+    }
+
+    /**
+     * Does the work of convertUsageToBandwidth, which profiles the call while profiling is on
+     * @param usage - Value of monthly data usage
+     * @param sizeUnit - Data unit of monthly usage
+     * @param bandwidthUnit - Bandwidth unit to convert to
+     * @return double - Bandwidth value
+     */
+    private static double convertUsageToBandwidthUnprofiled(double usage, String sizeUnit, String bandwidthUnit) {
         String bandwidthUnitAsSize = getBandwidthUnitAsSizeUnit(bandwidthUnit);
-        usage /= convertTimeUnit("months", "seconds", 1);
-        return convertSizeUnit(sizeUnit, bandwidthUnitAsSize, usage);
+        double bandwidth = convertSizeUnit(sizeUnit, bandwidthUnitAsSize, usage / convertTimeUnit("months", "seconds", 1));
+        OperationJournal j = journal;
+        if (j != null) {
+            j.recordCalculation(OperationJournal.KIND_USAGE_TO_BANDWIDTH, OperationJournal.indexOf(SIZE_UNITS, sizeUnit),
+                    OperationJournal.indexOf(BANDWIDTH_UNITS, bandwidthUnit), usage, 0, 0, bandwidth, 0);
+        }
+        return bandwidth;
     }
 
     /**
@@ -406,10 +742,30 @@ public class Calculator {
      * @param sizeUnit - Data size unit to convert to
      * @return double - Bandwidth value
      */
-    private static double convertBandwidthToUsage(double bandwidth, String bandwidthUnit, String sizeUnit) {
+    public static double convertBandwidthToUsage(double bandwidth, String bandwidthUnit, String sizeUnit) {
+        if (profiler == null) {
+            return convertBandwidthToUsageUnprofiled(bandwidth, bandwidthUnit, sizeUnit);
+        }
+        return profiled(PROFILE_CONVERT_BANDWIDTH_TO_USAGE, () -> convertBandwidthToUsageUnprofiled(bandwidth, bandwidthUnit, sizeUnit));
+    }
+
+    /**
+     * Does the work of convertBandwidthToUsage, which profiles the call while profiling is on
+     * @param bandwidth - Value of the bandwidth
+     * @param bandwidthUnit - Unit of the bandwidth
+     * @param sizeUnit - Data size unit to convert to
+     * @return double - Bandwidth value
+     */
+    private static double convertBandwidthToUsageUnprofiled(double bandwidth, String bandwidthUnit, String sizeUnit) {
         String bandwidthUnitAsSize = getBandwidthUnitAsSizeUnit(bandwidthUnit);
-        bandwidth /= convertTimeUnit("seconds", "months", 1);
-        return convertSizeUnit(bandwidthUnitAsSize, sizeUnit, bandwidth);
+        double usage = convertSizeUnit(bandwidthUnitAsSize, sizeUnit, bandwidth / convertTimeUnit("seconds", "months", 1));
+        OperationJournal j = journal;
+        if (j != null) {
+            j.recordCalculation(OperationJournal.KIND_BANDWIDTH_TO_USAGE,
+                    OperationJournal.indexOf(BANDWIDTH_UNITS, bandwidthUnit), OperationJournal.indexOf(SIZE_UNITS, sizeUnit),
+                    bandwidth, 0, 0, usage, 0);
+        }
+        return usage;
     }
 
     /**
@@ -418,7 +774,7 @@ public class Calculator {
      * @param bandwidthUnit - Unit of the bandwidth
      * @return String - data unit portion of the bandwidth unit
      */
-    private static String getBandwidthUnitAsSizeUnit(String bandwidthUnit) {
+    static String getBandwidthUnitAsSizeUnit(String bandwidthUnit) {
         if (bandwidthUnit.equals("bit/s")) {
             return "b";
         } else {
@@ -427,301 +783,1314 @@ public class Calculator {
     }
 
     /**
-     * Initializes the unit conversion tables for data size, bandwidth, and time unit conversions
+     * Looks up the conversion factor for the given data size unit (how many of the unit make up one terabyte).
+     * Throws exception if the unit is not a valid data size unit.
+     * @param unit - Data size unit: "b", "kb", "mb", "gb", "tb", "B", "KB", "MB", "GB", or "TB"
+     * @return long - Conversion factor of the unit
      */
-    private  static void initializeUnitConversions() {
-        initializeSizeUnitConversions();
-        initializeBandwidthUnitConversions();
-        initializeTimeUnitConversions();
+    static long getSizeUnitFactor(String unit) {
+        if (unit == null) {
+            throw new IllegalArgumentException("Cannot be null");
+        }
+        return switch (unit) {
+            case "TB" -> TB_PER_TB;
+            case "GB" -> GB_PER_TB;
+            case "MB" -> MB_PER_TB;
+            case "KB" -> KB_PER_TB;
+            case "B" -> B_PER_TB;
+            case "tb" -> TERABITS_PER_TB;
+            case "gb" -> GIGABITS_PER_TB;
+            case "mb" -> MEGABITS_PER_TB;
+            case "kb" -> KILOBITS_PER_TB;
+            case "b" -> BITS_PER_TB;
+            default -> throw new IllegalArgumentException("Not a valid data size unit");
+        };
     }
 
     /**
-     * Initializes the unit conversion tables for data size unit conversions
+     * Looks up the conversion factor for the given bandwidth unit (how many of the unit make up one Tbit/s).
+     * Throws exception if the unit is not a valid bandwidth unit.
+     * @param unit - Bandwidth unit: "bit/s", "Kbit/s", "Mbit/s", "Gbit/s", or "Tbit/s"
+     * @return long - Conversion factor of the unit
      */
-    private static void initializeSizeUnitConversions() {
-        SIZE_UNIT_CONVERSIONS.put("TB", (long) 1);
-        SIZE_UNIT_CONVERSIONS.put("GB", (long) 1000);
-        SIZE_UNIT_CONVERSIONS.put("MB", 1000 * SIZE_UNIT_CONVERSIONS.get("GB"));
-        SIZE_UNIT_CONVERSIONS.put("KB", 1000 * SIZE_UNIT_CONVERSIONS.get("MB"));
-        SIZE_UNIT_CONVERSIONS.put("B", 1000 * SIZE_UNIT_CONVERSIONS.get("KB"));
-        SIZE_UNIT_CONVERSIONS.put("tb", 8 * SIZE_UNIT_CONVERSIONS.get("TB"));
-        SIZE_UNIT_CONVERSIONS.put("gb", 8 * SIZE_UNIT_CONVERSIONS.get("GB"));
-        SIZE_UNIT_CONVERSIONS.put("mb", 8 * SIZE_UNIT_CONVERSIONS.get("MB"));
-        SIZE_UNIT_CONVERSIONS.put("kb", 8 * SIZE_UNIT_CONVERSIONS.get("KB"));
-        SIZE_UNIT_CONVERSIONS.put("b", 8 * SIZE_UNIT_CONVERSIONS.get("B"));
+    static long getBandwidthUnitFactor(String unit) {
+        if (unit == null) {
+            throw new IllegalArgumentException("Cannot be null");
+        }
+        return switch (unit) {
+            case "Tbit/s" -> TBIT_PER_TBIT;
+            case "Gbit/s" -> GBIT_PER_TBIT;
+            case "Mbit/s" -> MBIT_PER_TBIT;
+            case "Kbit/s" -> KBIT_PER_TBIT;
+            case "bit/s" -> BIT_PER_TBIT;
+            default -> throw new IllegalArgumentException("Not a valid bandwidth unit");
+        };
     }
 
     /**
-     * Initializes the unit conversion tables for bandwidth unit conversions
+     * Looks up the exact conversion factor for the given time unit (how many of the unit make up 48 months).
+     * Throws exception if the unit is not a valid time unit.
+     * @param unit - Time unit: "seconds", "minutes", "hours", "days", or "months"
+     * @return long - Conversion factor of the unit
      */
-    private static void initializeBandwidthUnitConversions() {
-        BANDWIDTH_UNIT_CONVERSIONS.put("Tbit/s", (long) 1);
-        BANDWIDTH_UNIT_CONVERSIONS.put("Gbit/s", (long) 1000);
-        BANDWIDTH_UNIT_CONVERSIONS.put("Mbit/s", 1000 * BANDWIDTH_UNIT_CONVERSIONS.get("Gbit/s"));
-        BANDWIDTH_UNIT_CONVERSIONS.put("Kbit/s", 1000 * BANDWIDTH_UNIT_CONVERSIONS.get("Mbit/s"));
-        BANDWIDTH_UNIT_CONVERSIONS.put("bit/s", 1000 * BANDWIDTH_UNIT_CONVERSIONS.get("Kbit/s"));
+    static long getExactTimeUnitFactor(String unit) {
+        if (unit == null) {
+            throw new IllegalArgumentException("Cannot be null");
+        }
+        return switch (unit) {
+            case "months" -> MONTHS_PER_48_MONTHS;
+            case "days" -> DAYS_PER_48_MONTHS;
+            case "hours" -> HOURS_PER_48_MONTHS;
+            case "minutes" -> MINUTES_PER_48_MONTHS;
+            case "seconds" -> SECONDS_PER_48_MONTHS;
+            default -> throw new IllegalArgumentException("Not a valid time unit");
+        };
     }
 
     /**
-     * Initializes the unit conversion tables for time unit conversions
+     * Looks up the conversion factor for the given time unit (how many of the unit make up one month).
+     * Throws exception if the unit is not a valid time unit.
+     * @param unit - Time unit: "seconds", "minutes", "hours", "days", or "months"
+     * @return double - Conversion factor of the unit
      */
-    private static void initializeTimeUnitConversions() {
-        // seconds, minutes, hours, days
-        TIME_UNIT_CONVERSIONS.put("months", 1.0);
-        TIME_UNIT_CONVERSIONS.put("days", (365.25 / 12.0));
-        TIME_UNIT_CONVERSIONS.put("hours", 24 * TIME_UNIT_CONVERSIONS.get("days"));
-        TIME_UNIT_CONVERSIONS.put("minutes", 60 * TIME_UNIT_CONVERSIONS.get("hours"));
-        TIME_UNIT_CONVERSIONS.put("seconds", 60 * TIME_UNIT_CONVERSIONS.get("minutes"));
+    private static double getTimeUnitFactor(String unit) {
+        if (unit == null) {
+            throw new IllegalArgumentException("Cannot be null");
+        }
+        return switch (unit) {
+            case "months" -> MONTHS_PER_MONTH;
+            case "days" -> DAYS_PER_MONTH;
+            case "hours" -> HOURS_PER_MONTH;
+            case "minutes" -> MINUTES_PER_MONTH;
+            case "seconds" -> SECONDS_PER_MONTH;
+            default -> throw new IllegalArgumentException("Not a valid time unit");
+        };
     }
 
     // Test methods
 
     /**
-     * Asserts that the actual Object is equal to the expected Object and prints a message of the result
-     * @param actual - Actual object
-     * @param expected - Expected object
-     */
-    private static void assertEquals(Object actual, Object expected) {
-        if (actual.equals(expected)) {
-            System.out.println("TEST PASSED");
-        } else {
-            System.out.println("TEST FAILED");
-            System.out.println("Expected value: " + expected);
-            System.out.println("But received actual value: " + actual);
-        }
-    }
-
-    /**
-     * Tests all functions in the binary calculator and prints the results.
+     * Tests all functions in the binary calculator.
      * Expected values taken from https://www.calculator.net/binary-calculator.html
+     * @param check - Runs the tests, printing each step or timing them
      */
-    private static void testBinaryOperations() {
-        System.out.println("Binary operations tests:");
-        System.out.println("-----Add function-----");
-        assertEquals(addBinary("10101010", "11001100"), "101110110");
-        System.out.println();
+    private static void testBinaryOperations(SelfCheck check) {
+        check.suite("Binary operations");
+        check.test("Add function", (out, test) -> {
+            test.assertEquals(addBinary(out, "10101010", "11001100"), "101110110");
+        });
+
+        check.test("Subtract function", (out, test) -> {
+            test.assertEquals(subtractBinary(out, "10101010", "11001100"), "-100010");
+        });
+
+        check.test("Multiply function", (out, test) -> {
+            test.assertEquals(multiplyBinary(out, "10101010", "11001100"), "1000011101111000");
+        });
+
+        check.test("Divide function", (out, test) -> {
+            // Answer is "0 Remainder: 10101010"
+            test.assertEquals(divideBinary(out, "10101010", "11001100"), "0");
+        });
 
-        System.out.println("-----Subtract function-----");
-        assertEquals(subtractBinary("10101010", "11001100"), "-100010");
-        System.out.println();
+        check.test("Binary to decimal function", (out, test) -> {
+            int actualDecimal = getDecimalFromBinary("10101010");
+            out.println("Binary value: 10101010");
+            out.println("Decimal Value: " + actualDecimal);
+            test.assertEquals(actualDecimal, 170);
+        });
 
-        System.out.println("-----Multiply function-----");
-        assertEquals(multiplyBinary("10101010", "11001100"), "1000011101111000");
-        System.out.println();
+        check.test("Decimal to binary function", (out, test) -> {
+            String actualBinary = getBinaryFromDecimal(170);
+            out.println("Decimal value: 170");
+            out.println("Binary Value: " + actualBinary);
+            test.assertEquals(actualBinary, "10101010");
+        });
 
-        System.out.println("-----Divide function-----");
-        // Answer is "0 Remainder: 10101010"
-        assertEquals(divideBinary("10101010", "11001100"), "0");
-        System.out.println();
+        check.test("Large decimal to binary function", (out, test) -> {
+            // 2^100
+            String actualBinary = RadixConverter.convert("1267650600228229401496703205376", 10, 2);
+            out.println("Decimal value: 1267650600228229401496703205376");
+            out.println("Binary value: " + actualBinary);
+            test.assertEquals(actualBinary, "1" + "0".repeat(100));
+            test.assertEquals(RadixConverter.convert(actualBinary, 2, 10), "1267650600228229401496703205376");
+            // 10^1000 - 1 is a thousand nines
+            String nines = "9".repeat(1000);
+            test.assertEquals(RadixConverter.convert(RadixConverter.convert(nines, 10, 2), 2, 10), nines);
+        });
 
-        System.out.println("-----Binary to decimal function-----");
-        int actualDecimal = getDecimalFromBinary("10101010");
-        System.out.println("Binary value: 10101010");
-        System.out.println("Decimal Value: " + actualDecimal);
-        assertEquals(actualDecimal, 170);
-        System.out.println();
+        check.test("Binary to hexadecimal function", (out, test) -> {
+            BinaryHexTranscoder number = new BinaryHexTranscoder(BinaryHexTranscoder.NUMBER, 0, ' ');
+            String actualHex = number.binaryToHex("0001010101111100110111101111000100100011010001010110011110001001");
+            out.println("Binary value: 0001010101111100110111101111000100100011010001010110011110001001");
+            out.println("Hexadecimal value: " + actualHex);
+            test.assertEquals(actualHex, "157CDEF123456789");
+            test.assertEquals(number.binaryToHex("1 0101_1111"), "15F");
+            test.assertEquals(new BinaryHexTranscoder(BinaryHexTranscoder.STREAM, 2, ' ').binaryToHex("0001010111"),
+                    "15 C");
+        });
 
-        System.out.println("-----Decimal to binary function-----");
-        String actualBinary = getBinaryFromDecimal(170);
-        System.out.println("Decimal value: 170");
-        System.out.println("Binary Value: " + actualBinary);
-        assertEquals(actualBinary, "10101010");
-        System.out.println();
+        check.test("Fixed-width function", (out, test) -> {
+            long fixedSum = FixedWidthArithmetic.apply("+", FixedWidthArithmetic.parse("01111111", 2, 8), 1, 8);
+            out.println("8-bit value: 01111111 + 00000001 = " + FixedWidthArithmetic.format(fixedSum, 2, 8));
+            test.assertEquals(FixedWidthArithmetic.format(fixedSum, 2, 8), "10000000");
+            test.assertEquals(FixedWidthArithmetic.describeFlags(FixedWidthArithmetic.flags("+", 127, 1, fixedSum, 8)), "V N");
+            long fixedShift = FixedWidthArithmetic.apply(">>", FixedWidthArithmetic.parse("10010000", 2, 8), 2, 8);
+            out.println("8-bit value: 10010000 >> 2 = " + FixedWidthArithmetic.format(fixedShift, 2, 8));
+            test.assertEquals(FixedWidthArithmetic.format(fixedShift, 2, 8), "11100100");
+        });
+
+        check.test("Bitmap file function", (out, test) -> {
+            out.println("Unequal random files in 64 KB chunks against one byte at a time, for every operator");
+            test.assertEquals(countBitmapMismatches(200_003, 131_077, 1 << 16), 0L);
+            test.assertEquals(countBitmapMismatches(131_077, 200_003, 1 << 16), 0L);
+        });
+
+        check.test("Prefix trie function", (out, test) -> {
+            PrefixTrie prefixes = new PrefixTrie();
+            for (String prefix : new String[] {"10.0.0.0/25", "10.0.0.128/25", "10.0.1.0/24", "10.0.0.5",
+                    "192.168.0.0/16", "192.168.1.0/24", "224.0.0.0/4", "2001:db8::/33", "2001:db8:8000::/33",
+                    "2001:db8:1::ffff/128"}) {
+                prefixes.add(prefix);
+            }
+            List<String> aggregated = new ArrayList<>();
+            prefixes.aggregate().forEach(aggregated::add);
+            out.println("Aggregated: " + aggregated);
+            test.assertEquals(aggregated.toString(), "[10.0.0.0/23, 192.168.0.0/16, 224.0.0.0/4, 2001:db8::/32]");
+            out.println("Longest match for 10.0.1.7: " + prefixes.lookup("10.0.1.7"));
+            test.assertEquals(prefixes.lookup("10.0.1.7"), "10.0.1.0/24");
+            test.assertEquals(prefixes.lookup("10.0.0.5"), "10.0.0.5/32");
+            test.assertEquals(prefixes.lookupIPv4(0x0A000107), 24);
+            test.assertEquals(prefixes.lookupIPv4(0xEF010203), 4);
+            test.assertEquals(prefixes.lookup("11.0.0.0") == null, true);
+            test.assertEquals(prefixes.lookup("2001:DB8:8000::1"), "2001:db8:8000::/33");
+            test.assertEquals(prefixes.lookup("2001:db8:1:0:0:0:0:ffff"), "2001:db8:1::ffff/128");
+
+            PrefixTrie whole = new PrefixTrie();
+            whole.add("10.0.0.0/8");
+            PrefixTrie taken = new PrefixTrie();
+            taken.add("10.128.0.0/9");
+            taken.add("10.0.0.0/10");
+            List<String> difference = new ArrayList<>();
+            whole.difference(taken).forEach(difference::add);
+            out.println("10.0.0.0/8 without 10.128.0.0/9 and 10.0.0.0/10: " + difference);
+            test.assertEquals(difference.toString(), "[10.64.0.0/10]");
+
+            out.println("Random overlapping prefixes against checking every prefix");
+            test.assertEquals(countPrefixTrieMismatches(2000, 5000), 0L);
+        });
     }
 
     /**
-     * Tests all functions in the hexadecimal calculator and prints the results.
+     * Tests all functions in the hexadecimal calculator.
      * Expected values taken from https://www.calculator.net/hex-calculator.html
+     * @param check - Runs the tests, printing each step or timing them
      */
-    private static void testHexOperations() {
-        System.out.println("Hexadecimal operations tests:");
-        System.out.println("-----Add function-----");
-        assertEquals(addHex("8AB", "B78"), "1423");
-        System.out.println();
+    private static void testHexOperations(SelfCheck check) {
+        check.suite("Hexadecimal operations");
+        check.test("Add function", (out, test) -> {
+            test.assertEquals(addHex(out, "8AB", "B78"), "1423");
+        });
+
+        check.test("Subtract function", (out, test) -> {
+            test.assertEquals(subtractHex(out, "8AB", "B78"), "-2CD");
+        });
+
+        check.test("Multiply function", (out, test) -> {
+            test.assertEquals(multiplyHex(out, "8AB", "B78"), "636928");
+        });
+
+        check.test("Divide function", (out, test) -> {
+            test.assertEquals(divideHex(out, "DAC", "23"), "64");
+        });
 
-        System.out.println("-----Subtract function-----");
-        assertEquals(subtractHex("8AB", "B78"), "-2CD");
-        System.out.println();
+        check.test("Hexadecimal to decimal function", (out, test) -> {
+            int actualDecimal = getDecimalFromHex("DAD");
+            out.println("Hexadecimal value: DAD");
+            out.println("Decimal Value: " + actualDecimal);
+            test.assertEquals(actualDecimal, 3501);
+        });
 
-        System.out.println("-----Multiply function-----");
-        assertEquals(multiplyHex("8AB", "B78"), "636928");
-        System.out.println();
+        check.test("Decimal to hexadecimal function", (out, test) -> {
+            String actualHex = "" + getHexFromDecimal(170);
+            out.println("Decimal Value: 170");
+            out.println("Hexadecimal value: " + actualHex);
+            test.assertEquals(actualHex, "AA");
+        });
 
-        System.out.println("-----Divide function-----");
-        assertEquals(divideHex("DAC", "23"), "64");
-        System.out.println();
+        check.test("Large decimal to hexadecimal function", (out, test) -> {
+            // 2^64 - 1 and -(2^100)
+            String actualHex = RadixConverter.convert("18446744073709551615", 10, 16);
+            out.println("Decimal value: 18446744073709551615");
+            out.println("Hexadecimal value: " + actualHex);
+            test.assertEquals(actualHex, "FFFFFFFFFFFFFFFF");
+            test.assertEquals(RadixConverter.convert("-10000000000000000000000000", 16, 10),
+                    "-1267650600228229401496703205376");
+        });
 
-        System.out.println("-----Hexadecimal to decimal function-----");
-        int actualDecimal = getDecimalFromHex("DAD");
-        System.out.println("Hexadecimal value: DAD");
-        System.out.println("Decimal Value: " + actualDecimal);
-        assertEquals(actualDecimal, 3501);
-        System.out.println();
+        check.test("Hexadecimal to binary function", (out, test) -> {
+            BinaryHexTranscoder number = new BinaryHexTranscoder(BinaryHexTranscoder.NUMBER, 0, ' ');
+            String actualBinary = number.hexToBinary("0DAD");
+            out.println("Hexadecimal value: 0DAD");
+            out.println("Binary value: " + actualBinary);
+            test.assertEquals(actualBinary, "110110101101");
+            test.assertEquals(new BinaryHexTranscoder(BinaryHexTranscoder.STREAM, 4, ' ').hexToBinary("0dad"),
+                    "0000 1101 1010 1101");
+        });
 
-        System.out.println("-----Decimal to hexadecimal function-----");
-        String actualHex = "" + getHexFromDecimal(170);
-        System.out.println("Decimal Value: " + actualDecimal);
-        System.out.println("Hexadecimal value: AA");
-        assertEquals(actualHex, "AA");
-        System.out.println();
+        check.test("Fixed-width function", (out, test) -> {
+            long fixedRotate = FixedWidthArithmetic.apply("rol", FixedWidthArithmetic.parse("80000001", 16, 32), 4, 32);
+            out.println("32-bit value: 80000001 rol 4 = " + FixedWidthArithmetic.format(fixedRotate, 16, 32));
+            test.assertEquals(FixedWidthArithmetic.format(fixedRotate, 16, 32), "00000018");
+            long fixedDifference = FixedWidthArithmetic.apply("-", 0, 1, 16);
+            out.println("16-bit value: 0000 - 0001 = " + FixedWidthArithmetic.format(fixedDifference, 16, 16));
+            test.assertEquals(FixedWidthArithmetic.format(fixedDifference, 16, 16), "FFFF");
+            test.assertEquals(FixedWidthArithmetic.describeFlags(FixedWidthArithmetic.flags("-", 0, 1, fixedDifference, 16)), "C N");
+            test.assertEquals(FixedWidthArithmetic.apply("clz", 1, 0, 16), 15L);
+            test.assertEquals(FixedWidthArithmetic.parse("-80", 16, 8), -128L);
+            test.assertEquals(FixedWidthArithmetic.parse("FF", 16, 8), -1L);
+            test.assertEquals(FixedWidthArithmetic.isValid("-FF", 16, 8), false);
+            test.assertEquals(FixedWidthArithmetic.isValid("-81", 16, 8), false);
+            test.assertEquals(FixedWidthArithmetic.isValid("-8000000000000000", 16, 64), true);
+        });
+
+        check.test("Word file arithmetic function", (out, test) -> {
+            out.println("RFC 1071 example: 16-bit big-endian words 0001 F203 F4F5 F6F7");
+            WordFileArithmetic example = calculateWordFile(new byte[] {0x00, 0x01, (byte) 0xF2, 0x03, (byte) 0xF4,
+                    (byte) 0xF5, (byte) 0xF6, (byte) 0xF7}, 16, WordFileArithmetic.BIG_ENDIAN, 8);
+            out.println("Sum: " + example.formatFullSum() + ", checksum: "
+                    + example.format(example.getOnesComplementChecksum()));
+            test.assertEquals(example.formatFullSum(), "2DDF0");
+            test.assertEquals(example.format(example.getOnesComplementChecksum()), "220D");
+
+            out.println("Odd-sized random file in 4 KB chunks against one word at a time");
+            test.assertEquals(countWordFileMismatches(100_003, 4096), 0L);
+        });
     }
 
     /**
-     * Tests all functions in the bandwidth calculator and prints the results.
+     * Tests all functions in the bandwidth calculator.
      * Expected values are taken from https://www.calculator.net/bandwidth-calculator.html
+     * @param check - Runs the tests, printing each step or timing them
      */
-    private static void testBandwidthOperations() {
-        System.out.println("Bandwidth operations tests:");
-        System.out.println("-----Convert unit function-----");
-        List<String> unitConversions = convertSizeUnits(500, "MB");
-        assertEquals(
-                unitConversions,
-                Arrays.asList(
-                        "4000000000 b",
-                        "4000000 kb",
-                        "4000 mb",
-                        "4 gb",
-                        "0.004 tb",
-                        "500000000 B",
-                        "500000 KB",
-                        "0.5 GB",
-                        "5.0E-4 TB"
-                )
-        );
-        System.out.println();
-
-        System.out.println("-----Calculate download/upload time function-----");
-        String loadTime = calculateLoadTime(12567, "MB",  3.2, "Mbit/s");
-        System.out.println("Download or upload time needed is: ~" + loadTime);
-        assertEquals(loadTime, "8 hours 43 minutes 37.5 seconds");
-        System.out.println();
-
-        System.out.println("-----Calculate website bandwidth function-----");
-        Map<String, Double> actualWebBandwidth = calculateWebsiteBandwidth(5000, "days", 500, "KB", 2);
-        Map<String, Double> expectedWebBandwidth = new HashMap<>();
-        // Note: extended repeating expected value from online calc
-        expectedWebBandwidth.put("bandwidthSeconds", 0.23148148148148148);
-        expectedWebBandwidth.put("bandwidthMonths", 76.09375);
-        expectedWebBandwidth.put("redundancy", 2.0);
-        // Note: extended repeating expected value from online calc
-        expectedWebBandwidth.put("bandwidthSecondsRedundancy", 0.46296296296296297);
-        expectedWebBandwidth.put("bandwidthMonthsRedundancy", 152.1875);
-        assertEquals(actualWebBandwidth, expectedWebBandwidth);
-        System.out.println();
-
-        System.out.println("-----Calculate monthly usage to bandwidth function-----");
-        double actualBandwidth = convertUsageToBandwidth(1000.0, "GB", "Mbit/s");
-        System.out.println("Monthly usage: 1000 GB");
-        System.out.println("Bandwidth: " + actualBandwidth);
-        assertEquals(actualBandwidth, 3.042056430146779); // rounded expected value from online calc
-        System.out.println();
-
-        System.out.println("-----Calculate bandwidth to monthly usage function-----");
-        double actualUsage = convertBandwidthToUsage(1000, "Mbit/s", "GB");
-        System.out.println("Bandwidth: 1000 Mbit/s");
-        System.out.println("Monthly usage: " + actualUsage);
-        assertEquals(actualUsage, 328725.0);
-        System.out.println();
-    }
+    private static void testBandwidthOperations(SelfCheck check) {
+        check.suite("Bandwidth operations");
+        check.test("Convert unit function", (out, test) -> {
+            SizeConversions unitConversions = convertSizeUnits(500, "MB");
+            printSizeUnits(out, unitConversions);
+            test.assertEquals(
+                    unitConversions,
+                    Arrays.asList(
+                            "4000000000 b",
+                            "4000000 kb",
+                            "4000 mb",
+                            "4 gb",
+                            "0.004 tb",
+                            "500000000 B",
+                            "500000 KB",
+                            "0.5 GB",
+                            "5.0E-4 TB"
+                    )
+            );
+        });
 
-    // Helper methods
+        check.test("Convert CSV file function", (out, test) -> {
+            out.println("Rows in 1 KB chunks on 4 threads, with invalid rows and a row longer than a chunk");
+            test.assertEquals(countCsvMismatches(5000, 1024), 0L);
+        });
 
-    /**
-     * Performs a binary or hexadecimal mathematical operation and returns and prints the results.
-     * @param operator - String representation of math operation: "+", "-", "*", or "/"
-     * @param a - String representing first hexadecimal or binary value
-     * @param b - String representing second hexadecimal or binary value
-     * @param type - String representing type of the values: either "binary" or "hexadecimal"
-     * @return String - result of the operation
-     */
-    private static String operation(String operator, String a, String b, String type) {
-        if ((operator == null) || (a == null) || (b == null) || (type == null)) {
-            throw new IllegalArgumentException("Cannot be null");
-        }
-        if (!operator.equals("+") && !operator.equals("-") && !operator.equals("*") && !operator.equals("/")) {
-            throw new IllegalArgumentException("Not a valid operation");
-        }
-        if (!type.equals("binary") && !type.equals("hexadecimal")) {
-            throw new IllegalArgumentException("Not a valid value type");
-        }
+        check.test("Calculate download/upload time function", (out, test) -> {
+            String loadTime = calculateLoadTime(12567, "MB",  3.2, "Mbit/s");
+            out.println("Download or upload time needed is: ~" + loadTime);
+            test.assertEquals(loadTime, "8 hours 43 minutes 37.5 seconds");
+            test.assertEquals(calculateLoadTimeSeconds(12567, "MB", 3.2, "Mbit/s"), 31417.5);
+        });
 
-        // Declare terms
-        int aDec;
-        int bDec;
-        int rDec;
-        int decResult;
-        String result;
-        String r;
-        // Different conversion cases
-        if (type.equals("binary")) {
-            // Validate parameters
-            validateBinaryInput(a);
-            validateBinaryInput(b);
+        check.test("Network transfer model function", (out, test) -> {
+            double idealTime = calculateLoadTimeSeconds(12567, "MB", 3.2, "Mbit/s", TransferModel.IDEAL);
+            out.print("Raw link rate: ").print(idealTime).println(" seconds");
+            test.assertEquals(idealTime, 31417.5);
+            String modelTime = DoubleFormatter.fixed(4).format(
+                    calculateLoadTimeSeconds(1, "MB", 100, "Mbit/s", TransferModel.tcp(0.05, 1)));
+            out.println("1 MB at 100 Mbit/s with 50 ms round trips: " + modelTime + " seconds");
+            test.assertEquals(modelTime, "0.3816");
+        });
 
-            // Convert to decimal, do decimal operation, convert back
-            aDec = getDecimalFromBinary(a);
-            bDec = getDecimalFromBinary(b);
-            rDec = aDec % bDec;
-            decResult = switch (operator) {
-                case "+" -> aDec + bDec;
-                case "-" -> aDec - bDec;
-                case "*" -> aDec * bDec;
-                case "/" -> aDec / bDec;
-                default -> -1;
-            };
-            result = getBinaryFromDecimal(Math.abs(decResult));
-            r = getBinaryFromDecimal(rDec);
-        } else /*type is hex*/{
-            validateHexadecimalInput(a);
-            validateHexadecimalInput(b);
+        check.test("What-if table function", (out, test) -> {
+            SweepEngine loadTimes = SweepEngine.loadTime(new double[] {1, 12567}, "MB", new double[] {3.2, 100}, "Mbit/s",
+                    TransferModel.IDEAL);
+            out.print("12567 MB at 3.2 Mbit/s: ").print(loadTimes.get(1, 0)).println(" seconds");
+            test.assertEquals(loadTimes.get(1, 0), 31417.5);
+            SweepEngine needed = SweepEngine.bandwidthNeeded(new double[] {12567}, "MB", new double[] {31417.5}, "Mbit/s",
+                    TransferModel.IDEAL);
+            String neededBandwidth = DoubleFormatter.significant(6).format(needed.get(0, 0));
+            out.println("Bandwidth to load 12567 MB in 31417.5 seconds: " + neededBandwidth + " Mbit/s");
+            test.assertEquals(neededBandwidth, "3.20000");
+            // Solving for the bandwidth and then calculating the load time should give back the target time
+            TransferModel tcp = TransferModel.tcp(0.05, 1);
+            double solved = SweepEngine.bandwidthNeeded(new double[] {1}, "MB", new double[] {0.5}, "Mbit/s", tcp).get(0, 0);
+            test.assertEquals(DoubleFormatter.fixed(6).format(calculateLoadTimeSeconds(1, "MB", solved, "Mbit/s", tcp)), "0.500000");
+        });
 
-            // Convert to decimal, do decimal operation, convert back
-            aDec = getDecimalFromHex(a);
-            bDec = getDecimalFromHex(b);
-            rDec = aDec % bDec;
-            decResult = switch (operator) {
-                case "+" -> aDec + bDec;
-                case "-" -> aDec - bDec;
-                case "*" -> aDec * bDec;
-                case "/" -> aDec / bDec;
-                default -> -1;
-            };
-            result = getHexFromDecimal(decResult);
-            r = getHexFromDecimal(rDec);
-        }
-        if (type.equals("binary") && operator.equals("-") && (aDec < bDec)) {
-            result = "-" + result;
+        check.test("Calculate website bandwidth function", (out, test) -> {
+            Map<String, Double> actualWebBandwidth = calculateWebsiteBandwidth(5000, "days", 500, "KB", 2);
+            printWebsiteBandwidth(out, actualWebBandwidth);
+            Map<String, Double> expectedWebBandwidth = new HashMap<>();
+            // Note: extended repeating expected value from online calc
+            expectedWebBandwidth.put("bandwidthSeconds", 0.23148148148148148);
+            expectedWebBandwidth.put("bandwidthMonths", 76.09375);
+            expectedWebBandwidth.put("redundancy", 2.0);
+            // Note: extended repeating expected value from online calc
+            expectedWebBandwidth.put("bandwidthSecondsRedundancy", 0.46296296296296297);
+            expectedWebBandwidth.put("bandwidthMonthsRedundancy", 152.1875);
+            test.assertEquals(actualWebBandwidth, expectedWebBandwidth);
+        });
+
+        check.test("Simulate website bandwidth function", (out, test) -> {
+            BandwidthSimulation simulation = new BandwidthSimulation(BandwidthSimulation.POISSON, 1.0, 42);
+            Map<String, Double> simulated = simulation.run(5000, "days", 500, "KB", 2, 1.0, 200000);
+            double simulatedMean = simulated.get("mean");
+            out.print("Simulated average bandwidth: ").print(simulatedMean, DoubleFormatter.significant(2)).println(" Mbit/s");
+            // The average should match the calculated bandwidth, and the same seed should give the same results
+            test.assertEquals(Math.abs(simulatedMean / 0.46296296296296297 - 1) < 0.02, true);
+            test.assertEquals(simulation.run(5000, "days", 500, "KB", 2, 1.0, 200000), simulated);
+        });
+
+        check.test("Calculate monthly usage to bandwidth function", (out, test) -> {
+            double actualBandwidth = convertUsageToBandwidth(1000.0, "GB", "Mbit/s");
+            out.println("Monthly usage: 1000 GB");
+            out.print("Bandwidth: ").print(actualBandwidth).println();
+            test.assertEquals(actualBandwidth, 3.042056430146779); // rounded expected value from online calc
+        });
+
+        check.test("Calculate bandwidth to monthly usage function", (out, test) -> {
+            double actualUsage = convertBandwidthToUsage(1000, "Mbit/s", "GB");
+            out.println("Bandwidth: 1000 Mbit/s");
+            out.print("Monthly usage: ").print(actualUsage).println();
+            test.assertEquals(actualUsage, 328725.0);
+        });
+
+        check.test("Convert single unit function", (out, test) -> {
+            SizeConversions singleConversion = convertSizeUnits(1.5, "GB");
+            out.println("1.5 GB is " + singleConversion.get("MB"));
+            test.assertEquals(singleConversion.get("MB"), "1500 MB");
+            test.assertEquals(singleConversion.value("tb"), 0.012);
+        });
+
+        check.test("Off-heap store function", (out, test) -> {
+            out.println("Rows past the end of the first block, read back three ways, then a store reusing the blocks");
+            test.assertEquals(countOffHeapMismatches(OffHeapConversionStore.BLOCK_VALUES + 5), 0L);
+        });
+
+        check.test("Exact conversion function", (out, test) -> {
+            ExactUnitConverter converter = new ExactUnitConverter();
+            String exactBandwidth = converter.set("1000").convertUsageToBandwidth("GB", "Mbit/s").toPlainString(18);
+            out.println("Monthly usage: 1000 GB");
+            out.println("Bandwidth: " + exactBandwidth);
+            test.assertEquals(exactBandwidth, "3.042056430146779223");
+            String exactUsage = converter.set("1000").convertBandwidthToUsage("Mbit/s", "GB").toPlainString(18);
+            out.println("Bandwidth: 1000 Mbit/s");
+            out.println("Monthly usage: " + exactUsage);
+            test.assertEquals(exactUsage, "328725");
+            String exactDays = converter.set("1").convertTime("months", "days").toPlainString(18);
+            out.println("1 months is " + exactDays + " days");
+            test.assertEquals(exactDays, "30.4375");
+            String exactSize = converter.set("500").convertSize("MB", "TB").appendFixed(new StringBuilder(), 2).toString();
+            out.println("500 MB is " + exactSize + " TB");
+            test.assertEquals(exactSize, "0.00");
+        });
+
+        check.test("Number format function", (out, test) -> {
+            String shortestFormat = DoubleFormatter.shortest().format(2e-3);
+            out.println("0.002 is shown as " + shortestFormat);
+            test.assertEquals(shortestFormat, "0.002");
+            test.assertEquals(DoubleFormatter.shortest().format(5.0E-4), "5.0E-4");
+            test.assertEquals(DoubleFormatter.compact().format(1500.0), "1500");
+            test.assertEquals(DoubleFormatter.fixed(2).format(3.042056430146779), "3.04");
+            test.assertEquals(DoubleFormatter.significant(3).format(328725.0), "329000");
+            out.println("Power of five tables against BigInteger");
+            test.assertEquals(DoubleFormatter.countTableMismatches(), 0);
+        });
+
+        check.test("Concurrent calls", (out, test) -> {
+            out.println("Calling the library functions from several threads at once");
+            test.assertEquals(countConcurrentMismatches(Math.max(4, Runtime.getRuntime().availableProcessors()), 2000), 0L);
+        });
+
+        check.test("Traffic simulation function", (out, test) -> {
+            out.println("One flow alone on a 100 Mbit/s link");
+            TrafficSimulation.Result alone = new TrafficSimulation(100, "Mbit/s", 1, 42,
+                    new TrafficSimulation.ShapingClass(1)).run(1, 1, "MB", 1);
+            double expectedSeconds = alone.getSizeBits(0) / 100e6;
+            test.assertEquals(Math.abs(alone.getCompletionSeconds(0) - expectedSeconds) < 1e-9, true);
+
+            out.println("Flows at 80% load, which share the link like an M/M/1 queue: 4 flows in progress on average");
+            TrafficSimulation.Result busy = new TrafficSimulation(100, "Mbit/s", 1, 42,
+                    new TrafficSimulation.ShapingClass(1)).run(1000, 10, "KB", 100_000);
+            out.print("Average flows in progress: ").print(busy.getAverageActiveFlows(), DoubleFormatter.fixed(1)).println();
+            test.assertEquals(Math.abs(busy.getAverageActiveFlows() - 4) < 0.4, true);
+            test.assertEquals(Math.abs(busy.getUtilization(0) - 0.8) < 0.02, true);
+
+            out.println("Flows shaped to 10 Mbit/s use no more than 10% of a 100 Mbit/s link");
+            TrafficSimulation.Result shaped = new TrafficSimulation(100, "Mbit/s", 1, 42,
+                    new TrafficSimulation.ShapingClass(1, 10, "Mbit/s", 100, "KB")).run(100, 10, "KB", 10_000);
+            test.assertEquals(shaped.getUtilization(0) <= 0.1 * 1.01, true);
+        });
+
+        check.test("Edge cache simulation function", (out, test) -> {
+            out.println("Equally popular pages of one size: the hit ratio is the share of pages that fit in the cache");
+            for (String policy : EdgeCacheSimulation.POLICIES) {
+                Map<String, Double> uniform = new EdgeCacheSimulation(policy, 1000, 0, 0, 42)
+                        .run(1000, "seconds", 1, "MB", 1, 250, 200_000);
+                out.print(policy + " hit ratio: ").print(uniform.get("hitRatio"), DoubleFormatter.fixed(2)).println();
+                test.assertEquals(Math.abs(uniform.get("hitRatio") - 0.25) < 0.01, true);
+            }
+
+            out.println("Without a cache the origin serves everything calculateWebsiteBandwidth gives");
+            Map<String, Double> none = new EdgeCacheSimulation(EdgeCacheSimulation.LRU, 1000, 0.8, 0, 42)
+                    .run(1000, "seconds", 1, "MB", 2, 0, 1000);
+            test.assertEquals(none.get("originBandwidthSeconds"),
+                    calculateWebsiteBandwidth(1000, "seconds", 1, "MB", 2).get("bandwidthSecondsRedundancy"));
+
+            out.println("With Zipf popularity, LFU keeps the popular pages and beats LRU");
+            Map<String, Double> lru = new EdgeCacheSimulation(EdgeCacheSimulation.LRU, 10_000, 0.8, 1, 42)
+                    .run(1000, "seconds", 1, "MB", 1, 1000, 200_000);
+            Map<String, Double> lfu = new EdgeCacheSimulation(EdgeCacheSimulation.LFU, 10_000, 0.8, 1, 42)
+                    .run(1000, "seconds", 1, "MB", 1, 1000, 200_000);
+            test.assertEquals(lfu.get("hitRatio") > lru.get("hitRatio"), true);
+            test.assertEquals(lru.get("originBandwidthSeconds") < lru.get("edgeBandwidthSeconds"), true);
+        });
+
+        check.test("Compression estimate function", (out, test) -> {
+            out.println("Compressing 3 MB of repetitive log lines whole, from a 1 MB sample, and with level 0");
+            CompressionEstimate[] estimates = estimateLogCompression(3);
+            CompressionEstimate whole = estimates[0];
+            CompressionEstimate sample = estimates[1];
+            CompressionEstimate stored = estimates[2];
+            out.print("Ratio: ").print(whole.getRatio(), DoubleFormatter.fixed(3)).println();
+            test.assertEquals(whole.getSampleBytes(), whole.getFileBytes());
+            test.assertEquals(whole.getRatio() < 0.2, true);
+            test.assertEquals(sample.getSampleBytes(), (long) CompressionEstimate.DEFAULT_CHUNK_BYTES);
+            test.assertEquals(Math.abs(sample.getRatio() - whole.getRatio()) < 0.05, true);
+            test.assertEquals(stored.getRatio() >= 1, true);
+
+            test.assertEquals(whole.uncompressedSeconds(10, "Mbit/s"),
+                    calculateLoadTimeSeconds(whole.getFileBytes(), "B", 10, "Mbit/s"));
+            test.assertEquals(whole.streamedSeconds(10, "Mbit/s") <= whole.sequentialSeconds(10, "Mbit/s"), true);
+            test.assertEquals(whole.streamedSeconds(10, "Mbit/s") < whole.uncompressedSeconds(10, "Mbit/s"), true);
+            test.assertEquals(whole.breakEvenMegabitsPerSecond() > 0, true);
+            test.assertEquals(stored.breakEvenMegabitsPerSecond(), 0.0);
+
+            out.println("Compressing 1 MB of random bytes and an empty file");
+            CompressionEstimate[] edges = estimateEdgeCompression(1);
+            CompressionEstimate random = edges[0];
+            CompressionEstimate empty = edges[1];
+            test.assertEquals(random.getRatio() >= 1, true);
+            test.assertEquals(random.breakEvenMegabitsPerSecond(), 0.0);
+            test.assertEquals(empty.getFileBytes(), 0L);
+            test.assertEquals(empty.compressSeconds(), 0.0);
+            test.assertEquals(empty.streamedSeconds(10, "Mbit/s"), 0.0);
+            test.assertEquals(empty.sequentialSeconds(10, "Mbit/s"), 0.0);
+            test.assertEquals(empty.breakEvenMegabitsPerSecond(), 0.0);
+        });
+
+        check.test("Asynchronous calls", (out, test) -> {
+            out.println("Calling the library functions through futures and through a processor with a window of 32");
+            long[] counts = countAsyncMismatches(1000, 32);
+            test.assertEquals(counts[0], 0L);
+            test.assertEquals(counts[1] <= 32, true);
+            test.assertEquals(counts[2], 1L);
+        });
+
+        check.test("Profiler function", (out, test) -> {
+            if (!FunctionProfiler.isSupported()) {
+                out.println("Profiling is not supported on this JVM");
+                return;
+            }
+            out.println("Profiling an outer function that calls an inner one allocating 4096 bytes, 10 times");
+            FunctionProfiler profile = new FunctionProfiler("outer", "inner");
+            byte[][] kept = new byte[10][];
+            for (int i = 0; i < kept.length; i++) {
+                profile.enter();
+                profile.enter();
+                kept[i] = new byte[4096];
+                profile.exit(1);
+                profile.exit(0);
+            }
+            test.assertEquals(profile.calls(0), 10L);
+            test.assertEquals(profile.bytesPerCall(1, true) >= 4096, true);
+            test.assertEquals(profile.bytesPerCall(0, false) >= profile.bytesPerCall(1, false), true);
+            test.assertEquals(profile.bytesPerCall(0, true) < 4096, true);
+        });
+
+        // Sets the journal field, so no other test may make calculations at the same time
+        check.testAlone("Journal and replay", (out, test) -> {
+            out.println("Journaling calculations through the library functions into small segments and replaying them");
+            long[] counts = journalAndReplay(10000);
+            test.assertEquals(counts[0], 10000L);
+            test.assertEquals(counts[1], 0L);
+            test.assertEquals(counts[2], 1L);
+        });
+    }
+
+    /**
+     * Loads random overlapping IPv4 prefixes into two PrefixTries and counts random addresses whose longest match
+     * (one at a time or in a group), aggregated membership, or difference membership disagrees with checking every
+     * prefix
+     * @param count - Number of prefixes in the first set; the second has a quarter as many
+     * @param lookups - Number of addresses to check
+     * @return long - Number of mismatched results
+     */
+    private static long countPrefixTrieMismatches(int count, int lookups) {
+        SplittableRandom random = new SplittableRandom(42);
+        int[][] addresses = new int[2][];
+        int[][] lengths = new int[2][];
+        PrefixTrie[] sets = new PrefixTrie[2];
+        for (int set = 0; set < 2; set++) {
+            int size = set == 0 ? count : count / 4;
+            addresses[set] = new int[size];
+            lengths[set] = new int[size];
+            sets[set] = new PrefixTrie();
+            for (int i = 0; i < size; i++) {
+                int length = 16 + random.nextInt(17);
+                int address = (0x0A000000 | random.nextInt(1 << 24))
+                        & (int) FixedWidthArithmetic.mask(32) << (32 - length);
+                addresses[set][i] = address;
+                lengths[set][i] = length;
+                sets[set].add((address >>> 24) + "." + (address >>> 16 & 0xFF) + "." + (address >>> 8 & 0xFF) + "."
+                        + (address & 0xFF) + "/" + length);
+            }
         }
-        // Print results
-        type = Character.toUpperCase(type.charAt(0)) + type.substring(1);
-        System.out.println(type + " value:");
-        System.out.print(a + " " + operator + " " + b + " = " + result);
-        if (operator.equals("/")) {
-            System.out.println(" Remainder: " + r);
-        } else {
-            System.out.println();
+        PrefixTrie aggregated = sets[0].aggregate();
+        PrefixTrie difference = sets[0].difference(sets[1]);
+        long mismatches = aggregated.aggregate().size() == aggregated.size() ? 0 : 1;
+        int[] checked = new int[lookups];
+        for (int i = 0; i < lookups; i++) {
+            // Mostly inside 10.0.0.0/8, where the prefixes are
+            checked[i] = random.nextInt(8) == 0 ? random.nextInt() : 0x0A000000 | random.nextInt(1 << 24);
         }
-        System.out.println();
-        System.out.println("Decimal value:");
-        System.out.print(aDec + " " + operator + " " + bDec + " = " + decResult);
-        if (operator.equals("/")) {
-            System.out.println(" Remainder: " + rDec);
-        } else {
-            System.out.println();
+        int[] grouped = new int[lookups];
+        sets[0].lookupIPv4(checked, grouped);
+        for (int i = 0; i < lookups; i++) {
+            int address = checked[i];
+            int[] best = new int[] {-1, -1};
+            for (int set = 0; set < 2; set++) {
+                for (int p = 0; p < addresses[set].length; p++) {
+                    int length = lengths[set][p];
+                    if (length > best[set] && (address ^ addresses[set][p]) >>> (32 - length) == 0) {
+                        best[set] = length;
+                    }
+                }
+            }
+            if (sets[0].lookupIPv4(address) != best[0] || grouped[i] != best[0]
+                    || (aggregated.lookupIPv4(address) >= 0) != (best[0] >= 0)
+                    || (difference.lookupIPv4(address) >= 0) != (best[0] >= 0 && best[1] < 0)) {
+                mismatches++;
+            }
         }
-        System.out.println();
-        return result;
+        return mismatches;
     }
 
     /**
-     * Searches for the given String in the given array and returns if it in the array
-     * @param array - Array to search through
-     * @param find - String to look for
-     * @return boolean - True if it is in the array, false if it is not
+     * Combines two random files of the given sizes with every bitmap operator in small chunks and counts results
+     * that differ from combining them one byte at a time, and writes that fail to refuse an input as the output
+     * @param firstSize - Size of the first file in bytes
+     * @param secondSize - Size of the second file in bytes
+     * @param chunkSize - Bytes per chunk
+     * @return long - Number of mismatched results
+     * @throws IOException if the temporary files cannot be written or read
      */
-    private static boolean inStringArray(String[] array, String find) {
-        for (String s : array) {
-            if (find.equals(s)) {
+    private static long countBitmapMismatches(int firstSize, int secondSize, int chunkSize) throws IOException {
+        byte[] a = new byte[firstSize];
+        byte[] b = new byte[secondSize];
+        Random random = new Random(42);
+        random.nextBytes(a);
+        random.nextBytes(b);
+        Path first = Files.createTempFile("calculator-bitmap", ".bin");
+        Path second = Files.createTempFile("calculator-bitmap", ".bin");
+        Path output = Files.createTempFile("calculator-bitmap", ".bin");
+        try {
+            Files.write(first, a);
+            Files.write(second, b);
+            long mismatches = 0;
+            for (String operator : BitmapFileOperations.OPERATORS) {
+                long popcount = BitmapFileOperations.apply(operator, first, second, output, chunkSize);
+                byte[] result = Files.readAllBytes(output);
+                long expectedPopcount = 0;
+                for (int i = 0; i < Math.max(firstSize, secondSize); i++) {
+                    int x = i < firstSize ? a[i] & 0xFF : 0;
+                    int y = i < secondSize ? b[i] & 0xFF : 0;
+                    int expected = switch (operator) {
+                        case "AND" -> x & y;
+                        case "OR" -> x | y;
+                        case "XOR" -> x ^ y;
+                        default -> x & ~y & 0xFF;
+                    };
+                    expectedPopcount += Integer.bitCount(expected);
+                    if (i >= result.length || (result[i] & 0xFF) != expected) {
+                        mismatches++;
+                    }
+                }
+                if (result.length != Math.max(firstSize, secondSize) || popcount != expectedPopcount) {
+                    mismatches++;
+                }
+            }
+            try {
+                BitmapFileOperations.apply("OR", first, second, first, chunkSize);
+                mismatches++;
+            } catch (IllegalArgumentException e) {
+                if (!Arrays.equals(Files.readAllBytes(first), a)) {
+                    mismatches++;
+                }
+            }
+            return mismatches;
+        } finally {
+            Files.deleteIfExists(first);
+            Files.deleteIfExists(second);
+            Files.deleteIfExists(output);
+        }
+    }
+
+    /**
+     * Converts a CSV file of numbered rows in small chunks and counts output rows that are missing, out of order, or
+     * converted wrongly, and invalid rows that are not marked or counted. Every seventh row has an unknown unit, and
+     * one row is padded with spaces to be longer than a chunk. Writing the input over itself must be refused and
+     * leave the input unchanged.
+     * @param rows - Number of rows
+     * @param chunkSize - Bytes read at a time
+     * @return long - Number of mismatched rows and counts
+     * @throws IOException if the temporary files cannot be written or read
+     */
+    private static long countCsvMismatches(int rows, int chunkSize) throws IOException {
+        StringBuilder csv = new StringBuilder();
+        List<String> expected = new ArrayList<>(rows);
+        int invalid = 0;
+        for (int i = 0; i < rows; i++) {
+            String row;
+            if (i % 7 == 3) {
+                row = i + ",parsecs";
+                expected.add(row + ",invalid");
+                invalid++;
+            } else {
+                row = (i == rows / 2 ? " ".repeat(chunkSize * 2) : "") + i + ".5,MB";
+                expected.add(row + "," + (i * 1000 + 500) + ",KB");
+            }
+            csv.append(row).append(i % 2 == 0 ? "\n" : "\r\n");
+        }
+        Path input = Files.createTempFile("calculator-csv", ".csv");
+        Path output = Files.createTempFile("calculator-csv", ".csv");
+        try {
+            Files.writeString(input, csv);
+            CsvConversionPipeline pipeline = new CsvConversionPipeline("KB", 4, chunkSize);
+            pipeline.run(input, output);
+            List<String> lines = Files.readAllLines(output);
+            long mismatches = Math.abs(lines.size() - rows);
+            for (int i = 0; i < Math.min(rows, lines.size()); i++) {
+                if (!lines.get(i).equals(expected.get(i))) {
+                    mismatches++;
+                }
+            }
+            if (pipeline.getRowCount() != rows || pipeline.getInvalidRowCount() != invalid) {
+                mismatches++;
+            }
+            try {
+                pipeline.run(input, input);
+                mismatches++;
+            } catch (IllegalArgumentException e) {
+                // Expected: the output is the input
+            }
+            if (!Files.readString(input).contentEquals(csv)) {
+                mismatches++;
+            }
+            return mismatches;
+        } finally {
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(output);
+        }
+    }
+
+    /**
+     * Fills an OffHeapConversionStore with numbered rows in kilobytes and counts values that read back wrongly by
+     * row, through an iterator, or exported, and uses after closing that are not refused. A second store then reuses
+     * the closed store's blocks and must read back its own values.
+     * @param rows - Number of rows
+     * @return long - Number of mismatched values and uses
+     * @throws IOException never, since the export is written to memory
+     */
+    private static long countOffHeapMismatches(int rows) throws IOException {
+        long mismatches = 0;
+        OffHeapConversionStore store = new OffHeapConversionStore();
+        try (store) {
+            for (int i = 0; i < rows; i++) {
+                store.add(i, "KB");
+            }
+            if (store.size() != rows) {
+                mismatches++;
+            }
+            for (int row : new int[] {0, OffHeapConversionStore.BLOCK_VALUES - 1, OffHeapConversionStore.BLOCK_VALUES,
+                    rows - 1}) {
+                if (store.get(row, "B") != row * 1000.0 || store.get(row, "kb") != row * 8.0) {
+                    mismatches++;
+                }
+            }
+            PrimitiveIterator.OfDouble megabytes = store.iterator("MB");
+            for (int i = 0; i < rows; i++) {
+                if (!megabytes.hasNext() || megabytes.nextDouble() != convertSizeUnit("KB", "MB", i)) {
+                    mismatches++;
+                }
+            }
+            if (megabytes.hasNext()) {
+                mismatches++;
+            }
+            ByteArrayOutputStream exported = new ByteArrayOutputStream();
+            store.export("B", Channels.newChannel(exported));
+            ByteBuffer bytes = ByteBuffer.wrap(exported.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+            if (bytes.capacity() != rows * Double.BYTES
+                    || bytes.getDouble(OffHeapConversionStore.BLOCK_VALUES * Double.BYTES)
+                    != OffHeapConversionStore.BLOCK_VALUES * 1000.0) {
+                mismatches++;
+            }
+        }
+        try {
+            store.get(0, "B");
+            mismatches++;
+        } catch (IllegalStateException e) {
+            // Expected: the store is closed
+        }
+        try {
+            store.add(1, "KB");
+            mismatches++;
+        } catch (IllegalStateException e) {
+            // Expected: the store is closed
+        }
+        if (OffHeapConversionStore.pooledBlocks() == 0) {
+            mismatches++;
+        }
+
+        try (OffHeapConversionStore reused = new OffHeapConversionStore()) {
+            for (int i = 0; i < rows; i++) {
+                reused.add(-i, "MB");
+            }
+            if (reused.get(rows - 1, "KB") != convertSizeUnit("MB", "KB", 1 - rows)) {
+                mismatches++;
+            }
+        }
+        return mismatches;
+    }
+
+    /**
+     * Writes the bytes to a temporary file and calculates its word arithmetic
+     * @param data - Contents of the file
+     * @param width - Word width in bits
+     * @param byteOrder - "big-endian" or "little-endian"
+     * @param chunkSize - Bytes per chunk
+     * @return WordFileArithmetic - Results for the file
+     * @throws IOException if the temporary file cannot be written or read
+     */
+    private static WordFileArithmetic calculateWordFile(byte[] data, int width, String byteOrder, int chunkSize)
+            throws IOException {
+        Path file = Files.createTempFile("calculator-words", ".bin");
+        try {
+            Files.write(file, data);
+            return WordFileArithmetic.calculate(file, width, byteOrder, chunkSize);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Calculates the word arithmetic of a random file in small chunks for every width and byte order, and counts
+     * results that differ from reading the same bytes one word at a time
+     * @param size - Size of the file in bytes
+     * @param chunkSize - Bytes per chunk
+     * @return long - Number of mismatched results
+     * @throws IOException if the temporary file cannot be written or read
+     */
+    private static long countWordFileMismatches(int size, int chunkSize) throws IOException {
+        byte[] data = new byte[size];
+        new Random(42).nextBytes(data);
+        CRC32C crc = new CRC32C();
+        crc.update(data);
+        long mismatches = 0;
+        for (int width = 16; width <= 64; width *= 2) {
+            for (String byteOrder : WordFileArithmetic.BYTE_ORDERS) {
+                ByteBuffer padded = ByteBuffer.allocate((size + 7) / 8 * 8).put(data).order(
+                        byteOrder.equals(WordFileArithmetic.BIG_ENDIAN) ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+                long sum = 0;
+                long xor = 0;
+                for (int i = 0; i < padded.capacity(); i += width / 8) {
+                    long word = switch (width) {
+                        case 16 -> padded.getShort(i) & 0xFFFF;
+                        case 32 -> padded.getInt(i) & 0xFFFFFFFFL;
+                        default -> padded.getLong(i);
+                    };
+                    sum += word;
+                    xor ^= word;
+                }
+                long mask = FixedWidthArithmetic.mask(width);
+                WordFileArithmetic result = calculateWordFile(data, width, byteOrder, chunkSize);
+                if (result.getSum() != (sum & mask) || result.getXor() != xor
+                        || result.getCrc32c() != (int) crc.getValue()) {
+                    mismatches++;
+                }
+                // Narrow sums of a small file fit in a long, so carries and the checksum can be checked directly
+                if (width < 64) {
+                    long folded = sum;
+                    while (folded >>> width != 0) {
+                        folded = (folded & mask) + (folded >>> width);
+                    }
+                    if (result.getCarries() != sum >>> width || result.getOnesComplementChecksum() != (~folded & mask)) {
+                        mismatches++;
+                    }
+                }
+            }
+        }
+        return mismatches;
+    }
+
+    /**
+     * Writes a temporary file of repetitive log lines and measures its compression three ways
+     * @param megabytes - Size of the file in MiB
+     * @return CompressionEstimate[] - Gzip of the whole file, gzip of a 1 MiB sample, and deflate at level 0
+     * @throws IOException if the temporary file cannot be written or read
+     * @throws InterruptedException if interrupted while compressing
+     */
+    private static CompressionEstimate[] estimateLogCompression(int megabytes)
+            throws IOException, InterruptedException {
+        Path file = Files.createTempFile("calculator-compression", ".log");
+        try {
+            StringBuilder lines = new StringBuilder();
+            for (int i = 0; lines.length() < megabytes * CompressionEstimate.DEFAULT_CHUNK_BYTES; i++) {
+                lines.append("GET /pages/").append(i % 97).append(".html 200 ").append(1000 + i % 89)
+                        .append(" bytes\n");
+            }
+            Files.writeString(file, lines);
+            int chunk = CompressionEstimate.DEFAULT_CHUNK_BYTES;
+            return new CompressionEstimate[] {
+                    CompressionEstimate.measure(file, CompressionEstimate.GZIP, 6, chunk, megabytes * 2L * chunk, 2),
+                    CompressionEstimate.measure(file, CompressionEstimate.GZIP, 6, chunk, chunk, 2),
+                    CompressionEstimate.measure(file, CompressionEstimate.DEFLATE, 0, chunk, megabytes * 2L * chunk, 2)
+            };
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Writes temporary files of random bytes and of nothing, and measures their compression with gzip
+     * @param megabytes - Size of the random file in MiB
+     * @return CompressionEstimate[] - Gzip of the random file and of the empty file
+     * @throws IOException if the temporary files cannot be written or read
+     * @throws InterruptedException if interrupted while compressing
+     */
+    private static CompressionEstimate[] estimateEdgeCompression(int megabytes)
+            throws IOException, InterruptedException {
+        Path random = Files.createTempFile("calculator-compression", ".bin");
+        Path empty = Files.createTempFile("calculator-compression", ".bin");
+        try {
+            byte[] bytes = new byte[megabytes * CompressionEstimate.DEFAULT_CHUNK_BYTES];
+            new Random(42).nextBytes(bytes);
+            Files.write(random, bytes);
+            int chunk = CompressionEstimate.DEFAULT_CHUNK_BYTES;
+            return new CompressionEstimate[] {
+                    CompressionEstimate.measure(random, CompressionEstimate.GZIP, 6, chunk, megabytes * 2L * chunk, 2),
+                    CompressionEstimate.measure(empty, CompressionEstimate.GZIP, 6, chunk, chunk, 2)
+            };
+        } finally {
+            Files.deleteIfExists(random);
+            Files.deleteIfExists(empty);
+        }
+    }
+
+    /**
+     * Runs calculations through an AsyncCalculator, first as futures and then through its processor, and compares
+     * the results with calling the functions directly. A second processor whose subscriber asks for no results must
+     * end with an error.
+     * @param calls - Number of calculations each way
+     * @param window - Window of the processor
+     * @return long[] - Wrong results, most requests the processor had received but not yet delivered, and the number
+     * of invalid requests that failed
+     * @throws InterruptedException if interrupted while waiting for the results
+     */
+    private static long[] countAsyncMismatches(int calls, int window) throws InterruptedException {
+        String[] expected = new String[calls];
+        for (int i = 0; i < calls; i++) {
+            expected[i] = operation("+", Integer.toHexString(i), "FF", "hexadecimal");
+        }
+        AtomicLong wrong = new AtomicLong();
+        AtomicLong mostInFlight = new AtomicLong();
+        long invalid = 0;
+        try (AsyncCalculator calculator = new AsyncCalculator(2, calls, 16)) {
+            List<CompletableFuture<String>> futures = new ArrayList<>(calls);
+            for (int i = 0; i < calls; i++) {
+                futures.add(calculator.operation("+", Integer.toHexString(i), "FF", "hexadecimal"));
+            }
+            for (int i = 0; i < calls; i++) {
+                if (!futures.get(i).join().equals(expected[i])) {
+                    wrong.incrementAndGet();
+                }
+            }
+            if (calculator.convertSizeUnit("MB", "parsecs", 1).handle((value, error) -> error).join()
+                    instanceof IllegalArgumentException) {
+                invalid++;
+            }
+
+            AtomicLong published = new AtomicLong();
+            Map<AsyncCalculator.Request<?>, String> expectedByRequest = new ConcurrentHashMap<>();
+            CountDownLatch finished = new CountDownLatch(1);
+            Flow.Processor<AsyncCalculator.Request<?>, AsyncCalculator.Result> processor = calculator.processor(window);
+            AsyncCalculator.publish(processor, i -> {
+                if (i >= calls) {
+                    return null;
+                }
+                AsyncCalculator.Request<String> request =
+                        AsyncCalculator.Request.operation("+", Integer.toHexString((int) i), "FF", "hexadecimal");
+                expectedByRequest.put(request, expected[(int) i]);
+                published.incrementAndGet();
+                return request;
+            });
+            processor.subscribe(new Flow.Subscriber<AsyncCalculator.Result>() {
+                private Flow.Subscription subscription;
+                private long received;
+
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    this.subscription = subscription;
+                    subscription.request(10);
+                }
+
+                @Override
+                public void onNext(AsyncCalculator.Result result) {
+                    received++;
+                    mostInFlight.accumulateAndGet(published.get() - received + 1, Math::max);
+                    if (result.getError() != null
+                            || !result.getValue().equals(expectedByRequest.get(result.getRequest()))) {
+                        wrong.incrementAndGet();
+                    }
+                    if (received % 10 == 0) {
+                        subscription.request(10);
+                    }
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    wrong.incrementAndGet();
+                    finished.countDown();
+                }
+
+                @Override
+                public void onComplete() {
+                    if (received != calls) {
+                        wrong.incrementAndGet();
+                    }
+                    finished.countDown();
+                }
+            });
+            if (!finished.await(10, TimeUnit.SECONDS)) {
+                wrong.incrementAndGet();
+            }
+
+            // Asking for no results is invalid and must end the stream with an error
+            CountDownLatch refused = new CountDownLatch(1);
+            Flow.Processor<AsyncCalculator.Request<?>, AsyncCalculator.Result> invalidProcessor =
+                    calculator.processor(window);
+            AsyncCalculator.publish(invalidProcessor,
+                    i -> AsyncCalculator.Request.operation("+", Long.toHexString(i), "FF", "hexadecimal"));
+            invalidProcessor.subscribe(new Flow.Subscriber<AsyncCalculator.Result>() {
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    subscription.request(0);
+                }
+
+                @Override
+                public void onNext(AsyncCalculator.Result result) {
+                    wrong.incrementAndGet();
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    if (throwable instanceof IllegalArgumentException) {
+                        refused.countDown();
+                    }
+                }
+
+                @Override
+                public void onComplete() {
+                    wrong.incrementAndGet();
+                }
+            });
+            if (!refused.await(10, TimeUnit.SECONDS)) {
+                wrong.incrementAndGet();
+            }
+        }
+        return new long[] {wrong.get(), mostInFlight.get(), invalid};
+    }
+
+    /**
+     * Journals calculations into a temporary directory by calling the library functions with the journal field set,
+     * damages the first record and replays the journal
+     * @param calculations - Number of calculations to journal
+     * @return long[] - Records replayed, mismatches, and corrupt records
+     * @throws IOException if the journal cannot be written or read
+     */
+    private static long[] journalAndReplay(int calculations) throws IOException {
+        Path directory = Files.createTempDirectory("journal");
+        try {
+            OperationJournal previous = journal;
+            try (OperationJournal testJournal = new OperationJournal(directory, 1000)) {
+                journal = testJournal;
+                // Each call journals one record through its hook. The first record is damaged below, so one more is
+                // journaled.
+                for (int i = 0; i <= calculations; i++) {
+                    String operator = OperationJournal.OPERATORS[i % 4];
+                    String sizeUnit = SIZE_UNITS[i % SIZE_UNITS.length];
+                    String bandwidthUnit = BANDWIDTH_UNITS[i % BANDWIDTH_UNITS.length];
+                    switch (i % 6) {
+                        case 0 -> operation(operator, getBinaryFromDecimal(i), getBinaryFromDecimal(i % 7 + 1), "binary");
+                        case 1 -> operation(operator, getHexFromDecimal(i), "1F", "hexadecimal");
+                        case 2 -> convertUsageToBandwidth(i * 0.1, sizeUnit, bandwidthUnit);
+                        case 3 -> convertBandwidthToUsage(i * 0.1, bandwidthUnit, sizeUnit);
+                        case 4 -> calculateLoadTime(i, sizeUnit, 3.5, bandwidthUnit);
+                        default -> calculateWebsiteBandwidth(i, TIME_UNITS[i % TIME_UNITS.length], 1.5, sizeUnit, 2);
+                    }
+                }
+            } finally {
+                journal = previous;
+            }
+            try (FileChannel channel = FileChannel.open(OperationJournal.segmentPath(directory, 0),
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                ByteBuffer damaged = ByteBuffer.allocate(1);
+                channel.read(damaged, 20);
+                damaged.put(0, (byte) (damaged.get(0) ^ 1)).rewind();
+                channel.write(damaged, 20);
+            }
+            JournalReplay replay = new JournalReplay();
+            replay.run(directory);
+            return new long[] {replay.getRecordCount(), replay.getMismatchCount(), replay.getCorruptCount()};
+        } finally {
+            int segment = 0;
+            while (Files.deleteIfExists(OperationJournal.segmentPath(directory, segment))) {
+                segment++;
+            }
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    /**
+     * Calls the public library functions from many threads at once and counts results that differ from the same
+     * calls made on one thread
+     * @param threads - Number of threads to run
+     * @param rounds - Number of calls per thread and function
+     * @return long - Number of mismatched results
+     */
+    private static long countConcurrentMismatches(int threads, int rounds) {
+        String[] sizeUnits = BIG_SIZE_UNITS;
+        double[] sizes = new double[rounds];
+        double[] expectedBandwidth = new double[rounds];
+        double[] expectedUsage = new double[rounds];
+        String[] expectedLoadTime = new String[rounds];
+        List<Map<String, Double>> expectedWebsite = new ArrayList<>(rounds);
+        String[] expectedOperation = new String[rounds];
+        for (int i = 0; i < rounds; i++) {
+            sizes[i] = (i + 1) * 1.25;
+            String sizeUnit = sizeUnits[i % sizeUnits.length];
+            String bandwidthUnit = BANDWIDTH_UNITS[i % BANDWIDTH_UNITS.length];
+            expectedBandwidth[i] = convertUsageToBandwidth(sizes[i], sizeUnit, bandwidthUnit);
+            expectedUsage[i] = convertBandwidthToUsage(sizes[i], bandwidthUnit, sizeUnit);
+            expectedLoadTime[i] = calculateLoadTime(sizes[i] * 1000, sizeUnit, 3.2, bandwidthUnit);
+            expectedWebsite.add(calculateWebsiteBandwidth(i, TIME_UNITS[i % TIME_UNITS.length], sizes[i], sizeUnit, 2));
+            expectedOperation[i] = operation("+", Integer.toHexString(i), "FF", "hexadecimal");
+        }
+
+        AtomicLong mismatches = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            int offset = t * 7;
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                long wrong = 0;
+                for (int n = 0; n < rounds; n++) {
+                    // Each thread starts at a different point so threads work on different inputs at the same time
+                    int i = (n + offset) % rounds;
+                    String sizeUnit = sizeUnits[i % sizeUnits.length];
+                    String bandwidthUnit = BANDWIDTH_UNITS[i % BANDWIDTH_UNITS.length];
+                    if (convertUsageToBandwidth(sizes[i], sizeUnit, bandwidthUnit) != expectedBandwidth[i]) {
+                        wrong++;
+                    }
+                    if (convertBandwidthToUsage(sizes[i], bandwidthUnit, sizeUnit) != expectedUsage[i]) {
+                        wrong++;
+                    }
+                    if (!calculateLoadTime(sizes[i] * 1000, sizeUnit, 3.2, bandwidthUnit).equals(expectedLoadTime[i])) {
+                        wrong++;
+                    }
+                    if (!calculateWebsiteBandwidth(i, TIME_UNITS[i % TIME_UNITS.length], sizes[i], sizeUnit, 2)
+                            .equals(expectedWebsite.get(i))) {
+                        wrong++;
+                    }
+                    if (!operation("+", Integer.toHexString(i), "FF", "hexadecimal").equals(expectedOperation[i])) {
+                        wrong++;
+                    }
+                }
+                mismatches.addAndGet(wrong);
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        try {
+            if (!pool.awaitTermination(1, TimeUnit.MINUTES)) {
+                pool.shutdownNow();
+                return -1;
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+        return mismatches.get();
+    }
+
+    // Helper methods
+
+    /**
+     * Performs a binary or hexadecimal mathematical operation and returns the result.
+     * Division returns the quotient; printOperation also shows the remainder.
+     * @param operator - String representation of math operation: "+", "-", "*", or "/"
+     * @param a - String representing first hexadecimal or binary value
+     * @param b - String representing second hexadecimal or binary value
+     * @param type - String representing type of the values: either "binary" or "hexadecimal"
+     * @return String - result of the operation
+     */
+    public static String operation(String operator, String a, String b, String type) {
+        if (profiler == null) {
+            return operationUnprofiled(operator, a, b, type);
+        }
+        return profiled(PROFILE_OPERATION, () -> operationUnprofiled(operator, a, b, type));
+    }
+
+    /**
+     * Does the work of operation, which profiles the call while profiling is on
+     * @param operator - String representation of math operation: "+", "-", "*", or "/"
+     * @param a - String representing first hexadecimal or binary value
+     * @param b - String representing second hexadecimal or binary value
+     * @param type - String representing type of the values: either "binary" or "hexadecimal"
+     * @return String - result of the operation
+     */
+    private static String operationUnprofiled(String operator, String a, String b, String type) {
+        if ((operator == null) || (a == null) || (b == null) || (type == null)) {
+            throw new IllegalArgumentException("Cannot be null");
+        }
+        if (!operator.equals("+") && !operator.equals("-") && !operator.equals("*") && !operator.equals("/")) {
+            throw new IllegalArgumentException("Not a valid operation");
+        }
+        if (!type.equals("binary") && !type.equals("hexadecimal")) {
+            throw new IllegalArgumentException("Not a valid value type");
+        }
+
+        // Different conversion cases
+        if (type.equals("binary")) {
+            // Validate parameters
+            validateBinaryInput(a);
+            validateBinaryInput(b);
+
+            // Convert to decimal, do decimal operation, convert back
+            int aDec = getDecimalFromBinary(a);
+            int bDec = getDecimalFromBinary(b);
+            String result = getBinaryFromDecimal(Math.abs(decimalOperation(operator, aDec, bDec)));
+            if (operator.equals("-") && (aDec < bDec)) {
+                result = "-" + result;
+            }
+            OperationJournal j = journal;
+            if (j != null) {
+                j.recordOperation(false, operator, aDec, bDec, result);
+            }
+            return result;
+        } else /*type is hex*/{
+            validateHexadecimalInput(a);
+            validateHexadecimalInput(b);
+
+            // Convert to decimal, do decimal operation, convert back
+            int aDec = getDecimalFromHex(a);
+            int bDec = getDecimalFromHex(b);
+            String result = getHexFromDecimal(decimalOperation(operator, aDec, bDec));
+            OperationJournal j = journal;
+            if (j != null) {
+                j.recordOperation(true, operator, aDec, bDec, result);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Performs a binary or hexadecimal mathematical operation, prints the results in the given type and in decimal,
+     * and returns the result
+     * @param out - Output to print to
+     * @param operator - String representation of math operation: "+", "-", "*", or "/"
+     * @param a - String representing first hexadecimal or binary value
+     * @param b - String representing second hexadecimal or binary value
+     * @param type - String representing type of the values: either "binary" or "hexadecimal"
+     * @return String - result of the operation
+     */
+    private static String printOperation(ConsoleOutput out, String operator, String a, String b, String type) {
+        String result = operation(operator, a, b, type);
+        boolean binary = type.equals("binary");
+        int aDec = binary ? getDecimalFromBinary(a) : getDecimalFromHex(a);
+        int bDec = binary ? getDecimalFromBinary(b) : getDecimalFromHex(b);
+        int decResult = decimalOperation(operator, aDec, bDec);
+
+        // Print results
+        type = Character.toUpperCase(type.charAt(0)) + type.substring(1);
+        out.println(type + " value:");
+        out.print(a + " " + operator + " " + b + " = " + result);
+        if (operator.equals("/")) {
+            int rDec = aDec % bDec;
+            out.println(" Remainder: " + (binary ? getBinaryFromDecimal(rDec) : getHexFromDecimal(rDec)));
+        } else {
+            out.println();
+        }
+        out.println();
+        out.println("Decimal value:");
+        out.print(aDec + " " + operator + " " + bDec + " = " + decResult);
+        if (operator.equals("/")) {
+            out.println(" Remainder: " + aDec % bDec);
+        } else {
+            out.println();
+        }
+        out.println();
+        return result;
+    }
+
+    /**
+     * Applies the operator to two decimal values
+     * @param operator - "+", "-", "*", or "/"
+     * @param aDec - First value
+     * @param bDec - Second value
+     * @return int - Result of the operation
+     */
+    private static int decimalOperation(String operator, int aDec, int bDec) {
+        return switch (operator) {
+            case "+" -> aDec + bDec;
+            case "-" -> aDec - bDec;
+            case "*" -> aDec * bDec;
+            case "/" -> aDec / bDec;
+            default -> throw new IllegalArgumentException("Not a valid operation");
+        };
+    }
+
+    /**
+     * Searches for the given String in the given array and returns if it in the array
+     * @param array - Array to search through
+     * @param find - String to look for
+     * @return boolean - True if it is in the array, false if it is not
+     */
+    private static boolean inStringArray(String[] array, String find) {
+        for (String s : array) {
+            if (find.equals(s)) {
                 return true;
             }
         }
@@ -738,19 +2107,27 @@ public class Calculator {
      *    5. Convert binary value to decimal value
      *    6. Convert decimal value to binary value
      *    7. Run tests
-     * @param input - A Scanner for user input.
+     *    8. Fixed-width mode
+     *    9. Bitmap file operations
+     *    10. Convert binary file to hexadecimal file
+     *    11. CIDR prefix operations
+     * @param input - A tokenizer for user input.
      * @return boolean - True if calculator is still running, false if it has been quit.
      */
-    private static boolean runBinaryCalculator(Scanner input) {
-        System.out.println("Select a binary operation (enter \"q\" to quit):");
-        System.out.println("   1. Add");
-        System.out.println("   2. Subtract");
-        System.out.println("   3. Multiply");
-        System.out.println("   4. Divide");
-        System.out.println("   5. Convert binary value to decimal value");
-        System.out.println("   6. Convert decimal value to binary value");
-        System.out.println("   7. Run tests");
-        System.out.print("Selection: ");
+    private static boolean runBinaryCalculator(InputTokenizer input) {
+        OUT.println("Select a binary operation (enter \"q\" to quit):");
+        OUT.println("   1. Add");
+        OUT.println("   2. Subtract");
+        OUT.println("   3. Multiply");
+        OUT.println("   4. Divide");
+        OUT.println("   5. Convert binary value to decimal value");
+        OUT.println("   6. Convert decimal value to binary value");
+        OUT.println("   7. Run tests");
+        OUT.println("   8. Fixed-width mode");
+        OUT.println("   9. Bitmap file operations");
+        OUT.println("   10. Convert binary file to hexadecimal file");
+        OUT.println("   11. CIDR prefix operations");
+        OUT.print("Selection: ");
 
         String operationChoice = input.next();
         while(!(operationChoice.equals("q")
@@ -760,8 +2137,12 @@ public class Calculator {
                 || operationChoice.equals("4")
                 || operationChoice.equals("5")
                 || operationChoice.equals("6")
-                || operationChoice.equals("7"))) {
-            System.out.print("Please select a valid option: ");
+                || operationChoice.equals("7")
+                || operationChoice.equals("8")
+                || operationChoice.equals("9")
+                || operationChoice.equals("10")
+                || operationChoice.equals("11"))) {
+            OUT.print("Please select a valid option: ");
             operationChoice = input.next();
         }
 
@@ -773,18 +2154,18 @@ public class Calculator {
         /* option 7 */
         switch (operationChoice) {
             case "1", "2", "3", "4" -> {
-                System.out.print("First value: ");
+                OUT.print("First value: ");
                 String firstValue = input.next();
                 while (!validateBinaryInput(firstValue)) {
-                    System.out.println("Must contain only 1's and 0's.");
-                    System.out.print("First value: ");
+                    OUT.println("Must contain only 1's and 0's.");
+                    OUT.print("First value: ");
                     firstValue = input.next();
                 }
-                System.out.print("Second value: ");
+                OUT.print("Second value: ");
                 String secondValue = input.next();
                 while (!validateBinaryInput(secondValue)) {
-                    System.out.println("Must contain only 1's and 0's.");
-                    System.out.print("Second value: ");
+                    OUT.println("Must contain only 1's and 0's.");
+                    OUT.print("Second value: ");
                     secondValue = input.next();
                 }
                 String op = switch (operationChoice) {
@@ -793,45 +2174,229 @@ public class Calculator {
                     case "3" -> "*";
                     default -> "/";
                 };
-                System.out.println("Result:");
-                operation(op, firstValue, secondValue, "binary");
+                OUT.println("Result:");
+                printOperation(OUT, op, firstValue, secondValue, "binary");
             }
             case "5" -> {
-                System.out.print("Enter binary number: ");
+                OUT.print("Enter binary number: ");
                 String binary = input.next();
                 while (!validateBinaryInput(binary)) {
-                    System.out.println("Must contain only 1's and 0's.");
-                    System.out.print("Enter binary number: ");
+                    OUT.println("Must contain only 1's and 0's.");
+                    OUT.print("Enter binary number: ");
                     binary = input.next();
                 }
-                System.out.println("Decimal value: " + getDecimalFromBinary(binary));
+                OUT.println("Decimal value: " + RadixConverter.convert(binary, 2, 10));
             }
             case "6" -> {
-                boolean isNumeric = false;
-                while (!isNumeric) {
-                    try {
-                        System.out.print("Enter a decimal value: ");
-                        int num = input.nextInt();
-                        isNumeric = true;
-                        while ((num != Math.floor(num)) || num < 0) {
-                            System.out.println("Must be a non-negative integer");
-                            System.out.print("Enter a decimal value: ");
-                            num = input.nextInt();
-                        }
-                        System.out.println("Binary value: " + getBinaryFromDecimal(num));
-                    } catch (Exception InputMismatchException) {
-                        System.out.println("Must be numeric.");
-                        // Eat the invalid input
-                        input.next();
-                        isNumeric = false;
+                OUT.print("Enter a decimal value: ");
+                String num = input.next();
+                while (!RadixConverter.isValid(num, 10) || num.startsWith("-")) {
+                    if (RadixConverter.isValid(num, 10)) {
+                        OUT.println("Must be a non-negative integer");
+                    } else {
+                        OUT.println("Must be numeric.");
                     }
+                    OUT.print("Enter a decimal value: ");
+                    num = input.next();
                 }
+                OUT.println("Binary value: " + RadixConverter.convert(num, 10, 2));
             }
-            default -> testBinaryOperations();
+            case "7" -> runTestsWithoutJournal(Calculator::testBinaryOperations);
+            case "8" -> fixedWidthCalculator(input, "binary");
+            case "9" -> binaryFuncBitmapFiles(input);
+            case "10" -> transcodeFile(input, true);
+            default -> binaryFuncPrefixes(input);
         }
         return true;
     }
 
+    /**
+     * Performs the "CIDR prefix operations" function of the binary calculator.
+     * Loads a file of IPv4 and IPv6 prefixes, then aggregates them, looks up addresses, or takes away a second file.
+     * @param input - Tokenizer for user input
+     */
+    private static void binaryFuncPrefixes(InputTokenizer input) {
+        OUT.println("Operations:");
+        printUnitOptions(PrefixTrie.OPERATIONS);
+        OUT.print("Enter an operation: ");
+        String operation = input.next();
+        while (!inStringArray(PrefixTrie.OPERATIONS, operation)) {
+            OUT.println("Please enter one of the given operations.");
+            OUT.print("Enter an operation: ");
+            operation = input.next();
+        }
+        Path file = readExistingFile(input, "Prefix file: ");
+
+        try {
+            long start = System.nanoTime();
+            PrefixTrie prefixes = loadPrefixes(file, start);
+            switch (operation) {
+                case PrefixTrie.AGGREGATE -> {
+                    OUT.print("Output file: ");
+                    Path output = Paths.get(input.next());
+                    start = System.nanoTime();
+                    PrefixTrie aggregated = prefixes.aggregate();
+                    aggregated.write(output);
+                    OUT.println("Result:");
+                    OUT.println("Wrote " + aggregated.size() + " prefixes to " + output + " (" + prefixes.size()
+                            + " before aggregating)");
+                }
+                case PrefixTrie.LOOKUP -> {
+                    OUT.print("Enter an address (enter \"q\" to stop): ");
+                    String address = input.next();
+                    while (!address.equals("q")) {
+                        try {
+                            String match = prefixes.lookup(address);
+                            OUT.println(match == null ? "No prefix contains " + address : "Longest match: " + match);
+                        } catch (IllegalArgumentException e) {
+                            OUT.println("Must be an IPv4 or IPv6 address.");
+                        }
+                        OUT.print("Enter an address (enter \"q\" to stop): ");
+                        address = input.next();
+                    }
+                    return;
+                }
+                default -> {
+                    Path other = readExistingFile(input, "Prefix file to take away: ");
+                    PrefixTrie taken = loadPrefixes(other, System.nanoTime());
+                    OUT.print("Output file: ");
+                    Path output = Paths.get(input.next());
+                    start = System.nanoTime();
+                    PrefixTrie difference = prefixes.difference(taken);
+                    difference.write(output);
+                    OUT.println("Result:");
+                    OUT.println("Wrote " + difference.size() + " prefixes to " + output);
+                }
+            }
+            OUT.print("Took ").print((System.nanoTime() - start) / 1e9, SECONDS_FORMAT).println(" seconds");
+        } catch (IOException e) {
+            OUT.println("Could not process the files: " + e.getMessage());
+        } finally {
+            OUT.println();
+        }
+    }
+
+    /**
+     * Loads a prefix file and prints how many prefixes it had and how long it took
+     * @param file - Path of the file
+     * @param start - Time from System.nanoTime() when loading started
+     * @return PrefixTrie - Prefixes of the file
+     * @throws IOException if the file cannot be read
+     */
+    private static PrefixTrie loadPrefixes(Path file, long start) throws IOException {
+        PrefixTrie prefixes = PrefixTrie.load(file);
+        OUT.print("Loaded " + prefixes.size() + " prefixes (" + prefixes.ipv4Size() + " IPv4) in ")
+                .print((System.nanoTime() - start) / 1e9, SECONDS_FORMAT).println(" seconds");
+        if (prefixes.getInvalidLines() > 0) {
+            OUT.println("Skipped " + prefixes.getInvalidLines() + " lines that are not valid prefixes");
+        }
+        return prefixes;
+    }
+
+    /**
+     * Performs the "Bitmap file operations" function of the binary calculator.
+     * Combines two bitmap files with a bitwise operator into an output file and prints the number of bits set.
+     * @param input - Tokenizer for user input
+     */
+    private static void binaryFuncBitmapFiles(InputTokenizer input) {
+        Path first = readExistingFile(input, "First bitmap file: ");
+        Path second = readExistingFile(input, "Second bitmap file: ");
+        OUT.println("Operators:");
+        printUnitOptions(BitmapFileOperations.OPERATORS);
+        OUT.print("Enter an operator: ");
+        String operator = input.next();
+        while (!inStringArray(BitmapFileOperations.OPERATORS, operator)) {
+            OUT.println("Please enter one of the given operators.");
+            OUT.print("Enter an operator: ");
+            operator = input.next();
+        }
+
+        try {
+            OUT.print("Output file: ");
+            Path output = Paths.get(input.next());
+            while (BitmapFileOperations.isInput(output, first, second)) {
+                OUT.println("The output file cannot be one of the inputs.");
+                OUT.print("Output file: ");
+                output = Paths.get(input.next());
+            }
+            long start = System.nanoTime();
+            long popcount = BitmapFileOperations.apply(operator, first, second, output);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long size = Files.size(output);
+            OUT.println("Result:");
+            OUT.println("Wrote " + size + " bytes to " + output);
+            OUT.println("Bits set: " + popcount + " of " + size * 8);
+            OUT.print("Took ").print(seconds, SECONDS_FORMAT).println(" seconds");
+        } catch (IOException e) {
+            OUT.println("Could not process the files: " + e.getMessage());
+        }
+        OUT.println();
+    }
+
+    /**
+     * Performs the "Convert binary file to hexadecimal file" and "Convert hexadecimal file to binary file" functions.
+     * Streams the digits from one file to the other without converting through decimal, so files of any size work.
+     * @param input - Tokenizer for user input
+     * @param toHex - True to convert binary to hexadecimal, false for the reverse
+     */
+    private static void transcodeFile(InputTokenizer input, boolean toHex) {
+        Path source = readExistingFile(input, toHex ? "Binary file: " : "Hexadecimal file: ");
+        OUT.println("Layouts (number: leading zeros are dropped; stream: every digit is kept):");
+        printUnitOptions(BinaryHexTranscoder.LAYOUTS);
+        OUT.print("Enter a layout: ");
+        String layout = input.next();
+        while (!inStringArray(BinaryHexTranscoder.LAYOUTS, layout)) {
+            OUT.println("Please enter one of the given layouts.");
+            OUT.print("Enter a layout: ");
+            layout = input.next();
+        }
+        OUT.print("Digits per group (0 for no groups): ");
+        String group = input.next();
+        while (!InputTokenizer.isInt(group) || Integer.parseInt(group) < 0) {
+            if (InputTokenizer.isInt(group)) {
+                OUT.println("Must be a non-negative integer");
+            } else {
+                OUT.println("Must be numeric.");
+            }
+            OUT.print("Digits per group (0 for no groups): ");
+            group = input.next();
+        }
+        OUT.print("Output file: ");
+        Path output = Paths.get(input.next());
+
+        BinaryHexTranscoder transcoder = new BinaryHexTranscoder(layout, Integer.parseInt(group), ' ');
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            long start = System.nanoTime();
+            long digits = toHex ? transcoder.binaryToHex(in, out) : transcoder.hexToBinary(in, out);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            OUT.println("Result:");
+            OUT.println("Wrote " + digits + (toHex ? " hexadecimal" : " binary") + " digits to " + output);
+            OUT.print("Took ").print(seconds, SECONDS_FORMAT).println(" seconds");
+        } catch (IOException e) {
+            OUT.println("Could not process the files: " + e.getMessage());
+        }
+        OUT.println();
+    }
+
+    /**
+     * Prompts for the path of an existing file until one is entered
+     * @param input - Tokenizer for user input
+     * @param prompt - Prompt to print
+     * @return Path - Path of the file
+     */
+    private static Path readExistingFile(InputTokenizer input, String prompt) {
+        OUT.print(prompt);
+        Path path = Paths.get(input.next());
+        while (!Files.isRegularFile(path)) {
+            OUT.println("File not found.");
+            OUT.print(prompt);
+            path = Paths.get(input.next());
+        }
+        return path;
+    }
+
     /**
      * Runs the hexadecimal calculator until the user quits it.
      * Functions include:
@@ -842,19 +2407,25 @@ public class Calculator {
      *    5. Convert hexadecimal value to decimal value
      *    6. Convert decimal value to hexadecimal value
      *    7. Run tests
-     * @param input - A Scanner for user input.
+     *    8. Fixed-width mode
+     *    9. Convert hexadecimal file to binary file
+     *    10. Word arithmetic over a binary file
+     * @param input - A tokenizer for user input.
      * @return boolean - True if calculator is still running, false if it has been quit.
      */
-    private static boolean runHexCalculator(Scanner input) {
-        System.out.println("Select a hexadecimal operation (enter \"q\" to quit):");
-        System.out.println("   1. Add");
-        System.out.println("   2. Subtract");
-        System.out.println("   3. Multiply");
-        System.out.println("   4. Divide");
-        System.out.println("   5. Convert hexadecimal value to decimal value");
-        System.out.println("   6. Convert decimal value to hexadecimal value");
-        System.out.println("   7. Run tests");
-        System.out.print("Selection: ");
+    private static boolean runHexCalculator(InputTokenizer input) {
+        OUT.println("Select a hexadecimal operation (enter \"q\" to quit):");
+        OUT.println("   1. Add");
+        OUT.println("   2. Subtract");
+        OUT.println("   3. Multiply");
+        OUT.println("   4. Divide");
+        OUT.println("   5. Convert hexadecimal value to decimal value");
+        OUT.println("   6. Convert decimal value to hexadecimal value");
+        OUT.println("   7. Run tests");
+        OUT.println("   8. Fixed-width mode");
+        OUT.println("   9. Convert hexadecimal file to binary file");
+        OUT.println("   10. Word arithmetic over a binary file");
+        OUT.print("Selection: ");
 
         String operationChoice = input.next();
         while(!(operationChoice.equals("q")
@@ -864,8 +2435,11 @@ public class Calculator {
                 || operationChoice.equals("4")
                 || operationChoice.equals("5")
                 || operationChoice.equals("6")
-                || operationChoice.equals("7"))) {
-            System.out.print("Please select a valid option: ");
+                || operationChoice.equals("7")
+                || operationChoice.equals("8")
+                || operationChoice.equals("9")
+                || operationChoice.equals("10"))) {
+            OUT.print("Please select a valid option: ");
             operationChoice = input.next();
         }
 
@@ -877,18 +2451,18 @@ public class Calculator {
         /* option 7 */
         switch (operationChoice) {
             case "1", "2", "3", "4" -> {
-                System.out.print("First value: ");
+                OUT.print("First value: ");
                 String firstValue = input.next();
                 while (!validateHexadecimalInput(firstValue)) {
-                    System.out.println("Must contain only values 0-9 and A-F.");
-                    System.out.print("First value: ");
+                    OUT.println("Must contain only values 0-9 and A-F.");
+                    OUT.print("First value: ");
                     firstValue = input.next();
                 }
-                System.out.print("Second value: ");
+                OUT.print("Second value: ");
                 String secondValue = input.next();
                 while (!validateHexadecimalInput(secondValue)) {
-                    System.out.println("Must contain only values 0-9 and A-F.");
-                    System.out.print("Second value: ");
+                    OUT.println("Must contain only values 0-9 and A-F.");
+                    OUT.print("Second value: ");
                     secondValue = input.next();
                 }
                 String op = switch (operationChoice) {
@@ -897,66 +2471,223 @@ public class Calculator {
                     case "3" -> "*";
                     default -> "/";
                 };
-                System.out.println("Result:");
-                operation(op, firstValue, secondValue, "hexadecimal");
+                OUT.println("Result:");
+                printOperation(OUT, op, firstValue, secondValue, "hexadecimal");
             }
             case "5" -> {
-                System.out.print("Enter a hexadecimal value: ");
+                OUT.print("Enter a hexadecimal value: ");
                 String hex = input.next();
-                while (!validateHexadecimalInput(hex)) {
-                    System.out.println("Must contain only values 0-9 and A-F.");
-                    System.out.print("Enter hexadecimal value: ");
+                while (!validateHexadecimalInput(hex) || !RadixConverter.isValid(hex, 16)) {
+                    OUT.println("Must contain only values 0-9 and A-F.");
+                    OUT.print("Enter hexadecimal value: ");
                     hex = input.next();
                 }
-                System.out.println("Decimal value: " + getDecimalFromHex(hex));
+                OUT.println("Decimal value: " + RadixConverter.convert(hex, 16, 10));
             }
             case "6" -> {
-                boolean isNumeric = false;
-                while (!isNumeric) {
-                    try {
-                        System.out.print("Enter a decimal value: ");
-                        double num = input.nextDouble();
-                        isNumeric = true;
-                        while (num != Math.floor(num)) {
-                            System.out.println("Must be an integer");
-                            System.out.print("Enter a decimal value: ");
-                            num = input.nextDouble();
-                        }
-                        System.out.println("Hexadecimal value: " + getHexFromDecimal((int) Math.ceil(num)));
-                    } catch (Exception InputMismatchException) {
-                        System.out.println("Must be numeric.");
-                        // Eat the invalid input
-                        input.next();
-                        isNumeric = false;
+                OUT.print("Enter a decimal value: ");
+                String token = input.next();
+                double num = InputTokenizer.parseDouble(token);
+                // Whole numbers of any length are converted exactly; other forms such as "1e3" go through a double
+                while (!RadixConverter.isValid(token, 10) && (Double.isNaN(num) || num != Math.floor(num))) {
+                    if (Double.isNaN(num)) {
+                        OUT.println("Must be numeric.");
+                    } else {
+                        OUT.println("Must be an integer");
                     }
+                    OUT.print("Enter a decimal value: ");
+                    token = input.next();
+                    num = InputTokenizer.parseDouble(token);
                 }
+                OUT.println("Hexadecimal value: " + (RadixConverter.isValid(token, 10)
+                        ? RadixConverter.convert(token, 10, 16) : getHexFromDecimal((int) Math.ceil(num))));
             }
-            default -> testHexOperations();
+            case "7" -> runTestsWithoutJournal(Calculator::testHexOperations);
+            case "8" -> fixedWidthCalculator(input, "hexadecimal");
+            case "9" -> transcodeFile(input, false);
+            default -> hexFuncWordFileArithmetic(input);
         }
         return true;
     }
 
     /**
-     * Runs the bandwidth calculator until the user quits it.
-     * Functions include:
-     *    1. Convert data unit
+     * Performs the "Word arithmetic over a binary file" function of the hexadecimal calculator.
+     * Reads the file as words of the chosen width and byte order and prints their sums, XOR, and checksums.
+     * @param input - Tokenizer for user input
+     */
+    private static void hexFuncWordFileArithmetic(InputTokenizer input) {
+        Path file = readExistingFile(input, "Binary file: ");
+        OUT.print("Enter a word width (16, 32, or 64): ");
+        String widthChoice = input.next();
+        while (!InputTokenizer.isInt(widthChoice) || !WordFileArithmetic.isValidWidth(Integer.parseInt(widthChoice))) {
+            OUT.println("Please enter one of the given widths.");
+            OUT.print("Enter a word width (16, 32, or 64): ");
+            widthChoice = input.next();
+        }
+        OUT.println("Byte orders:");
+        printUnitOptions(WordFileArithmetic.BYTE_ORDERS);
+        OUT.print("Enter a byte order: ");
+        String byteOrder = input.next();
+        while (!inStringArray(WordFileArithmetic.BYTE_ORDERS, byteOrder)) {
+            OUT.println("Please enter one of the given byte orders.");
+            OUT.print("Enter a byte order: ");
+            byteOrder = input.next();
+        }
+
+        try {
+            long start = System.nanoTime();
+            WordFileArithmetic result = WordFileArithmetic.calculate(file, Integer.parseInt(widthChoice), byteOrder);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            OUT.println("Result:");
+            OUT.print("Read " + result.getWords() + " " + result.getWidth() + "-bit words");
+            OUT.println(result.getBytes() % (result.getWidth() / 8) == 0 ? ""
+                    : " (the last padded with zero bytes)");
+            OUT.println("Sum: " + result.formatFullSum());
+            OUT.println("Sum wrapped to " + result.getWidth() + " bits: " + result.format(result.getSum())
+                    + " (" + result.getCarries() + " carries)");
+            OUT.println("XOR: " + result.format(result.getXor()));
+            OUT.println("One's complement checksum: " + result.format(result.getOnesComplementChecksum()));
+            OUT.println("CRC-32C: " + FixedWidthArithmetic.format(result.getCrc32c(), 16, 32));
+            OUT.print("Took ").print(seconds, SECONDS_FORMAT).print(" seconds (")
+                    .print(convertSizeUnit("B", "MB", result.getBytes()) / seconds, DoubleFormatter.fixed(1))
+                    .println(" MB/s)");
+        } catch (IOException e) {
+            OUT.println("Could not process the files: " + e.getMessage());
+        }
+        OUT.println();
+    }
+
+    /**
+     * Performs the "Fixed-width mode" function of the binary and hexadecimal calculators.
+     * Values are entered as bit patterns of the chosen width and results wrap around in two's complement.
+     * @param input - Tokenizer for user input
+     * @param type - String representing type of the values: either "binary" or "hexadecimal"
+     */
+    private static void fixedWidthCalculator(InputTokenizer input, String type) {
+        int radix = type.equals("binary") ? 2 : 16;
+        OUT.print("Enter a width (8, 16, 32, or 64): ");
+        String widthChoice = input.next();
+        while (!InputTokenizer.isInt(widthChoice) || !FixedWidthArithmetic.isValidWidth(Integer.parseInt(widthChoice))) {
+            OUT.println("Please enter one of the given widths.");
+            OUT.print("Enter a width (8, 16, 32, or 64): ");
+            widthChoice = input.next();
+        }
+        int width = Integer.parseInt(widthChoice);
+
+        OUT.println("Operators:");
+        printUnitOptions(FIXED_WIDTH_OPERATORS);
+        OUT.print("Enter an operator: ");
+        String operator = input.next();
+        while (!inStringArray(FIXED_WIDTH_OPERATORS, operator)) {
+            OUT.println("Please enter one of the given operators.");
+            OUT.print("Enter an operator: ");
+            operator = input.next();
+        }
+
+        long a = readFixedWidthValue(input, "First value: ", radix, width);
+        long b = 0;
+        if (FixedWidthArithmetic.isShift(operator)) {
+            OUT.print("Number of bits: ");
+            String bits = input.next();
+            while (!InputTokenizer.isInt(bits) || Integer.parseInt(bits) < 0) {
+                OUT.println("Must be a non-negative integer");
+                OUT.print("Number of bits: ");
+                bits = input.next();
+            }
+            b = Integer.parseInt(bits);
+        } else if (!FixedWidthArithmetic.isUnary(operator)) {
+            b = readFixedWidthValue(input, "Second value: ", radix, width);
+            while (operator.equals("/") && b == 0) {
+                OUT.println("Cannot divide by zero.");
+                b = readFixedWidthValue(input, "Second value: ", radix, width);
+            }
+        }
+
+        long result = FixedWidthArithmetic.apply(operator, a, b, width);
+        String aPattern = FixedWidthArithmetic.format(a, radix, width);
+        OUT.println("Result:");
+        type = Character.toUpperCase(type.charAt(0)) + type.substring(1);
+        OUT.println(type + " value (" + width + "-bit):");
+        if (operator.equals("popcount") || operator.equals("clz") || operator.equals("ctz")) {
+            OUT.println(operator + "(" + aPattern + ") = " + result);
+        } else {
+            String bPattern = FixedWidthArithmetic.isShift(operator)
+                    ? String.valueOf(b)
+                    : FixedWidthArithmetic.format(b, radix, width);
+            String expression = FixedWidthArithmetic.isUnary(operator)
+                    ? operator + aPattern
+                    : aPattern + " " + operator + " " + bPattern;
+            OUT.println(expression + " = " + FixedWidthArithmetic.format(result, radix, width));
+            OUT.println("Signed decimal value: " + result);
+            OUT.println("Unsigned decimal value: " + Long.toUnsignedString(result & FixedWidthArithmetic.mask(width)));
+            int flags = FixedWidthArithmetic.flags(operator, a, b, result, width);
+            OUT.println("Flags: " + FixedWidthArithmetic.describeFlags(flags));
+        }
+        OUT.println();
+    }
+
+    /**
+     * Prompts for a binary or hexadecimal bit pattern of the given width until a valid one is entered
+     * @param input - Tokenizer for user input
+     * @param prompt - Prompt to print
+     * @param radix - 2 for binary or 16 for hexadecimal
+     * @param width - Width in bits
+     * @return long - Value entered, sign-extended from the width
+     */
+    private static long readFixedWidthValue(InputTokenizer input, String prompt, int radix, int width) {
+        OUT.print(prompt);
+        String value = input.next();
+        while (!FixedWidthArithmetic.isValid(value, radix, width)) {
+            if (radix == 2) {
+                OUT.println("Must be at most " + width + " bits, or " + width
+                        + " signed bits if negative, and contain only 1's and 0's.");
+            } else {
+                OUT.println("Must be at most " + width + " bits, or " + width
+                        + " signed bits if negative, and contain only values 0-9 and A-F.");
+            }
+            OUT.print(prompt);
+            value = input.next();
+        }
+        return FixedWidthArithmetic.parse(value, radix, width);
+    }
+
+    /**
+     * Runs the bandwidth calculator until the user quits it.
+     * Functions include:
+     *    1. Convert data unit
      *    2. Calculate download/upload time
      *    3. Calculate website bandwidth
      *    4. Convert monthly usage to bandwidth
      *    5. Convert bandwidth to monthly usage
      *    6. Run tests
-     * @param input - A Scanner for user input.
+     *    7. Convert CSV file
+     *    8. Convert data series file to all units
+     *    9. Calculate download/upload time over a network
+     *    10. Simulate website bandwidth
+     *    11. Export what-if table to CSV
+     *    12. Simulate traffic shaping on links
+     *    13. Simulate website bandwidth with an edge cache
+     *    14. Calculate download/upload time of a file with compression
+     * @param input - A tokenizer for user input.
      * @return boolean - True if calculator is still running, false if it has been quit.
      */
-    private static boolean runBandwidthCalculator(Scanner input) {
-        System.out.println("Select a bandwidth operation (enter \"q\" to quit):");
-        System.out.println("   1. Convert data unit");
-        System.out.println("   2. Calculate download/upload time");
-        System.out.println("   3. Calculate website bandwidth");
-        System.out.println("   4. Convert monthly usage to bandwidth");
-        System.out.println("   5. Convert bandwidth to monthly usage");
-        System.out.println("   6. Run tests");
-        System.out.print("Selection: ");
+    private static boolean runBandwidthCalculator(InputTokenizer input) {
+        OUT.println("Select a bandwidth operation (enter \"q\" to quit):");
+        OUT.println("   1. Convert data unit");
+        OUT.println("   2. Calculate download/upload time");
+        OUT.println("   3. Calculate website bandwidth");
+        OUT.println("   4. Convert monthly usage to bandwidth");
+        OUT.println("   5. Convert bandwidth to monthly usage");
+        OUT.println("   6. Run tests");
+        OUT.println("   7. Convert CSV file");
+        OUT.println("   8. Convert data series file to all units");
+        OUT.println("   9. Calculate download/upload time over a network");
+        OUT.println("   10. Simulate website bandwidth");
+        OUT.println("   11. Export what-if table to CSV");
+        OUT.println("   12. Simulate traffic shaping on links");
+        OUT.println("   13. Simulate website bandwidth with an edge cache");
+        OUT.println("   14. Calculate download/upload time of a file with compression");
+        OUT.print("Selection: ");
 
         String operationChoice = input.next();
         while(!(operationChoice.equals("q")
@@ -965,8 +2696,16 @@ public class Calculator {
                 || operationChoice.equals("3")
                 || operationChoice.equals("4")
                 || operationChoice.equals("5")
-                || operationChoice.equals("6"))) {
-            System.out.print("Please select a valid option: ");
+                || operationChoice.equals("6")
+                || operationChoice.equals("7")
+                || operationChoice.equals("8")
+                || operationChoice.equals("9")
+                || operationChoice.equals("10")
+                || operationChoice.equals("11")
+                || operationChoice.equals("12")
+                || operationChoice.equals("13")
+                || operationChoice.equals("14"))) {
+            OUT.print("Please select a valid option: ");
             operationChoice = input.next();
         }
 
@@ -986,298 +2725,838 @@ public class Calculator {
             case "3" -> bandwidthFuncCalcWebsiteBandwidth(input);
             case "4" -> bandwidthFuncConvertUsageToBandwidth(input);
             case "5" -> bandwidthFuncConvertBandwidthToUsage(input);
-            default -> testBandwidthOperations();
+            case "6" -> runTestsWithoutJournal(Calculator::testBandwidthOperations);
+            case "7" -> bandwidthFuncConvertCsv(input);
+            case "8" -> bandwidthFuncConvertSeries(input);
+            case "9" -> bandwidthFuncCalcNetworkLoadTime(input);
+            case "10" -> bandwidthFuncSimulateWebsiteBandwidth(input);
+            case "11" -> bandwidthFuncExportSweep(input);
+            case "12" -> bandwidthFuncSimulateTraffic(input);
+            case "13" -> bandwidthFuncSimulateEdgeCache(input);
+            default -> bandwidthFuncCalcCompressedLoadTime(input);
         }
         return true;
     }
 
     /**
      * Performs the "convert data unit" function of the bandwidth calculator
-     * @param input - Scanner for user input
+     * @param input - Tokenizer for user input
      */
-    private static void bandwidthFuncConvertDataUnit(Scanner input) {
-        System.out.println("Data units:");
+    private static void bandwidthFuncConvertDataUnit(InputTokenizer input) {
+        OUT.println("Data units:");
         printUnitOptions(SIZE_UNITS);
-        System.out.print("Enter a unit to convert from (e.g. \"GB\"): ");
+        OUT.print("Enter a unit to convert from (e.g. \"GB\"): ");
         String unit = input.next();
         while (!inStringArray(SIZE_UNITS, unit)) {
-            System.out.println("Please enter one of the given units.");
-            System.out.print("Enter a unit to convert from (e.g. \"GB\"): ");
+            OUT.println("Please enter one of the given units.");
+            OUT.print("Enter a unit to convert from (e.g. \"GB\"): ");
             unit = input.next();
         }
-        double num = 0;
-        boolean isNumeric = false;
-        while (!isNumeric) {
-            try {
-                System.out.print("Enter a value: ");
-                num = input.nextDouble();
-                isNumeric = true;
-                while (num < 0) {
-                    System.out.println("Must be a positive number");
-                    System.out.print("Enter a value: ");
-                    num = input.nextDouble();
-                }
-            } catch (Exception InputMismatchException) {
-                System.out.println("Must be numeric.");
-                // Eat the invalid input
-                input.next();
-                isNumeric = false;
-            }
-        }
-        convertSizeUnits(num, unit);
-        System.out.println();
+        double num = readNonNegativeDouble(input, "Enter a value: ", "Enter a value: ");
+        printSizeUnits(OUT, convertSizeUnits(num, unit));
+        OUT.println();
     }
 
     /**
      * Performs the "Calculate download/upload time" function of the bandwidth calculator
-     * @param input - Scanner for user input
+     * @param input - Tokenizer for user input
      */
-    private static void bandwidthFuncCalcLoadTime(Scanner input) {
-        System.out.println("File size units:");
+    private static void bandwidthFuncCalcLoadTime(InputTokenizer input) {
+        OUT.println("File size units:");
         printUnitOptions(BIG_SIZE_UNITS);
-        System.out.print("Enter a unit: ");
+        OUT.print("Enter a unit: ");
         String sizeUnit = input.next();
         while (!inStringArray(BIG_SIZE_UNITS, sizeUnit)) {
-            System.out.println("Please enter one of the given units.");
-            System.out.print("Enter a unit: ");
+            OUT.println("Please enter one of the given units.");
+            OUT.print("Enter a unit: ");
             sizeUnit = input.next();
         }
-        double sizeValue = 0;
-        boolean isNumeric = false;
-        while (!isNumeric) {
-            try {
-                System.out.print("Enter a file size: ");
-                sizeValue = input.nextDouble();
-                isNumeric = true;
-                while (sizeValue < 0) {
-                    System.out.println("Must be a positive number");
-                    System.out.print("Enter a value: ");
-                    sizeValue = input.nextDouble();
-                }
-            } catch (Exception InputMismatchException) {
-                System.out.println("Must be numeric.");
-                // Eat the invalid input
-                input.next();
-                isNumeric = false;
-            }
+        double sizeValue = readNonNegativeDouble(input, "Enter a file size: ", "Enter a value: ");
+
+        OUT.println("Bandwidth units:");
+        printUnitOptions(BANDWIDTH_UNITS);
+        OUT.print("Enter a unit: ");
+        String bandwidthUnit = input.next();
+        while (!inStringArray(BANDWIDTH_UNITS, bandwidthUnit)) {
+            OUT.println("Please enter one of the given units.");
+            OUT.print("Enter a unit: ");
+            bandwidthUnit = input.next();
         }
 
-        System.out.println("Bandwidth units:");
+        double bandwidthValue = readNonNegativeDouble(input, "Enter bandwidth value: ", "Enter a value: ");
+        String loadTime = calculateLoadTime(sizeValue, sizeUnit, bandwidthValue, bandwidthUnit);
+        OUT.println("Download or upload time needed is: ~" + loadTime);
+        OUT.println();
+    }
+
+    /**
+     * Performs the "Calculate download/upload time over a network" function of the bandwidth calculator.
+     * Uses a TCP model with the entered round trip time and number of parallel streams.
+     * @param input - Tokenizer for user input
+     */
+    private static void bandwidthFuncCalcNetworkLoadTime(InputTokenizer input) {
+        OUT.println("File size units:");
+        printUnitOptions(BIG_SIZE_UNITS);
+        OUT.print("Enter a unit: ");
+        String sizeUnit = input.next();
+        while (!inStringArray(BIG_SIZE_UNITS, sizeUnit)) {
+            OUT.println("Please enter one of the given units.");
+            OUT.print("Enter a unit: ");
+            sizeUnit = input.next();
+        }
+        double sizeValue = readNonNegativeDouble(input, "Enter a file size: ", "Enter a value: ");
+
+        OUT.println("Bandwidth units:");
         printUnitOptions(BANDWIDTH_UNITS);
-        System.out.print("Enter a unit: ");
+        OUT.print("Enter a unit: ");
         String bandwidthUnit = input.next();
         while (!inStringArray(BANDWIDTH_UNITS, bandwidthUnit)) {
-            System.out.println("Please enter one of the given units.");
-            System.out.print("Enter a unit: ");
+            OUT.println("Please enter one of the given units.");
+            OUT.print("Enter a unit: ");
             bandwidthUnit = input.next();
         }
+        double bandwidthValue = readNonNegativeDouble(input, "Enter bandwidth value: ", "Enter a value: ");
 
-        double bandwidthValue = 0;
-        isNumeric = false;
-        while (!isNumeric) {
-            try {
-                System.out.print("Enter bandwidth value: ");
-                bandwidthValue = input.nextDouble();
-                isNumeric = true;
-                while (bandwidthValue < 0) {
-                    System.out.println("Must be a positive number");
-                    System.out.print("Enter a value: ");
-                    bandwidthValue = input.nextDouble();
-                }
-            } catch (Exception InputMismatchException) {
-                System.out.println("Must be numeric.");
-                // Eat the invalid input
-                input.next();
-                isNumeric = false;
-            }
+        double rttMillis = readNonNegativeDouble(input, "Enter round trip time in milliseconds: ", "Enter a value: ");
+        int streams = readPositiveInt(input, "Enter number of parallel streams: ");
+
+        TransferModel model = TransferModel.tcp(rttMillis / 1000, streams);
+        double seconds = calculateLoadTimeSeconds(sizeValue, sizeUnit, bandwidthValue, bandwidthUnit, model);
+        double rawSeconds = calculateLoadTimeSeconds(sizeValue, sizeUnit, bandwidthValue, bandwidthUnit);
+        String loadTime = calculateLoadTime(sizeValue, sizeUnit, bandwidthValue, bandwidthUnit, model);
+        if (!loadTime.isEmpty()) {
+            OUT.println("Download or upload time needed is: ~" + loadTime);
         }
-        String loadTime = calculateLoadTime(sizeValue, sizeUnit, bandwidthValue, bandwidthUnit);
-        System.out.println("Download or upload time needed is: ~" + loadTime);
-        System.out.println();
+        OUT.print("Time needed: ").print(seconds, SECONDS_FORMAT).print(" seconds (")
+                .print(rawSeconds, SECONDS_FORMAT).println(" seconds at the raw link rate)");
+        OUT.println();
     }
 
     /**
      * Performs the "Calculate website bandwidth" function of the bandwidth calculator
-     * @param input - Scanner for user input
+     * @param input - Tokenizer for user input
      */
-    private static void bandwidthFuncCalcWebsiteBandwidth(Scanner input) {
-        System.out.println("Page views:");
+    private static void bandwidthFuncCalcWebsiteBandwidth(InputTokenizer input) {
+        OUT.println("Page views:");
         printUnitOptions(TIME_UNITS);
-        System.out.print("Enter a unit: ");
+        OUT.print("Enter a unit: ");
         String timeUnit = input.next();
         while (!inStringArray(TIME_UNITS, timeUnit)) {
-            System.out.println("Please enter one of the given units.");
-            System.out.print("Enter a unit: ");
+            OUT.println("Please enter one of the given units.");
+            OUT.print("Enter a unit: ");
             timeUnit = input.next();
         }
-        double pageViews = 0;
-        boolean isNumeric = false;
-        while (!isNumeric) {
-            try {
-                System.out.print("Enter page views value: ");
-                pageViews = input.nextDouble();
-                isNumeric = true;
-                while (pageViews < 0) {
-                    System.out.println("Must be a positive number");
-                    System.out.print("Enter a value: ");
-                    pageViews = input.nextDouble();
-                }
-            } catch (Exception InputMismatchException) {
-                System.out.println("Must be numeric.");
-                // Eat the invalid input
-                input.next();
-                isNumeric = false;
-            }
+        double pageViews = readNonNegativeDouble(input, "Enter page views value: ", "Enter a value: ");
+
+        OUT.println("Average page size:");
+        printUnitOptions(BIG_SIZE_UNITS);
+        OUT.print("Enter a unit: ");
+        String sizeUnit = input.next();
+        while (!inStringArray(BIG_SIZE_UNITS, sizeUnit)) {
+            OUT.println("Please enter one of the given units.");
+            OUT.print("Enter a unit: ");
+            sizeUnit = input.next();
         }
+        double pageSize = readNonNegativeDouble(input, "Enter page size value: ", "Enter a value: ");
+
+        double redundancy = readNonNegativeDouble(input, "Enter redundancy factor: ", "Enter redundancy factor: ");
+        printWebsiteBandwidth(OUT, calculateWebsiteBandwidth(pageViews, timeUnit, pageSize, sizeUnit, redundancy));
+        OUT.println();
+    }
 
-        System.out.println("Average page size:");
+    /**
+     * Performs the "Simulate website bandwidth" function of the bandwidth calculator
+     * @param input - Tokenizer for user input
+     */
+    private static void bandwidthFuncSimulateWebsiteBandwidth(InputTokenizer input) {
+        OUT.println("Page views:");
+        printUnitOptions(TIME_UNITS);
+        OUT.print("Enter a unit: ");
+        String timeUnit = input.next();
+        while (!inStringArray(TIME_UNITS, timeUnit)) {
+            OUT.println("Please enter one of the given units.");
+            OUT.print("Enter a unit: ");
+            timeUnit = input.next();
+        }
+        double pageViews = readNonNegativeDouble(input, "Enter page views value: ", "Enter a value: ");
+
+        OUT.println("Average page size:");
         printUnitOptions(BIG_SIZE_UNITS);
-        System.out.print("Enter a unit: ");
+        OUT.print("Enter a unit: ");
         String sizeUnit = input.next();
         while (!inStringArray(BIG_SIZE_UNITS, sizeUnit)) {
-            System.out.println("Please enter one of the given units.");
-            System.out.print("Enter a unit: ");
+            OUT.println("Please enter one of the given units.");
+            OUT.print("Enter a unit: ");
             sizeUnit = input.next();
         }
-        double pageSize = 0;
-        isNumeric = false;
-        while (!isNumeric) {
-            try {
-                System.out.print("Enter page size value: ");
-                pageSize = input.nextDouble();
-                isNumeric = true;
-                while (pageSize < 0) {
-                    System.out.println("Must be a positive number");
-                    System.out.print("Enter a value: ");
-                    pageSize = input.nextDouble();
-                }
-            } catch (Exception InputMismatchException) {
-                System.out.println("Must be numeric.");
-                // Eat the invalid input
-                input.next();
-                isNumeric = false;
+        double pageSize = readNonNegativeDouble(input, "Enter page size value: ", "Enter a value: ");
+        double variation = readNonNegativeDouble(input, "Enter page size variation (standard deviation / average): ",
+                "Enter page size variation: ");
+        double redundancy = readNonNegativeDouble(input, "Enter redundancy factor: ", "Enter redundancy factor: ");
+
+        OUT.println("Page view arrivals:");
+        printUnitOptions(BandwidthSimulation.ARRIVALS);
+        OUT.print("Enter an arrival pattern: ");
+        String arrivals = input.next();
+        while (!inStringArray(BandwidthSimulation.ARRIVALS, arrivals)) {
+            OUT.println("Please enter one of the given arrival patterns.");
+            OUT.print("Enter an arrival pattern: ");
+            arrivals = input.next();
+        }
+        double capacity = readNonNegativeDouble(input, "Enter link capacity in Mbit/s: ", "Enter a value: ");
+        int seconds = readPositiveInt(input, "Enter number of seconds to simulate: ");
+
+        Map<String, Double> results = new BandwidthSimulation(arrivals, variation, System.nanoTime())
+                .run(pageViews, timeUnit, pageSize, sizeUnit, redundancy, capacity, seconds);
+        OUT.println("Bandwidth needed over " + seconds + " simulated seconds:");
+        OUT.print("   - Average: ").print(results.get("mean")).println(" Mbit/s");
+        OUT.print("   - Median: ").print(results.get("p50")).println(" Mbit/s");
+        OUT.print("   - 95th percentile: ").print(results.get("p95")).println(" Mbit/s");
+        OUT.print("   - 99th percentile: ").print(results.get("p99")).println(" Mbit/s");
+        OUT.print("   - Busiest second: ").print(results.get("max")).println(" Mbit/s");
+        OUT.print("Chance of exceeding ").print(capacity).print(" Mbit/s in a second: ")
+                .print(results.get("exceedProbability") * 100, DoubleFormatter.fixed(2)).println("%");
+        OUT.println();
+    }
+
+    /**
+     * Performs the "Simulate traffic shaping on links" function of the bandwidth calculator.
+     * Simulates flows sharing links under priority classes and token-bucket shaping, prints completion times and link
+     * utilization, and writes each flow's completion time to a CSV file.
+     * @param input - Tokenizer for user input
+     */
+    private static void bandwidthFuncSimulateTraffic(InputTokenizer input) {
+        OUT.println("Link rate units:");
+        printUnitOptions(BANDWIDTH_UNITS);
+        OUT.print("Enter a unit: ");
+        String bandwidthUnit = input.next();
+        while (!inStringArray(BANDWIDTH_UNITS, bandwidthUnit)) {
+            OUT.println("Please enter one of the given units.");
+            OUT.print("Enter a unit: ");
+            bandwidthUnit = input.next();
+        }
+        double linkRate = readPositiveDouble(input, "Enter link rate: ");
+        int links = readPositiveInt(input, "Enter number of links: ");
+
+        OUT.println("Average flow size:");
+        printUnitOptions(BIG_SIZE_UNITS);
+        OUT.print("Enter a unit: ");
+        String sizeUnit = input.next();
+        while (!inStringArray(BIG_SIZE_UNITS, sizeUnit)) {
+            OUT.println("Please enter one of the given units.");
+            OUT.print("Enter a unit: ");
+            sizeUnit = input.next();
+        }
+        double flowSize = readPositiveDouble(input, "Enter flow size value: ");
+        double flowsPerSecond = readPositiveDouble(input, "Enter flows arriving per second across all links: ");
+        int flows = readPositiveInt(input, "Enter number of flows to simulate: ");
+
+        int classCount = readPositiveInt(input, "Enter number of priority classes: ");
+        while (classCount > MAX_TRAFFIC_CLASSES) {
+            OUT.println("Must be at most " + MAX_TRAFFIC_CLASSES + ".");
+            classCount = readPositiveInt(input, "Enter number of priority classes: ");
+        }
+        TrafficSimulation.ShapingClass[] classes = new TrafficSimulation.ShapingClass[classCount];
+        for (int c = 0; c < classCount; c++) {
+            OUT.println("Class " + (c + 1) + (c == 0 ? " (highest priority):" : ":"));
+            double share = readNonNegativeDouble(input, "Enter share of flows: ", "Enter share of flows: ");
+            double rate = readNonNegativeDouble(input, "Enter shaping rate in " + bandwidthUnit + " (0 for none): ",
+                    "Enter a value: ");
+            double burst = rate == 0 ? 0 : readNonNegativeDouble(input, "Enter burst size in " + sizeUnit + ": ",
+                    "Enter a value: ");
+            classes[c] = new TrafficSimulation.ShapingClass(share, rate, bandwidthUnit, burst, sizeUnit);
+        }
+        OUT.print("Output file: ");
+        Path outputFile = Paths.get(input.next());
+
+        TrafficSimulation.Result result;
+        long start = System.nanoTime();
+        try {
+            result = new TrafficSimulation(linkRate, bandwidthUnit, links, System.nanoTime(), classes)
+                    .run(flowsPerSecond, flowSize, sizeUnit, flows);
+        } catch (IllegalArgumentException e) {
+            OUT.println(e.getMessage());
+            OUT.println();
+            return;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        DoubleFormatter percent = DoubleFormatter.fixed(1);
+        OUT.println("Result:");
+        OUT.print("Simulated " + flows + " flows over ").print(result.getEndSeconds())
+                .println(" seconds of traffic (" + result.getEvents() + " events)");
+        OUT.print("Flows in progress: average ").print(result.getAverageActiveFlows())
+                .println(", most " + result.getMostActiveFlows());
+        for (int link = 0; link < Math.min(links, MAX_LINKS_SHOWN); link++) {
+            OUT.print("   - Link " + (link + 1) + " utilization: ").print(result.getUtilization(link) * 100, percent)
+                    .println("%");
+        }
+        if (links > MAX_LINKS_SHOWN) {
+            OUT.println("   - and " + (links - MAX_LINKS_SHOWN) + " more links");
+        }
+        for (int c = -1; c < classCount; c++) {
+            Map<String, Double> summary = result.summary(c);
+            String name = c == -1 ? "All flows" : "Class " + (c + 1);
+            OUT.print(name + " (").print(summary.get("flows"), COMPACT_FORMAT).print(" flows)");
+            if (summary.get("flows") == 0) {
+                OUT.println();
+                continue;
             }
+            OUT.print(": completion average ").print(summary.get("mean"))
+                    .print(" seconds, median ").print(summary.get("p50"))
+                    .print(", 99th percentile ").print(summary.get("p99"))
+                    .print(", longest ").print(summary.get("max")).println();
+        }
+        try {
+            result.writeCsv(outputFile);
+            OUT.println("Wrote each flow's completion time to " + outputFile);
+        } catch (IOException e) {
+            OUT.println("Could not process the files: " + e.getMessage());
         }
+        OUT.print("Took ").print(seconds, SECONDS_FORMAT)
+                .println(" seconds (" + (long) (result.getEvents() / seconds) + " events per second)");
+        OUT.println();
+    }
 
-        double redundancy = 0;
-        isNumeric = false;
-        while (!isNumeric) {
-            try {
-                System.out.print("Enter redundancy factor: ");
-                redundancy = input.nextDouble();
-                isNumeric = true;
-                while (redundancy < 0) {
-                    System.out.println("Must be a positive number");
-                    System.out.print("Enter redundancy factor: ");
-                    redundancy = input.nextDouble();
-                }
-            } catch (Exception InputMismatchException) {
-                System.out.println("Must be numeric.");
-                // Eat the invalid input
-                input.next();
-                isNumeric = false;
+    /**
+     * Performs the "Simulate website bandwidth with an edge cache" function of the bandwidth calculator.
+     * Simulates page requests through an LRU or LFU cache and prints how the bandwidth splits between edge and origin.
+     * @param input - Tokenizer for user input
+     */
+    private static void bandwidthFuncSimulateEdgeCache(InputTokenizer input) {
+        OUT.println("Page views:");
+        printUnitOptions(TIME_UNITS);
+        OUT.print("Enter a unit: ");
+        String timeUnit = input.next();
+        while (!inStringArray(TIME_UNITS, timeUnit)) {
+            OUT.println("Please enter one of the given units.");
+            OUT.print("Enter a unit: ");
+            timeUnit = input.next();
+        }
+        double pageViews = readNonNegativeDouble(input, "Enter page views value: ", "Enter a value: ");
+
+        OUT.println("Average page size and cache capacity:");
+        printUnitOptions(BIG_SIZE_UNITS);
+        OUT.print("Enter a unit: ");
+        String sizeUnit = input.next();
+        while (!inStringArray(BIG_SIZE_UNITS, sizeUnit)) {
+            OUT.println("Please enter one of the given units.");
+            OUT.print("Enter a unit: ");
+            sizeUnit = input.next();
+        }
+        double pageSize = readPositiveDouble(input, "Enter page size value: ");
+        double variation = readNonNegativeDouble(input, "Enter page size variation (standard deviation / average): ",
+                "Enter page size variation: ");
+        double redundancy = readNonNegativeDouble(input, "Enter redundancy factor: ", "Enter redundancy factor: ");
+        int pages = readPositiveInt(input, "Enter number of pages on the site: ");
+        double exponent = readNonNegativeDouble(input, "Enter Zipf popularity exponent (0 for equal popularity): ",
+                "Enter a value: ");
+
+        OUT.println("Cache policies:");
+        printUnitOptions(EdgeCacheSimulation.POLICIES);
+        OUT.print("Enter a policy: ");
+        String policy = input.next();
+        while (!inStringArray(EdgeCacheSimulation.POLICIES, policy)) {
+            OUT.println("Please enter one of the given policies.");
+            OUT.print("Enter a policy: ");
+            policy = input.next();
+        }
+        double capacity = readNonNegativeDouble(input, "Enter cache capacity in " + sizeUnit + ": ", "Enter a value: ");
+        int requests = readPositiveInt(input, "Enter number of requests to simulate: ");
+        while (requests < 10) {
+            OUT.println("Must be at least 10.");
+            requests = readPositiveInt(input, "Enter number of requests to simulate: ");
+        }
+
+        long start = System.nanoTime();
+        Map<String, Double> results = new EdgeCacheSimulation(policy, pages, exponent, variation, System.nanoTime())
+                .run(pageViews, timeUnit, pageSize, sizeUnit, redundancy, capacity, requests);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Map<String, Double> withoutCache = calculateWebsiteBandwidth(pageViews, timeUnit, pageSize, sizeUnit,
+                redundancy);
+
+        DoubleFormatter percent = DoubleFormatter.fixed(2);
+        OUT.println("Result:");
+        OUT.print("Cache hit ratio: ").print(results.get("hitRatio") * 100, percent).print("% of requests, ")
+                .print(results.get("byteHitRatio") * 100, percent).println("% of bytes");
+        OUT.print("Edge bandwidth needed is ").print(results.get("edgeBandwidthSeconds"))
+                .print(" Mbit/s or ").print(results.get("edgeBandwidthMonths")).println(" GB per month.");
+        OUT.print("Origin bandwidth needed is ").print(results.get("originBandwidthSeconds"))
+                .print(" Mbit/s or ").print(results.get("originBandwidthMonths")).println(" GB per month.");
+        OUT.print("Without a cache, the origin would need ").print(withoutCache.get("bandwidthSecondsRedundancy"))
+                .print(" Mbit/s or ").print(withoutCache.get("bandwidthMonthsRedundancy")).println(" GB per month.");
+        OUT.print("Took ").print(seconds, SECONDS_FORMAT)
+                .println(" seconds (" + (long) (requests / seconds) + " requests per second)");
+        OUT.println();
+    }
+
+    /**
+     * Performs the "Calculate download/upload time of a file with compression" function of the bandwidth calculator.
+     * Compresses the file, or a sample of it, in parallel chunks and compares sending it with and without compression.
+     * @param input - Tokenizer for user input
+     */
+    private static void bandwidthFuncCalcCompressedLoadTime(InputTokenizer input) {
+        Path file = readExistingFile(input, "Enter file path: ");
+
+        OUT.println("Compression formats:");
+        printUnitOptions(CompressionEstimate.FORMATS);
+        OUT.print("Enter a format: ");
+        String format = input.next();
+        while (!inStringArray(CompressionEstimate.FORMATS, format)) {
+            OUT.println("Please enter one of the given formats.");
+            OUT.print("Enter a format: ");
+            format = input.next();
+        }
+        OUT.print("Enter compression level (0-9): ");
+        String level = input.next();
+        while (!InputTokenizer.isInt(level) || Integer.parseInt(level) < 0 || Integer.parseInt(level) > 9) {
+            OUT.println("Must be a whole number from 0 to 9.");
+            OUT.print("Enter compression level (0-9): ");
+            level = input.next();
+        }
+
+        OUT.println("Bandwidth units:");
+        printUnitOptions(BANDWIDTH_UNITS);
+        OUT.print("Enter a unit: ");
+        String bandwidthUnit = input.next();
+        while (!inStringArray(BANDWIDTH_UNITS, bandwidthUnit)) {
+            OUT.println("Please enter one of the given units.");
+            OUT.print("Enter a unit: ");
+            bandwidthUnit = input.next();
+        }
+        double bandwidthValue = readPositiveDouble(input, "Enter bandwidth value: ");
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        CompressionEstimate estimate;
+        long start = System.nanoTime();
+        try {
+            estimate = CompressionEstimate.measure(file, format, Integer.parseInt(level),
+                    CompressionEstimate.DEFAULT_CHUNK_BYTES, CompressionEstimate.DEFAULT_SAMPLE_BYTES, threads);
+        } catch (IOException e) {
+            OUT.println("Could not process the files: " + e.getMessage());
+            OUT.println();
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            OUT.println("Interrupted while compressing");
+            OUT.println();
+            return;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (estimate.getFileBytes() == 0) {
+            OUT.println("The file is empty, so there is nothing to compress.");
+            OUT.println();
+            return;
+        }
+
+        DoubleFormatter percent = DoubleFormatter.fixed(2);
+        OUT.println("Result:");
+        OUT.print("File size is ").print(convertSizeUnit("B", "MB", estimate.getFileBytes())).print(" MB, ")
+                .print(convertSizeUnit("B", "MB", estimate.getCompressedBytes())).print(" MB compressed (")
+                .print(estimate.getRatio() * 100, percent).println("% of the original)");
+        if (estimate.getSampleBytes() < estimate.getFileBytes()) {
+            OUT.print("Estimated from a sample of ").print(convertSizeUnit("B", "MB", estimate.getSampleBytes()))
+                    .println(" MB");
+        }
+        DoubleFormatter rate = DoubleFormatter.fixed(1);
+        OUT.print("Compresses at ").print(convertSizeUnit("B", "MB", estimate.getBytesPerSecondPerCore()), rate)
+                .print(" MB/s per core, ").print(convertSizeUnit("B", "MB", estimate.getBytesPerSecond()), rate)
+                .println(" MB/s on " + estimate.getThreads() + " threads");
+        printCompressedLoadTime("Without compression", estimate.uncompressedSeconds(bandwidthValue, bandwidthUnit));
+        printCompressedLoadTime("Compressing while sending", estimate.streamedSeconds(bandwidthValue, bandwidthUnit));
+        printCompressedLoadTime("Compressing, then sending", estimate.sequentialSeconds(bandwidthValue, bandwidthUnit));
+        double breakEven = estimate.breakEvenMegabitsPerSecond();
+        if (breakEven > 0) {
+            OUT.print("Compressing while sending is faster on links slower than ").print(breakEven, rate)
+                    .println(" Mbit/s");
+        } else {
+            OUT.println("The file does not get smaller, so compressing does not pay off on any link");
+        }
+        OUT.print("Took ").print(seconds, SECONDS_FORMAT).println(" seconds");
+        OUT.println();
+    }
+
+    /**
+     * Prints a labelled download/upload time in seconds, followed by days, hours, and minutes if it is a minute or more
+     * @param label - What the time is for
+     * @param loadTime - Load time in seconds
+     */
+    private static void printCompressedLoadTime(String label, double loadTime) {
+        String formatted = formatLoadTime(loadTime);
+        OUT.print(label + ": ").print(loadTime, SECONDS_FORMAT)
+                .println(formatted.isEmpty() ? " seconds" : " seconds (~" + formatted + ")");
+    }
+
+    /**
+     * Performs the "Export what-if table to CSV" function of the bandwidth calculator.
+     * Calculates a load time, website bandwidth, or needed bandwidth for every combination of two ranges of values.
+     * @param input - Tokenizer for user input
+     */
+    private static void bandwidthFuncExportSweep(InputTokenizer input) {
+        OUT.println("Tables:");
+        printUnitOptions(SweepEngine.TABLES);
+        OUT.print("Enter a table: ");
+        String tableName = input.next();
+        while (!inStringArray(SweepEngine.TABLES, tableName)) {
+            OUT.println("Please enter one of the given tables.");
+            OUT.print("Enter a table: ");
+            tableName = input.next();
+        }
+
+        SweepEngine table;
+        long start;
+        if (tableName.equals("website-bandwidth")) {
+            OUT.println("Page views:");
+            printUnitOptions(TIME_UNITS);
+            OUT.print("Enter a unit: ");
+            String timeUnit = input.next();
+            while (!inStringArray(TIME_UNITS, timeUnit)) {
+                OUT.println("Please enter one of the given units.");
+                OUT.print("Enter a unit: ");
+                timeUnit = input.next();
+            }
+            double[] views = readRange(input, "page views");
+
+            OUT.println("Average page size:");
+            printUnitOptions(BIG_SIZE_UNITS);
+            OUT.print("Enter a unit: ");
+            String sizeUnit = input.next();
+            while (!inStringArray(BIG_SIZE_UNITS, sizeUnit)) {
+                OUT.println("Please enter one of the given units.");
+                OUT.print("Enter a unit: ");
+                sizeUnit = input.next();
+            }
+            double[] pageSizes = readRange(input, "page size");
+            double redundancy = readNonNegativeDouble(input, "Enter redundancy factor: ", "Enter redundancy factor: ");
+            start = System.nanoTime();
+            table = SweepEngine.websiteBandwidth(views, timeUnit, pageSizes, sizeUnit, redundancy);
+        } else {
+            OUT.println("File size units:");
+            printUnitOptions(BIG_SIZE_UNITS);
+            OUT.print("Enter a unit: ");
+            String sizeUnit = input.next();
+            while (!inStringArray(BIG_SIZE_UNITS, sizeUnit)) {
+                OUT.println("Please enter one of the given units.");
+                OUT.print("Enter a unit: ");
+                sizeUnit = input.next();
+            }
+            double[] sizes = readRange(input, "file size");
+
+            OUT.println("Bandwidth units:");
+            printUnitOptions(BANDWIDTH_UNITS);
+            OUT.print("Enter a unit: ");
+            String bandwidthUnit = input.next();
+            while (!inStringArray(BANDWIDTH_UNITS, bandwidthUnit)) {
+                OUT.println("Please enter one of the given units.");
+                OUT.print("Enter a unit: ");
+                bandwidthUnit = input.next();
             }
+            double[] columns = tableName.equals("load-time")
+                    ? readRange(input, "bandwidth")
+                    : readRange(input, "load time in seconds");
+
+            String rttPrompt = "Enter round trip time in milliseconds (0 for the raw link rate): ";
+            double rttMillis = readNonNegativeDouble(input, rttPrompt, "Enter a value: ");
+            while (Double.isInfinite(rttMillis)) {
+                OUT.println("Must be a finite number.");
+                rttMillis = readNonNegativeDouble(input, rttPrompt, "Enter a value: ");
+            }
+            TransferModel model = rttMillis == 0 ? TransferModel.IDEAL : TransferModel.tcp(rttMillis / 1000, 1);
+            start = System.nanoTime();
+            table = tableName.equals("load-time")
+                    ? SweepEngine.loadTime(sizes, sizeUnit, columns, bandwidthUnit, model)
+                    : SweepEngine.bandwidthNeeded(sizes, sizeUnit, columns, bandwidthUnit, model);
+        }
+
+        double calculateSeconds = (System.nanoTime() - start) / 1e9;
+
+        OUT.print("Output file: ");
+        Path outputFile = Paths.get(input.next());
+        try {
+            start = System.nanoTime();
+            table.writeCsv(outputFile);
+            double writeSeconds = (System.nanoTime() - start) / 1e9;
+            OUT.println("Wrote a " + table.rows() + " by " + table.columns() + " table to " + outputFile);
+            OUT.print("Took ").print(calculateSeconds, SECONDS_FORMAT).print(" seconds to calculate and ")
+                    .print(writeSeconds, SECONDS_FORMAT).println(" seconds to write");
+        } catch (IOException e) {
+            OUT.println("Could not process the files: " + e.getMessage());
         }
-        calculateWebsiteBandwidth(pageViews, timeUnit, pageSize, sizeUnit, redundancy);
-        System.out.println();
+        OUT.println();
     }
 
     /**
      * Performs the "Convert data usage to bandwidth" function of the bandwidth calculator
-     * @param input - Scanner for user input
+     * @param input - Tokenizer for user input
      */
-    private static void bandwidthFuncConvertUsageToBandwidth(Scanner input) {
-        System.out.println("Monthly usage:");
+    private static void bandwidthFuncConvertUsageToBandwidth(InputTokenizer input) {
+        OUT.println("Monthly usage:");
         printUnitOptions(BIG_SIZE_UNITS);
-        System.out.print("Enter a unit: ");
+        OUT.print("Enter a unit: ");
         String fromUnit = input.next();
         while (!inStringArray(BIG_SIZE_UNITS, fromUnit)) {
-            System.out.println("Please enter one of the given units.");
-            System.out.print("Enter a unit: ");
+            OUT.println("Please enter one of the given units.");
+            OUT.print("Enter a unit: ");
             fromUnit = input.next();
         }
-        double usage = 0;
-        boolean isNumeric = false;
-        while (!isNumeric) {
-            try {
-                System.out.print("Enter monthly usage: ");
-                usage = input.nextDouble();
-                isNumeric = true;
-                while (usage < 0) {
-                    System.out.println("Must be a positive number");
-                    System.out.print("Enter a value: ");
-                    usage = input.nextDouble();
-                }
-            } catch (Exception InputMismatchException) {
-                System.out.println("Must be numeric.");
-                // Eat the invalid input
-                input.next();
-                isNumeric = false;
-            }
-        }
+        String usageText = readNonNegativeNumber(input, "Enter monthly usage: ", "Enter a value: ");
+        double usage = InputTokenizer.parseDouble(usageText);
 
-        System.out.println("Bandwidth units");
+        OUT.println("Bandwidth units");
         printUnitOptions(BANDWIDTH_UNITS);
-        System.out.print("Enter a bandwidth unit: ");
+        OUT.print("Enter a bandwidth unit: ");
         String toUnit = input.next();
         while (!inStringArray(BANDWIDTH_UNITS, toUnit)) {
-            System.out.println("Please enter one of the given units.");
-            System.out.print("Enter a bandwidth unit: ");
+            OUT.println("Please enter one of the given units.");
+            OUT.print("Enter a bandwidth unit: ");
             toUnit = input.next();
         }
 
-        System.out.println(usage + " " + fromUnit + " per month is equivalent to: ");
-        System.out.println(convertUsageToBandwidth(usage, fromUnit, toUnit) + " " + toUnit);
-        System.out.println();
+        OUT.print(usage).println(" " + fromUnit + " per month is equivalent to: ");
+        try {
+            OUT.print(new ExactUnitConverter().set(usageText).convertUsageToBandwidth(fromUnit, toUnit).toPlainString(15));
+        } catch (ArithmeticException e) {
+            // Too many digits to convert exactly
+            OUT.print(convertUsageToBandwidth(usage, fromUnit, toUnit));
+        }
+        OUT.println(" " + toUnit);
+        OUT.println();
     }
 
     /**
      * Performs the "Convert bandwidth to data usage" function of the bandwidth calculator
-     * @param input - Scanner for user input
+     * @param input - Tokenizer for user input
      */
-    private static void bandwidthFuncConvertBandwidthToUsage(Scanner input) {
-        System.out.println("Bandwidth units");
+    private static void bandwidthFuncConvertBandwidthToUsage(InputTokenizer input) {
+        OUT.println("Bandwidth units");
         printUnitOptions(BANDWIDTH_UNITS);
-        System.out.print("Enter a bandwidth unit: ");
+        OUT.print("Enter a bandwidth unit: ");
         String fromUnit = input.next();
         while (!inStringArray(BANDWIDTH_UNITS, fromUnit)) {
-            System.out.println("Please enter one of the given units.");
-            System.out.print("Enter a bandwidth unit: ");
+            OUT.println("Please enter one of the given units.");
+            OUT.print("Enter a bandwidth unit: ");
             fromUnit = input.next();
         }
-        double bandwidth = 0;
-        boolean isNumeric = false;
-        while (!isNumeric) {
-            try {
-                System.out.print("Enter bandwidth: ");
-                bandwidth = input.nextDouble();
-                isNumeric = true;
-                while (bandwidth < 0) {
-                    System.out.println("Must be a positive number");
-                    System.out.print("Enter a value: ");
-                    bandwidth = input.nextDouble();
-                }
-            } catch (Exception InputMismatchException) {
-                System.out.println("Must be numeric.");
-                // Eat the invalid input
-                input.next();
-                isNumeric = false;
-            }
-        }
+        String bandwidthText = readNonNegativeNumber(input, "Enter bandwidth: ", "Enter a value: ");
+        double bandwidth = InputTokenizer.parseDouble(bandwidthText);
 
-        System.out.println("Monthly usage:");
+        OUT.println("Monthly usage:");
         printUnitOptions(BIG_SIZE_UNITS);
-        System.out.print("Enter a unit: ");
+        OUT.print("Enter a unit: ");
         String toUnit = input.next();
         while (!inStringArray(BIG_SIZE_UNITS, toUnit)) {
-            System.out.println("Please enter one of the given units.");
-            System.out.print("Enter a unit: ");
+            OUT.println("Please enter one of the given units.");
+            OUT.print("Enter a unit: ");
             toUnit = input.next();
         }
 
-        System.out.println(bandwidth + " " + fromUnit + " is equivalent to: ");
-        System.out.println(convertBandwidthToUsage(bandwidth, fromUnit, toUnit) + " " + toUnit + " per month.");
-        System.out.println();
+        OUT.print(bandwidth).println(" " + fromUnit + " is equivalent to: ");
+        try {
+            OUT.print(new ExactUnitConverter().set(bandwidthText).convertBandwidthToUsage(fromUnit, toUnit).toPlainString(15));
+        } catch (ArithmeticException e) {
+            // Too many digits to convert exactly
+            OUT.print(convertBandwidthToUsage(bandwidth, fromUnit, toUnit));
+        }
+        OUT.println(" " + toUnit + " per month.");
+        OUT.println();
+    }
+
+    /**
+     * Performs the "Convert CSV file" function of the bandwidth calculator.
+     * Converts every "value,unit[,targetUnit]" row of a CSV file and writes the results to another file.
+     * @param input - Tokenizer for user input
+     */
+    private static void bandwidthFuncConvertCsv(InputTokenizer input) {
+        Path inputFile = readExistingFile(input, "CSV file to convert: ");
+        try {
+            OUT.print("Output file: ");
+            Path outputFile = Paths.get(input.next());
+            while (CsvConversionPipeline.isInput(outputFile, inputFile)) {
+                OUT.println("The output file cannot be the input.");
+                OUT.print("Output file: ");
+                outputFile = Paths.get(input.next());
+            }
+            OUT.print("Unit to convert to when a row has none (e.g. \"GB\"): ");
+            String unit = input.next();
+            while (!CsvConversionPipeline.isUnit(unit)) {
+                OUT.println("Please enter a data size, bandwidth, or time unit.");
+                OUT.print("Unit to convert to when a row has none (e.g. \"GB\"): ");
+                unit = input.next();
+            }
+
+            CsvConversionPipeline pipeline = new CsvConversionPipeline(unit,
+                    Runtime.getRuntime().availableProcessors());
+            long start = System.nanoTime();
+            pipeline.run(inputFile, outputFile);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            OUT.println("Converted " + (pipeline.getRowCount() - pipeline.getInvalidRowCount()) + " of "
+                    + pipeline.getRowCount() + " rows into " + outputFile);
+            if (pipeline.getInvalidRowCount() > 0) {
+                OUT.println(pipeline.getInvalidRowCount() + " rows were invalid and are marked \"invalid\"");
+            }
+            OUT.print("Took ").print(seconds, SECONDS_FORMAT).println(" seconds");
+        } catch (IOException e) {
+            OUT.println("Could not process the files: " + e.getMessage());
+        }
+        OUT.println();
+    }
+
+    /**
+     * Performs the "Convert data series file to all units" function of the bandwidth calculator.
+     * Converts every value of a whitespace-separated file to all data size units, keeping the results off-heap,
+     * and writes each unit to its own file of little-endian doubles.
+     * @param input - Tokenizer for user input
+     */
+    private static void bandwidthFuncConvertSeries(InputTokenizer input) {
+        Path seriesFile = readExistingFile(input, "Data series file (one value per line): ");
+        OUT.println("Data units:");
+        printUnitOptions(SIZE_UNITS);
+        OUT.print("Enter the unit of the values (e.g. \"GB\"): ");
+        String unit = input.next();
+        while (!inStringArray(SIZE_UNITS, unit)) {
+            OUT.println("Please enter one of the given units.");
+            OUT.print("Enter the unit of the values (e.g. \"GB\"): ");
+            unit = input.next();
+        }
+        OUT.print("Output file prefix: ");
+        String prefix = input.next();
+
+        int unitIndex = OffHeapConversionStore.unitIndex(unit);
+        long skipped = 0;
+        try (OffHeapConversionStore store = new OffHeapConversionStore();
+             InputStream in = Files.newInputStream(seriesFile)) {
+            InputTokenizer values = new InputTokenizer(in, () -> { });
+            while (values.hasNext()) {
+                double value = InputTokenizer.parseDouble(values.next());
+                if (Double.isNaN(value)) {
+                    skipped++;
+                } else {
+                    store.add(value, unitIndex);
+                }
+            }
+
+            OUT.println("Converted " + store.size() + " values to every data unit:");
+            for (String u : SIZE_UNITS) {
+                // Lowercase units are bits, so spell them out to keep file names distinct on any file system
+                Path output = Paths.get(prefix + "_" + (Character.isLowerCase(u.charAt(0)) ? u.replace("b", "bit") : u)
+                        + ".bin");
+                try (FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING)) {
+                    store.export(u, out);
+                }
+                OUT.println("   - " + u + ": " + output);
+            }
+            if (skipped > 0) {
+                OUT.println(skipped + " values were not numeric and were skipped");
+            }
+        } catch (IOException e) {
+            OUT.println("Could not process the files: " + e.getMessage());
+        }
+        OUT.println();
+    }
+
+    /**
+     * Prompts for a non-negative number until one is entered and returns it.
+     * Prints "Must be numeric." and repeats the prompt for non-numeric input,
+     * and prints "Must be a positive number" followed by the retry prompt for negative input.
+     * @param input - Tokenizer for user input
+     * @param prompt - Prompt printed before the first attempt and after non-numeric input
+     * @param retryPrompt - Prompt printed after a negative number
+     * @return double - The number entered
+     */
+    private static double readNonNegativeDouble(InputTokenizer input, String prompt, String retryPrompt) {
+        return InputTokenizer.parseDouble(readNonNegativeNumber(input, prompt, retryPrompt));
+    }
+
+    /**
+     * Prompts for a non-negative number until one is entered and returns it exactly as it was typed.
+     * Prints the same messages as readNonNegativeDouble.
+     * @param input - Tokenizer for user input
+     * @param prompt - Prompt printed before the first attempt and after non-numeric input
+     * @param retryPrompt - Prompt printed after a negative number
+     * @return String - The number entered
+     */
+    private static String readNonNegativeNumber(InputTokenizer input, String prompt, String retryPrompt) {
+        OUT.print(prompt);
+        String token = input.next();
+        double value = InputTokenizer.parseDouble(token);
+        while (Double.isNaN(value) || value < 0) {
+            if (Double.isNaN(value)) {
+                OUT.println("Must be numeric.");
+                OUT.print(prompt);
+            } else {
+                OUT.println("Must be a positive number");
+                OUT.print(retryPrompt);
+            }
+            token = input.next();
+            value = InputTokenizer.parseDouble(token);
+        }
+        return token;
+    }
+
+    /**
+     * Prompts for a number greater than 0 until one is entered
+     * @param input - Tokenizer for user input
+     * @param prompt - Prompt to print before reading
+     * @return double - The number entered
+     */
+    private static double readPositiveDouble(InputTokenizer input, String prompt) {
+        double value = readNonNegativeDouble(input, prompt, prompt);
+        while (value == 0 || Double.isInfinite(value)) {
+            OUT.println("Must be greater than 0.");
+            value = readNonNegativeDouble(input, prompt, prompt);
+        }
+        return value;
+    }
+
+    /**
+     * Prompts for a whole number of at least 1 until one is entered
+     * @param input - Tokenizer for user input
+     * @param prompt - Prompt to print before reading
+     * @return int - The number entered
+     */
+    private static int readPositiveInt(InputTokenizer input, String prompt) {
+        OUT.print(prompt);
+        String token = input.next();
+        while (!InputTokenizer.isInt(token) || Integer.parseInt(token) < 1) {
+            OUT.println("Must be a whole number of at least 1.");
+            OUT.print(prompt);
+            token = input.next();
+        }
+        return Integer.parseInt(token);
+    }
+
+    /**
+     * Prompts for the smallest and largest value and number of points of a range, spaced evenly on a log scale
+     * @param input - Tokenizer for user input
+     * @param name - Name of the values, e.g. "file size"
+     * @return double[] - Values of the range
+     */
+    private static double[] readRange(InputTokenizer input, String name) {
+        double from = readRangeBound(input, "Enter smallest " + name + ": ");
+        double to = readRangeBound(input, "Enter largest " + name + ": ");
+        int points = readPositiveInt(input, "Enter number of values: ");
+        while (points > MAX_SWEEP_POINTS) {
+            OUT.println("Must be at most " + MAX_SWEEP_POINTS + ".");
+            points = readPositiveInt(input, "Enter number of values: ");
+        }
+        return SweepEngine.logRange(from, to, points);
+    }
+
+    /**
+     * Prompts for one end of a range until a finite number above 0 is entered and returns it.
+     * Numbers too large for a double, e.g. "1e400", are read as infinity and refused.
+     * @param input - Tokenizer for user input
+     * @param prompt - Prompt for the value
+     * @return double - The number entered
+     */
+    private static double readRangeBound(InputTokenizer input, String prompt) {
+        double value = readNonNegativeDouble(input, prompt, "Enter a value: ");
+        while (value == 0 || Double.isInfinite(value)) {
+            OUT.println(value == 0 ? "Must be greater than 0." : "Must be a finite number.");
+            value = readNonNegativeDouble(input, prompt, "Enter a value: ");
+        }
+        return value;
     }
 
     /**
@@ -1287,56 +3566,600 @@ public class Calculator {
     private static void printUnitOptions(String[] units) {
         if (units != null) {
             for (String u : units) {
-                System.out.println("   - " + u);
+                OUT.println("   - " + u);
             }
         }
     }
 
     public static void main(String[] args) {
-        initializeUnitConversions();
-
         //runTests();
 
-        Scanner input = new Scanner(System.in);
+        if (args.length >= 1 && args.length <= 2 && args[0].equals("--self-check")) {
+            boolean passed = selfCheck(args.length == 2 ? args[1] : null);
+            OUT.flush();
+            if (!passed) {
+                System.exit(1);
+            }
+            return;
+        }
+        if (args.length >= 1 && args.length <= 2 && args[0].equals("--radix-benchmark")) {
+            radixBenchmark(args.length == 2 ? args[1] : null);
+            OUT.flush();
+            return;
+        }
+        if (args.length >= 1 && args.length <= 2 && args[0].equals("--async-benchmark")) {
+            asyncBenchmark(args.length == 2 ? args[1] : null);
+            OUT.flush();
+            return;
+        }
+        if (args.length >= 1 && args.length <= 2 && args[0].equals("--scaling-benchmark")) {
+            scalingBenchmark(args.length == 2 ? args[1] : null);
+            OUT.flush();
+            return;
+        }
+        if (args.length >= 1 && args.length <= 2 && args[0].equals("--prefix-benchmark")) {
+            prefixBenchmark(args.length == 2 ? args[1] : null);
+            OUT.flush();
+            return;
+        }
+        if (args.length >= 1 && args.length <= 3 && args[0].equals("--startup-benchmark")) {
+            startupBenchmark(args.length >= 2 ? args[1] : null, args.length == 3 ? Paths.get(args[2]) : null);
+            OUT.flush();
+            return;
+        }
+        if (args.length == 2 && args[0].equals("--replay")) {
+            replayJournal(Paths.get(args[1]));
+            OUT.flush();
+            return;
+        }
+        if (args.length == 1 && args[0].equals("--profile")) {
+            toggleProfiling();
+        }
+        if (args.length == 2 && args[0].equals("--journal")) {
+            try {
+                journal = new OperationJournal(Paths.get(args[1]));
+            } catch (IOException e) {
+                OUT.println("Could not process the files: " + e.getMessage());
+                OUT.flush();
+                return;
+            }
+        }
+
+        InputTokenizer input = new InputTokenizer(System.in, OUT);
+        try {
+            OUT.println("Please select a calculator to use (enter the number of your selection, or \"q\" to quit):");
+            OUT.println("   1. Binary calculator");
+            OUT.println("   2. Hexadecimal calculator");
+            OUT.println("   3. Bandwidth calculator");
+            OUT.println("   p. Start or stop profiling");
+            OUT.print("Selection: ");
+
+            String selection = input.next();
+
+            while (!selection.equals("q")) {
+                // Binary calculator
+                if (selection.equals("1")) {
+                    boolean inCalculator = true;
+                    while (inCalculator) {
+                        inCalculator = runBinaryCalculator(input);
+                    }
+                }
+                // Hexadecimal calculator
+                if (selection.equals("2")) {
+                    boolean inCalculator = true;
+                    while (inCalculator) {
+                        inCalculator = runHexCalculator(input);
+                    }
+                }
+                // Bandwidth calculator
+                if (selection.equals("3")) {
+                    boolean inCalculator = true;
+                    while (inCalculator) {
+                        inCalculator = runBandwidthCalculator(input);
+                    }
+                }
+
+                if (selection.equals("p")) {
+                    toggleProfiling();
+                }
+
+                OUT.println("Please select a calculator to use (type the number of your selection, or \"q\" to quit:");
+                OUT.println("   1. Binary calculator");
+                OUT.println("   2. Hexadecimal calculator");
+                OUT.println("   3. Bandwidth calculator");
+                OUT.println("   p. Start or stop profiling");
+                OUT.print("Selection: ");
+
+                selection = input.next();
+            }
+        } finally {
+            closeJournal();
+            if (profiler != null) {
+                toggleProfiling();
+            }
+            OUT.flush();
+        }
+    }
+
+    /**
+     * Runs every calculator test at the same time on all cores without printing their steps, repeating each one for
+     * the given time, and prints whether each passed and how many calls per second it made
+     * @param seconds - Time to repeat each test in seconds, or null for the default
+     * @return boolean - True if every test passed
+     */
+    private static boolean selfCheck(String seconds) {
+        double secondsPerTest = seconds == null ? DEFAULT_SELF_CHECK_SECONDS : InputTokenizer.parseDouble(seconds);
+        // NaN when not numeric
+        if (!(secondsPerTest >= 0) || secondsPerTest > 3600) {
+            OUT.println("Not a valid number of seconds: " + seconds);
+            return false;
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        SelfCheck check = SelfCheck.timed(secondsPerTest);
+        testBinaryOperations(check);
+        testHexOperations(check);
+        testBandwidthOperations(check);
+        try {
+            return check.run(OUT, threads);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Runs a calculator's tests in test mode, printing every step, with journaling suspended so the test
+     * calculations are not recorded in the journal given with "--journal"
+     * @param suite - Method that declares the calculator's tests
+     */
+    private static void runTestsWithoutJournal(Consumer<SelfCheck> suite) {
+        OperationJournal suspended = journal;
+        journal = null;
+        try {
+            suite.accept(SelfCheck.printed(OUT));
+        } finally {
+            journal = suspended;
+        }
+    }
+
+    /**
+     * Times converting random decimal numbers with 10^3, 10^4, ... digits to hexadecimal and back
+     * @param maxDigits - Largest number of digits, or null for the default
+     */
+    private static void radixBenchmark(String maxDigits) {
+        if (maxDigits != null && (!InputTokenizer.isInt(maxDigits) || Integer.parseInt(maxDigits) < 1000)) {
+            OUT.println("Not a valid number of digits: " + maxDigits);
+            return;
+        }
+        int max = maxDigits == null ? DEFAULT_RADIX_BENCHMARK_DIGITS : Integer.parseInt(maxDigits);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int digits = 1000; digits <= max && digits > 0; digits *= 10) {
+            char[] text = new char[digits];
+            text[0] = (char) ('1' + random.nextInt(9));
+            for (int i = 1; i < digits; i++) {
+                text[i] = (char) ('0' + random.nextInt(10));
+            }
+            String decimal = new String(text);
+            long start = System.nanoTime();
+            String hex = RadixConverter.convert(decimal, 10, 16);
+            long converted = System.nanoTime();
+            boolean same = RadixConverter.convert(hex, 16, 10).equals(decimal);
+            long end = System.nanoTime();
+            OUT.print(digits + " digits: to hexadecimal ").print((converted - start) / 1e9, SECONDS_FORMAT)
+                    .print(" seconds, back to decimal ").print((end - converted) / 1e9, SECONDS_FORMAT)
+                    .println(same ? " seconds" : " seconds (ROUND TRIP FAILED)");
+            // Larger sizes take a while, so show each result as soon as it is ready
+            OUT.flush();
+        }
+    }
+
+    /**
+     * Loads random IPv4 prefixes shaped like a routing table into a PrefixTrie, aggregates them, and times looking up
+     * random addresses
+     * @param count - Number of prefixes, or null for the default
+     */
+    private static void prefixBenchmark(String count) {
+        if (count != null && (!InputTokenizer.isInt(count) || Integer.parseInt(count) < 1)) {
+            OUT.println("Not a valid number of prefixes: " + count);
+            return;
+        }
+        int prefixCount = count == null ? DEFAULT_PREFIX_BENCHMARK_PREFIXES : Integer.parseInt(count);
+        SplittableRandom random = new SplittableRandom(42);
+        PrefixTrie prefixes = new PrefixTrie();
+        long start = System.nanoTime();
+        for (int i = 0; i < prefixCount; i++) {
+            // Most routes are /24s, the rest mostly /16 to /23
+            int length = random.nextInt(10) < 6 ? 24 : 16 + random.nextInt(8);
+            int address = random.nextInt() & (int) FixedWidthArithmetic.mask(32) << (32 - length);
+            prefixes.add((address >>> 24) + "." + (address >>> 16 & 0xFF) + "." + (address >>> 8 & 0xFF) + "."
+                    + (address & 0xFF) + "/" + length);
+        }
+        OUT.print("Loaded " + prefixes.size() + " prefixes in ").print((System.nanoTime() - start) / 1e9,
+                SECONDS_FORMAT).println(" seconds");
 
-        System.out.println("Please select a calculator to use (enter the number of your selection, or \"q\" to quit):");
-        System.out.println("   1. Binary calculator");
-        System.out.println("   2. Hexadecimal calculator");
-        System.out.println("   3. Bandwidth calculator");
-        System.out.print("Selection: ");
+        start = System.nanoTime();
+        int aggregated = prefixes.aggregate().size();
+        OUT.print("Aggregated to " + aggregated + " prefixes in ").print((System.nanoTime() - start) / 1e9,
+                SECONDS_FORMAT).println(" seconds");
 
-        String selection = input.next();
+        int[] addresses = new int[PREFIX_BENCHMARK_LOOKUPS];
+        for (int i = 0; i < addresses.length; i++) {
+            addresses[i] = random.nextInt();
+        }
+        int[] lengths = new int[addresses.length];
+        // The first round lets the JIT compiler compile the lookups
+        for (int round = 0; round < 2; round++) {
+            start = System.nanoTime();
+            long matched = 0;
+            for (int address : addresses) {
+                if (prefixes.lookupIPv4(address) >= 0) {
+                    matched++;
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            OUT.print(addresses.length + " lookups one at a time (" + matched + " matched) in ")
+                    .print(seconds, SECONDS_FORMAT)
+                    .println(" seconds (" + (long) (addresses.length / seconds) + " lookups per second)");
 
-        while (!selection.equals("q")) {
-            // Binary calculator
-            if (selection.equals("1")) {
-                boolean inCalculator = true;
-                while (inCalculator) {
-                    inCalculator = runBinaryCalculator(input);
+            start = System.nanoTime();
+            prefixes.lookupIPv4(addresses, lengths);
+            seconds = (System.nanoTime() - start) / 1e9;
+            matched = 0;
+            for (int length : lengths) {
+                if (length >= 0) {
+                    matched++;
                 }
             }
-            // Hexadecimal calculator
-            if (selection.equals("2")) {
-                boolean inCalculator = true;
-                while (inCalculator) {
-                    inCalculator = runHexCalculator(input);
+            OUT.print(addresses.length + " lookups in groups (" + matched + " matched) in ")
+                    .print(seconds, SECONDS_FORMAT)
+                    .println(" seconds (" + (long) (addresses.length / seconds) + " lookups per second)");
+        }
+    }
+
+    /**
+     * Times launching new JVMs that convert one value and quit, with and without an AppCDS archive
+     * @param runs - Number of launches to time, or null for the default
+     * @param archive - AppCDS archive to also time, created with a training run if missing, or null for none
+     */
+    private static void startupBenchmark(String runs, Path archive) {
+        if (runs != null && (!InputTokenizer.isInt(runs) || Integer.parseInt(runs) < 1)) {
+            OUT.println("Not a valid number of runs: " + runs);
+            return;
+        }
+        int count = runs == null ? DEFAULT_STARTUP_BENCHMARK_RUNS : Integer.parseInt(runs);
+        try {
+            if (archive != null && !Files.exists(archive)) {
+                double training = launchCalculator("-XX:ArchiveClassesAtExit=" + archive);
+                OUT.print("Training run to create " + archive + " took ").print(training, SECONDS_FORMAT)
+                        .println(" seconds");
+                if (!Files.exists(archive)) {
+                    OUT.println("This JVM did not create the archive");
+                    archive = null;
                 }
             }
-            // Bandwidth calculator
-            if (selection.equals("3")) {
-                boolean inCalculator = true;
-                while (inCalculator) {
-                    inCalculator = runBandwidthCalculator(input);
+            // The first launch warms the operating system's file cache and is not counted
+            launchCalculator(null);
+            printStartupTimes("Without an archive", null, count);
+            if (archive != null) {
+                printStartupTimes("With " + archive, "-XX:SharedArchiveFile=" + archive, count);
+            }
+        } catch (IOException e) {
+            OUT.println("Could not process the files: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Launches the calculator the given number of times and prints the fastest, median, and slowest time
+     * @param label - Label for the line
+     * @param option - JVM option to launch with, or null for none
+     * @param runs - Number of launches
+     * @throws IOException if a launch fails or prints the wrong result
+     * @throws InterruptedException if interrupted while waiting for a launch
+     */
+    private static void printStartupTimes(String label, String option, int runs)
+            throws IOException, InterruptedException {
+        double[] seconds = new double[runs];
+        for (int i = 0; i < runs; i++) {
+            seconds[i] = launchCalculator(option);
+        }
+        Arrays.sort(seconds);
+        OUT.print(label + ": fastest ").print(seconds[0], SECONDS_FORMAT)
+                .print(" seconds, median ").print(seconds[runs / 2], SECONDS_FORMAT)
+                .print(" seconds, slowest ").print(seconds[runs - 1], SECONDS_FORMAT)
+                .println(" seconds to the first result and exit");
+        OUT.flush();
+    }
+
+    /**
+     * Launches the calculator in a new JVM with the same class path, converts one value, and quits
+     * @param option - JVM option to launch with, or null for none
+     * @return double - Time from launching to exiting in seconds
+     * @throws IOException if the launch fails or prints the wrong result
+     * @throws InterruptedException if interrupted while waiting for it
+     */
+    private static double launchCalculator(String option) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        if (option != null) {
+            command.add(option);
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("Calculator");
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        try (OutputStream stdin = process.getOutputStream()) {
+            stdin.write(STARTUP_BENCHMARK_INPUT.getBytes(StandardCharsets.US_ASCII));
+        }
+        String output;
+        try (InputStream stdout = process.getInputStream()) {
+            output = new String(stdout.readAllBytes(), StandardCharsets.US_ASCII);
+        }
+        int status = process.waitFor();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (status != 0 || !output.contains(STARTUP_BENCHMARK_RESULT)) {
+            String[] lines = output.strip().split("\\R");
+            throw new IOException("Calculator exited with status " + status + " without the expected result: "
+                    + lines[lines.length - 1]);
+        }
+        return seconds;
+    }
+
+    /**
+     * Overloads an AsyncCalculator with more requests than it can run, first from producer threads submitting futures
+     * and then from a publisher feeding its processor, and prints throughput, latency, and queue depth
+     * @param seconds - Time to run each part in seconds, or null for the default
+     */
+    private static void asyncBenchmark(String seconds) {
+        double duration = seconds == null ? DEFAULT_ASYNC_BENCHMARK_SECONDS : InputTokenizer.parseDouble(seconds);
+        // NaN when not numeric
+        if (!(duration > 0) || duration > 3600) {
+            OUT.println("Not a valid number of seconds: " + seconds);
+            return;
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        int capacity = 1024;
+        int batchSize = 64;
+        DoubleFormatter rate = DoubleFormatter.significant(3);
+        OUT.println(threads + " worker threads, queue capacity " + capacity + ", batches of up to " + batchSize);
+        try {
+            int producers = threads * 2;
+            Map<String, Double> futures = AsyncCalculator.benchmarkFutures(threads, capacity, batchSize, producers,
+                    duration);
+            OUT.print("Futures from " + producers + " producers: submitted ").print(futures.get("submitted"), rate)
+                    .print("/second, completed ").print(futures.get("completed"), rate)
+                    .print("/second, rejected ").print(futures.get("rejected"), rate).println("/second");
+            printLatencies(futures, rate);
+            OUT.flush();
+
+            int window = capacity / 2;
+            Map<String, Double> processor = AsyncCalculator.benchmarkProcessor(threads, capacity, batchSize, window,
+                    duration);
+            OUT.print("Processor with a window of " + window + ": completed ").print(processor.get("completed"), rate)
+                    .print("/second, failed ").print(processor.get("failed"), COMPACT_FORMAT).println();
+            printLatencies(processor, rate);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Calls the library functions from 1, 2, 4, ... threads up to one per core and prints the throughput of each
+     * thread count and its speedup over one thread
+     * @param seconds - Time to run each thread count in seconds, or null for the default
+     */
+    private static void scalingBenchmark(String seconds) {
+        double duration = seconds == null ? DEFAULT_SCALING_BENCHMARK_SECONDS : InputTokenizer.parseDouble(seconds);
+        // NaN when not numeric
+        if (!(duration > 0) || duration > 3600) {
+            OUT.println("Not a valid number of seconds: " + seconds);
+            return;
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        DoubleFormatter rate = DoubleFormatter.significant(3);
+        try {
+            // The first run lets the JIT compiler compile the functions
+            countLibraryCalls(1, Math.max(duration, 1));
+            double single = 0;
+            for (int threads = 1; ; threads = Math.min(threads * 2, cores)) {
+                double callsPerSecond = countLibraryCalls(threads, duration) / duration;
+                if (threads == 1) {
+                    single = callsPerSecond;
+                }
+                double speedup = callsPerSecond / single;
+                OUT.print(threads + (threads == 1 ? " thread: " : " threads: ")).print(callsPerSecond, rate)
+                        .print(" calls/second, ").print(speedup, DoubleFormatter.fixed(2)).print("x one thread, ")
+                        .print(speedup / threads * 100, DoubleFormatter.fixed(0)).println("% per thread");
+                // Each line takes a while, so show it as soon as it is ready
+                OUT.flush();
+                if (threads == cores) {
+                    break;
                 }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Calls a mix of the library functions from the given number of threads for the given time
+     * @param threads - Number of threads
+     * @param seconds - Time to run in seconds
+     * @return long - Number of calls made by all the threads
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    private static long countLibraryCalls(int threads, double seconds) throws InterruptedException {
+        AtomicLong calls = new AtomicLong();
+        // Results are folded into this so the JIT compiler cannot drop the calls
+        AtomicLong sink = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            int offset = t * 7;
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                long end = System.nanoTime() + (long) (seconds * 1e9);
+                long made = 0;
+                long fold = 0;
+                int n = offset;
+                while (System.nanoTime() < end) {
+                    // The clock is checked once per batch; each round makes one call of each kind the stress test
+                    // checks
+                    for (int round = 0; round < 64; round++, n++) {
+                        double size = (n % 1000 + 1) * 1.25;
+                        String sizeUnit = BIG_SIZE_UNITS[n % BIG_SIZE_UNITS.length];
+                        String bandwidthUnit = BANDWIDTH_UNITS[n % BANDWIDTH_UNITS.length];
+                        fold += Double.doubleToRawLongBits(convertUsageToBandwidth(size, sizeUnit, bandwidthUnit));
+                        fold += Double.doubleToRawLongBits(convertBandwidthToUsage(size, bandwidthUnit, sizeUnit));
+                        fold += calculateLoadTime(size * 1000, sizeUnit, 3.2, bandwidthUnit).length();
+                        fold += calculateWebsiteBandwidth(n % 1000, TIME_UNITS[n % TIME_UNITS.length], size,
+                                sizeUnit, 2).size();
+                        fold += operation("+", Integer.toHexString(n % 4096), "FF", "hexadecimal").length();
+                    }
+                    made += 64 * 5;
+                }
+                calls.addAndGet(made);
+                sink.addAndGet(fold);
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        if (!pool.awaitTermination((long) seconds + 60, TimeUnit.SECONDS)) {
+            pool.shutdownNow();
+        }
+        return calls.get();
+    }
+
+    /**
+     * Prints the latencies and queue depth from an AsyncCalculator benchmark
+     * @param results - Results of the benchmark
+     * @param rate - Format for the latencies
+     */
+    private static void printLatencies(Map<String, Double> results, DoubleFormatter rate) {
+        OUT.print("   latency p50 ").print(results.getOrDefault("p50", 0.0) * 1e3, rate)
+                .print(" ms, p99 ").print(results.getOrDefault("p99", 0.0) * 1e3, rate)
+                .print(" ms, max ").print(results.getOrDefault("max", 0.0) * 1e3, rate)
+                .print(" ms, deepest queue ").print(results.get("maxQueued"), COMPACT_FORMAT).println();
+    }
 
-            System.out.println("Please select a calculator to use (type the number of your selection, or \"q\" to quit:");
-            System.out.println("   1. Binary calculator");
-            System.out.println("   2. Hexadecimal calculator");
-            System.out.println("   3. Bandwidth calculator");
-            System.out.print("Selection: ");
+    /**
+     * Replays a journal written with "--journal" and prints how many results differ from this version
+     * @param directory - Directory of the journal
+     */
+    private static void replayJournal(Path directory) {
+        JournalReplay replay = new JournalReplay();
+        long start = System.nanoTime();
+        try {
+            replay.run(directory);
+        } catch (IOException e) {
+            OUT.println("Could not process the files: " + e.getMessage());
+            return;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        OUT.println("Replayed " + replay.getRecordCount() + " records");
+        OUT.println("Mismatches: " + replay.getMismatchCount());
+        OUT.println("Corrupt records: " + replay.getCorruptCount());
+        for (String mismatch : replay.getMismatches()) {
+            OUT.println("   " + mismatch);
+        }
+        OUT.print("Took ").print(seconds, SECONDS_FORMAT).println(" seconds");
+    }
 
-            selection = input.next();
+    /**
+     * Runs the body of a profiled function, recording its cost with the profiler while profiling is on.
+     * Callers check for a null profiler first and call the body directly, so nothing is allocated while profiling is off
+     * @param function - Index of the function in PROFILED_FUNCTIONS
+     * @param body - Work of the function
+     * @return T - Result of the body
+     */
+    private static <T> T profiled(int function, Supplier<T> body) {
+        FunctionProfiler profile = profiler;
+        if (profile == null) {
+            return body.get();
+        }
+        profile.enter();
+        try {
+            return body.get();
+        } finally {
+            profile.exit(function);
+        }
+    }
+
+    /**
+     * Runs the body of a profiled function that returns an int, without boxing the result
+     * @param function - Index of the function in PROFILED_FUNCTIONS
+     * @param body - Work of the function
+     * @return int - Result of the body
+     */
+    private static int profiled(int function, IntSupplier body) {
+        FunctionProfiler profile = profiler;
+        if (profile == null) {
+            return body.getAsInt();
+        }
+        profile.enter();
+        try {
+            return body.getAsInt();
+        } finally {
+            profile.exit(function);
+        }
+    }
+
+    /**
+     * Runs the body of a profiled function that returns a double, without boxing the result
+     * @param function - Index of the function in PROFILED_FUNCTIONS
+     * @param body - Work of the function
+     * @return double - Result of the body
+     */
+    private static double profiled(int function, DoubleSupplier body) {
+        FunctionProfiler profile = profiler;
+        if (profile == null) {
+            return body.getAsDouble();
+        }
+        profile.enter();
+        try {
+            return body.getAsDouble();
+        } finally {
+            profile.exit(function);
+        }
+    }
+
+    /**
+     * Starts profiling the calculator functions, or stops and prints the summary if already profiling
+     */
+    private static void toggleProfiling() {
+        FunctionProfiler current = profiler;
+        if (current != null) {
+            profiler = null;
+            current.printSummary(OUT);
+        } else if (!FunctionProfiler.isSupported()) {
+            OUT.println("Profiling is not supported on this JVM");
+        } else {
+            profiler = new FunctionProfiler(PROFILED_FUNCTIONS);
+            OUT.println("Profiling started; select \"p\" again to stop and see the summary");
+        }
+        OUT.println();
+    }
+
+    /**
+     * Commits and closes the journal, if one is open
+     */
+    private static void closeJournal() {
+        OperationJournal j = journal;
+        if (j == null) {
+            return;
+        }
+        journal = null;
+        try {
+            j.close();
+        } catch (IOException e) {
+            OUT.println("Could not process the files: " + e.getMessage());
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,295 @@
+/*
+ * Measures how well a real file compresses and how fast, to estimate load times with compression on the wire.
+ * The file is cut into fixed-size chunks that are compressed with Deflater at the same time on a pool of threads,
+ * one Deflater per thread, the way parallel gzip tools work. Each chunk starts with the last 32 KiB before it as its
+ * dictionary, so the ratio is close to compressing the file as one stream.
+ * Files larger than the sample limit are not compressed whole: chunks spread evenly through the file are compressed
+ * instead, and the ratio of the sample is applied to the whole file.
+ * Compression speed is measured as bytes of input per second of time spent inside Deflater, per core and on all
+ * the threads used.
+ * With compression, a transfer is modelled two ways:
+ *    - streamed: compressing and sending overlap, so the slower of the two sets the time
+ *    - one after the other: the whole file is compressed, then the compressed file is sent
+ * Decompressing at the receiving end is usually several times faster than compressing and is not counted.
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+class CompressionEstimate {
+
+    static final String DEFLATE = "deflate";
+    static final String GZIP = "gzip";
+    static final String[] FORMATS = {DEFLATE, GZIP};
+
+    static final int DEFAULT_CHUNK_BYTES = 1 << 20;
+    static final long DEFAULT_SAMPLE_BYTES = 256L << 20;
+
+    private static final int DICTIONARY_BYTES = 32 << 10;
+    // Header and trailer of a gzip file without a name or comment
+    private static final int GZIP_OVERHEAD_BYTES = 18;
+
+    private final long fileBytes;
+    private final long sampleBytes;
+    private final long compressedSampleBytes;
+    private final double deflateSeconds;
+    private final double wallSeconds;
+    private final int threads;
+
+    private CompressionEstimate(long fileBytes, long sampleBytes, long compressedSampleBytes, double deflateSeconds,
+                                double wallSeconds, int threads) {
+        this.fileBytes = fileBytes;
+        this.sampleBytes = sampleBytes;
+        this.compressedSampleBytes = compressedSampleBytes;
+        this.deflateSeconds = deflateSeconds;
+        this.wallSeconds = wallSeconds;
+        this.threads = threads;
+    }
+
+    /**
+     * Compresses the file, or a sample of it, in parallel chunks and measures the result
+     * @param file - File to measure
+     * @param format - "deflate" or "gzip"; gzip also computes the CRC-32 of the input and adds its header
+     * @param level - Compression level from 0 (none) to 9 (smallest)
+     * @param chunkBytes - Size of each chunk
+     * @param sampleLimit - Most bytes to compress; larger files are sampled
+     * @param threads - Number of threads
+     * @return CompressionEstimate - Measurements of the file
+     * @throws IOException if the file cannot be read
+     * @throws InterruptedException if interrupted while compressing
+     */
+    static CompressionEstimate measure(Path file, String format, int level, int chunkBytes, long sampleLimit,
+                                       int threads) throws IOException, InterruptedException {
+        if (file == null || format == null) {
+            throw new IllegalArgumentException("Cannot be null");
+        }
+        if (!format.equals(DEFLATE) && !format.equals(GZIP)) {
+            throw new IllegalArgumentException("Not a valid compression format");
+        }
+        if (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Not a valid compression level");
+        }
+        if (chunkBytes <= 0 || sampleLimit < chunkBytes || threads <= 0) {
+            throw new IllegalArgumentException("Not a valid size");
+        }
+        boolean gzip = format.equals(GZIP);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long chunks = (size + chunkBytes - 1) / chunkBytes;
+            long sampledChunks = Math.min(chunks, sampleLimit / chunkBytes);
+            LongAdder sampled = new LongAdder();
+            LongAdder compressed = new LongAdder();
+            LongAdder deflateNanos = new LongAdder();
+            AtomicInteger nextChunk = new AtomicInteger();
+
+            long start = System.nanoTime();
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            List<Future<?>> running = new ArrayList<>(threads);
+            try {
+                for (int t = 0; t < threads; t++) {
+                    running.add(pool.submit(() -> {
+                        Deflater deflater = new Deflater(level, true);
+                        CRC32 crc = new CRC32();
+                        byte[] input = new byte[DICTIONARY_BYTES + chunkBytes];
+                        byte[] output = new byte[chunkBytes / 2 + 1024];
+                        try {
+                            int n;
+                            while ((n = nextChunk.getAndIncrement()) < sampledChunks) {
+                                // Spread the sampled chunks evenly through the file
+                                long chunk = sampledChunks == chunks ? n : n * chunks / sampledChunks;
+                                long position = chunk * chunkBytes;
+                                int dictionary = (int) Math.min(DICTIONARY_BYTES, position);
+                                int length = (int) Math.min(chunkBytes, size - position);
+                                readFully(channel, input, position - dictionary, dictionary + length);
+
+                                long begin = System.nanoTime();
+                                deflater.reset();
+                                if (dictionary > 0) {
+                                    deflater.setDictionary(input, 0, dictionary);
+                                }
+                                deflater.setInput(input, dictionary, length);
+                                long bytes = 0;
+                                // Sync flush ends each chunk on a byte boundary, so chunks join into one stream
+                                int written;
+                                do {
+                                    written = deflater.deflate(output, 0, output.length, Deflater.SYNC_FLUSH);
+                                    bytes += written;
+                                } while (written == output.length || !deflater.needsInput());
+                                // Gzip also checksums its input; only the time it takes matters here
+                                if (gzip) {
+                                    crc.update(input, dictionary, length);
+                                }
+                                deflateNanos.add(System.nanoTime() - begin);
+                                sampled.add(length);
+                                compressed.add(bytes);
+                            }
+                        } finally {
+                            deflater.end();
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : running) {
+                    future.get();
+                }
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            } finally {
+                pool.shutdownNow();
+            }
+            double wall = (System.nanoTime() - start) / 1e9;
+            // The end of the stream and the gzip header and trailer are counted once, against the whole file
+            long overhead = 2 + (gzip ? GZIP_OVERHEAD_BYTES : 0);
+            long sampleBytes = sampled.sum();
+            long compressedBytes = compressed.sum() + (sampleBytes == size ? overhead : 0);
+            return new CompressionEstimate(size, sampleBytes, compressedBytes, deflateNanos.sum() / 1e9, wall,
+                    threads);
+        }
+    }
+
+    /**
+     * Reads bytes from the channel at the given position until the array section is full
+     * @param channel - File to read
+     * @param into - Array to read into, from index 0
+     * @param position - Position in the file
+     * @param length - Number of bytes to read
+     * @throws IOException if the file cannot be read or ends too soon
+     */
+    private static void readFully(FileChannel channel, byte[] into, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(into, 0, length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("File ended early");
+            }
+        }
+    }
+
+    /**
+     * Returns the size of the file
+     * @return long - Size in bytes
+     */
+    long getFileBytes() {
+        return fileBytes;
+    }
+
+    /**
+     * Returns the number of bytes that were compressed, the whole file unless it was sampled
+     * @return long - Size in bytes
+     */
+    long getSampleBytes() {
+        return sampleBytes;
+    }
+
+    /**
+     * Returns the compressed size of the whole file, estimated from the sample if the file was sampled
+     * @return double - Size in bytes
+     */
+    double getCompressedBytes() {
+        return sampleBytes == 0 ? 0 : fileBytes * getRatio();
+    }
+
+    /**
+     * Returns the compressed size as a share of the original size
+     * @return double - Ratio, e.g. 0.25 for a file that compresses to a quarter of its size
+     */
+    double getRatio() {
+        return sampleBytes == 0 ? 1 : (double) compressedSampleBytes / sampleBytes;
+    }
+
+    /**
+     * Returns how fast one core compresses
+     * @return double - Input bytes per second
+     */
+    double getBytesPerSecondPerCore() {
+        return deflateSeconds == 0 ? Double.POSITIVE_INFINITY : sampleBytes / deflateSeconds;
+    }
+
+    /**
+     * Returns how fast the file was compressed on all the threads, including reading it
+     * @return double - Input bytes per second
+     */
+    double getBytesPerSecond() {
+        return wallSeconds == 0 ? Double.POSITIVE_INFINITY : sampleBytes / wallSeconds;
+    }
+
+    /**
+     * Returns the number of threads used
+     * @return int - Number of threads
+     */
+    int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Calculates the time to compress the whole file at the measured speed on all the threads
+     * @return double - Time in seconds
+     */
+    double compressSeconds() {
+        if (fileBytes == 0) {
+            return 0;
+        }
+        return fileBytes / Math.min(getBytesPerSecond(), getBytesPerSecondPerCore() * threads);
+    }
+
+    /**
+     * Calculates the time to send the whole file uncompressed
+     * bandwidth units: "bit/s", "Kbit/s", "Mbit/s", "Gbit/s", and "Tbit/s"
+     * @param bandwidth - Value of the bandwidth
+     * @param bandwidthUnit - Unit of the bandwidth
+     * @return double - Time in seconds
+     */
+    double uncompressedSeconds(double bandwidth, String bandwidthUnit) {
+        return Calculator.calculateLoadTimeSeconds(fileBytes, "B", bandwidth, bandwidthUnit);
+    }
+
+    /**
+     * Calculates the time to send the whole file compressed, with compressing and sending overlapping
+     * @param bandwidth - Value of the bandwidth
+     * @param bandwidthUnit - Unit of the bandwidth
+     * @return double - Time in seconds
+     */
+    double streamedSeconds(double bandwidth, String bandwidthUnit) {
+        return Math.max(compressSeconds(), Calculator.calculateLoadTimeSeconds(getCompressedBytes(), "B", bandwidth,
+                bandwidthUnit));
+    }
+
+    /**
+     * Calculates the time to compress the whole file and then send it
+     * @param bandwidth - Value of the bandwidth
+     * @param bandwidthUnit - Unit of the bandwidth
+     * @return double - Time in seconds
+     */
+    double sequentialSeconds(double bandwidth, String bandwidthUnit) {
+        return compressSeconds() + Calculator.calculateLoadTimeSeconds(getCompressedBytes(), "B", bandwidth,
+                bandwidthUnit);
+    }
+
+    /**
+     * Returns the fastest link that streamed compression still beats, which is as fast as the threads compress.
+     * A file that does not get smaller is never faster to send compressed, so its break-even is 0.
+     * @return double - Link rate in Mbit/s, or 0 if compressing never pays off
+     */
+    double breakEvenMegabitsPerSecond() {
+        if (getRatio() >= 1) {
+            return 0;
+        }
+        double bytesPerSecond = fileBytes / compressSeconds();
+        return Calculator.convertSizeUnit("B", "mb", bytesPerSecond);
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Collects everything the calculators print into one reusable buffer and writes it out in a single call.
+ * A whole menu or result block is written at once instead of one locked, flushed write per line.
+ * The buffer is flushed when input is about to be read and when the program exits.
+ * Numbers are formatted straight into the buffer with DoubleFormatter, without building a String first.
+ * The print methods return this output so a line can be built up in one statement.
+ */
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+
+class ConsoleOutput implements Flushable {
+
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final OutputStream out;
+    private final StringBuilder text = new StringBuilder(4096);
+    private final DoubleFormatter shortest = DoubleFormatter.shortest();
+    private final ByteBuffer bytes = ByteBuffer.allocate(8192);
+    private final CharsetEncoder encoder = Charset.defaultCharset().newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    /**
+     * Creates an output buffer that writes to the given stream when flushed
+     * @param out - Stream to write to
+     */
+    ConsoleOutput(OutputStream out) {
+        if (out == null) {
+            throw new IllegalArgumentException("Cannot be null");
+        }
+        this.out = out;
+    }
+
+    /**
+     * Adds the given text to the buffer
+     * @param s - Text to print
+     * @return ConsoleOutput - This output
+     */
+    ConsoleOutput print(String s) {
+        text.append(s);
+        return this;
+    }
+
+    /**
+     * Adds the value to the buffer in the shortest form that reads back as the same double, e.g. "37.5"
+     * @param value - Value to print
+     * @return ConsoleOutput - This output
+     */
+    ConsoleOutput print(double value) {
+        shortest.append(text, value);
+        return this;
+    }
+
+    /**
+     * Adds the value to the buffer using the given format
+     * @param value - Value to print
+     * @param format - Format to use, e.g. DoubleFormatter.fixed(2)
+     * @return ConsoleOutput - This output
+     */
+    ConsoleOutput print(double value, DoubleFormatter format) {
+        format.append(text, value);
+        return this;
+    }
+
+    /**
+     * Adds the given text and a line separator to the buffer
+     * @param s - Text to print
+     * @return ConsoleOutput - This output
+     */
+    ConsoleOutput println(String s) {
+        text.append(s).append(LINE_SEPARATOR);
+        return this;
+    }
+
+    /**
+     * Adds a line separator to the buffer
+     * @return ConsoleOutput - This output
+     */
+    ConsoleOutput println() {
+        text.append(LINE_SEPARATOR);
+        return this;
+    }
+
+    /**
+     * Writes everything in the buffer to the stream with as few writes as possible, then empties the buffer
+     */
+    @Override
+    public void flush() {
+        if (text.length() == 0) {
+            return;
+        }
+        CharBuffer chars = CharBuffer.wrap(text);
+        encoder.reset();
+        try {
+            CoderResult result;
+            do {
+                result = encoder.encode(chars, bytes, true);
+                if (result.isOverflow() || !chars.hasRemaining()) {
+                    if (!chars.hasRemaining()) {
+                        encoder.flush(bytes);
+                    }
+                    writeBytes();
+                }
+            } while (chars.hasRemaining());
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            text.setLength(0);
+        }
+    }
+
+    /**
+     * Empties the buffer without writing it
+     */
+    void discard() {
+        text.setLength(0);
+    }
+
+    /**
+     * Writes the encoded bytes to the stream and empties the byte buffer
+     * @throws IOException if the stream cannot be written to
+     */
+    private void writeBytes() throws IOException {
+        bytes.flip();
+        out.write(bytes.array(), 0, bytes.limit());
+        bytes.clear();
+    }
+}
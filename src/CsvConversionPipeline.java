@@ -0,0 +1,429 @@
+/*
+ * Bulk unit conversion of CSV files for the bandwidth calculator.
+ * Each input row is "value,unit[,targetUnit]" where the units are data size, bandwidth, or time units.
+ * Each output row is "value,unit,convertedValue,targetUnit", converted the same way as convertSizeUnit,
+ * convertBandwidthUnit, and convertTimeUnit. Rows that cannot be converted are copied with ",invalid" appended.
+ * The file is read in large chunks that end on a line break. Chunks are converted in parallel
+ * and written in their original order. Fields are parsed straight from the bytes without creating Strings.
+ */
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+class CsvConversionPipeline {
+
+    private static final int CHUNK_SIZE = 1 << 23;
+    private static final int SIZE = 0;
+    private static final int BANDWIDTH = 1;
+    private static final int TIME = 2;
+    private static final byte[] INVALID = ",invalid\n".getBytes(StandardCharsets.US_ASCII);
+
+    // Every unit the pipeline understands, with its bytes and kind at the same index
+    private static final String[] UNITS;
+    private static final byte[][] UNIT_BYTES;
+    private static final int[] UNIT_KINDS;
+
+    static {
+        int count = Calculator.SIZE_UNITS.length + Calculator.BANDWIDTH_UNITS.length + Calculator.TIME_UNITS.length;
+        UNITS = new String[count];
+        UNIT_BYTES = new byte[count][];
+        UNIT_KINDS = new int[count];
+        int i = 0;
+        String[][] groups = {Calculator.SIZE_UNITS, Calculator.BANDWIDTH_UNITS, Calculator.TIME_UNITS};
+        for (int kind = 0; kind < groups.length; kind++) {
+            for (String unit : groups[kind]) {
+                UNITS[i] = unit;
+                UNIT_BYTES[i] = unit.getBytes(StandardCharsets.US_ASCII);
+                UNIT_KINDS[i] = kind;
+                i++;
+            }
+        }
+    }
+
+    private final int defaultTargetUnit;
+    private final int threads;
+    private final int chunkSize;
+    private long rowCount;
+    private long invalidRowCount;
+
+    /**
+     * Creates a pipeline that converts rows without a target unit to the given unit
+     * @param defaultTargetUnit - Unit to convert to when a row has no target unit
+     * @param threads - Number of chunks to convert at the same time
+     */
+    CsvConversionPipeline(String defaultTargetUnit, int threads) {
+        this(defaultTargetUnit, threads, CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a pipeline that reads the file in chunks of the given size
+     * @param defaultTargetUnit - Unit to convert to when a row has no target unit
+     * @param threads - Number of chunks to convert at the same time
+     * @param chunkSize - Bytes read at a time; a chunk ends at the last line break it contains
+     */
+    CsvConversionPipeline(String defaultTargetUnit, int threads, int chunkSize) {
+        if (defaultTargetUnit == null) {
+            throw new IllegalArgumentException("Cannot be null");
+        }
+        if (threads < 1 || chunkSize < 1) {
+            throw new IllegalArgumentException("Must be positive");
+        }
+        int unit = findUnit(defaultTargetUnit.getBytes(StandardCharsets.US_ASCII), 0,
+                defaultTargetUnit.length());
+        if (unit < 0) {
+            throw new IllegalArgumentException("Not a valid unit");
+        }
+        this.defaultTargetUnit = unit;
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Determines if the pipeline can convert to or from the given unit
+     * @param unit - Unit to test
+     * @return boolean - True if it is a data size, bandwidth, or time unit, false if not
+     */
+    static boolean isUnit(String unit) {
+        return unit != null && findUnit(unit.getBytes(StandardCharsets.US_ASCII), 0, unit.length()) >= 0;
+    }
+
+    /**
+     * Determines if the output path names the same file as the input, so that writing it would destroy the input
+     * @param output - Output file, which may not exist yet
+     * @param input - Input file
+     * @return boolean - True if writing the output would overwrite the input
+     * @throws IOException if the files cannot be compared
+     */
+    static boolean isInput(Path output, Path input) throws IOException {
+        return Files.exists(output) && Files.isSameFile(output, input);
+    }
+
+    /**
+     * Returns the number of rows read by the last run
+     * @return long - Number of rows
+     */
+    long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the number of rows the last run could not convert
+     * @return long - Number of invalid rows
+     */
+    long getInvalidRowCount() {
+        return invalidRowCount;
+    }
+
+    /**
+     * Converts every row of the input file and writes the results to the output file
+     * @param input - CSV file to read
+     * @param output - CSV file to write (created or replaced); cannot be the input
+     * @throws IOException if a file cannot be read or written
+     */
+    void run(Path input, Path output) throws IOException {
+        if (input == null || output == null) {
+            throw new IllegalArgumentException("Cannot be null");
+        }
+        // Truncating the output would empty the input before it is read
+        if (isInput(output, input)) {
+            throw new IllegalArgumentException("Not a valid output file");
+        }
+        rowCount = 0;
+        invalidRowCount = 0;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        ArrayDeque<Future<Chunk>> pending = new ArrayDeque<>();
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            byte[] carry = new byte[0];
+            ByteBuffer block = ByteBuffer.allocate(chunkSize);
+            while (true) {
+                block.clear();
+                int read = in.read(block);
+                boolean atEnd = read < 0;
+                byte[] data;
+                int length;
+                if (atEnd) {
+                    data = carry;
+                    length = carry.length;
+                } else {
+                    // The chunk is the leftover partial line plus everything up to the last line break
+                    int end = block.position();
+                    int lastBreak = end - 1;
+                    while (lastBreak >= 0 && block.get(lastBreak) != '\n') {
+                        lastBreak--;
+                    }
+                    if (lastBreak < 0) {
+                        // No line break yet, so the whole block belongs to the leftover line
+                        int carried = carry.length;
+                        carry = Arrays.copyOf(carry, carried + end);
+                        System.arraycopy(block.array(), 0, carry, carried, end);
+                        continue;
+                    }
+                    length = carry.length + lastBreak + 1;
+                    data = Arrays.copyOf(carry, length);
+                    System.arraycopy(block.array(), 0, data, carry.length, lastBreak + 1);
+                    carry = Arrays.copyOfRange(block.array(), lastBreak + 1, end);
+                }
+                if (length > 0) {
+                    byte[] chunkData = data;
+                    int chunkLength = length;
+                    pending.add(executor.submit(() -> convertChunk(chunkData, chunkLength)));
+                    // Keep a bounded number of chunks in memory, writing the oldest first to preserve row order
+                    while (pending.size() >= threads * 2) {
+                        write(pending.removeFirst(), out);
+                    }
+                }
+                if (atEnd) {
+                    break;
+                }
+            }
+            while (!pending.isEmpty()) {
+                write(pending.removeFirst(), out);
+            }
+        } finally {
+            for (Future<Chunk> future : pending) {
+                future.cancel(true);
+            }
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Waits for a converted chunk and writes it to the output
+     * @param future - Chunk being converted
+     * @param out - Output file
+     * @throws IOException if the output cannot be written
+     */
+    private void write(Future<Chunk> future, FileChannel out) throws IOException {
+        Chunk chunk;
+        try {
+            chunk = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while converting", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(chunk.bytes, 0, chunk.length);
+        while (bytes.hasRemaining()) {
+            out.write(bytes);
+        }
+        rowCount += chunk.rows;
+        invalidRowCount += chunk.invalidRows;
+    }
+
+    /**
+     * Converts every line of a chunk
+     * @param data - Bytes of the chunk, made of whole lines
+     * @param length - Number of bytes used in data
+     * @return Chunk - Converted rows
+     */
+    private Chunk convertChunk(byte[] data, int length) {
+        Chunk chunk = new Chunk(length + length / 2 + 64);
+        int lineStart = 0;
+        while (lineStart < length) {
+            int lineEnd = lineStart;
+            while (lineEnd < length && data[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            int contentEnd = lineEnd;
+            if (contentEnd > lineStart && data[contentEnd - 1] == '\r') {
+                contentEnd--;
+            }
+            if (contentEnd > lineStart) {
+                chunk.rows++;
+                if (!convertRow(data, lineStart, contentEnd, chunk)) {
+                    chunk.invalidRows++;
+                    chunk.append(data, lineStart, contentEnd);
+                    chunk.append(INVALID, 0, INVALID.length);
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        return chunk;
+    }
+
+    /**
+     * Converts a single row and appends it to the chunk
+     * @param data - Bytes of the chunk
+     * @param start - Index of the first byte of the row
+     * @param end - Index after the last byte of the row
+     * @param chunk - Chunk to append the converted row to
+     * @return boolean - True if the row was converted, false if it is invalid
+     */
+    private boolean convertRow(byte[] data, int start, int end, Chunk chunk) {
+        int firstComma = indexOf(data, start, end, (byte) ',');
+        if (firstComma < 0) {
+            return false;
+        }
+        int secondComma = indexOf(data, firstComma + 1, end, (byte) ',');
+        int unitEnd = secondComma < 0 ? end : secondComma;
+
+        double value = InputTokenizer.parseDouble(data, trimStart(data, start, firstComma),
+                trimEnd(data, start, firstComma));
+        int from = findUnit(data, trimStart(data, firstComma + 1, unitEnd), trimEnd(data, firstComma + 1, unitEnd));
+        int to = secondComma < 0
+                ? defaultTargetUnit
+                : findUnit(data, trimStart(data, secondComma + 1, end), trimEnd(data, secondComma + 1, end));
+        if (Double.isNaN(value) || from < 0 || to < 0 || UNIT_KINDS[from] != UNIT_KINDS[to]) {
+            return false;
+        }
+
+        double converted = switch (UNIT_KINDS[from]) {
+            case SIZE -> Calculator.convertSizeUnit(UNITS[from], UNITS[to], value);
+            case BANDWIDTH -> Calculator.convertBandwidthUnit(UNITS[from], UNITS[to], value);
+            default -> Calculator.convertTimeUnit(UNITS[from], UNITS[to], value);
+        };
+        chunk.append(data, start, unitEnd);
+        chunk.appendByte((byte) ',');
+        chunk.appendNumber(converted);
+        chunk.appendByte((byte) ',');
+        chunk.append(UNIT_BYTES[to], 0, UNIT_BYTES[to].length);
+        chunk.appendByte((byte) '\n');
+        return true;
+    }
+
+    /**
+     * Finds the unit spelled by the given bytes
+     * @param data - Bytes to match
+     * @param start - Index of the first byte
+     * @param end - Index after the last byte
+     * @return int - Index of the unit in UNITS, or -1 if there is no such unit
+     */
+    private static int findUnit(byte[] data, int start, int end) {
+        for (int u = 0; u < UNIT_BYTES.length; u++) {
+            byte[] unit = UNIT_BYTES[u];
+            if (unit.length == end - start && Arrays.equals(unit, 0, unit.length, data, start, end)) {
+                return u;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the first occurrence of a byte in a range
+     * @param data - Bytes to search
+     * @param start - Index to start at
+     * @param end - Index to stop before
+     * @param b - Byte to find
+     * @return int - Index of the byte, or -1 if it is not in the range
+     */
+    private static int indexOf(byte[] data, int start, int end, byte b) {
+        for (int i = start; i < end; i++) {
+            if (data[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Skips spaces at the start of a field
+     * @param data - Bytes of the field
+     * @param start - Index of the first byte
+     * @param end - Index after the last byte
+     * @return int - Index of the first non-space byte
+     */
+    private static int trimStart(byte[] data, int start, int end) {
+        while (start < end && data[start] == ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    /**
+     * Skips spaces at the end of a field
+     * @param data - Bytes of the field
+     * @param start - Index of the first byte
+     * @param end - Index after the last byte
+     * @return int - Index after the last non-space byte
+     */
+    private static int trimEnd(byte[] data, int start, int end) {
+        while (end > start && data[end - 1] == ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * Growable byte buffer holding the converted rows of one chunk
+     */
+    private static class Chunk {
+        private byte[] bytes;
+        private int length;
+        private long rows;
+        private long invalidRows;
+
+        // A chunk is filled by one task at a time, so it can keep its own formatter and scratch text
+        private final DoubleFormatter format = DoubleFormatter.shortest();
+        private final StringBuilder text = new StringBuilder(32);
+
+        Chunk(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        void append(byte[] source, int start, int end) {
+            ensureCapacity(end - start);
+            System.arraycopy(source, start, bytes, length, end - start);
+            length += end - start;
+        }
+
+        void appendByte(byte b) {
+            ensureCapacity(1);
+            bytes[length++] = b;
+        }
+
+        /**
+         * Appends the value as a whole number if possible, like convertSizeUnits does
+         * @param value - Value to append
+         */
+        void appendNumber(double value) {
+            if (value == Math.floor(value) && Math.abs(value) < 1e18) {
+                long whole = (long) value;
+                if (whole < 0) {
+                    appendByte((byte) '-');
+                    whole = -whole;
+                }
+                ensureCapacity(19);
+                int digits = 1;
+                for (long rest = whole; rest >= 10; rest /= 10) {
+                    digits++;
+                }
+                for (int i = length + digits - 1; i >= length; i--) {
+                    bytes[i] = (byte) ('0' + whole % 10);
+                    whole /= 10;
+                }
+                length += digits;
+            } else {
+                text.setLength(0);
+                format.append(text, value);
+                ensureCapacity(text.length());
+                for (int i = 0; i < text.length(); i++) {
+                    bytes[length++] = (byte) text.charAt(i);
+                }
+            }
+        }
+
+        private void ensureCapacity(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+            }
+        }
+    }
+}
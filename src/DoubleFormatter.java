@@ -0,0 +1,783 @@
+/*
+ * Formats doubles for everything the calculators print, writing digits straight into a caller's StringBuilder.
+ * Digits come from the Ryu algorithm (Ulf Adams, 2018): the shortest decimal that still reads back
+ * as the same double, found with 128-bit fixed-point arithmetic instead of big integers.
+ * Formats:
+ *    - shortest: the same layout as Double.toString, e.g. "37.5", "0.004", or "5.0E-4"
+ *    - compact: whole numbers without a decimal point (e.g. "4000"), anything else as shortest
+ *    - fixed: a set number of decimal places, e.g. "3.04"
+ *    - significant: a set number of significant digits, e.g. "3.042"
+ * Fixed and significant formats round the shortest digits half-up.
+ * Formatters reuse scratch space between calls and are not thread-safe; use one per thread.
+ */
+
+import java.math.BigInteger;
+
+class DoubleFormatter {
+
+    private static final int SHORTEST = 0;
+    private static final int COMPACT = 1;
+    private static final int FIXED = 2;
+    private static final int SIGNIFICANT = 3;
+
+    private static final int MANTISSA_BITS = 52;
+    private static final int EXPONENT_BIAS = 1023;
+    private static final int POW5_BITCOUNT = 125;
+    private static final int POW5_INV_BITCOUNT = 125;
+    private static final int POW5_TABLE_SIZE = 326;
+    private static final int POW5_INV_TABLE_SIZE = 342;
+
+    // 5^i and 2^k / 5^i, scaled to 125 bits and split into low and high 64-bit halves. They are written out as
+    // constants because building them with BigInteger took longer than the rest of starting the calculator;
+    // countTableMismatches checks them against BigInteger.
+    private static final long[] POW5_LOW = {
+            0x0000000000000000L, 0x0000000000000000L, 0x0000000000000000L, 0x0000000000000000L, 0x0000000000000000L,
+            0x0000000000000000L, 0x0000000000000000L, 0x0000000000000000L, 0x0000000000000000L, 0x0000000000000000L,
+            0x0000000000000000L, 0x0000000000000000L, 0x0000000000000000L, 0x0000000000000000L, 0x0000000000000000L,
+            0x0000000000000000L, 0x0000000000000000L, 0x0000000000000000L, 0x0000000000000000L, 0x0000000000000000L,
+            0x0000000000000000L, 0x0000000000000000L, 0x0000000000000000L, 0x0000000000000000L, 0x0000000000000000L,
+            0x0000000000000000L, 0x0000000000000000L, 0x4000000000000000L, 0x8800000000000000L, 0xAA00000000000000L,
+            0xD480000000000000L, 0xC9A0000000000000L, 0xBE04000000000000L, 0xAD85000000000000L, 0xD8E6400000000000L,
+            0x878FE80000000000L, 0x6973E20000000000L, 0x03D0DA8000000000L, 0x8262889000000000L, 0x22FB2AB400000000L,
+            0xABB9F56100000000L, 0xCB54395CA0000000L, 0xBE2947B3C8000000L, 0x2DB399A0BA000000L, 0xFC90400474400000L,
+            0x7BB4500591500000L, 0xDAA16406F5A40000L, 0xA8A4DE8459868000L, 0xD2CE16256FE82000L, 0x87819BAECBE22800L,
+            0xF4B1014D3F6D5900L, 0x71DD41A08F48AF40L, 0x0E549208B31ADB10L, 0x28F4DB456FF0C8EAL, 0x33321216CBECFB24L,
+            0xBFFE969C7EE839EDL, 0xF7FF1E21CF512434L, 0xF5FEE5AA43256D41L, 0x337E9F14D3EEC892L, 0x005E46DA08EA7AB6L,
+            0xA03AEC4845928CB2L, 0xC849A75A56F72FDEL, 0x7A5C1130ECB4FBD6L, 0xEC798ABE93F11D65L, 0xA797ED6E38ED64BFL,
+            0x517DE8C9C728BDEFL, 0xD2EEB17E1C7976B5L, 0x87AA5DDDA397D462L, 0xE994F5550C7DC97BL, 0x11FD195527CE9DEDL,
+            0xD67C5FAA71C24568L, 0x8C1B77950E32D6C2L, 0x57912ABD28DFC639L, 0xAD75756C7317B7C8L, 0x98D2D2C78FDDA5BAL,
+            0x9F83C3BCB9EA8794L, 0x0764B4ABE8652979L, 0x493DE1D6E27E73D7L, 0x6DC6AD264D8F0866L, 0xC938586FE0F2CA80L,
+            0x7B866E8BD92F7D20L, 0xAD34051767BDAE34L, 0x9881065D41AD19C1L, 0x7EA147F492186032L, 0x6F24CCF8DB4F3C1FL,
+            0x4AEE003712230B27L, 0xDDA98044D6ABCDF0L, 0x0A89F02B062B60B6L, 0xCD2C6C35C7B638E4L, 0x8077874339A3C71DL,
+            0xE0956914080CB8E4L, 0x6C5D61AC8507F38EL, 0x4774BA17A649F072L, 0x1951E89D8FDC6C8FL, 0x0FD3316279E9C3D9L,
+            0x13C7FDBB186434CFL, 0x58B9FD29DE7D4203L, 0xB7743E3A2B0E4942L, 0xE5514DC8B5D1DB92L, 0xDEA5A13AE3465277L,
+            0x0B2784C4CE0BF38AL, 0xCDF165F6018EF06DL, 0x416DBF7381F2AC88L, 0x88E497A83137ABD5L, 0xEB1DBD923D8596CAL,
+            0x25E52CF6CCE6FC7DL, 0x97AF3C1A40105DCEL, 0xFD9B0B20D0147542L, 0x3D01CDE904199292L, 0x462120B1A28FFB9BL,
+            0xD7A968DE0B33FA82L, 0xCD93C3158E00F923L, 0xC07C59ED78C09BB6L, 0xB09B7068D6F0C2A3L, 0xDCC24C830CACF34CL,
+            0xC9F96FD1E7EC180FL, 0x3C77CBC661E71E13L, 0x8B95BEB7FA60E598L, 0x6E7B2E65F8F91EFEL, 0xC50CFCFFBB9BB35FL,
+            0xB6503C3FAA82A037L, 0xA3E44B4F95234844L, 0xE66EAF11BD360D2BL, 0xE00A5AD62C839075L, 0x980CF18BB7A47493L,
+            0x5F0816F752C6C8DCL, 0xF6CA1CB527787B13L, 0xF47CA3E2715699D7L, 0xF8CDE66D86D62026L, 0xF7016008E88BA830L,
+            0xB4C1B80B22AE923CL, 0x50F91306F5AD1B65L, 0xE53757C8B318623FL, 0x9E852DBADFDE7ACFL, 0xA3133C94CBEB0CC1L,
+            0x8BD80BB9FEE5CFF1L, 0xAECE0EA87E9F43EEL, 0x4D40C9294F238A75L, 0x2090FB73A2EC6D12L, 0x68B53A508BA78856L,
+            0x417144725748B536L, 0x51CD958EED1AE283L, 0xE640FAF2A8619B24L, 0xEFE89CD7A93D00F7L, 0xEBE2C40D938C4134L,
+            0x26DB7510F86F5181L, 0x9849292A9B4592F1L, 0xBE5B73754216F7ADL, 0xADF25052929CB598L, 0x996EE4673743E2FFL,
+            0xFFE54EC0828A6DDFL, 0xBFDEA270A32D0957L, 0x2FD64B0CCBF84BADL, 0x5DE5EEE7FF7B2F4CL, 0x755F6AA1FF59FB1FL,
+            0x92B7454A7F3079E7L, 0x5BB28B4E8F7E4C30L, 0xF29F2E22335DDF3CL, 0xEF46F9AAC035570BL, 0xD58C5C0AB8215667L,
+            0x4AEF730D6629AC01L, 0x9DAB4FD0BFB41701L, 0xA28B11E277D08E60L, 0x8B2DD65B15C4B1F9L, 0x6DF94BF1DB35DE77L,
+            0xC4BBCF772901AB0AL, 0x35EAC354F34215CDL, 0x8365742A30129B40L, 0xD21F689A5E0BA108L, 0x06A742C0F58E894AL,
+            0x4851137132F22B9DL, 0xED32AC26BFD75B42L, 0xA87F57306FCD3212L, 0xD29F2CFC8BC07E97L, 0xA3A37C1DD7584F1EL,
+            0x8C8C5B254D2E62E6L, 0x6FAF71EEA079FB9FL, 0x0B9B4E6A48987A87L, 0x674111026D5F4C94L, 0xC111554308B71FBAL,
+            0x7155AA93CAE4E7A8L, 0x26D58A9C5ECF10C9L, 0xF08AED437682D4FBL, 0xECADA89454238A3AL, 0x73EC895CB4963664L,
+            0x90E7ABB3E1BBC3FDL, 0x352196A0DA2AB4FDL, 0x0134FE24885AB11EL, 0xC1823DADAA715D65L, 0x31E2CD19150DB4BFL,
+            0x1F2DC02FAD2890F7L, 0xA6F9303B9872B535L, 0x50B77C4A7E8F6282L, 0x5272ADAE8F199D91L, 0x670F591A32E004F6L,
+            0x40D32F60BF980633L, 0x4883FD9C77BF03E0L, 0x5AA4FD0395AEC4D8L, 0x314E3C447B1A760EL, 0xDED0E5AACCF089C9L,
+            0x96851F15802CAC3BL, 0xFC2666DAE037D74AL, 0x9D980048CC22E68EL, 0x84FE005AFF2BA032L, 0xA63D8071BEF6883EL,
+            0xCFCCE08E2EB42A4EL, 0x21E00C58DD309A70L, 0x2A580F6F147CC10DL, 0xB4EE134AD99BF150L, 0x7114CC0EC80176D2L,
+            0xCD59FF127A01D486L, 0xC0B07ED7188249A8L, 0xD86E4F466F516E09L, 0xCE89E3180B25C98BL, 0x822C5BDE0DEF3BEEL,
+            0xF15BB96AC8B58575L, 0x2DB2A7C57AE2E6D2L, 0x391F51B6D99BA086L, 0x03B3931248014454L, 0x04A077D6DA019569L,
+            0x45C895CC9081FAC3L, 0x8B9D5D9FDA513CBAL, 0xAE84B507D0E58BE8L, 0x1A25E249C51EEEE3L, 0xF057AD6E1B33554DL,
+            0x6C6D98C9A2002AA1L, 0x4788FEFC0A803549L, 0x0CB59F5D8690214EL, 0xCFE30734E83429A1L, 0x83DBC9022241340AL,
+            0xB2695DA15568C086L, 0x1F03B509AAC2F0A7L, 0x26C4A24C1573ACD1L, 0x783AE56F8D684C03L, 0x16499ECB70C25F03L,
+            0x9BDC067E4CF2F6C4L, 0x82D3081DE02FB476L, 0xB1C3E512AC1DD0C9L, 0xDE34DE57572544FCL, 0x55C215ED2CEE963BL,
+            0xB5994DB43C151DE5L, 0xE2FFA1214B1A655EL, 0xDBBF89699DE0FEB6L, 0x2957B5E202AC9F31L, 0xF3ADA35A8357C6FEL,
+            0x70990C31242DB8BDL, 0x865FA79EB69C9376L, 0xE7F791866443B854L, 0xA1F575E7FD54A669L, 0xA53969B0FE54E801L,
+            0x0E87C41D3DEA2202L, 0xD229B5248D64AA82L, 0x435A1136D85EEA91L, 0x143095848E76A536L, 0x193CBAE5B2144E83L,
+            0x2FC5F4CF8F4CB112L, 0xBBB77203731FDD56L, 0x2AA54E844FE7D4ACL, 0xDAA75112B1F0E4EBL, 0xD15125575E6D1E26L,
+            0x85A56EAD360865B0L, 0x7387652C41C53F8EL, 0x50693E7752368F71L, 0x64838E1526C4334EL, 0xFDA4719A70754022L,
+            0xDE86C70086494815L, 0x162878C0A7DB9A1AL, 0x5BB296F0D1D280A1L, 0x194F9E5683239064L, 0x5FA385EC23EC747EL,
+            0xF78C67672CE7919DL, 0x3AB7C0A07C10BB02L, 0x4965B0C89B14E9C3L, 0x5BBF1CFAC1DA2433L, 0xB957721CB92856A0L,
+            0xE7AD4EA3E7726C48L, 0xA198A24CE14F075AL, 0x44FF65700CD16498L, 0x563F3ECC1005BDBEL, 0x2BCF0E7F14072D2EL,
+            0x5B61690F6C847C3DL, 0xF239C35347A59B4CL, 0xEEC83428198F021FL, 0x553D20990FF96153L, 0x2A8C68BF53F7B9A8L,
+            0x752F82EF28F5A812L, 0x093DB1D57999890BL, 0x0B8D1E4AD7FFEB4EL, 0x8E7065DD8DFFE622L, 0xF9063FAA78BFEFD5L,
+            0xB747CF9516EFEBCAL, 0xE519C37A5CABE6BDL, 0xAF301A2C79EB7036L, 0xDAFC20B798664C43L, 0x11BB28E57E7FDF54L,
+            0x1629F31EDE1FD72AL, 0x4DDA37F34AD3E67AL, 0xE150C5F01D88E019L, 0x19A4F76C24EB181FL, 0xB0071AA39712EF13L,
+            0x9C08E14C7CD7AAD8L, 0x030B199F9C0D958EL, 0x61E6F003C1887D79L, 0xBA60AC04B1EA9CD7L, 0xA8F8D705DE65440DL,
+            0xC99B8663AAFF4A88L, 0xBC0267FC95BF1D2AL, 0xAB0301FBBB2EE474L, 0xEAE1E13D54FD4EC9L, 0x659A598CAA3CA27BL,
+            0xFF00EFEFD4CBCB1AL, 0x3F6095F5E4FF5EF0L, 0xCF38BB735E3F36ACL, 0x8306EA5035CF0457L, 0x11E4527221A162B6L,
+            0x565D670EAA09BB64L, 0x2BF4C0D2548C2A3DL, 0x1B78F88374D79A66L, 0x625736A4520D8100L, 0xFAED044D6690E140L,
+            0xBCD422B0601A8CC8L, 0x6C092B5C78212FFAL, 0x070B763396297BF8L, 0x48CE53C07BB3DAF6L, 0x2D80F4584D5068DAL,
+            0x78E1316E60A48310L
+    };
+    private static final long[] POW5_HIGH = {
+            0x1000000000000000L, 0x1400000000000000L, 0x1900000000000000L, 0x1F40000000000000L, 0x1388000000000000L,
+            0x186A000000000000L, 0x1E84800000000000L, 0x1312D00000000000L, 0x17D7840000000000L, 0x1DCD650000000000L,
+            0x12A05F2000000000L, 0x174876E800000000L, 0x1D1A94A200000000L, 0x12309CE540000000L, 0x16BCC41E90000000L,
+            0x1C6BF52634000000L, 0x11C37937E0800000L, 0x16345785D8A00000L, 0x1BC16D674EC80000L, 0x1158E460913D0000L,
+            0x15AF1D78B58C4000L, 0x1B1AE4D6E2EF5000L, 0x10F0CF064DD59200L, 0x152D02C7E14AF680L, 0x1A784379D99DB420L,
+            0x108B2A2C28029094L, 0x14ADF4B7320334B9L, 0x19D971E4FE8401E7L, 0x1027E72F1F128130L, 0x1431E0FAE6D7217CL,
+            0x193E5939A08CE9DBL, 0x1F8DEF8808B02452L, 0x13B8B5B5056E16B3L, 0x18A6E32246C99C60L, 0x1ED09BEAD87C0378L,
+            0x13426172C74D822BL, 0x1812F9CF7920E2B6L, 0x1E17B84357691B64L, 0x12CED32A16A1B11EL, 0x178287F49C4A1D66L,
+            0x1D6329F1C35CA4BFL, 0x125DFA371A19E6F7L, 0x16F578C4E0A060B5L, 0x1CB2D6F618C878E3L, 0x11EFC659CF7D4B8DL,
+            0x166BB7F0435C9E71L, 0x1C06A5EC5433C60DL, 0x118427B3B4A05BC8L, 0x15E531A0A1C872BAL, 0x1B5E7E08CA3A8F69L,
+            0x111B0EC57E6499A1L, 0x1561D276DDFDC00AL, 0x1ABA4714957D300DL, 0x10B46C6CDD6E3E08L, 0x14E1878814C9CD8AL,
+            0x1A19E96A19FC40ECL, 0x105031E2503DA893L, 0x14643E5AE44D12B8L, 0x197D4DF19D605767L, 0x1FDCA16E04B86D41L,
+            0x13E9E4E4C2F34448L, 0x18E45E1DF3B0155AL, 0x1F1D75A5709C1AB1L, 0x13726987666190AEL, 0x184F03E93FF9F4DAL,
+            0x1E62C4E38FF87211L, 0x12FDBB0E39FB474AL, 0x17BD29D1C87A191DL, 0x1DAC74463A989F64L, 0x128BC8ABE49F639FL,
+            0x172EBAD6DDC73C86L, 0x1CFA698C95390BA8L, 0x121C81F7DD43A749L, 0x16A3A275D494911BL, 0x1C4C8B1349B9B562L,
+            0x11AFD6EC0E14115DL, 0x161BCCA7119915B5L, 0x1BA2BFD0D5FF5B22L, 0x1145B7E285BF98F5L, 0x159725DB272F7F32L,
+            0x1AFCEF51F0FB5EFFL, 0x10DE1593369D1B5FL, 0x15159AF804446237L, 0x1A5B01B605557AC5L, 0x1078E111C3556CBBL,
+            0x14971956342AC7EAL, 0x19BCDFABC13579E4L, 0x10160BCB58C16C2FL, 0x141B8EBE2EF1C73AL, 0x1922726DBAAE3909L,
+            0x1F6B0F092959C74BL, 0x13A2E965B9D81C8FL, 0x188BA3BF284E23B3L, 0x1EAE8CAEF261ACA0L, 0x132D17ED577D0BE4L,
+            0x17F85DE8AD5C4EDDL, 0x1DF67562D8B36294L, 0x12BA095DC7701D9CL, 0x17688BB5394C2503L, 0x1D42AEA2879F2E44L,
+            0x1249AD2594C37CEBL, 0x16DC186EF9F45C25L, 0x1C931E8AB871732FL, 0x11DBF316B346E7FDL, 0x1652EFDC6018A1FCL,
+            0x1BE7ABD3781ECA7CL, 0x1170CB642B133E8DL, 0x15CCFE3D35D80E30L, 0x1B403DCC834E11BDL, 0x1108269FD210CB16L,
+            0x154A3047C694FDDBL, 0x1A9CBC59B83A3D52L, 0x10A1F5B813246653L, 0x14CA732617ED7FE8L, 0x19FD0FEF9DE8DFE2L,
+            0x103E29F5C2B18BEDL, 0x144DB473335DEEE9L, 0x1961219000356AA3L, 0x1FB969F40042C54CL, 0x13D3E2388029BB4FL,
+            0x18C8DAC6A0342A23L, 0x1EFB1178484134ACL, 0x135CEAEB2D28C0EBL, 0x183425A5F872F126L, 0x1E412F0F768FAD70L,
+            0x12E8BD69AA19CC66L, 0x17A2ECC414A03F7FL, 0x1D8BA7F519C84F5FL, 0x127748F9301D319BL, 0x17151B377C247E02L,
+            0x1CDA62055B2D9D83L, 0x12087D4358FC8272L, 0x168A9C942F3BA30EL, 0x1C2D43B93B0A8BD2L, 0x119C4A53C4E69763L,
+            0x16035CE8B6203D3CL, 0x1B843422E3A84C8BL, 0x1132A095CE492FD7L, 0x157F48BB41DB7BCDL, 0x1ADF1AEA12525AC0L,
+            0x10CB70D24B7378B8L, 0x14FE4D06DE5056E6L, 0x1A3DE04895E46C9FL, 0x1066AC2D5DAEC3E3L, 0x14805738B51A74DCL,
+            0x19A06D06E2611214L, 0x100444244D7CAB4CL, 0x1405552D60DBD61FL, 0x1906AA78B912CBA7L, 0x1F485516E7577E91L,
+            0x138D352E5096AF1AL, 0x18708279E4BC5AE1L, 0x1E8CA3185DEB719AL, 0x1317E5EF3AB32700L, 0x17DDDF6B095FF0C0L,
+            0x1DD55745CBB7ECF0L, 0x12A5568B9F52F416L, 0x174EAC2E8727B11BL, 0x1D22573A28F19D62L, 0x123576845997025DL,
+            0x16C2D4256FFCC2F5L, 0x1C73892ECBFBF3B2L, 0x11C835BD3F7D784FL, 0x163A432C8F5CD663L, 0x1BC8D3F7B3340BFCL,
+            0x115D847AD000877DL, 0x15B4E5998400A95DL, 0x1B221EFFE500D3B4L, 0x10F5535FEF208450L, 0x1532A837EAE8A565L,
+            0x1A7F5245E5A2CEBEL, 0x108F936BAF85C136L, 0x14B378469B673184L, 0x19E056584240FDE5L, 0x102C35F729689EAFL,
+            0x14374374F3C2C65BL, 0x1945145230B377F2L, 0x1F965966BCE055EFL, 0x13BDF7E0360C35B5L, 0x18AD75D8438F4322L,
+            0x1ED8D34E547313EBL, 0x13478410F4C7EC73L, 0x1819651531F9E78FL, 0x1E1FBE5A7E786173L, 0x12D3D6F88F0B3CE8L,
+            0x1788CCB6B2CE0C22L, 0x1D6AFFE45F818F2BL, 0x1262DFEEBBB0F97BL, 0x16FB97EA6A9D37D9L, 0x1CBA7DE5054485D0L,
+            0x11F48EAF234AD3A2L, 0x1671B25AEC1D888AL, 0x1C0E1EF1A724EAADL, 0x1188D357087712ACL, 0x15EB082CCA94D757L,
+            0x1B65CA37FD3A0D2DL, 0x111F9E62FE44483CL, 0x156785FBBDD55A4BL, 0x1AC1677AAD4AB0DEL, 0x10B8E0ACAC4EAE8AL,
+            0x14E718D7D7625A2DL, 0x1A20DF0DCD3AF0B8L, 0x10548B68A044D673L, 0x1469AE42C8560C10L, 0x198419D37A6B8F14L,
+            0x1FE52048590672D9L, 0x13EF342D37A407C8L, 0x18EB0138858D09BAL, 0x1F25C186A6F04C28L, 0x137798F428562F99L,
+            0x18557F31326BBB7FL, 0x1E6ADEFD7F06AA5FL, 0x1302CB5E6F642A7BL, 0x17C37E360B3D351AL, 0x1DB45DC38E0C8261L,
+            0x1290BA9A38C7D17CL, 0x1734E940C6F9C5DCL, 0x1D022390F8B83753L, 0x1221563A9B732294L, 0x16A9ABC9424FEB39L,
+            0x1C5416BB92E3E607L, 0x11B48E353BCE6FC4L, 0x1621B1C28AC20BB5L, 0x1BAA1E332D728EA3L, 0x114A52DFFC679925L,
+            0x159CE797FB817F6FL, 0x1B04217DFA61DF4BL, 0x10E294EEBC7D2B8FL, 0x151B3A2A6B9C7672L, 0x1A6208B50683940FL,
+            0x107D457124123C89L, 0x149C96CD6D16CBACL, 0x19C3BC80C85C7E97L, 0x101A55D07D39CF1EL, 0x1420EB449C8842E6L,
+            0x19292615C3AA539FL, 0x1F736F9B3494E887L, 0x13A825C100DD1154L, 0x18922F31411455A9L, 0x1EB6BAFD91596B14L,
+            0x133234DE7AD7E2ECL, 0x17FEC216198DDBA7L, 0x1DFE729B9FF15291L, 0x12BF07A143F6D39BL, 0x176EC98994F48881L,
+            0x1D4A7BEBFA31AAA2L, 0x124E8D737C5F0AA5L, 0x16E230D05B76CD4EL, 0x1C9ABD04725480A2L, 0x11E0B622C774D065L,
+            0x1658E3AB7952047FL, 0x1BEF1C9657A6859EL, 0x117571DDF6C81383L, 0x15D2CE55747A1864L, 0x1B4781EAD1989E7DL,
+            0x110CB132C2FF630EL, 0x154FDD7F73BF3BD1L, 0x1AA3D4DF50AF0AC6L, 0x10A6650B926D66BBL, 0x14CFFE4E7708C06AL,
+            0x1A03FDE214CAF085L, 0x10427EAD4CFED653L, 0x14531E58A03E8BE8L, 0x1967E5EEC84E2EE2L, 0x1FC1DF6A7A61BA9AL,
+            0x13D92BA28C7D14A0L, 0x18CF768B2F9C59C9L, 0x1F03542DFB83703BL, 0x1362149CBD322625L, 0x183A99C3EC7EAFAEL,
+            0x1E494034E79E5B99L, 0x12EDC82110C2F940L, 0x17A93A2954F3B790L, 0x1D9388B3AA30A574L, 0x127C35704A5E6768L,
+            0x171B42CC5CF60142L, 0x1CE2137F74338193L, 0x120D4C2FA8A030FCL, 0x16909F3B92C83D3BL, 0x1C34C70A777A4C8AL,
+            0x11A0FC668AAC6FD6L, 0x16093B802D578BCBL, 0x1B8B8A6038AD6EBEL, 0x1137367C236C6537L, 0x1585041B2C477E85L,
+            0x1AE64521F7595E26L, 0x10CFEB353A97DAD8L, 0x1503E602893DD18EL, 0x1A44DF832B8D45F1L, 0x106B0BB1FB384BB6L,
+            0x1485CE9E7A065EA4L, 0x19A742461887F64DL, 0x1008896BCF54F9F0L, 0x140AABC6C32A386CL, 0x190D56B873F4C688L,
+            0x1F50AC6690F1F82AL, 0x13926BC01A973B1AL, 0x187706B0213D09E0L, 0x1E94C85C298C4C59L, 0x131CFD3999F7AFB7L,
+            0x17E43C8800759BA5L, 0x1DDD4BAA0093028FL, 0x12AA4F4A405BE199L, 0x1754E31CD072D9FFL, 0x1D2A1BE4048F907FL,
+            0x123A516E82D9BA4FL, 0x16C8E5CA239028E3L, 0x1C7B1F3CAC74331CL, 0x11CCF385EBC89FF1L, 0x1640306766BAC7EEL,
+            0x1BD03C81406979E9L, 0x116225D0C841EC32L, 0x15BAAF44FA52673EL, 0x1B295B1638E7010EL, 0x10F9D8EDE39060A9L,
+            0x15384F295C7478D3L, 0x1A8662F3B3919708L, 0x1093FDD8503AFE65L, 0x14B8FD4E6449BDFEL, 0x19E73CA1FD5C2D7DL,
+            0x103085E53E599C6EL, 0x143CA75E8DF0038AL, 0x194BD136316C046DL, 0x1F9EC583BDC70588L, 0x13C33B72569C6375L,
+            0x18B40A4EEC437C52L
+    };
+    private static final long[] POW5_INV_LOW = {
+            0x0000000000000001L, 0x999999999999999AL, 0x47AE147AE147AE15L, 0x6C8B4395810624DEL, 0x7A786C226809D496L,
+            0x61F9F01B866E43ABL, 0xB4C7F34938583622L, 0x87A6520EC08D236AL, 0x9FB841A566D74F88L, 0xE62D01511F12A607L,
+            0xD6AE6881CB5109A4L, 0xDEF1ED34A2A73AEAL, 0x7F27F0F6E885C8BBL, 0x650CB4BE40D60DF8L, 0xEA70909833DE7193L,
+            0x21F3A6E0297EC143L, 0x6985D7CD0F313537L, 0x2137DFD73F5A90F9L, 0xE75FE645CC4873FAL, 0xA5663D3C7A0D865DL,
+            0x511E976394D79EB1L, 0xDA7EDF82DD794BC1L, 0x2A6498D1625BAC68L, 0xEEB6E0A781E2F053L, 0x58924D52CE4F26A9L,
+            0x27507BB7B07EA441L, 0x52A6C95FC0655034L, 0x0EEBD44C99EAA690L, 0xB17953ADC3110A80L, 0xC12DDC8B02740867L,
+            0x3424B06F3529A052L, 0x901D59F290EE19DBL, 0x4CFBC31DB4B0295FL, 0x3D9635B15D59BAB2L, 0x97AB5E277DE16228L,
+            0xF2ABC9D8C9689D0DL, 0x5BBCA17A3ABA173EL, 0xAFCA1AC82EFB45CBL, 0xB2DCF7A6B1920945L, 0xF57D92EBC141A104L,
+            0xC46475896767B403L, 0x6D6D88DBD8A5ECD2L, 0x8ABE071646EB23DBL, 0x6EFE6C11D255B649L, 0xB197134FB6EF8A0EL,
+            0x27AC0F72F8BFA1A5L, 0xB95672C260994E1EL, 0xF5571E03CDC21695L, 0x2AAC18030B01ABABL, 0xBBBCE0026F348956L,
+            0x92C7CCD0B1EDA889L, 0xDBD30A408E57BA07L, 0x7CA8D50071DFC806L, 0xFAA7BB33E9660CD6L, 0x9552FC298784D711L,
+            0xAAA8C9BAD2D0AC0EL, 0xDDDADC5E1E1AACE3L, 0x7E48B04B4B488A4FL, 0xCB6D59D5D5D3A1D9L, 0x3C577B1177DC817BL,
+            0xC6F25E825960CF2AL, 0x6BF518684780A5BBL, 0x232A79ED06008496L, 0xD1DD8FE1A3340756L, 0xA7E4731AE8F66C45L,
+            0x531D28E253F8569EL, 0xEB61DB03B98D5762L, 0xBC4E48CFC7A445E8L, 0x6371D3D96C836B20L, 0x9F1C8628AD9F11CDL,
+            0xE5B06B53BE18DB0BL, 0xEAF3890FCB4715A2L, 0x44B8DB4C7871BC37L, 0x03C715D6C6C1635FL, 0x3638DE456BCDE919L,
+            0x56C163A2461641C1L, 0xDF011C81D1AB67CEL, 0x7F3416CE4155ECA5L, 0x6520247D3556476EL, 0xEA801D30F7783925L,
+            0xBB99B0F3F92CFA84L, 0x5F5C4E532847F739L, 0x7F7D0B75B9D32C2EL, 0x9930D5F7C7DC2358L, 0x8EB4898C72F9D226L,
+            0x722A07A38F2E41B8L, 0xC1BB394FA5BE9AFAL, 0x9C5EC2190930F7F6L, 0x49E56814075A5FF8L, 0x6E51201005E1E660L,
+            0xF1DA800CD181851AL, 0x4FC400148268D4F5L, 0xD96999AA01ED772BL, 0xADEE1488018AC5BCL, 0x497CEDA668DE092CL,
+            0x3ACA57B853E4D424L, 0x623B7960431D7683L, 0x9D2BF566D1C8BD9EL, 0x7DBCC452416D647FL, 0xCAFD69DB678AB6CCL,
+            0xAB2F0FC572778ADFL, 0x88F273045B92D580L, 0xD3F528D049424466L, 0xB988414D4203A0A3L, 0x6139CDD76802E6E9L,
+            0xE761717920025254L, 0xA568B58E999D5086L, 0x5120913EE14AA6D2L, 0xA74D40FF1AA21F0EL, 0x0BAECE64F769CB4AL,
+            0x3C8BD850C5EE3C3BL, 0xCA0979DA37F1C9C9L, 0xA9A8C2F6BFE942DBL, 0x2153CF2BCCBA9BE3L, 0x1AA9728970954982L,
+            0xF775840F1A88759DL, 0x5F9136727BA05E17L, 0x1940F85B9619E4DFL, 0xE100C6AFAB47EA4CL, 0xCE67A44C453FDD47L,
+            0xD852E9D69DCCB106L, 0x79DBEE454B0A2738L, 0x295FE3A211A9D859L, 0xBAB31C81A7BB137AL, 0x6228E39AEC95A92FL,
+            0x9D0E38F7E0EF7517L, 0xB0D82D931A592A79L, 0x8D79BE0F4847552EL, 0x158F967EDA0BBB7CL, 0x77A611FF14D62F97L,
+            0xF951A7FF43DE8C79L, 0xC21C3FFED2FDAD8EL, 0x01B0333242648AD8L, 0x0159C28E9B83A246L, 0xCEF604175F3903A3L,
+            0x725E69AC4C2D9C83L, 0xF5185489D68AE39CL, 0xEE8D540FBDAB05C6L, 0xBED77672FE226B05L, 0xFF12C528CB4EBC04L,
+            0xCB513B74787DF9A0L, 0x090DC929F9FE614DL, 0xA0D7D42194CB810AL, 0x67BFB9CF5478CE77L, 0x1FCC94A5DD2D71F9L,
+            0x7FD6DD517DBDF4C7L, 0xFFBE2EE8C92FEE0BL, 0x6631BF20A0F324D6L, 0xB827CC1A1A5C1D78L, 0x935309AE7B7CE460L,
+            0x1EEB42B0C594A099L, 0xE58902270476E6E1L, 0xB7A0CE859D2BEBE7L, 0x59014A6F61DFDFD8L, 0xE0CDD525E7E64CADL,
+            0x4D7177518651D6F1L, 0x7BE8BEE8D6E957E8L, 0xFCBA3253DF211320L, 0x63C8284318E74280L, 0x060D0D3827D86A66L,
+            0x6B3DA42CECAD21EBL, 0x88FE1CF0BD574E56L, 0x419694B462254A23L, 0x67ABAA29E81DD4E9L, 0xB95621BB2017DD87L,
+            0xC223692B668C95A5L, 0xCE82BA891ED6DE1DL, 0xA53562074BDF1818L, 0x3B889CD87964F359L, 0xFC6D4A46C783F5E1L,
+            0x30576E9F06032B1AL, 0x1A257DCB3CD1DE90L, 0x481DFE3C30A7E540L, 0xD34B31C9C0865100L, 0x5211E942CDA3B4CDL,
+            0x74DB21023E1C90A4L, 0xF715B401CB4A0D50L, 0xF8DE299B09080AA7L, 0x8E304291A80CDDD7L, 0x3E8D020E200A4B13L,
+            0x653D9B3E80083C0FL, 0x6EC8F864000D2CE4L, 0x8BD3F9E999A423EAL, 0x3CA994BAE1501CBBL, 0xC775BAC49BB3612BL,
+            0xD2C4956A16291A89L, 0xDBD0778811BA7BA1L, 0x2C80BF401C5D929BL, 0xBD33CC3349E47549L, 0xCA8FD68F6E505DD4L,
+            0x4419574BE3B3C953L, 0x0347790982F63AA9L, 0xCF6C60D468C4FBBAL, 0xE57A34870E07F92AL, 0x512E906C0B399422L,
+            0xDA8BA6BCD5C7A9B5L, 0x90DF712E22D90F87L, 0xDA4C5A8B4F140C6CL, 0xAEA37BA2A5A9A38AL, 0x7DD25F6AA2A905A9L,
+            0x97DB7F888220D154L, 0x797C6606CE80A777L, 0x8F2D700AE4010BF1L, 0x0C2459A25000D65AL, 0x701D1481D99A4515L,
+            0xC017439B147B6A77L, 0xCCF205C4ED9243F2L, 0x0A5B37D0BE0E9CC2L, 0x0848F973CB3EE3CEL, 0xDA0E5BEC78649FB0L,
+            0x7B3EAFF060507FC0L, 0x95CBBFF380406633L, 0xEFAC665266CD7052L, 0x2623850EB8A459DBL, 0x1E82D0D893B6AE49L,
+            0xFD9E1AF41F8AB075L, 0x97B1AF29B2D559F7L, 0xAC8E25BAF5777B2CL, 0x7A7D092B2258C513L, 0x61FDA0EF4EAD6A76L,
+            0xE7FE1A590BBDEEC5L, 0xA6635D5B45FCB13AL, 0x851C4AAF6B308DC8L, 0xD0E36EF2BC26D7D4L, 0xB49F17EAC6A48C86L,
+            0x2A18DFEF0550706BL, 0x54E0B3259DD9F389L, 0x87CDEB6F62F65274L, 0xD30B22BF825EA85DL, 0x0F3C1BCC684BB9E4L,
+            0x18602C7A4079296DL, 0x46B356C833942124L, 0x388F78A029434DB6L, 0x5A7F2766A86BAF8AL, 0x153285EBB9EFBFA2L,
+            0xAA8ED189618C994EL, 0xEED8A7A11AD6E10CL, 0x7E27729B5E249B45L, 0xFE85F549181D4904L, 0xCB9E5DD4134AA0D0L,
+            0xDF63C9535211014DL, 0x191CA10F74DA6771L, 0xADB080D92A4852C1L, 0x15E7348EAA0D5134L, 0xAB1F5D3EEE710DC4L,
+            0xBC1917658B8DA49DL, 0x2CF4F23C127C3A94L, 0xF0C3F4FCDB969543L, 0x5A365D9716121103L, 0x9056FC24F01CE804L,
+            0xD9DF301D8CE3ECD0L, 0xE17F59B13D8323DAL, 0x68CBC2B52F38395CL, 0x53D6355DBF602DE3L, 0xA9782AB165E68B1CL,
+            0x0F26AAB56FD744FAL, 0x3F52222ABFDF6A62L, 0x65DB4E88997F884EL, 0x6FC54A7428CC0D4AL, 0x596AA1F68709A43BL,
+            0xADEEE7F86C07B696L, 0x497E3FF3E00C5756L, 0xD464FFF64CD6AC45L, 0x4383FFF83D7889D1L, 0xCF9CCCC69793A174L,
+            0x7F6147A425B90252L, 0xCC4DD2E9B7C7350FL, 0x3D0B0F215FD290D9L, 0x61AB4B689950E7C1L, 0x4E22A2BA1440B967L,
+            0x0B4EE894DD009453L, 0x1217DA87C800ED51L, 0xDB46486CA000BDDAL, 0x490506BD4CCD64AFL, 0xA8080AC87AE23AB1L,
+            0x5339A239FBE82EF4L, 0x75C7B4FB2FECF25DL, 0x22D92191E647EA2EL, 0xB57A8141850654F2L, 0xC4620101373843F5L,
+            0x3A366801F1F39FEEL, 0xFB5EB99B27F6198BL, 0x2F7EFAE2865E7AD6L, 0xE597F7D0D6FD9156L, 0x8479930D78CADAABL,
+            0xD06142712D6F1556L, 0x4D686A4EAF182222L, 0xA453883EF279B4E8L, 0xE9DC6CFF28615D87L, 0xA960AE650D6895A4L,
+            0xBAB3BEB73DED4483L, 0x2EF6322C318A9D36L, 0xE4BD1D13827761F0L, 0x83CA7DA9352C4E5AL, 0x9CA1FE20F756A515L,
+            0x4A1B31B3F9121DAAL, 0x435EB5ECC1B695DDL, 0x35E55E57015EDE4AL, 0xC4B77EAC0118B1D5L, 0xA12597799B5AB622L,
+            0x4DB7AC6149155E81L, 0xD7C6238107444B9BL, 0x593D059B3ED3AC2BL, 0xE0FD9E15CBDC89BCL, 0xB3FE18116FE3A163L,
+            0x866359B57FD29BD1L, 0xD1E91491330EE30EL, 0x74BA76DA8F3F1C0BL, 0xEDF72490E531C678L, 0x8B2C1D40B75B052DL,
+            0x6F567DCD5F7C0424L, 0x7EF0C94898C66D06L, 0x98C0A106E09EBD9FL, 0x470080D24D4BCAE6L, 0xD800CE1D487944A2L,
+            0x1333D8176D2DD082L, 0xA8F646792424A6CEL, 0x74BD3D8EA03AA47DL, 0x5D64313EE6955064L, 0x4AB68DCBEBAAA6B7L,
+            0x1124161312AAA457L, 0xDA8344DC0EEEE9DFL, 0xE2029D7CD8BF2180L, 0x4E687DFD7A328133L, 0x4A40C9959050CEB8L,
+            0x0833D477A6A70BC6L, 0xA02976C61EEC096BL, 0x004257A364ACDBDFL, 0xCD01DFB5EA23E319L, 0x70CE4C91881CB5AEL,
+            0x1AE3ADB5A69455E2L, 0x7BE957C4854377E8L, 0xC987796A0435F987L, 0x75A58F1006BCC271L, 0xF7B7A5A66BCA3527L,
+            0x5FC61E1EBCA1C41FL, 0xFFA363646102D365L, 0x32E91C504D9BDC51L, 0x8F20E37371497D0EL, 0x7E9B0585820F2E7CL,
+            0xCBAF379E01A5BECAL, 0x0958F94B348498A1L
+    };
+    private static final long[] POW5_INV_HIGH = {
+            0x2000000000000000L, 0x1999999999999999L, 0x147AE147AE147AE1L, 0x10624DD2F1A9FBE7L, 0x1A36E2EB1C432CA5L,
+            0x14F8B588E368F084L, 0x10C6F7A0B5ED8D36L, 0x1AD7F29ABCAF4857L, 0x15798EE2308C39DFL, 0x112E0BE826D694B2L,
+            0x1B7CDFD9D7BDBAB7L, 0x15FD7FE17964955FL, 0x119799812DEA1119L, 0x1C25C268497681C2L, 0x16849B86A12B9B01L,
+            0x1203AF9EE756159BL, 0x1CD2B297D889BC2BL, 0x170EF54646D49689L, 0x12725DD1D243ABA0L, 0x1D83C94FB6D2AC34L,
+            0x179CA10C9242235DL, 0x12E3B40A0E9B4F7DL, 0x1E392010175EE596L, 0x182DB34012B25144L, 0x1357C299A88EA76AL,
+            0x1EF2D0F5DA7DD8AAL, 0x18C240C4AECB13BBL, 0x13CE9A36F23C0FC9L, 0x1FB0F6BE50601941L, 0x195A5EFEA6B34767L,
+            0x14484BFEEBC29F86L, 0x1039D66589687F9EL, 0x19F623D5A8A73297L, 0x14C4E977BA1F5BACL, 0x109D8792FB4C4956L,
+            0x1A95A5B7F87A0EF0L, 0x154484932D2E725AL, 0x11039D428A8B8EAEL, 0x1B38FB9DAA78E44AL, 0x15C72FB1552D836EL,
+            0x116C262777579C58L, 0x1BE03D0BF225C6F4L, 0x164CFDA3281E38C3L, 0x11D7314F534B609CL, 0x1C8B821885456760L,
+            0x16D601AD376AB91AL, 0x1244CE242C5560E1L, 0x1D3AE36D13BBCE35L, 0x17624F8A762FD82BL, 0x12B50C6EC4F31355L,
+            0x1DEE7A4AD4B81EEFL, 0x17F1FB6F10934BF2L, 0x1327FC58DA0F6FF5L, 0x1EA6608E29B24CBBL, 0x18851A0B548EA3C9L,
+            0x139DAE6F76D88307L, 0x1F62B0B257C0D1A5L, 0x191BC08EAC9A4151L, 0x141633A556E1CDDAL, 0x1011C2EAABE7D7E2L,
+            0x19B604AAACA62636L, 0x14919D5556EB51C5L, 0x10747DDDDF22A7D1L, 0x1A53FC9631D10C81L, 0x150FFD44F4A73D34L,
+            0x10D9976A5D52975DL, 0x1AF5BF109550F22EL, 0x159165A6DDDA5B58L, 0x11411E1F17E1E2ADL, 0x1B9B6364F3030448L,
+            0x1615E91D8F359D06L, 0x11AB20E472914A6BL, 0x1C45016D841BAA46L, 0x169D9ABE03495505L, 0x1217AEFE69077737L,
+            0x1CF2B1970E725858L, 0x17288E1271F51379L, 0x1286D80EC190DC61L, 0x1DA48CE468E7C702L, 0x17B6D71D20B96C01L,
+            0x12F8AC174D612334L, 0x1E5AACF215683854L, 0x18488A5B44536043L, 0x136D3B7C36A919CFL, 0x1F152BF9F10E8FB2L,
+            0x18DDBCC7F40BA628L, 0x13E497065CD61E86L, 0x1FD424D6FAF030D7L, 0x197683DF2F268D79L, 0x145ECFE5BF520AC7L,
+            0x104BD984990E6F05L, 0x1A12F5A0F4E3E4D6L, 0x14DBF7B3F71CB711L, 0x10AFF95CC5B09274L, 0x1AB328946F80EA54L,
+            0x155C2076BF9A5510L, 0x1116805EFFAEAA73L, 0x1B5733CB32B110B8L, 0x15DF5CA28EF40D60L, 0x117F7D4ED8C33DE6L,
+            0x1BFF2EE48E052FD7L, 0x1665BF1D3E6A8CACL, 0x11EAFF4A98553D56L, 0x1CAB3210F3BB9557L, 0x16EF5B40C2FC7779L,
+            0x125915CD68C9F92DL, 0x1D5B561574765B7CL, 0x177C44DDF6C515FDL, 0x12C9D0B1923744CAL, 0x1E0FB44F50586E11L,
+            0x180C903F7379F1A7L, 0x133D4032C2C7F485L, 0x1EC866B79E0CBA6FL, 0x18A0522C7E709526L, 0x13B374F06526DDB8L,
+            0x1F8587E7083E2F8CL, 0x19379FEC0698260AL, 0x142C7FF0054684D5L, 0x1023998CD1053710L, 0x19D28F47B4D524E7L,
+            0x14A8729FC3DDB71FL, 0x1086C219697E2C19L, 0x1A71368F0F30468FL, 0x15275ED8D8F36BA5L, 0x10EC4BE0AD8F8951L,
+            0x1B13AC9AAF4C0EE8L, 0x15A956E225D67253L, 0x11544581B7DEC1DCL, 0x1BBA08CF8C979C94L, 0x162E6D72D6DFB076L,
+            0x11BEBDF578B2F391L, 0x1C6463225AB7EC1CL, 0x16B6B5B5155FF017L, 0x122BC490DDE659ACL, 0x1D12D41AFCA3C2ACL,
+            0x17424348CA1C9BBDL, 0x129B69070816E2FDL, 0x1DC574D80CF16B2FL, 0x17D12A4670C1228CL, 0x130DBB6B8D674ED6L,
+            0x1E7C5F127BD87E24L, 0x18637F41FCAD31B7L, 0x1382CC34CA2427C5L, 0x1F37AD21436D0C6FL, 0x18F9574DCF8A7059L,
+            0x13FAAC3E3FA1F37AL, 0x1FF779FD329CB8C3L, 0x1992C7FDC216FA36L, 0x14756CCB01ABFB5EL, 0x105DF0A267BCC918L,
+            0x1A2FE76A3F9474F4L, 0x14F31F8832DD2A5CL, 0x10C27FA028B0EEB0L, 0x1AD0CC33744E4AB4L, 0x1573D68F903EA229L,
+            0x11297872D9CBB4EEL, 0x1B758D848FAC54B0L, 0x15F7A46A0C89DD59L, 0x1192E9EE706E4AAEL, 0x1C1E43171A4A1117L,
+            0x167E9C127B6E7412L, 0x11FEE341FC585CDBL, 0x1CCB0536608D615FL, 0x1708D0F84D3DE77FL, 0x126D73F9D764B932L,
+            0x1D7BECC2F23AC1EAL, 0x179657025B6234BBL, 0x12DEAC01E2B4F6FCL, 0x1E3113363787F194L, 0x18274291C6065ADCL,
+            0x13529BA7D19EAF17L, 0x1EEA92A61C311825L, 0x18BBA884E35A79B7L, 0x13C9539D82AEC7C5L, 0x1FA885C8D117A609L,
+            0x19539E3A40DFB807L, 0x1442E4FB67196005L, 0x103583FC527AB337L, 0x19EF3993B72AB859L, 0x14BF6142F8EEF9E1L,
+            0x10991A9BFA58C7E7L, 0x1A8E90F9908E0CA5L, 0x153EDA614071A3B7L, 0x10FF151A99F482F9L, 0x1B31BB5DC320D18EL,
+            0x15C162B168E70E0BL, 0x11678227871F3E6FL, 0x1BD8D03F3E9863E6L, 0x16470CFF6546B651L, 0x11D270CC51055EA7L,
+            0x1C83E7AD4E6EFDD9L, 0x16CFEC8AA52597E1L, 0x123FF06EEA847980L, 0x1D331A4B10D3F59AL, 0x175C1508DA432AE2L,
+            0x12B010D3E1CF5581L, 0x1DE6815302E5559CL, 0x17EB9AA8CF1DDE16L, 0x1322E220A5B17E78L, 0x1E9E369AA2B59727L,
+            0x187E92154EF7AC1FL, 0x139874DDD8C6234CL, 0x1F5A549627A36BADL, 0x191510781FB5EFBEL, 0x1410D9F9B2F7F2FEL,
+            0x100D7B2E28C65BFEL, 0x19AF2B7D0E0A2CCAL, 0x148C22CA71A1BD6FL, 0x10701BD527B4978CL, 0x1A4CF9550C5425ACL,
+            0x150A6110D6A9B7BDL, 0x10D51A73DEEE2C97L, 0x1AEE90B964B04758L, 0x158BA6FAB6F36C47L, 0x113C85955F29236CL,
+            0x1B9408EEFEA838ACL, 0x16100725988693BDL, 0x11A66C1E139EDC97L, 0x1C3D79C9B8FE2DBFL, 0x169794A160CB57CCL,
+            0x1212DD4DE7091309L, 0x1CEAFBAFD80E84DCL, 0x172262F3133ED0B0L, 0x1281E8C275CBDA26L, 0x1D9CA79D894629D7L,
+            0x17B08617A104EE46L, 0x12F39E794D9D8B6BL, 0x1E5297287C2F4578L, 0x18421286C9BF6AC6L, 0x13680ED23AFF889FL,
+            0x1F0CE4839198DA98L, 0x18D71D360E13E213L, 0x13DF4A91A4DCB4DCL, 0x1FCBAA82A1612160L, 0x196FBB9BB44DB44DL,
+            0x145962E2F6A4903DL, 0x1047824F2BB6D9CAL, 0x1A0C03B1DF8AF611L, 0x14D6695B193BF80DL, 0x10AB877C142FF9A4L,
+            0x1AAC0BF9B9E65C3AL, 0x15566FFAFB1EB02FL, 0x1111F32F2F4BC025L, 0x1B4FEB7EB212CD09L, 0x15D98932280F0A6DL,
+            0x117AD428200C0857L, 0x1BF7B9D9CCE00D59L, 0x165FC7E170B33DE0L, 0x11E6398126F5CB1AL, 0x1CA38F350B22DE90L,
+            0x16E93F5DA2824BA6L, 0x125432B14ECEA2EBL, 0x1D53844EE47DD179L, 0x177603725064A794L, 0x12C4CF8EA6B6EC76L,
+            0x1E07B27DD78B13F1L, 0x18062864AC6F4327L, 0x1338205089F29C1FL, 0x1EC033B40FEA9365L, 0x1899C2F673220F84L,
+            0x13AE3591F5B4D936L, 0x1F7D228322BAF524L, 0x1930E868E89590E9L, 0x14272053ED4473EEL, 0x101F4D0FF1038FF1L,
+            0x19CBAE7FE805B31CL, 0x14A2F1FFECD15C16L, 0x10825B3323DAB012L, 0x1A6A2B85062AB350L, 0x1521BC6A6B555C40L,
+            0x10E7C9EEBC4449CDL, 0x1B0C764AC6D3A948L, 0x15A391D56BDC876CL, 0x114FA7DDEFE39F8AL, 0x1BB2A62FE638FF43L,
+            0x162884F31E93FF69L, 0x11BA03F5B20FFF87L, 0x1C5CD322B67FFF3FL, 0x16B0A8E891FFFF65L, 0x1226ED86DB3332B7L,
+            0x1D0B15A491EB8459L, 0x173C115074BC69E0L, 0x129674405D6387E7L, 0x1DBD86CD6238D971L, 0x17CAD23DE82D7AC1L,
+            0x1308A831868AC89AL, 0x1E74404F3DAADA91L, 0x185D003F6488AEDAL, 0x137D99CC506D58AEL, 0x1F2F5C7A1A488DE4L,
+            0x18F2B061AEA07183L, 0x13F559E7BEE6C136L, 0x1FEEF63F97D79B89L, 0x198BF832DFDFAFA1L, 0x146FF9C24CB2F2E7L,
+            0x1059949B708F28B9L, 0x1A28EDC580E50DF5L, 0x14ED8B04671DA4C4L, 0x10BE08D0527E1D69L, 0x1AC9A7B3B7302F0FL,
+            0x156E1FC2F8F358D9L, 0x1124E63593F5E0ADL, 0x1B6E3D2286563449L, 0x15F1CA820511C36DL, 0x118E3B9B37416924L,
+            0x1C16C5C525357507L, 0x16789E3750F790D2L, 0x11FA182C40C60D75L, 0x1CC359E067A348BBL, 0x1702AE4D1FB5D3C9L,
+            0x12688B70E62B0FD4L, 0x1D74124E3D11B2EDL, 0x17900EA4FDA7C257L, 0x12D9A550CAEC9B79L, 0x1E29088144ADC58EL,
+            0x1820D39A9D57D13FL, 0x134D76154AACA765L, 0x1EE25688777AA56FL, 0x18B51206C5FBB78CL, 0x13C40E6BD1962C70L,
+            0x1FA01712E8F0471AL, 0x194CDF4253F36C14L, 0x143D7F6843292343L, 0x103132B9CF541C36L, 0x19E851294BB9C6BDL,
+            0x14B9DA876FC7D231L, 0x1094AED2BFD30E8DL, 0x1A877E1DFFB81749L, 0x153931B1996012A0L, 0x10FA8E27ADE6754DL,
+            0x1B2A7D0C4970BBAFL, 0x15BB973D078D62F2L, 0x1162DF64060AB58EL, 0x1BD1656CD67788E4L, 0x16411DF0AB92D3E9L,
+            0x11CDB18D560F0FEEL, 0x1C7C4F4889B1B316L, 0x16C9D906D48E28DFL, 0x123B140576D820B2L, 0x1D2B533BF159CDEAL,
+            0x1755DC2FF447D7EEL, 0x12AB168CC36CACBFL
+    };
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final int mode;
+    private final int precision;
+
+    // Result of the last call to computeShortest: value = digits * 10^exponent
+    private long digits;
+    private int exponent;
+    private final char[] scratch = new char[20];
+
+    private DoubleFormatter(int mode, int precision) {
+        this.mode = mode;
+        this.precision = precision;
+    }
+
+    /**
+     * Creates a formatter with the same layout as Double.toString but always the shortest digits
+     * @return DoubleFormatter - New formatter
+     */
+    static DoubleFormatter shortest() {
+        return new DoubleFormatter(SHORTEST, 0);
+    }
+
+    /**
+     * Creates a formatter that shows whole numbers without a decimal point and anything else as shortest
+     * @return DoubleFormatter - New formatter
+     */
+    static DoubleFormatter compact() {
+        return new DoubleFormatter(COMPACT, 0);
+    }
+
+    /**
+     * Creates a formatter that always shows the given number of decimal places
+     * @param decimals - Number of decimal places, 0 to 17
+     * @return DoubleFormatter - New formatter
+     */
+    static DoubleFormatter fixed(int decimals) {
+        if (decimals < 0 || decimals > 17) {
+            throw new IllegalArgumentException("Not a valid number of decimal places");
+        }
+        return new DoubleFormatter(FIXED, decimals);
+    }
+
+    /**
+     * Creates a formatter that shows the given number of significant digits
+     * @param digits - Number of significant digits, 1 to 17
+     * @return DoubleFormatter - New formatter
+     */
+    static DoubleFormatter significant(int digits) {
+        if (digits < 1 || digits > 17) {
+            throw new IllegalArgumentException("Not a valid number of significant digits");
+        }
+        return new DoubleFormatter(SIGNIFICANT, digits);
+    }
+
+    /**
+     * Recomputes the power of five tables with BigInteger and counts the entries that differ from the constants
+     * @return int - Number of entries that differ
+     */
+    static int countTableMismatches() {
+        BigInteger mask = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+        BigInteger pow = BigInteger.ONE;
+        int mismatches = 0;
+        for (int i = 0; i < POW5_INV_TABLE_SIZE; i++) {
+            int length = pow.bitLength();
+            if (i < POW5_TABLE_SIZE) {
+                int shift = length - POW5_BITCOUNT;
+                BigInteger scaled = shift < 0 ? pow.shiftLeft(-shift) : pow.shiftRight(shift);
+                if (POW5_LOW[i] != scaled.and(mask).longValue() || POW5_HIGH[i] != scaled.shiftRight(64).longValue()) {
+                    mismatches++;
+                }
+            }
+            int j = length - 1 + POW5_INV_BITCOUNT;
+            BigInteger inverse = BigInteger.ONE.shiftLeft(j).divide(pow).add(BigInteger.ONE);
+            if (POW5_INV_LOW[i] != inverse.and(mask).longValue()
+                    || POW5_INV_HIGH[i] != inverse.shiftRight(64).longValue()) {
+                mismatches++;
+            }
+            pow = pow.multiply(BigInteger.valueOf(5));
+        }
+        return mismatches;
+    }
+
+    /**
+     * Formats the value and returns it as a new String
+     * @param value - Value to format
+     * @return String - Formatted value
+     */
+    String format(double value) {
+        return append(new StringBuilder(24), value).toString();
+    }
+
+    /**
+     * Appends the formatted value followed by a space and the unit, e.g. "4000 mb"
+     * @param sb - Builder to append to
+     * @param value - Value to format
+     * @param unit - Unit to append after the value
+     * @return StringBuilder - The builder
+     */
+    StringBuilder append(StringBuilder sb, double value, String unit) {
+        return append(sb, value).append(' ').append(unit);
+    }
+
+    /**
+     * Appends the formatted value
+     * @param sb - Builder to append to
+     * @param value - Value to format
+     * @return StringBuilder - The builder
+     */
+    StringBuilder append(StringBuilder sb, double value) {
+        if (Double.isNaN(value)) {
+            return sb.append("NaN");
+        }
+        if (Double.isInfinite(value)) {
+            return sb.append(value > 0 ? "Infinity" : "-Infinity");
+        }
+        if (mode == COMPACT && value == Math.floor(value) && Math.abs(value) < 0x1p63) {
+            return sb.append((long) value);
+        }
+        if (Double.doubleToRawLongBits(value) < 0) {
+            sb.append('-');
+            value = -value;
+        }
+        if (value == 0) {
+            digits = 0;
+            exponent = 0;
+        } else {
+            computeShortest(value);
+        }
+        switch (mode) {
+            case FIXED -> {
+                round(-exponent - precision);
+                appendPlain(sb, precision);
+            }
+            case SIGNIFICANT -> {
+                round(digitCount(digits) - precision);
+                int scientificExponent = digitCount(digits) - 1 + exponent;
+                if (scientificExponent >= -3 && scientificExponent < 7) {
+                    appendPlain(sb, Math.max(0, -exponent));
+                } else {
+                    appendScientific(sb);
+                }
+            }
+            default -> {
+                int scientificExponent = digitCount(digits) - 1 + exponent;
+                if (scientificExponent >= -3 && scientificExponent < 7) {
+                    appendPlain(sb, Math.max(1, -exponent));
+                } else {
+                    appendScientific(sb);
+                }
+            }
+        }
+        return sb;
+    }
+
+    /**
+     * Drops the given number of trailing digits, rounding half-up, or pads with zeros if negative
+     * @param drop - Number of digits to drop
+     */
+    private void round(int drop) {
+        if (drop <= 0) {
+            // Pad up to 18 digits at most; anything further is added as zeros when printed
+            int pad = Math.min(-drop, 18 - digitCount(digits));
+            if (digits != 0 && pad > 0) {
+                digits *= POWERS_OF_TEN[pad];
+                exponent -= pad;
+            }
+            return;
+        }
+        int length = digitCount(digits);
+        if (drop > length) {
+            digits = 0;
+            exponent += drop;
+            return;
+        }
+        long divisor = POWERS_OF_TEN[drop];
+        long remainder = digits % divisor;
+        digits /= divisor;
+        if (remainder * 2 >= divisor) {
+            digits++;
+        }
+        exponent += drop;
+        if (length > drop && digits == POWERS_OF_TEN[length - drop]) {
+            // Rounding carried into a new digit, e.g. 999 -> 1000
+            digits /= 10;
+            exponent++;
+        }
+    }
+
+    /**
+     * Appends digits * 10^exponent in plain notation with at least the given number of decimal places
+     * @param sb - Builder to append to
+     * @param decimals - Smallest number of decimal places
+     */
+    private void appendPlain(StringBuilder sb, int decimals) {
+        int length = fillScratch(digits);
+        int integerDigits = length + exponent;
+        if (digits == 0) {
+            integerDigits = 1;
+            length = 1;
+            exponent = 0;
+        }
+        if (integerDigits <= 0) {
+            sb.append('0');
+        } else {
+            for (int i = 0; i < integerDigits; i++) {
+                sb.append(i < length ? scratch[i] : '0');
+            }
+        }
+        int fractionDigits = Math.max(0, -exponent);
+        int written = 0;
+        if (fractionDigits > 0 || decimals > 0) {
+            sb.append('.');
+            for (int i = integerDigits; i < 0; i++) {
+                sb.append('0');
+                written++;
+            }
+            for (int i = Math.max(0, integerDigits); i < length; i++) {
+                sb.append(scratch[i]);
+                written++;
+            }
+            for (; written < decimals; written++) {
+                sb.append('0');
+            }
+        }
+    }
+
+    /**
+     * Appends digits * 10^exponent in the scientific notation of Double.toString, e.g. "5.0E-4"
+     * @param sb - Builder to append to
+     */
+    private void appendScientific(StringBuilder sb) {
+        int length = fillScratch(digits);
+        sb.append(scratch[0]).append('.');
+        if (length == 1) {
+            sb.append('0');
+        } else {
+            sb.append(scratch, 1, length - 1);
+        }
+        sb.append('E').append(length - 1 + exponent);
+    }
+
+    /**
+     * Writes the decimal digits of a non-negative long into the scratch array
+     * @param value - Value to write
+     * @return int - Number of digits written
+     */
+    private int fillScratch(long value) {
+        int length = digitCount(value);
+        for (int i = length - 1; i >= 0; i--) {
+            scratch[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return length;
+    }
+
+    /**
+     * Counts the decimal digits of a non-negative long
+     * @param value - Value to count
+     * @return int - Number of digits, 1 for zero
+     */
+    private static int digitCount(long value) {
+        int count = 1;
+        while (count < 19 && value >= POWERS_OF_TEN[count]) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Finds the shortest decimal that reads back as the given positive, finite double.
+     * The result is left in digits and exponent.
+     * @param value - Positive, finite value
+     */
+    private void computeShortest(double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        long ieeeMantissa = bits & ((1L << MANTISSA_BITS) - 1);
+        int ieeeExponent = (int) (bits >>> MANTISSA_BITS) & 0x7FF;
+
+        int e2;
+        long m2;
+        if (ieeeExponent == 0) {
+            e2 = 1 - EXPONENT_BIAS - MANTISSA_BITS - 2;
+            m2 = ieeeMantissa;
+        } else {
+            e2 = ieeeExponent - EXPONENT_BIAS - MANTISSA_BITS - 2;
+            m2 = (1L << MANTISSA_BITS) | ieeeMantissa;
+        }
+        boolean acceptBounds = (m2 & 1) == 0;
+
+        // Step 2: the interval of decimals that round to this double is (mm, mp), scaled by 4
+        long mv = 4 * m2;
+        int mmShift = (ieeeMantissa != 0 || ieeeExponent <= 1) ? 1 : 0;
+
+        // Step 3: convert the interval to a power of ten using 128-bit arithmetic
+        long vr;
+        long vp;
+        long vm;
+        int e10;
+        boolean vmIsTrailingZeros = false;
+        boolean vrIsTrailingZeros = false;
+        if (e2 >= 0) {
+            int q = log10Pow2(e2) - (e2 > 3 ? 1 : 0);
+            e10 = q;
+            int k = POW5_INV_BITCOUNT + pow5Bits(q) - 1;
+            int i = -e2 + q + k;
+            vr = mulShift(4 * m2, POW5_INV_LOW[q], POW5_INV_HIGH[q], i);
+            vp = mulShift(4 * m2 + 2, POW5_INV_LOW[q], POW5_INV_HIGH[q], i);
+            vm = mulShift(4 * m2 - 1 - mmShift, POW5_INV_LOW[q], POW5_INV_HIGH[q], i);
+            if (q <= 21) {
+                if (mv % 5 == 0) {
+                    vrIsTrailingZeros = pow5Factor(mv) >= q;
+                } else if (acceptBounds) {
+                    vmIsTrailingZeros = pow5Factor(mv - 1 - mmShift) >= q;
+                } else if (pow5Factor(mv + 2) >= q) {
+                    vp--;
+                }
+            }
+        } else {
+            int q = log10Pow5(-e2) - (-e2 > 1 ? 1 : 0);
+            e10 = q + e2;
+            int i = -e2 - q;
+            int k = pow5Bits(i) - POW5_BITCOUNT;
+            int j = q - k;
+            vr = mulShift(4 * m2, POW5_LOW[i], POW5_HIGH[i], j);
+            vp = mulShift(4 * m2 + 2, POW5_LOW[i], POW5_HIGH[i], j);
+            vm = mulShift(4 * m2 - 1 - mmShift, POW5_LOW[i], POW5_HIGH[i], j);
+            if (q <= 1) {
+                vrIsTrailingZeros = true;
+                if (acceptBounds) {
+                    vmIsTrailingZeros = mmShift == 1;
+                } else {
+                    vp--;
+                }
+            } else if (q < 63) {
+                vrIsTrailingZeros = (mv & ((1L << q) - 1)) == 0;
+            }
+        }
+
+        // Step 4: remove digits while the interval still holds a shorter decimal
+        int removed = 0;
+        long lastRemovedDigit = 0;
+        long output;
+        if (vmIsTrailingZeros || vrIsTrailingZeros) {
+            while (vp / 10 > vm / 10) {
+                vmIsTrailingZeros &= vm % 10 == 0;
+                vrIsTrailingZeros &= lastRemovedDigit == 0;
+                lastRemovedDigit = vr % 10;
+                vr /= 10;
+                vp /= 10;
+                vm /= 10;
+                removed++;
+            }
+            if (vmIsTrailingZeros) {
+                while (vm % 10 == 0) {
+                    vrIsTrailingZeros &= lastRemovedDigit == 0;
+                    lastRemovedDigit = vr % 10;
+                    vr /= 10;
+                    vp /= 10;
+                    vm /= 10;
+                    removed++;
+                }
+            }
+            if (vrIsTrailingZeros && lastRemovedDigit == 5 && vr % 2 == 0) {
+                // Exactly halfway: round to even
+                lastRemovedDigit = 4;
+            }
+            boolean roundUp = (vr == vm && (!acceptBounds || !vmIsTrailingZeros)) || lastRemovedDigit >= 5;
+            output = vr + (roundUp ? 1 : 0);
+        } else {
+            // Common case: no trailing zeros to track, so remove two digits at a time where possible
+            boolean roundUp = false;
+            if (vp / 100 > vm / 100) {
+                roundUp = vr % 100 >= 50;
+                vr /= 100;
+                vp /= 100;
+                vm /= 100;
+                removed += 2;
+            }
+            while (vp / 10 > vm / 10) {
+                roundUp = vr % 10 >= 5;
+                vr /= 10;
+                vp /= 10;
+                vm /= 10;
+                removed++;
+            }
+            output = vr + ((vr == vm || roundUp) ? 1 : 0);
+        }
+        digits = output;
+        exponent = e10 + removed;
+    }
+
+    /**
+     * Multiplies m by the 128-bit factor (high:low) and shifts the 192-bit product right by j bits
+     * @param m - Value below 2^55
+     * @param low - Lower 64 bits of the factor
+     * @param high - Upper bits of the factor
+     * @param j - Shift, at least 64
+     * @return long - Shifted product
+     */
+    private static long mulShift(long m, long low, long high, int j) {
+        long lowProductHigh = unsignedMultiplyHigh(m, low);
+        long sumLow = m * high + lowProductHigh;
+        long sumHigh = unsignedMultiplyHigh(m, high) + (Long.compareUnsigned(sumLow, m * high) < 0 ? 1 : 0);
+        int shift = j - 64;
+        if (shift >= 64) {
+            return sumHigh >>> (shift - 64);
+        }
+        if (shift == 0) {
+            return sumLow;
+        }
+        return (sumLow >>> shift) | (sumHigh << (64 - shift));
+    }
+
+    /**
+     * Returns the upper 64 bits of the unsigned 128-bit product of two longs
+     * @param a - First factor, as unsigned
+     * @param b - Second factor, as unsigned
+     * @return long - Upper half of the product
+     */
+    private static long unsignedMultiplyHigh(long a, long b) {
+        return Math.multiplyHigh(a, b) + ((a >> 63) & b) + ((b >> 63) & a);
+    }
+
+    /**
+     * Returns the number of bits of 5^e, for 0 <= e <= 3528
+     * @param e - Exponent
+     * @return int - Bit length of 5^e
+     */
+    private static int pow5Bits(int e) {
+        return (int) ((e * 1217359L) >>> 19) + 1;
+    }
+
+    /**
+     * Returns floor(log10(2^e)), for 0 <= e <= 1650
+     * @param e - Exponent
+     * @return int - Decimal exponent
+     */
+    private static int log10Pow2(int e) {
+        return (int) ((e * 78913L) >>> 18);
+    }
+
+    /**
+     * Returns floor(log10(5^e)), for 0 <= e <= 2620
+     * @param e - Exponent
+     * @return int - Decimal exponent
+     */
+    private static int log10Pow5(int e) {
+        return (int) ((e * 732923L) >>> 20);
+    }
+
+    /**
+     * Counts how many times 5 divides the value
+     * @param value - Positive value
+     * @return int - Largest p such that 5^p divides value
+     */
+    private static int pow5Factor(long value) {
+        int count = 0;
+        while (value % 5 == 0) {
+            value /= 5;
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,448 @@
+/*
+ * Simulation of an edge cache in front of a website's origin, as a counterpart to calculateWebsiteBandwidth's
+ * assumption that every page view is served by the origin.
+ * The site has a fixed number of pages. Page popularity follows Zipf's law: the page ranked k is requested in
+ * proportion to 1 / k^exponent. Page sizes are log-normal with the given average and coefficient of variation,
+ * independent of popularity.
+ * Requests are drawn one at a time and served by an LRU (least recently used) or LFU (least frequently used) cache
+ * of a fixed number of bytes. Misses are fetched from the origin and cached, evicting pages until the new one fits.
+ * Pages are numbered 0 to pages - 1, so the cache indexes primitive arrays by page number instead of using a map:
+ *    - LRU keeps cached pages in a doubly linked list, most recent first, held in one long array indexed by page that
+ *      packs each page's previous and next page into the high and low 32 bits of one entry
+ *    - LFU keeps cached pages in a binary heap ordered by requests since being cached, then by last request
+ * Requests are drawn in constant time with Walker's alias method, so 10^8 requests take seconds.
+ * The first tenth of the requests only warm the cache and are not counted.
+ * A simulation is immutable and can be run many times; each run uses its own random numbers from the seed.
+ */
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+class EdgeCacheSimulation {
+
+    static final String LRU = "lru";
+    static final String LFU = "lfu";
+    static final String[] POLICIES = {LRU, LFU};
+
+    private static final int NONE = -1;
+    private static final int WARM_UP_DIVISOR = 10;
+    private static final int BLOCK = 1024;
+
+    private final String policy;
+    private final int pages;
+    private final double zipfExponent;
+    private final double sizeVariation;
+    private final long seed;
+
+    /**
+     * Creates a simulation
+     * @param policy - Cache eviction policy: "lru" or "lfu"
+     * @param pages - Number of pages on the site
+     * @param zipfExponent - Exponent of the Zipf popularity, 0 for equally popular pages; around 0.8 is typical
+     * @param sizeVariation - Coefficient of variation of the page size (standard deviation / mean), 0 for fixed
+     * @param seed - Seed for the random numbers
+     */
+    EdgeCacheSimulation(String policy, int pages, double zipfExponent, double sizeVariation, long seed) {
+        if (policy == null) {
+            throw new IllegalArgumentException("Cannot be null");
+        }
+        if (!policy.equals(LRU) && !policy.equals(LFU)) {
+            throw new IllegalArgumentException("Not a valid cache policy");
+        }
+        if (pages <= 0) {
+            throw new IllegalArgumentException("Not a valid number of pages");
+        }
+        if (!(zipfExponent >= 0) || Double.isInfinite(zipfExponent)) {
+            throw new IllegalArgumentException("Not a valid Zipf exponent");
+        }
+        if (!(sizeVariation >= 0) || Double.isInfinite(sizeVariation)) {
+            throw new IllegalArgumentException("Not a valid size variation");
+        }
+        this.policy = policy;
+        this.pages = pages;
+        this.zipfExponent = zipfExponent;
+        this.sizeVariation = sizeVariation;
+        this.seed = seed;
+    }
+
+    /**
+     * Simulates requests through the cache and returns the share served by the edge and the bandwidth of each side.
+     * size units: "b", "kb", "mb", "gb", "tb", "B", "KB", "MB", "GB", and "TB"
+     * time units: "seconds", "minutes", "hours", "days", and "months"
+     * @param views - Average number of views of the site
+     * @param timeUnit - Time unit for the average views
+     * @param pageSize - Average page data size
+     * @param sizeUnit - Unit of the page data size and cache capacity
+     * @param redundancy - The redundancy factor, applied to both bandwidths
+     * @param capacity - Cache capacity
+     * @param requests - Number of requests to simulate
+     * @return Map of the results with keys:
+     * "hitRatio" (share of requests served by the cache), "byteHitRatio" (share of bytes served by the cache),
+     * "edgeBandwidthSeconds" and "originBandwidthSeconds" in Mbit/s, and
+     * "edgeBandwidthMonths" and "originBandwidthMonths" in GB per month
+     */
+    Map<String, Double> run(double views, String timeUnit, double pageSize, String sizeUnit, double redundancy,
+                            double capacity, long requests) {
+        if (!(pageSize > 0) || Double.isInfinite(pageSize)) {
+            throw new IllegalArgumentException("Not a valid page size");
+        }
+        if (!(capacity >= 0) || Double.isInfinite(capacity)) {
+            throw new IllegalArgumentException("Not a valid cache capacity");
+        }
+        if (requests < WARM_UP_DIVISOR) {
+            throw new IllegalArgumentException("Not a valid number of requests");
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        long[] sizes = pageSizes(random, Calculator.convertSizeUnit(sizeUnit, "B", pageSize));
+        Cache cache = policy.equals(LRU)
+                ? new LruCache(sizes, Calculator.convertSizeUnit(sizeUnit, "B", capacity))
+                : new LfuCache(sizes, Calculator.convertSizeUnit(sizeUnit, "B", capacity));
+        Zipf popularity = new Zipf(pages, zipfExponent);
+
+        // Requests are drawn a block at a time, so the memory reads of many draws can overlap
+        int[] block = new int[BLOCK];
+        long warmUp = requests / WARM_UP_DIVISOR;
+        long hits = 0;
+        long bytes = 0;
+        long hitBytes = 0;
+        for (long r = 0; r < requests; r += BLOCK) {
+            int count = (int) Math.min(BLOCK, requests - r);
+            popularity.next(random, block, count);
+            for (int i = 0; i < count; i++) {
+                int page = block[i];
+                boolean hit = cache.request(page);
+                if (r + i >= warmUp) {
+                    long size = sizes[page];
+                    bytes += size;
+                    if (hit) {
+                        hits++;
+                        hitBytes += size;
+                    }
+                }
+            }
+        }
+
+        long counted = requests - warmUp;
+        double byteHitRatio = bytes == 0 ? 0 : (double) hitBytes / bytes;
+        // Every view is served by the edge; the origin only serves the bytes the edge missed
+        Map<String, Double> edge = Calculator.calculateWebsiteBandwidth(views, timeUnit, (double) bytes / counted, "B",
+                redundancy);
+        Map<String, Double> results = new HashMap<>();
+        results.put("hitRatio", (double) hits / counted);
+        results.put("byteHitRatio", byteHitRatio);
+        results.put("edgeBandwidthSeconds", edge.get("bandwidthSecondsRedundancy"));
+        results.put("edgeBandwidthMonths", edge.get("bandwidthMonthsRedundancy"));
+        results.put("originBandwidthSeconds", edge.get("bandwidthSecondsRedundancy") * (1 - byteHitRatio));
+        results.put("originBandwidthMonths", edge.get("bandwidthMonthsRedundancy") * (1 - byteHitRatio));
+        return results;
+    }
+
+    /**
+     * Draws the size of every page
+     * @param random - Random numbers
+     * @param meanBytes - Average page size in bytes
+     * @return long[] - Size of each page in bytes, at least 1
+     */
+    private long[] pageSizes(SplittableRandom random, double meanBytes) {
+        long[] sizes = new long[pages];
+        // Log-normal parameters that give the requested mean and coefficient of variation
+        double sigma = Math.sqrt(Math.log1p(sizeVariation * sizeVariation));
+        double mu = Math.log(meanBytes) - sigma * sigma / 2;
+        for (int page = 0; page < pages; page++) {
+            double size = sizeVariation == 0 ? meanBytes : Math.exp(mu + sigma * gaussian(random));
+            sizes[page] = Math.max(1, Math.round(size));
+        }
+        return sizes;
+    }
+
+    /**
+     * Draws a standard normal number with the Marsaglia polar method
+     * @param random - Random numbers
+     * @return double - Normal number with mean 0 and standard deviation 1
+     */
+    private static double gaussian(SplittableRandom random) {
+        double x;
+        double y;
+        double s;
+        do {
+            x = 2 * random.nextDouble() - 1;
+            y = 2 * random.nextDouble() - 1;
+            s = x * x + y * y;
+        } while (s >= 1 || s == 0);
+        return x * Math.sqrt(-2 * Math.log(s) / s);
+    }
+
+    /**
+     * Draws page numbers with Zipf popularity in constant time using Walker's alias method.
+     * Each page number has a column; a draw picks a column uniformly and keeps it with the column's probability,
+     * otherwise takes the column's alias. Both come from one random long: the high half picks the column and the low
+     * half is compared with the column's probability scaled to 32 bits. The probability and alias of a column are
+     * packed into one long so a draw reads memory once.
+     */
+    private static final class Zipf {
+
+        private static final double SCALE = 0x1p32;
+
+        // Probability of keeping the column, scaled to 32 bits, in the high half; alias in the low half
+        private final long[] columns;
+
+        Zipf(int pages, double exponent) {
+            double[] keep = new double[pages];
+            int[] alias = new int[pages];
+            double total = 0;
+            for (int page = 0; page < pages; page++) {
+                total += Math.pow(page + 1, -exponent);
+            }
+            // Scale so the average column is 1, then pair each column under 1 with one over 1
+            int[] small = new int[pages];
+            int[] large = new int[pages];
+            int smallCount = 0;
+            int largeCount = 0;
+            for (int page = 0; page < pages; page++) {
+                keep[page] = Math.pow(page + 1, -exponent) * pages / total;
+                alias[page] = page;
+                if (keep[page] < 1) {
+                    small[smallCount++] = page;
+                } else {
+                    large[largeCount++] = page;
+                }
+            }
+            while (smallCount > 0 && largeCount > 0) {
+                int less = small[--smallCount];
+                int more = large[largeCount - 1];
+                alias[less] = more;
+                keep[more] -= 1 - keep[less];
+                if (keep[more] < 1) {
+                    largeCount--;
+                    small[smallCount++] = more;
+                }
+            }
+            // Whatever is left is 1 up to rounding error, and always keeps its own column
+            columns = new long[pages];
+            for (int page = 0; page < pages; page++) {
+                long threshold = alias[page] == page ? 1L << 32 : (long) (keep[page] * SCALE);
+                columns[page] = threshold << 31 << 1 | alias[page];
+            }
+        }
+
+        /**
+         * Fills the array with page numbers
+         * @param random - Random numbers
+         * @param pages - Array to fill
+         * @param count - Number of page numbers to draw
+         */
+        void next(SplittableRandom random, int[] pages, int count) {
+            long columnCount = columns.length;
+            for (int i = 0; i < count; i++) {
+                long bits = random.nextLong();
+                int column = (int) (((bits >>> 32) * columnCount) >>> 32);
+                long entry = columns[column];
+                pages[i] = (bits & 0xFFFFFFFFL) < (entry >>> 32) ? column : (int) entry;
+            }
+        }
+    }
+
+    /**
+     * A cache of pages limited to a number of bytes
+     */
+    private abstract static class Cache {
+
+        final long[] sizes;
+        final long capacity;
+        long used;
+
+        Cache(long[] sizes, double capacityBytes) {
+            this.sizes = sizes;
+            this.capacity = (long) Math.min(Long.MAX_VALUE, capacityBytes);
+        }
+
+        /**
+         * Requests a page, caching it on a miss if it fits
+         * @param page - Number of the page
+         * @return boolean - True if the page was already cached
+         */
+        abstract boolean request(int page);
+    }
+
+    /**
+     * Least recently used: cached pages are kept in a list from most to least recently requested, and the least
+     * recent is evicted first. The list links live in an array indexed by page, with one extra entry as its head.
+     * Each entry packs the previous page in its high half and the next page in its low half, so moving a page
+     * touches one array element per page involved.
+     */
+    private static final class LruCache extends Cache {
+
+        private static final long UNLINKED = -1;
+
+        private final long[] links;
+        private final int head;
+
+        LruCache(long[] sizes, double capacityBytes) {
+            super(sizes, capacityBytes);
+            head = sizes.length;
+            links = new long[sizes.length + 1];
+            Arrays.fill(links, UNLINKED);
+            links[head] = link(head, head);
+        }
+
+        @Override
+        boolean request(int page) {
+            if (links[page] != UNLINKED) {
+                if (next(links[head]) != page) {
+                    unlink(page);
+                    linkFirst(page);
+                }
+                return true;
+            }
+            long size = sizes[page];
+            if (size > capacity) {
+                return false;
+            }
+            while (used + size > capacity) {
+                int last = previous(links[head]);
+                unlink(last);
+                links[last] = UNLINKED;
+                used -= sizes[last];
+            }
+            linkFirst(page);
+            used += size;
+            return false;
+        }
+
+        private void unlink(int page) {
+            long entry = links[page];
+            int before = previous(entry);
+            int after = next(entry);
+            links[before] = link(previous(links[before]), after);
+            links[after] = link(before, next(links[after]));
+        }
+
+        private void linkFirst(int page) {
+            int first = next(links[head]);
+            links[page] = link(head, first);
+            links[first] = link(page, next(links[first]));
+            links[head] = link(previous(links[head]), page);
+        }
+
+        private static long link(int previous, int next) {
+            return (long) previous << 32 | (next & 0xFFFFFFFFL);
+        }
+
+        private static int previous(long entry) {
+            return (int) (entry >>> 32);
+        }
+
+        private static int next(long entry) {
+            return (int) entry;
+        }
+    }
+
+    /**
+     * Least frequently used: cached pages are kept in a binary heap with the page requested fewest times since it
+     * was cached on top, the least recently requested first among equals. Next to each page the heap keeps its key,
+     * the request count in the high bits and the time of the last request in the low 40 bits, so comparisons read
+     * the heap alone. The position of each page in the heap is kept in an array so a hit can move it down in place.
+     * Times wrap after 2^40 requests, far more than a run simulates.
+     */
+    private static final class LfuCache extends Cache {
+
+        private static final int TIME_BITS = 40;
+        private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+        private static final long MAX_COUNT = (1L << (Long.SIZE - 1 - TIME_BITS)) - 1;
+
+        private final int[] heap;
+        private final long[] keys;
+        private final int[] position;
+        private int cached;
+        private long clock;
+
+        LfuCache(long[] sizes, double capacityBytes) {
+            super(sizes, capacityBytes);
+            heap = new int[sizes.length];
+            keys = new long[sizes.length];
+            position = new int[sizes.length];
+            Arrays.fill(position, NONE);
+        }
+
+        @Override
+        boolean request(int page) {
+            clock++;
+            int at = position[page];
+            if (at != NONE) {
+                long count = Math.min(MAX_COUNT, (keys[at] >>> TIME_BITS) + 1);
+                keys[at] = count << TIME_BITS | (clock & TIME_MASK);
+                siftDown(at);
+                return true;
+            }
+            long size = sizes[page];
+            if (size > capacity) {
+                return false;
+            }
+            while (used + size > capacity) {
+                int evicted = heap[0];
+                position[evicted] = NONE;
+                used -= sizes[evicted];
+                cached--;
+                if (cached > 0) {
+                    heap[0] = heap[cached];
+                    keys[0] = keys[cached];
+                    position[heap[0]] = 0;
+                    siftDown(0);
+                }
+            }
+            heap[cached] = page;
+            keys[cached] = 1L << TIME_BITS | (clock & TIME_MASK);
+            position[page] = cached;
+            cached++;
+            used += size;
+            siftUp(cached - 1);
+            return false;
+        }
+
+        private void siftUp(int at) {
+            int page = heap[at];
+            long key = keys[at];
+            while (at > 0) {
+                int parent = (at - 1) >>> 1;
+                if (keys[parent] <= key) {
+                    break;
+                }
+                move(parent, at);
+                at = parent;
+            }
+            heap[at] = page;
+            keys[at] = key;
+            position[page] = at;
+        }
+
+        private void siftDown(int at) {
+            int page = heap[at];
+            long key = keys[at];
+            while (true) {
+                int child = 2 * at + 1;
+                if (child >= cached) {
+                    break;
+                }
+                if (child + 1 < cached && keys[child + 1] < keys[child]) {
+                    child++;
+                }
+                if (keys[child] >= key) {
+                    break;
+                }
+                move(child, at);
+                at = child;
+            }
+            heap[at] = page;
+            keys[at] = key;
+            position[page] = at;
+        }
+
+        private void move(int from, int to) {
+            heap[to] = heap[from];
+            keys[to] = keys[from];
+            position[heap[to]] = to;
+        }
+    }
+}
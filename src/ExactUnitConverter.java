@@ -0,0 +1,401 @@
+/*
+ * Exact unit conversions for the bandwidth calculator.
+ * Every unit factor is a whole number, so a converted value is always a fraction of two integers.
+ * The numerator is kept as an unsigned 128-bit integer (two longs) and the denominator as a long,
+ * reduced after every step. Nothing is rounded until the value is formatted, and formatting rounds half-even.
+ * A converter is reused between values, so converting in a loop does not allocate.
+ * Converters are not thread-safe; use one per thread.
+ */
+
+class ExactUnitConverter {
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L,
+            10000000000L, 100000000000L, 1000000000000L, 10000000000000L, 100000000000000L,
+            1000000000000000L, 10000000000000000L, 100000000000000000L, 1000000000000000000L
+    };
+    private static final int MAX_DECIMALS = 18;
+
+    // Value is (numeratorHigh:numeratorLow) / denominator. The numerator is below 2^127.
+    private long numeratorHigh;
+    private long numeratorLow;
+    private long denominator = 1;
+    private boolean isNeg;
+
+    // Quotient of the last call to divide()
+    private long quotientHigh;
+    private long quotientLow;
+
+    /**
+     * Sets the value to convert from a decimal number such as "12567", "3.2", or "1.5e3"
+     * Throws exception if the text is not a decimal number or has too many digits to be held exactly.
+     * @param decimal - Decimal number
+     * @return ExactUnitConverter - This converter
+     */
+    ExactUnitConverter set(CharSequence decimal) {
+        if (decimal == null) {
+            throw new IllegalArgumentException("Cannot be null");
+        }
+        int length = decimal.length();
+        int i = 0;
+        boolean negative = false;
+        if (i < length && (decimal.charAt(i) == '-' || decimal.charAt(i) == '+')) {
+            negative = decimal.charAt(i) == '-';
+            i++;
+        }
+        numeratorHigh = 0;
+        numeratorLow = 0;
+        int scale = 0;
+        int digits = 0;
+        boolean seenPoint = false;
+        for (; i < length; i++) {
+            char c = decimal.charAt(i);
+            if (c == '.' && !seenPoint) {
+                seenPoint = true;
+            } else if (c >= '0' && c <= '9') {
+                multiplyNumerator(10);
+                addToNumerator(c - '0');
+                digits++;
+                if (seenPoint) {
+                    scale++;
+                }
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) {
+            throw new IllegalArgumentException("Not a valid number");
+        }
+        if (i < length && (decimal.charAt(i) == 'e' || decimal.charAt(i) == 'E')) {
+            i++;
+            boolean isNegExponent = false;
+            if (i < length && (decimal.charAt(i) == '-' || decimal.charAt(i) == '+')) {
+                isNegExponent = decimal.charAt(i) == '-';
+                i++;
+            }
+            int exponent = 0;
+            int exponentDigits = 0;
+            for (; i < length && decimal.charAt(i) >= '0' && decimal.charAt(i) <= '9'; i++) {
+                exponent = Math.min(exponent * 10 + (decimal.charAt(i) - '0'), 1000);
+                exponentDigits++;
+            }
+            if (exponentDigits == 0) {
+                throw new IllegalArgumentException("Not a valid number");
+            }
+            scale += isNegExponent ? exponent : -exponent;
+        }
+        if (i != length) {
+            throw new IllegalArgumentException("Not a valid number");
+        }
+        for (; scale < 0; scale++) {
+            multiplyNumerator(10);
+        }
+        if (scale > MAX_DECIMALS) {
+            throw new ArithmeticException("Too many decimal places for an exact conversion");
+        }
+        denominator = 1;
+        isNeg = negative;
+        multiply(1, POWERS_OF_TEN[scale]);
+        return this;
+    }
+
+    /**
+     * Sets the value to convert from an unscaled integer and a number of decimal places, e.g. (32, 1) for 3.2
+     * @param unscaled - Digits of the value
+     * @param scale - Number of decimal places, 0 to 18
+     * @return ExactUnitConverter - This converter
+     */
+    ExactUnitConverter set(long unscaled, int scale) {
+        if (scale < 0 || scale > MAX_DECIMALS) {
+            throw new IllegalArgumentException("Not a valid scale");
+        }
+        isNeg = unscaled < 0;
+        numeratorHigh = 0;
+        numeratorLow = isNeg ? -unscaled : unscaled;
+        denominator = 1;
+        multiply(1, POWERS_OF_TEN[scale]);
+        return this;
+    }
+
+    /**
+     * Converts the value between data size units, like convertSizeUnit
+     * @param fromUnit - Current unit: "b", "kb", "mb", "gb", "tb", "B", "KB", "MB", "GB", or "TB"
+     * @param toUnit - Unit to convert to
+     * @return ExactUnitConverter - This converter
+     */
+    ExactUnitConverter convertSize(String fromUnit, String toUnit) {
+        return multiply(Calculator.getSizeUnitFactor(toUnit), Calculator.getSizeUnitFactor(fromUnit));
+    }
+
+    /**
+     * Converts the value between bandwidth units, like convertBandwidthUnit
+     * @param fromUnit - Current unit: "bit/s", "Kbit/s", "Mbit/s", "Gbit/s", or "Tbit/s"
+     * @param toUnit - Unit to convert to
+     * @return ExactUnitConverter - This converter
+     */
+    ExactUnitConverter convertBandwidth(String fromUnit, String toUnit) {
+        return multiply(Calculator.getBandwidthUnitFactor(toUnit), Calculator.getBandwidthUnitFactor(fromUnit));
+    }
+
+    /**
+     * Converts the value between time units, like convertTimeUnit
+     * @param fromUnit - Current unit: "seconds", "minutes", "hours", "days", or "months"
+     * @param toUnit - Unit to convert to
+     * @return ExactUnitConverter - This converter
+     */
+    ExactUnitConverter convertTime(String fromUnit, String toUnit) {
+        return multiply(Calculator.getExactTimeUnitFactor(toUnit), Calculator.getExactTimeUnitFactor(fromUnit));
+    }
+
+    /**
+     * Converts a monthly data usage to a bandwidth, like convertUsageToBandwidth
+     * @param sizeUnit - Current data size unit of the monthly usage
+     * @param bandwidthUnit - Bandwidth unit to convert to
+     * @return ExactUnitConverter - This converter
+     */
+    ExactUnitConverter convertUsageToBandwidth(String sizeUnit, String bandwidthUnit) {
+        convertTime("seconds", "months");
+        return convertSize(sizeUnit, Calculator.getBandwidthUnitAsSizeUnit(bandwidthUnit));
+    }
+
+    /**
+     * Converts a bandwidth to a monthly data usage, like convertBandwidthToUsage
+     * @param bandwidthUnit - Current bandwidth unit
+     * @param sizeUnit - Data size unit to convert the monthly usage to
+     * @return ExactUnitConverter - This converter
+     */
+    ExactUnitConverter convertBandwidthToUsage(String bandwidthUnit, String sizeUnit) {
+        convertTime("months", "seconds");
+        return convertSize(Calculator.getBandwidthUnitAsSizeUnit(bandwidthUnit), sizeUnit);
+    }
+
+    /**
+     * Multiplies the value by the fraction factor / divisor, keeping the result reduced.
+     * Throws exception if the result can no longer be held exactly.
+     * @param factor - Positive numerator of the fraction
+     * @param divisor - Positive denominator of the fraction
+     * @return ExactUnitConverter - This converter
+     */
+    ExactUnitConverter multiply(long factor, long divisor) {
+        if (factor <= 0 || divisor <= 0) {
+            throw new IllegalArgumentException("Must be positive");
+        }
+        long common = gcd(factor, divisor);
+        factor /= common;
+        divisor /= common;
+        common = gcd(factor, denominator);
+        factor /= common;
+        denominator /= common;
+        common = gcd(divide(numeratorHigh, numeratorLow, divisor), divisor);
+        if (common > 1) {
+            divide(numeratorHigh, numeratorLow, common);
+            numeratorHigh = quotientHigh;
+            numeratorLow = quotientLow;
+            divisor /= common;
+        }
+        multiplyNumerator(factor);
+        denominator = Math.multiplyExact(denominator, divisor);
+        return this;
+    }
+
+    /**
+     * Appends the value rounded half-even to exactly the given number of decimal places
+     * @param sb - Builder to append to
+     * @param decimals - Number of decimal places, 0 to 18
+     * @return StringBuilder - The builder
+     */
+    StringBuilder appendFixed(StringBuilder sb, int decimals) {
+        return append(sb, decimals, false);
+    }
+
+    /**
+     * Appends the value rounded half-even to at most the given number of decimal places, without trailing zeros
+     * @param sb - Builder to append to
+     * @param maxDecimals - Largest number of decimal places, 0 to 18
+     * @return StringBuilder - The builder
+     */
+    StringBuilder appendPlain(StringBuilder sb, int maxDecimals) {
+        return append(sb, maxDecimals, true);
+    }
+
+    /**
+     * Returns the value as a plain decimal rounded half-even to at most the given number of decimal places
+     * @param maxDecimals - Largest number of decimal places, 0 to 18
+     * @return String - Formatted value
+     */
+    String toPlainString(int maxDecimals) {
+        return appendPlain(new StringBuilder(), maxDecimals).toString();
+    }
+
+    /**
+     * Appends the rounded value to the builder
+     * @param sb - Builder to append to
+     * @param decimals - Number of decimal places, 0 to 18
+     * @param stripZeros - True to leave out trailing zeros of the fraction
+     * @return StringBuilder - The builder
+     */
+    private StringBuilder append(StringBuilder sb, int decimals, boolean stripZeros) {
+        if (decimals < 0 || decimals > MAX_DECIMALS) {
+            throw new IllegalArgumentException("Not a valid number of decimal places");
+        }
+        long remainder = divide(numeratorHigh, numeratorLow, denominator);
+        long integerHigh = quotientHigh;
+        long integerLow = quotientLow;
+
+        // Long division for the fraction digits, keeping the final remainder for rounding
+        long fraction = 0;
+        for (int i = 0; i < decimals; i++) {
+            remainder = nextDigit(remainder);
+            fraction = fraction * 10 + quotientLow;
+        }
+        int comparison = compareHalf(remainder);
+        boolean roundUp = comparison > 0
+                || (comparison == 0 && ((decimals > 0 ? fraction : integerLow) & 1) == 1);
+        if (roundUp) {
+            fraction++;
+            if (fraction == POWERS_OF_TEN[decimals] || decimals == 0) {
+                fraction = 0;
+                integerLow++;
+                if (integerLow == 0) {
+                    integerHigh++;
+                }
+            }
+        }
+        if (stripZeros) {
+            while (decimals > 0 && fraction % 10 == 0) {
+                fraction /= 10;
+                decimals--;
+            }
+        }
+
+        if (isNeg && (integerHigh != 0 || integerLow != 0 || fraction != 0)) {
+            sb.append('-');
+        }
+        appendInteger(sb, integerHigh, integerLow);
+        if (decimals > 0) {
+            sb.append('.');
+            String digits = Long.toString(fraction);
+            for (int i = digits.length(); i < decimals; i++) {
+                sb.append('0');
+            }
+            sb.append(digits);
+        }
+        return sb;
+    }
+
+    /**
+     * Computes the next fraction digit of remainder / denominator. The digit is left in quotientLow.
+     * @param remainder - Remainder of the previous digit, below the denominator
+     * @return long - Remainder of this digit
+     */
+    private long nextDigit(long remainder) {
+        if (remainder <= Long.MAX_VALUE / 10) {
+            long scaled = remainder * 10;
+            quotientHigh = 0;
+            quotientLow = scaled / denominator;
+            return scaled % denominator;
+        }
+        return divide(Math.multiplyHigh(remainder, 10), remainder * 10, denominator);
+    }
+
+    /**
+     * Compares the remainder with half of the denominator
+     * @param remainder - Remainder below the denominator
+     * @return int - Negative, zero, or positive if the remainder is below, equal to, or above half
+     */
+    private int compareHalf(long remainder) {
+        // remainder * 2 cannot overflow as an unsigned long since remainder < denominator < 2^63
+        return Long.compareUnsigned(remainder << 1, denominator);
+    }
+
+    /**
+     * Appends an unsigned 128-bit integer in decimal
+     * @param sb - Builder to append to
+     * @param high - Upper 64 bits
+     * @param low - Lower 64 bits
+     */
+    private void appendInteger(StringBuilder sb, long high, long low) {
+        if (high == 0) {
+            sb.append(Long.toUnsignedString(low));
+            return;
+        }
+        // Split off the lowest 18 digits and print the rest first
+        long lowDigits = divide(high, low, POWERS_OF_TEN[18]);
+        appendInteger(sb, quotientHigh, quotientLow);
+        String digits = Long.toString(lowDigits);
+        for (int i = digits.length(); i < 18; i++) {
+            sb.append('0');
+        }
+        sb.append(digits);
+    }
+
+    /**
+     * Multiplies the numerator by the given factor.
+     * Throws exception if the numerator no longer fits in 127 bits.
+     * @param factor - Positive factor
+     */
+    private void multiplyNumerator(long factor) {
+        long lowHigh = Math.multiplyHigh(numeratorLow, factor) + ((numeratorLow >> 63) & factor);
+        long high = Math.multiplyExact(numeratorHigh, factor);
+        high = Math.addExact(high, lowHigh);
+        numeratorLow = numeratorLow * factor;
+        numeratorHigh = high;
+    }
+
+    /**
+     * Adds a small non-negative amount to the numerator
+     * @param amount - Amount to add
+     */
+    private void addToNumerator(long amount) {
+        long low = numeratorLow + amount;
+        if (Long.compareUnsigned(low, numeratorLow) < 0) {
+            numeratorHigh = Math.addExact(numeratorHigh, 1);
+        }
+        numeratorLow = low;
+    }
+
+    /**
+     * Divides an unsigned 128-bit integer by a positive long.
+     * The quotient is left in quotientHigh and quotientLow.
+     * @param high - Upper 64 bits of the dividend
+     * @param low - Lower 64 bits of the dividend
+     * @param divisor - Positive divisor
+     * @return long - Remainder
+     */
+    private long divide(long high, long low, long divisor) {
+        if (high == 0) {
+            quotientHigh = 0;
+            quotientLow = Long.divideUnsigned(low, divisor);
+            return Long.remainderUnsigned(low, divisor);
+        }
+        quotientHigh = Long.divideUnsigned(high, divisor);
+        long remainder = Long.remainderUnsigned(high, divisor);
+        // Shift-subtract long division for the lower half; remainder stays below divisor < 2^63
+        long quotient = 0;
+        for (int bit = 63; bit >= 0; bit--) {
+            remainder = (remainder << 1) | ((low >>> bit) & 1);
+            quotient <<= 1;
+            if (Long.compareUnsigned(remainder, divisor) >= 0) {
+                remainder -= divisor;
+                quotient |= 1;
+            }
+        }
+        quotientLow = quotient;
+        return remainder;
+    }
+
+    /**
+     * Finds the greatest common divisor of two non-negative longs
+     * @param a - First value
+     * @param b - Second value
+     * @return long - Greatest common divisor (b if a is zero)
+     */
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
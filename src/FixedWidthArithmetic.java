@@ -0,0 +1,301 @@
+/*
+ * Fixed-width two's complement arithmetic for the binary and hexadecimal calculators.
+ * Values are held in primitive longs, sign-extended from the selected width (8, 16, 32, or 64 bits),
+ * so results wrap around exactly like a register of that width would.
+ * Bit operations use the Long intrinsics (bitCount, numberOfLeadingZeros, rotateLeft, ...).
+ */
+
+class FixedWidthArithmetic {
+
+    // Flag bits returned by flags()
+    static final int CARRY = 1;
+    static final int OVERFLOW = 2;
+    static final int ZERO = 4;
+    static final int NEGATIVE = 8;
+
+    // Operators that only use their first operand
+    private static final String[] UNARY_OPERATORS = {"~", "popcount", "clz", "ctz"};
+
+    private FixedWidthArithmetic() {
+    }
+
+    /**
+     * Determines if the given width is supported
+     * @param width - Width in bits
+     * @return boolean - True if the width is 8, 16, 32, or 64, false if not
+     */
+    static boolean isValidWidth(int width) {
+        return width == 8 || width == 16 || width == 32 || width == 64;
+    }
+
+    /**
+     * Determines if the given operator only uses its first operand
+     * @param operator - Operator to test
+     * @return boolean - True if unary, false if not
+     */
+    static boolean isUnary(String operator) {
+        for (String s : UNARY_OPERATORS) {
+            if (s.equals(operator)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Determines if the given operator is a shift or rotate, whose second operand is a number of bits
+     * @param operator - Operator to test
+     * @return boolean - True if a shift or rotate, false if not
+     */
+    static boolean isShift(String operator) {
+        return operator.equals("<<") || operator.equals(">>>") || operator.equals(">>")
+                || operator.equals("rol") || operator.equals("ror");
+    }
+
+    /**
+     * Returns a mask with the lowest width bits set
+     * @param width - Width in bits
+     * @return long - Mask of the width
+     */
+    static long mask(int width) {
+        return width == 64 ? -1L : (1L << width) - 1;
+    }
+
+    /**
+     * Truncates the given value to the width and sign-extends it back to a long
+     * @param value - Value to wrap
+     * @param width - Width in bits
+     * @return long - Wrapped value
+     */
+    static long wrap(long value, int width) {
+        int shift = 64 - width;
+        return (value << shift) >> shift;
+    }
+
+    /**
+     * Applies the given operator to two fixed-width values and returns the wrapped result.
+     * Operators: "+", "-", "*", "/", "&", "|", "^", "~", "<<", ">>>", ">>", "rol", "ror", "popcount", "clz", "ctz".
+     * For the shift and rotate operators b is the (non-negative) number of bits. Throws exception on division by zero.
+     * @param operator - Operator to apply
+     * @param a - First value
+     * @param b - Second value (ignored by unary operators)
+     * @param width - Width in bits
+     * @return long - Result, sign-extended from the width
+     */
+    static long apply(String operator, long a, long b, int width) {
+        if (operator == null) {
+            throw new IllegalArgumentException("Cannot be null");
+        }
+        if (!isValidWidth(width)) {
+            throw new IllegalArgumentException("Not a valid width");
+        }
+        if (b < 0 && isShift(operator)) {
+            throw new IllegalArgumentException("Cannot shift by a negative number of bits");
+        }
+        long m = mask(width);
+        int shift = (int) (b & 63);
+        return switch (operator) {
+            case "+" -> wrap(a + b, width);
+            case "-" -> wrap(a - b, width);
+            case "*" -> wrap(a * b, width);
+            case "/" -> {
+                if (wrap(b, width) == 0) {
+                    throw new ArithmeticException("Cannot divide by zero");
+                }
+                yield wrap(wrap(a, width) / wrap(b, width), width);
+            }
+            case "&" -> wrap(a & b, width);
+            case "|" -> wrap(a | b, width);
+            case "^" -> wrap(a ^ b, width);
+            case "~" -> wrap(~a, width);
+            case "<<" -> b >= width ? 0 : wrap(a << shift, width);
+            case ">>>" -> b >= width ? 0 : wrap((a & m) >>> shift, width);
+            case ">>" -> wrap(wrap(a, width) >> Math.min(b, width - 1), width);
+            case "rol" -> rotateLeft(a, (int) (b % width), width);
+            case "ror" -> rotateLeft(a, (int) ((width - b % width) % width), width);
+            case "popcount" -> Long.bitCount(a & m);
+            case "clz" -> Long.numberOfLeadingZeros(a & m) - (64 - width);
+            case "ctz" -> Math.min(Long.numberOfTrailingZeros(a & m), width);
+            default -> throw new IllegalArgumentException("Not a valid operation");
+        };
+    }
+
+    /**
+     * Computes the status flags of an operation the way a CPU would.
+     * CARRY is the unsigned carry out of "+" and "*", or the borrow of "-".
+     * OVERFLOW is set when the signed result of "+", "-", "*", or "/" did not fit in the width.
+     * ZERO and NEGATIVE describe the result itself.
+     * @param operator - Operator that was applied
+     * @param a - First value
+     * @param b - Second value
+     * @param result - Result returned by apply()
+     * @param width - Width in bits
+     * @return int - Combination of CARRY, OVERFLOW, ZERO, and NEGATIVE
+     */
+    static int flags(String operator, long a, long b, long result, int width) {
+        long m = mask(width);
+        long sa = wrap(a, width);
+        long sb = wrap(b, width);
+        long ua = a & m;
+        long ub = b & m;
+        boolean carry = false;
+        boolean overflow = false;
+        switch (operator) {
+            case "+" -> {
+                carry = width == 64 ? Long.compareUnsigned(a + b, a) < 0 : ua + ub > m;
+                overflow = width == 64 ? ((sa ^ result) & (sb ^ result)) < 0 : sa + sb != result;
+            }
+            case "-" -> {
+                carry = Long.compareUnsigned(ua, ub) < 0;
+                overflow = width == 64 ? ((sa ^ sb) & (sa ^ result)) < 0 : sa - sb != result;
+            }
+            case "*" -> {
+                if (width == 64) {
+                    long high = Math.multiplyHigh(sa, sb);
+                    overflow = high != (result >> 63);
+                    long unsignedHigh = high + ((sa >> 63) & sb) + ((sb >> 63) & sa);
+                    carry = unsignedHigh != 0;
+                } else if (width == 32) {
+                    overflow = sa * sb != result;
+                    carry = Long.compareUnsigned(ua * ub, m) > 0;
+                } else {
+                    overflow = sa * sb != result;
+                    carry = ua * ub > m;
+                }
+            }
+            case "/" -> overflow = sa == (-1L << (width - 1)) && sb == -1;
+            default -> {
+            }
+        }
+        int flags = 0;
+        if (carry) {
+            flags |= CARRY;
+        }
+        if (overflow) {
+            flags |= OVERFLOW;
+        }
+        if ((result & m) == 0) {
+            flags |= ZERO;
+        }
+        if (result < 0) {
+            flags |= NEGATIVE;
+        }
+        return flags;
+    }
+
+    /**
+     * Parses a binary or hexadecimal bit pattern into a value of the given width.
+     * A leading "-" negates the value (two's complement). Throws exception if the digits are not valid or do not fit.
+     * @param digits - Bit pattern, e.g. "11110000" or "F0"
+     * @param radix - 2 or 16
+     * @param width - Width in bits
+     * @return long - Value sign-extended from the width
+     */
+    static long parse(String digits, int radix, int width) {
+        if (!isValid(digits, radix, width)) {
+            throw new IllegalArgumentException("Not a valid " + width + "-bit value");
+        }
+        boolean isNeg = digits.charAt(0) == '-';
+        long value = Long.parseUnsignedLong(isNeg ? digits.substring(1) : digits, radix);
+        return wrap(isNeg ? -value : value, width);
+    }
+
+    /**
+     * Determines if the given bit pattern is valid for the radix and fits in the width: as an unsigned value, or as a
+     * signed value when it starts with "-", so at 8 bits "FF" and "-80" fit but "-FF" does not
+     * @param digits - Bit pattern, optionally starting with "-"
+     * @param radix - 2 or 16
+     * @param width - Width in bits
+     * @return boolean - True if valid, false if not
+     */
+    static boolean isValid(String digits, int radix, int width) {
+        if (digits == null) {
+            throw new IllegalArgumentException("Cannot be null");
+        }
+        int start = digits.startsWith("-") ? 1 : 0;
+        // Skip leading zeros so they do not count towards the width
+        while (start < digits.length() - 1 && digits.charAt(start) == '0') {
+            start++;
+        }
+        int length = digits.length() - start;
+        if (length == 0) {
+            return false;
+        }
+        for (int i = start; i < digits.length(); i++) {
+            char c = digits.charAt(i);
+            boolean isDigit = radix == 2
+                    ? (c == '0' || c == '1')
+                    : ((c >= '0' && c <= '9') || (c >= 'A' && c <= 'F'));
+            if (!isDigit) {
+                return false;
+            }
+        }
+        int bitsPerDigit = radix == 2 ? 1 : 4;
+        int topDigitBits = 32 - Integer.numberOfLeadingZeros(Character.digit(digits.charAt(start), radix));
+        int bits = (length - 1) * bitsPerDigit + topDigitBits;
+        if (bits < width || (bits == width && !digits.startsWith("-"))) {
+            return true;
+        }
+        // The most negative value of the width is the only negative one whose magnitude needs every bit
+        return bits == width && Long.parseUnsignedLong(digits.substring(start), radix) == 1L << (width - 1);
+    }
+
+    /**
+     * Formats the value as a zero-padded bit pattern of the given width
+     * @param value - Value to format
+     * @param radix - 2 or 16
+     * @param width - Width in bits
+     * @return String - Binary or uppercase hexadecimal digits, width / 1 or width / 4 characters long
+     */
+    static String format(long value, int radix, int width) {
+        int digits = radix == 2 ? width : width / 4;
+        char[] result = new char[digits];
+        int bitsPerDigit = radix == 2 ? 1 : 4;
+        for (int i = digits - 1; i >= 0; i--) {
+            result[i] = Character.toUpperCase(Character.forDigit((int) (value & (radix - 1)), radix));
+            value >>>= bitsPerDigit;
+        }
+        return new String(result);
+    }
+
+    /**
+     * Describes the set flags, e.g. "C V" or "Z"
+     * @param flags - Flags returned by flags()
+     * @return String - Letters of the set flags, or "none"
+     */
+    static String describeFlags(int flags) {
+        StringBuilder sb = new StringBuilder();
+        if ((flags & CARRY) != 0) {
+            sb.append("C ");
+        }
+        if ((flags & OVERFLOW) != 0) {
+            sb.append("V ");
+        }
+        if ((flags & ZERO) != 0) {
+            sb.append("Z ");
+        }
+        if ((flags & NEGATIVE) != 0) {
+            sb.append("N ");
+        }
+        return sb.length() == 0 ? "none" : sb.toString().strip();
+    }
+
+    /**
+     * Rotates the value left by the given number of bits within the width
+     * @param value - Value to rotate
+     * @param distance - Number of bits, 0 to width - 1
+     * @param width - Width in bits
+     * @return long - Rotated value, sign-extended from the width
+     */
+    private static long rotateLeft(long value, int distance, int width) {
+        if (width == 64) {
+            return Long.rotateLeft(value, distance);
+        }
+        long m = mask(width);
+        long bits = value & m;
+        if (distance == 0) {
+            return wrap(bits, width);
+        }
+        return wrap((bits << distance) | (bits >>> (width - distance)), width);
+    }
+}
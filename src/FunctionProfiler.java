@@ -0,0 +1,218 @@
+/*
+ * Records how many bytes each calculator function allocates and how much CPU time it uses, per call.
+ * Each profiled function calls enter when it starts and exit when it returns or throws. The profiler reads the
+ * current thread's allocated bytes and CPU time at both points from com.sun.management.ThreadMXBean. Each thread
+ * keeps a stack of the functions it is inside, so a call's cost is counted two ways:
+ *    - total: everything between enter and exit
+ *    - self: the total minus the profiled functions called inside it, e.g. operation without getHexFromDecimal
+ * Counts are kept in LongAdders so many threads can be profiled at once without contending.
+ * The calculators hold a profiler in a field that is null while profiling is off, so when off the only cost is
+ * reading that field.
+ */
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.LongAdder;
+
+class FunctionProfiler {
+
+    // Null when the JVM cannot measure allocated bytes per thread
+    private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+    private final String[] names;
+    private final LongAdder[] calls;
+    private final LongAdder[] selfBytes;
+    private final LongAdder[] totalBytes;
+    private final LongAdder[] selfNanos;
+    private final LongAdder[] totalNanos;
+    private final ThreadLocal<Frames> frames = ThreadLocal.withInitial(Frames::new);
+    private final long started = System.nanoTime();
+
+    /**
+     * Creates a profiler for the given functions, which are then referred to by their index
+     * @param names - Names of the functions
+     */
+    FunctionProfiler(String... names) {
+        if (names == null) {
+            throw new IllegalArgumentException("Cannot be null");
+        }
+        if (THREADS == null) {
+            throw new UnsupportedOperationException("Allocated bytes per thread cannot be measured on this JVM");
+        }
+        this.names = names.clone();
+        this.calls = adders(names.length);
+        this.selfBytes = adders(names.length);
+        this.totalBytes = adders(names.length);
+        this.selfNanos = adders(names.length);
+        this.totalNanos = adders(names.length);
+    }
+
+    /**
+     * Determines if this JVM can measure allocated bytes and CPU time per thread
+     * @return boolean - True if profilers can be created
+     */
+    static boolean isSupported() {
+        return THREADS != null;
+    }
+
+    /**
+     * Marks the start of a call to a profiled function on the current thread
+     */
+    void enter() {
+        frames.get().push(THREADS.getCurrentThreadAllocatedBytes(), THREADS.getCurrentThreadCpuTime());
+    }
+
+    /**
+     * Marks the end of the call started by the last enter on the current thread and records its cost
+     * @param function - Index of the function
+     */
+    void exit(int function) {
+        long bytes = THREADS.getCurrentThreadAllocatedBytes();
+        long nanos = THREADS.getCurrentThreadCpuTime();
+        Frames stack = frames.get();
+        int frame = stack.pop();
+        long callBytes = bytes - stack.startBytes[frame];
+        long callNanos = nanos - stack.startNanos[frame];
+        calls[function].increment();
+        totalBytes[function].add(callBytes);
+        totalNanos[function].add(callNanos);
+        selfBytes[function].add(callBytes - stack.childBytes[frame]);
+        selfNanos[function].add(callNanos - stack.childNanos[frame]);
+        if (frame > 0) {
+            stack.childBytes[frame - 1] += callBytes;
+            stack.childNanos[frame - 1] += callNanos;
+        }
+    }
+
+    /**
+     * Returns the number of calls recorded for a function
+     * @param function - Index of the function
+     * @return long - Number of calls
+     */
+    long calls(int function) {
+        return calls[function].sum();
+    }
+
+    /**
+     * Returns the average bytes allocated per call of a function
+     * @param function - Index of the function
+     * @param self - True to leave out profiled functions called inside it
+     * @return double - Bytes per call, or 0 if it was not called
+     */
+    double bytesPerCall(int function, boolean self) {
+        return perCall(self ? selfBytes[function] : totalBytes[function], function);
+    }
+
+    /**
+     * Returns the average CPU time per call of a function
+     * @param function - Index of the function
+     * @param self - True to leave out profiled functions called inside it
+     * @return double - Nanoseconds per call, or 0 if it was not called
+     */
+    double nanosPerCall(int function, boolean self) {
+        return perCall(self ? selfNanos[function] : totalNanos[function], function);
+    }
+
+    /**
+     * Prints the functions that were called, ranked by bytes per call and then by CPU time per call
+     * @param out - Output to print to
+     */
+    void printSummary(ConsoleOutput out) {
+        Integer[] called = new Integer[names.length];
+        int count = 0;
+        long allCalls = 0;
+        for (int i = 0; i < names.length; i++) {
+            long n = calls(i);
+            if (n > 0) {
+                called[count++] = i;
+                allCalls += n;
+            }
+        }
+        called = Arrays.copyOf(called, count);
+        DoubleFormatter format = DoubleFormatter.significant(3);
+        out.print("Profile of " + allCalls + " calls over ").print((System.nanoTime() - started) / 1e9,
+                DoubleFormatter.fixed(3)).println(" seconds (self leaves out profiled functions called inside)");
+        if (count == 0) {
+            out.println("No profiled functions were called");
+            return;
+        }
+
+        out.println("By bytes allocated per call:");
+        Arrays.sort(called, Comparator.comparingDouble((Integer f) -> bytesPerCall(f, true)).reversed());
+        for (int f : called) {
+            out.print("   " + names[f] + ": ").print(bytesPerCall(f, true), format).print(" bytes self, ")
+                    .print(bytesPerCall(f, false), format).println(" total (" + calls(f) + " calls)");
+        }
+        out.println("By CPU time per call:");
+        Arrays.sort(called, Comparator.comparingDouble((Integer f) -> nanosPerCall(f, true)).reversed());
+        for (int f : called) {
+            out.print("   " + names[f] + ": ").print(nanosPerCall(f, true) / 1e3, format)
+                    .print(" microseconds self, ").print(nanosPerCall(f, false) / 1e3, format)
+                    .println(" total (" + calls(f) + " calls)");
+        }
+    }
+
+    private double perCall(LongAdder sum, int function) {
+        long n = calls(function);
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    private static LongAdder[] adders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * Finds the thread bean and turns on the measurements it needs
+     * @return com.sun.management.ThreadMXBean - The bean, or null if the JVM cannot measure both
+     */
+    private static com.sun.management.ThreadMXBean threads() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        if (!threads.isThreadAllocatedMemorySupported() || !threads.isCurrentThreadCpuTimeSupported()) {
+            return null;
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+        threads.setThreadCpuTimeEnabled(true);
+        return threads;
+    }
+
+    /**
+     * The profiled calls a thread is inside, innermost last
+     */
+    private static final class Frames {
+
+        private long[] startBytes = new long[8];
+        private long[] startNanos = new long[8];
+        // Cost of the profiled calls made inside each frame so far
+        private long[] childBytes = new long[8];
+        private long[] childNanos = new long[8];
+        private int depth;
+
+        void push(long bytes, long nanos) {
+            if (depth == startBytes.length) {
+                startBytes = Arrays.copyOf(startBytes, depth * 2);
+                startNanos = Arrays.copyOf(startNanos, depth * 2);
+                childBytes = Arrays.copyOf(childBytes, depth * 2);
+                childNanos = Arrays.copyOf(childNanos, depth * 2);
+            }
+            startBytes[depth] = bytes;
+            startNanos[depth] = nanos;
+            childBytes[depth] = 0;
+            childNanos[depth] = 0;
+            depth++;
+        }
+
+        int pop() {
+            return --depth;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Reads whitespace-separated tokens for the calculators straight from a byte buffer.
+ * This replaces java.util.Scanner, which is regex based and uses exceptions to report bad numbers.
+ * Numbers are parsed without exceptions: invalid input is reported through a return value instead.
+ */
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+
+class InputTokenizer {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // Exact powers of ten that can be used for the fast path of parseDouble
+    private static final double[] EXACT_POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final InputStream in;
+    private final Flushable output;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private byte[] token = new byte[64];
+    private int position;
+    private int limit;
+
+    /**
+     * Creates a tokenizer that reads from the given stream
+     * @param in - Stream to read tokens from
+     * @param output - Buffered output to flush before waiting for more input
+     */
+    InputTokenizer(InputStream in, Flushable output) {
+        if (in == null || output == null) {
+            throw new IllegalArgumentException("Cannot be null");
+        }
+        this.in = in;
+        this.output = output;
+    }
+
+    /**
+     * Determines if there is another token, skipping any whitespace before it
+     * @return boolean - True if another token can be read, false at the end of the input
+     */
+    boolean hasNext() {
+        int b = read();
+        while (b != -1 && isWhitespace(b)) {
+            b = read();
+        }
+        if (b == -1) {
+            return false;
+        }
+        // Put the first byte of the token back
+        position--;
+        return true;
+    }
+
+    /**
+     * Reads the next whitespace-separated token and returns it.
+     * Throws exception if there is no more input.
+     * @return String - Next token
+     */
+    String next() {
+        int b = read();
+        while (b != -1 && isWhitespace(b)) {
+            b = read();
+        }
+        if (b == -1) {
+            throw new NoSuchElementException("No more input");
+        }
+        int length = 0;
+        while (b != -1 && !isWhitespace(b)) {
+            if (length == token.length) {
+                byte[] larger = new byte[token.length * 2];
+                System.arraycopy(token, 0, larger, 0, length);
+                token = larger;
+            }
+            token[length++] = (byte) b;
+            b = read();
+        }
+        return new String(token, 0, length, Charset.defaultCharset());
+    }
+
+    /**
+     * Determines if the given token is an integer that fits in an int
+     * @param token - Token to test
+     * @return boolean - True if it is a valid int, false if not
+     */
+    static boolean isInt(String token) {
+        int length = token.length();
+        int start = (length > 0 && (token.charAt(0) == '-' || token.charAt(0) == '+')) ? 1 : 0;
+        if (start == length) {
+            return false;
+        }
+        long value = 0;
+        for (int i = start; i < length; i++) {
+            char c = token.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+            value = value * 10 + (c - '0');
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                return false;
+            }
+        }
+        if (token.charAt(0) == '-') {
+            value = -value;
+        }
+        return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE;
+    }
+
+    /**
+     * Parses the given token as a decimal number and returns the value.
+     * Accepts an optional sign, digits with an optional decimal point, and an optional exponent (e.g. "-1.5e3").
+     * Returns NaN if the token is not a valid number, so callers never need to catch an exception.
+     * @param token - Token to parse
+     * @return double - Value of the token, or NaN if it is not numeric
+     */
+    static double parseDouble(String token) {
+        byte[] bytes = token.getBytes(StandardCharsets.ISO_8859_1);
+        return parseDouble(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Parses the given ASCII bytes as a decimal number and returns the value, like parseDouble(String).
+     * @param bytes - Bytes holding the number
+     * @param start - Index of the first byte of the number
+     * @param end - Index after the last byte of the number
+     * @return double - Value of the number, or NaN if it is not numeric
+     */
+    static double parseDouble(byte[] bytes, int start, int end) {
+        int i = start;
+        boolean isNeg = false;
+        if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+            isNeg = bytes[i] == '-';
+            i++;
+        }
+
+        // Collect up to 19 significant digits, which always fit in a long
+        long mantissa = 0;
+        int significantDigits = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean truncated = false;
+        boolean seenPoint = false;
+        for (; i < end; i++) {
+            byte c = bytes[i];
+            if (c == '.' && !seenPoint) {
+                seenPoint = true;
+            } else if (c >= '0' && c <= '9') {
+                digits++;
+                if (significantDigits < 19) {
+                    if (mantissa != 0 || c != '0') {
+                        mantissa = mantissa * 10 + (c - '0');
+                        significantDigits++;
+                    }
+                    if (seenPoint) {
+                        exponent--;
+                    }
+                } else {
+                    truncated |= c != '0';
+                    if (!seenPoint) {
+                        exponent++;
+                    }
+                }
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) {
+            return Double.NaN;
+        }
+
+        if (i < end && (bytes[i] == 'e' || bytes[i] == 'E')) {
+            i++;
+            boolean isNegExponent = false;
+            if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+                isNegExponent = bytes[i] == '-';
+                i++;
+            }
+            if (i == end) {
+                return Double.NaN;
+            }
+            int explicitExponent = 0;
+            for (; i < end; i++) {
+                byte c = bytes[i];
+                if (c < '0' || c > '9') {
+                    return Double.NaN;
+                }
+                // Anything this large is already zero or infinity
+                if (explicitExponent < 100000) {
+                    explicitExponent = explicitExponent * 10 + (c - '0');
+                }
+            }
+            exponent += isNegExponent ? -explicitExponent : explicitExponent;
+        }
+        if (i != end) {
+            return Double.NaN;
+        }
+
+        double value;
+        if (mantissa == 0) {
+            value = 0.0;
+        } else if (!truncated && mantissa < (1L << 53) && exponent >= -22 && exponent <= 22) {
+            // Both the mantissa and the power of ten are exact doubles, so one operation rounds correctly
+            value = exponent < 0
+                    ? mantissa / EXACT_POWERS_OF_TEN[-exponent]
+                    : mantissa * EXACT_POWERS_OF_TEN[exponent];
+        } else {
+            // The number has already been validated, so this cannot throw
+            return Double.parseDouble(new String(bytes, start, end - start, StandardCharsets.ISO_8859_1));
+        }
+        return isNeg ? -value : value;
+    }
+
+    /**
+     * Reads the next byte from the buffer, refilling it from the stream when it runs out.
+     * Pending output is flushed before refilling so prompts are visible while waiting for input.
+     * @return int - Next byte, or -1 at the end of the input
+     */
+    private int read() {
+        if (position == limit) {
+            try {
+                output.flush();
+                limit = in.read(buffer, 0, buffer.length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    /**
+     * Determines if the given byte separates tokens
+     * @param b - Byte to test
+     * @return boolean - True if whitespace, false if not
+     */
+    private static boolean isWhitespace(int b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f' || b == 0x0B;
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Replays the calculations recorded by OperationJournal and checks the results against the current code,
+ * e.g. after an upgrade. Segments are mapped read-only and their records are checked in parallel.
+ * Records with a bad checksum (for example, written while the program was stopped) are counted as corrupt and not
+ * replayed. Unused slots are skipped.
+ * The first few mismatches are kept with a description so they can be reported.
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32C;
+
+class JournalReplay {
+
+    private static final int MAX_REPORTED = 10;
+    // Records checked by one parallel task
+    private static final int BATCH_RECORDS = 1 << 14;
+
+    private final AtomicLong recordCount = new AtomicLong();
+    private final AtomicLong mismatchCount = new AtomicLong();
+    private final AtomicLong corruptCount = new AtomicLong();
+    private final List<String> mismatches = new ArrayList<>();
+
+    /**
+     * Replays every record in the journal directory
+     * @param directory - Directory of the journal segments
+     * @throws IOException if a segment cannot be read
+     */
+    void run(Path directory) throws IOException {
+        if (directory == null) {
+            throw new IllegalArgumentException("Cannot be null");
+        }
+        if (!Files.isDirectory(directory)) {
+            throw new NoSuchFileException(directory.toString());
+        }
+        for (int segment = 0; Files.exists(OperationJournal.segmentPath(directory, segment)); segment++) {
+            try (FileChannel channel = FileChannel.open(OperationJournal.segmentPath(directory, segment),
+                    StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                int records = (int) (channel.size() / OperationJournal.RECORD_BYTES);
+                int batches = (records + BATCH_RECORDS - 1) / BATCH_RECORDS;
+                IntStream.range(0, batches).parallel().forEach(batch -> replayBatch(buffer,
+                        batch * BATCH_RECORDS, Math.min(records, (batch + 1) * BATCH_RECORDS)));
+            }
+        }
+    }
+
+    /**
+     * Returns the number of records replayed
+     * @return long - Number of records
+     */
+    long getRecordCount() {
+        return recordCount.get();
+    }
+
+    /**
+     * Returns the number of records whose result differs from the current code
+     * @return long - Number of mismatches
+     */
+    long getMismatchCount() {
+        return mismatchCount.get();
+    }
+
+    /**
+     * Returns the number of records with a bad checksum
+     * @return long - Number of corrupt records
+     */
+    long getCorruptCount() {
+        return corruptCount.get();
+    }
+
+    /**
+     * Returns descriptions of the first mismatches found
+     * @return List of descriptions
+     */
+    List<String> getMismatches() {
+        synchronized (mismatches) {
+            return new ArrayList<>(mismatches);
+        }
+    }
+
+    /**
+     * Replays the records in one range of a segment
+     * @param segment - Mapped segment
+     * @param from - First record
+     * @param to - Record after the last one
+     */
+    private void replayBatch(MappedByteBuffer segment, int from, int to) {
+        ByteBuffer record = ByteBuffer.allocate(OperationJournal.RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        CRC32C crc = new CRC32C();
+        long replayed = 0;
+        long corrupt = 0;
+        long mismatched = 0;
+        for (int r = from; r < to; r++) {
+            int offset = r * OperationJournal.RECORD_BYTES;
+            if (segment.get(offset) == 0) {
+                continue;
+            }
+            for (int i = 0; i < OperationJournal.RECORD_BYTES; i += 8) {
+                record.putLong(i, segment.getLong(offset + i));
+            }
+            if (OperationJournal.checksum(record, crc) != record.getInt(4)) {
+                corrupt++;
+                continue;
+            }
+            replayed++;
+            String mismatch = replay(record);
+            if (mismatch != null) {
+                mismatched++;
+                synchronized (mismatches) {
+                    if (mismatches.size() < MAX_REPORTED) {
+                        mismatches.add(mismatch);
+                    }
+                }
+            }
+        }
+        recordCount.addAndGet(replayed);
+        corruptCount.addAndGet(corrupt);
+        mismatchCount.addAndGet(mismatched);
+    }
+
+    /**
+     * Runs the calculation in the record again and compares the result
+     * @param record - Record with a valid checksum
+     * @return String - Description of the mismatch, or null if the result is the same
+     */
+    private static String replay(ByteBuffer record) {
+        byte kind = record.get(0);
+        int code1 = record.get(1);
+        int code2 = record.get(2);
+        try {
+            switch (kind) {
+                case OperationJournal.KIND_BINARY_OPERATION:
+                case OperationJournal.KIND_HEX_OPERATION: {
+                    boolean hex = kind == OperationJournal.KIND_HEX_OPERATION;
+                    String operator = OperationJournal.OPERATORS[code1];
+                    int a = record.getInt(16);
+                    int b = record.getInt(20);
+                    char[] chars = new char[record.get(3)];
+                    for (int i = 0; i < chars.length; i++) {
+                        chars[i] = (char) record.get(24 + i);
+                    }
+                    String expected = new String(chars);
+                    // The calculator reads negative values as a sign and magnitude, like Integer.toString
+                    String aText = Integer.toString(a, hex ? 16 : 2).toUpperCase();
+                    String bText = Integer.toString(b, hex ? 16 : 2).toUpperCase();
+                    String actual = Calculator.operation(operator, aText, bText, hex ? "hexadecimal" : "binary");
+                    return actual.equals(expected) ? null
+                            : aText + " " + operator + " " + bText + ": journal " + expected + ", now " + actual;
+                }
+                case OperationJournal.KIND_USAGE_TO_BANDWIDTH: {
+                    String sizeUnit = Calculator.SIZE_UNITS[code1];
+                    String bandwidthUnit = Calculator.BANDWIDTH_UNITS[code2];
+                    double usage = record.getDouble(16);
+                    double actual = Calculator.convertUsageToBandwidth(usage, sizeUnit, bandwidthUnit);
+                    return compare(usage + " " + sizeUnit + " per month in " + bandwidthUnit,
+                            record.getDouble(48), actual);
+                }
+                case OperationJournal.KIND_BANDWIDTH_TO_USAGE: {
+                    String bandwidthUnit = Calculator.BANDWIDTH_UNITS[code1];
+                    String sizeUnit = Calculator.SIZE_UNITS[code2];
+                    double bandwidth = record.getDouble(16);
+                    double actual = Calculator.convertBandwidthToUsage(bandwidth, bandwidthUnit, sizeUnit);
+                    return compare(bandwidth + " " + bandwidthUnit + " in " + sizeUnit + " per month",
+                            record.getDouble(48), actual);
+                }
+                case OperationJournal.KIND_LOAD_TIME: {
+                    String sizeUnit = Calculator.SIZE_UNITS[code1];
+                    String bandwidthUnit = Calculator.BANDWIDTH_UNITS[code2];
+                    double size = record.getDouble(16);
+                    double bandwidth = record.getDouble(24);
+                    double actual = Calculator.calculateLoadTimeSeconds(size, sizeUnit, bandwidth, bandwidthUnit);
+                    return compare("load time of " + size + " " + sizeUnit + " at " + bandwidth + " " + bandwidthUnit,
+                            record.getDouble(48), actual);
+                }
+                case OperationJournal.KIND_WEBSITE_BANDWIDTH: {
+                    String timeUnit = Calculator.TIME_UNITS[code1];
+                    String sizeUnit = Calculator.SIZE_UNITS[code2];
+                    double views = record.getDouble(16);
+                    double pageSize = record.getDouble(24);
+                    double redundancy = record.getDouble(32);
+                    Map<String, Double> actual = Calculator.calculateWebsiteBandwidth(views, timeUnit, pageSize,
+                            sizeUnit, redundancy);
+                    String name = "website bandwidth of " + views + " views per " + timeUnit + " of " + pageSize
+                            + " " + sizeUnit;
+                    String mismatch = compare(name, record.getDouble(48), actual.get("bandwidthSeconds"));
+                    return mismatch != null ? mismatch
+                            : compare(name, record.getDouble(56), actual.get("bandwidthMonths"));
+                }
+                default:
+                    return "unknown record kind " + kind;
+            }
+        } catch (RuntimeException e) {
+            return "record of kind " + kind + " can no longer be calculated: " + e.getMessage();
+        }
+    }
+
+    /**
+     * Compares a journaled result with the current one, bit for bit
+     * @param name - Description of the calculation
+     * @param expected - Result in the journal
+     * @param actual - Result now
+     * @return String - Description of the mismatch, or null if they are the same
+     */
+    private static String compare(String name, double expected, double actual) {
+        if (Double.compare(expected, actual) == 0) {
+            return null;
+        }
+        DoubleFormatter format = DoubleFormatter.shortest();
+        return name + ": journal " + format.format(expected) + ", now " + format.format(actual);
+    }
+}
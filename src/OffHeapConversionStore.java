@@ -0,0 +1,236 @@
+/*
+ * Off-heap storage for data size values converted to every unit in SIZE_UNITS.
+ * Each unit has its own column of packed doubles held in direct buffers outside the Java heap,
+ * so very large series do not create garbage or count towards the heap size.
+ * Direct memory is limited by -XX:MaxDirectMemorySize, which defaults to the maximum heap size.
+ * Java cannot free a direct buffer on request; its memory goes back only when the garbage collector collects it.
+ * So closing a store returns its blocks to a shared pool, up to POOL_BLOCKS of them, and later stores reuse those
+ * before allocating new ones. Blocks beyond that are dropped and are freed whenever the collector next runs.
+ * A store is filled by one thread at a time.
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+class OffHeapConversionStore implements AutoCloseable {
+
+    // Values per block; each block is 1 MB of direct memory
+    static final int BLOCK_VALUES = 1 << 17;
+    // Most closed blocks kept for reuse, 64 MB in all
+    static final int POOL_BLOCKS = 64;
+    // Blocks of closed stores waiting to be reused, shared by every store
+    private static final ArrayDeque<ByteBuffer> POOL = new ArrayDeque<>();
+
+    private static final String[] UNITS = Calculator.SIZE_UNITS;
+    // RATIOS[from][to] is the factor convertSizeUnit multiplies by
+    private static final double[][] RATIOS = new double[UNITS.length][UNITS.length];
+
+    static {
+        for (int from = 0; from < UNITS.length; from++) {
+            for (int to = 0; to < UNITS.length; to++) {
+                RATIOS[from][to] = (double) Calculator.getSizeUnitFactor(UNITS[to])
+                        / Calculator.getSizeUnitFactor(UNITS[from]);
+            }
+        }
+    }
+
+    private final List<List<ByteBuffer>> columns = new ArrayList<>();
+    private final DoubleBuffer[] current = new DoubleBuffer[UNITS.length];
+    private long size;
+    private boolean closed;
+
+    /**
+     * Creates an empty store with one column per data size unit
+     */
+    OffHeapConversionStore() {
+        for (int i = 0; i < UNITS.length; i++) {
+            columns.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Returns the position of the unit in SIZE_UNITS.
+     * Throws exception if the unit is not a data size unit.
+     * @param unit - Data size unit
+     * @return int - Column index of the unit
+     */
+    static int unitIndex(String unit) {
+        for (int i = 0; i < UNITS.length; i++) {
+            if (UNITS[i].equals(unit)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Not a valid data size unit");
+    }
+
+    /**
+     * Converts the value to every data size unit and appends the results as a new row
+     * @param value - Value of the data size
+     * @param unit - Unit of the value
+     */
+    void add(double value, String unit) {
+        add(value, unitIndex(unit));
+    }
+
+    /**
+     * Converts the value to every data size unit and appends the results as a new row
+     * @param value - Value of the data size
+     * @param unitIndex - Column index of the unit of the value, from unitIndex()
+     */
+    void add(double value, int unitIndex) {
+        checkOpen();
+        if (size % BLOCK_VALUES == 0) {
+            addBlocks();
+        }
+        double[] ratios = RATIOS[unitIndex];
+        for (int u = 0; u < current.length; u++) {
+            current[u].put(value * ratios[u]);
+        }
+        size++;
+    }
+
+    /**
+     * Returns the number of rows in the store
+     * @return long - Number of rows
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * Returns a stored value
+     * @param row - Row index, 0 to size() - 1
+     * @param unit - Unit of the column to read
+     * @return double - Value of the row converted to the unit
+     */
+    double get(long row, String unit) {
+        checkOpen();
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " is out of range");
+        }
+        ByteBuffer block = columns.get(unitIndex(unit)).get((int) (row / BLOCK_VALUES));
+        return block.getDouble((int) (row % BLOCK_VALUES) * Double.BYTES);
+    }
+
+    /**
+     * Returns an iterator over one column that reads values without boxing them
+     * @param unit - Unit of the column
+     * @return PrimitiveIterator.OfDouble - Iterator over the column in row order
+     */
+    PrimitiveIterator.OfDouble iterator(String unit) {
+        checkOpen();
+        List<ByteBuffer> blocks = columns.get(unitIndex(unit));
+        long rows = size;
+        return new PrimitiveIterator.OfDouble() {
+            private long row;
+
+            @Override
+            public boolean hasNext() {
+                return row < rows;
+            }
+
+            @Override
+            public double nextDouble() {
+                if (row >= rows) {
+                    throw new NoSuchElementException();
+                }
+                ByteBuffer block = blocks.get((int) (row / BLOCK_VALUES));
+                double value = block.getDouble((int) (row % BLOCK_VALUES) * Double.BYTES);
+                row++;
+                return value;
+            }
+        };
+    }
+
+    /**
+     * Writes one column to the channel as packed little-endian doubles, straight from off-heap memory
+     * @param unit - Unit of the column
+     * @param out - Channel to write to
+     * @throws IOException if the channel cannot be written
+     */
+    void export(String unit, WritableByteChannel out) throws IOException {
+        checkOpen();
+        List<ByteBuffer> blocks = columns.get(unitIndex(unit));
+        long remaining = size;
+        for (ByteBuffer block : blocks) {
+            int values = (int) Math.min(remaining, BLOCK_VALUES);
+            ByteBuffer view = block.duplicate();
+            view.position(0).limit(values * Double.BYTES);
+            while (view.hasRemaining()) {
+                out.write(view);
+            }
+            remaining -= values;
+        }
+    }
+
+    /**
+     * Returns the number of blocks waiting in the pool to be reused
+     * @return int - Number of blocks
+     */
+    static int pooledBlocks() {
+        synchronized (POOL) {
+            return POOL.size();
+        }
+    }
+
+    /**
+     * Returns the store's blocks to the pool for the next store to reuse, up to POOL_BLOCKS in the pool.
+     * The rest are dropped, and their memory is freed only when the garbage collector collects them.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        synchronized (POOL) {
+            for (List<ByteBuffer> column : columns) {
+                for (ByteBuffer block : column) {
+                    if (POOL.size() >= POOL_BLOCKS) {
+                        break;
+                    }
+                    POOL.add(block);
+                }
+            }
+        }
+        columns.clear();
+        for (int i = 0; i < current.length; i++) {
+            current[i] = null;
+        }
+        size = 0;
+    }
+
+    /**
+     * Adds the next block to every column, reusing pooled blocks before allocating new ones
+     */
+    private void addBlocks() {
+        for (int u = 0; u < current.length; u++) {
+            ByteBuffer block;
+            synchronized (POOL) {
+                block = POOL.poll();
+            }
+            if (block == null) {
+                block = ByteBuffer.allocateDirect(BLOCK_VALUES * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            }
+            columns.get(u).add(block);
+            current[u] = block.asDoubleBuffer();
+        }
+    }
+
+    /**
+     * Throws exception if the store has been closed
+     */
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Store is closed");
+        }
+    }
+}
@@ -0,0 +1,348 @@
+/*
+ * Append-only audit trail of the calculations made through the calculator library functions.
+ * Every record is 64 bytes with a fixed layout (little-endian):
+ *    0      kind of calculation (a KIND_ constant; 0 marks an unused slot)
+ *    1-3    operator and unit codes, or the length of an operation's result
+ *    4-7    CRC32C of every other byte of the record
+ *    8-15   time of the calculation in milliseconds since the epoch
+ *    16-63  inputs and results
+ * Records go into segment files of a fixed number of records ("journal-000000.seg", ...), each mapped into memory,
+ * so appending is a memory write and does not make a system call. Appending threads reserve slots with one atomic
+ * counter and never block each other. A background thread commits (forces to disk) everything appended since the
+ * last commit every few milliseconds, so one disk flush covers many records.
+ * JournalReplay reads the segments back and checks the results against the current code.
+ */
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32C;
+
+class OperationJournal implements AutoCloseable {
+
+    static final int RECORD_BYTES = 64;
+    static final int DEFAULT_SEGMENT_RECORDS = 1 << 20;
+
+    static final byte KIND_BINARY_OPERATION = 1;
+    static final byte KIND_HEX_OPERATION = 2;
+    static final byte KIND_USAGE_TO_BANDWIDTH = 3;
+    static final byte KIND_BANDWIDTH_TO_USAGE = 4;
+    static final byte KIND_LOAD_TIME = 5;
+    static final byte KIND_WEBSITE_BANDWIDTH = 6;
+
+    static final String[] OPERATORS = {"+", "-", "*", "/"};
+    // Longest operation result that fits in a record
+    static final int MAX_RESULT_LENGTH = RECORD_BYTES - 24;
+
+    private static final long COMMIT_INTERVAL_MILLIS = 10;
+
+    // Each appending thread builds its record here before copying it into the mapped segment
+    private static final ThreadLocal<ByteBuffer> SCRATCH = ThreadLocal.withInitial(
+            () -> ByteBuffer.allocate(RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN));
+    private static final ThreadLocal<CRC32C> CRC = ThreadLocal.withInitial(CRC32C::new);
+
+    private final Path directory;
+    private final int segmentRecords;
+    private final AtomicLong nextRecord;
+    // Slots whose record has been completely copied in; behind nextRecord while appends are in flight
+    private final AtomicLong writtenRecords;
+    private final ScheduledExecutorService committer;
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    private long committedRecords;
+    private volatile boolean closed;
+
+    /**
+     * Opens the journal in the given directory, creating it if needed, and continues after its last record
+     * @param directory - Directory of the segment files
+     * @throws IOException if the directory or segments cannot be opened
+     */
+    OperationJournal(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_RECORDS);
+    }
+
+    /**
+     * Opens the journal in the given directory, creating it if needed, and continues after its last record
+     * @param directory - Directory of the segment files
+     * @param segmentRecords - Number of records in each new segment file
+     * @throws IOException if the directory or segments cannot be opened
+     */
+    OperationJournal(Path directory, int segmentRecords) throws IOException {
+        if (directory == null) {
+            throw new IllegalArgumentException("Cannot be null");
+        }
+        if (segmentRecords < 1 || (long) segmentRecords * RECORD_BYTES > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Not a valid segment size");
+        }
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+        long end = findEnd();
+        this.nextRecord = new AtomicLong(end);
+        this.writtenRecords = new AtomicLong(end);
+        this.committedRecords = end;
+        this.committer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-commit");
+            thread.setDaemon(true);
+            return thread;
+        });
+        committer.scheduleWithFixedDelay(this::commitQuietly, COMMIT_INTERVAL_MILLIS, COMMIT_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the path of a segment file
+     * @param directory - Directory of the journal
+     * @param segment - Segment number
+     * @return Path - Path of the segment
+     */
+    static Path segmentPath(Path directory, int segment) {
+        return directory.resolve(String.format("journal-%06d.seg", segment));
+    }
+
+    /**
+     * Returns the number of record slots used so far, including slots still being written
+     * @return long - Number of records
+     */
+    long size() {
+        return nextRecord.get();
+    }
+
+    /**
+     * Records a binary or hexadecimal operation
+     * @param hexadecimal - True for a hexadecimal operation, false for binary
+     * @param operator - "+", "-", "*", or "/"
+     * @param a - First value
+     * @param b - Second value
+     * @param result - Result returned by the operation
+     */
+    void recordOperation(boolean hexadecimal, String operator, int a, int b, String result) {
+        int length = Math.min(result.length(), MAX_RESULT_LENGTH);
+        ByteBuffer record = start(hexadecimal ? KIND_HEX_OPERATION : KIND_BINARY_OPERATION,
+                indexOf(OPERATORS, operator), 0, length);
+        record.putInt(16, a).putInt(20, b);
+        for (int i = 0; i < length; i++) {
+            record.put(24 + i, (byte) result.charAt(i));
+        }
+        append(record);
+    }
+
+    /**
+     * Records a calculation with unit codes and up to three inputs and two results
+     * @param kind - Kind of calculation, one of the KIND_ constants for bandwidth functions
+     * @param unit1 - First unit code
+     * @param unit2 - Second unit code
+     * @param input1 - First input
+     * @param input2 - Second input
+     * @param input3 - Third input
+     * @param result1 - First result
+     * @param result2 - Second result
+     */
+    void recordCalculation(byte kind, int unit1, int unit2, double input1, double input2, double input3,
+                           double result1, double result2) {
+        ByteBuffer record = start(kind, unit1, unit2, 0);
+        record.putDouble(16, input1).putDouble(24, input2).putDouble(32, input3)
+                .putDouble(48, result1).putDouble(56, result2);
+        append(record);
+    }
+
+    /**
+     * Forces every record appended so far to disk
+     * @throws IOException if the segments cannot be written
+     */
+    synchronized void commit() throws IOException {
+        // Read the written count first: if it then equals the reserved count, no append was in flight
+        long written = writtenRecords.get();
+        long end = nextRecord.get();
+        if (end == committedRecords) {
+            return;
+        }
+        MappedByteBuffer[] mapped = segments;
+        int first = (int) (committedRecords / segmentRecords);
+        int last = (int) ((end - 1) / segmentRecords);
+        for (int s = first; s <= last && s < mapped.length; s++) {
+            if (mapped[s] != null) {
+                mapped[s].force();
+            }
+        }
+        if (written == end) {
+            committedRecords = end;
+        }
+    }
+
+    /**
+     * Commits outstanding records and stops the background commits
+     * @throws IOException if the segments cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        committer.shutdown();
+        try {
+            committer.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        commit();
+    }
+
+    /**
+     * Computes the checksum of a record, leaving out the checksum field
+     * @param record - Record of RECORD_BYTES bytes starting at position 0
+     * @param crc - Checksum to use; it is reset first
+     * @return int - Checksum of the record
+     */
+    static int checksum(ByteBuffer record, CRC32C crc) {
+        crc.reset();
+        if (record.hasArray()) {
+            byte[] bytes = record.array();
+            int base = record.arrayOffset();
+            crc.update(bytes, base, 4);
+            crc.update(bytes, base + 8, RECORD_BYTES - 8);
+        } else {
+            for (int i = 0; i < RECORD_BYTES; i++) {
+                if (i < 4 || i >= 8) {
+                    crc.update(record.get(i));
+                }
+            }
+        }
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Returns the position of the String in the array, or -1
+     * @param array - Array to search
+     * @param find - String to look for
+     * @return int - Index of the String
+     */
+    static int indexOf(String[] array, String find) {
+        for (int i = 0; i < array.length; i++) {
+            if (array[i].equals(find)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Clears the calling thread's scratch record and fills in its header
+     * @param kind - Kind of calculation
+     * @param code1 - First code
+     * @param code2 - Second code
+     * @param code3 - Third code
+     * @return ByteBuffer - Scratch record
+     */
+    private ByteBuffer start(byte kind, int code1, int code2, int code3) {
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+        ByteBuffer record = SCRATCH.get();
+        Arrays.fill(record.array(), (byte) 0);
+        record.put(0, kind).put(1, (byte) code1).put(2, (byte) code2).put(3, (byte) code3);
+        record.putLong(8, System.currentTimeMillis());
+        return record;
+    }
+
+    /**
+     * Reserves the next slot and copies the record into it
+     * @param record - Scratch record
+     */
+    private void append(ByteBuffer record) {
+        record.putInt(4, checksum(record, CRC.get()));
+        long index = nextRecord.getAndIncrement();
+        MappedByteBuffer segment = segment((int) (index / segmentRecords));
+        int offset = (int) (index % segmentRecords) * RECORD_BYTES;
+        // Absolute writes leave the shared buffer's position alone, so threads can write different slots at once
+        for (int i = RECORD_BYTES - 8; i >= 0; i -= 8) {
+            segment.putLong(offset + i, record.getLong(i));
+        }
+        writtenRecords.incrementAndGet();
+    }
+
+    /**
+     * Returns the mapped segment, mapping only that segment if needed. Earlier slots of the array stay null until an
+     * append reaches them; commit skips them.
+     * @param segment - Segment number
+     * @return MappedByteBuffer - Mapped segment
+     */
+    private MappedByteBuffer segment(int segment) {
+        MappedByteBuffer[] mapped = segments;
+        if (segment < mapped.length && mapped[segment] != null) {
+            return mapped[segment];
+        }
+        synchronized (this) {
+            mapped = segments;
+            if (segment >= mapped.length) {
+                mapped = Arrays.copyOf(mapped, Math.max(segment + 1, mapped.length * 2));
+            }
+            if (mapped[segment] == null) {
+                try (FileChannel channel = FileChannel.open(segmentPath(directory, segment),
+                        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    long bytes = Math.max(channel.size(), (long) segmentRecords * RECORD_BYTES);
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+                    buffer.order(ByteOrder.LITTLE_ENDIAN);
+                    mapped[segment] = buffer;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            segments = mapped;
+            return mapped[segment];
+        }
+    }
+
+    /**
+     * Finds the slot after the last record in the journal
+     * @return long - Index of the first free slot
+     * @throws IOException if a segment cannot be read
+     */
+    private long findEnd() throws IOException {
+        int last = -1;
+        while (Files.exists(segmentPath(directory, last + 1))) {
+            last++;
+        }
+        if (last < 0) {
+            return 0;
+        }
+        Path path = segmentPath(directory, last);
+        long size = Files.size(path);
+        if (size % RECORD_BYTES != 0 || size / RECORD_BYTES != segmentRecords) {
+            throw new IOException("Segment " + path + " does not hold " + segmentRecords + " records");
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            long used = 0;
+            for (long slot = segmentRecords - 1; slot >= 0; slot--) {
+                if (buffer.get((int) (slot * RECORD_BYTES)) != 0) {
+                    used = slot + 1;
+                    break;
+                }
+            }
+            return (long) last * segmentRecords + used;
+        }
+    }
+
+    /**
+     * Commits from the background thread, which has nowhere to report errors to
+     */
+    private void commitQuietly() {
+        try {
+            commit();
+        } catch (IOException | UncheckedIOException e) {
+            // Left for the next commit or close() to retry and report
+        }
+    }
+}
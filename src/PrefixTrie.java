@@ -0,0 +1,856 @@
+/*
+ * A set of IPv4 and IPv6 CIDR prefixes for the binary calculator, e.g. "10.0.0.0/8" or "2001:db8::/32".
+ * Each address family is kept in a path-compressed binary (Patricia) trie: a node holds a whole prefix, and one-way
+ * branches are skipped, so there are fewer than two nodes per prefix however long the prefixes are. Nodes live in
+ * primitive arrays indexed by node number rather than in objects, which keeps them compact and close together.
+ * Addresses are held as two longs, most significant bits first; IPv4 uses the top 32 bits of the first.
+ * Supports:
+ *    - longest-prefix match: the most specific prefix containing an address
+ *    - aggregation: the fewest prefixes covering exactly the same addresses, dropping prefixes covered by others
+ *      and merging neighbours that together make a shorter prefix
+ *    - difference: the addresses of one set that are not in another, as prefixes
+ * Prefix files have one prefix per line; anything after the prefix on a line, blank lines, and lines starting
+ * with "#" are ignored, and a bare address is a single-address prefix. Bits set past the prefix length are cleared.
+ */
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+class PrefixTrie {
+
+    static final String AGGREGATE = "aggregate";
+    static final String LOOKUP = "lookup";
+    static final String DIFFERENCE = "difference";
+    static final String[] OPERATIONS = {AGGREGATE, LOOKUP, DIFFERENCE};
+
+    private static final int IPV4_BITS = 32;
+    private static final int IPV6_BITS = 128;
+
+    private final Trie ipv4 = new Trie(IPV4_BITS);
+    private final Trie ipv6 = new Trie(IPV6_BITS);
+    private long invalidLines;
+
+    /**
+     * Reads a prefix file, skipping lines that are not valid prefixes
+     * @param file - Path of the file
+     * @return PrefixTrie - Prefixes of the file
+     * @throws IOException if the file cannot be read
+     */
+    static PrefixTrie load(Path file) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("Cannot be null");
+        }
+        PrefixTrie prefixes = new PrefixTrie();
+        long[] key = new long[4];
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int start = 0;
+                while (start < line.length() && Character.isWhitespace(line.charAt(start))) {
+                    start++;
+                }
+                if (start == line.length() || line.charAt(start) == '#') {
+                    continue;
+                }
+                int end = start;
+                while (end < line.length() && !Character.isWhitespace(line.charAt(end))) {
+                    end++;
+                }
+                if (parse(line, start, end, true, key)) {
+                    prefixes.add(key);
+                } else {
+                    prefixes.invalidLines++;
+                }
+            }
+        }
+        return prefixes;
+    }
+
+    /**
+     * Adds a prefix to the set
+     * @param prefix - Prefix such as "10.0.0.0/8", or an address for a single-address prefix
+     * @return boolean - True if the prefix was added, false if it was already in the set
+     */
+    boolean add(String prefix) {
+        if (prefix == null) {
+            throw new IllegalArgumentException("Cannot be null");
+        }
+        long[] key = new long[4];
+        if (!parse(prefix, 0, prefix.length(), true, key)) {
+            throw new IllegalArgumentException("Not a valid prefix");
+        }
+        return add(key);
+    }
+
+    private boolean add(long[] key) {
+        return key[3] == IPV4_BITS ? ipv4.add(key[0], 0, (int) key[2]) : ipv6.add(key[0], key[1], (int) key[2]);
+    }
+
+    /**
+     * Returns the number of prefixes in the set
+     * @return int - Number of prefixes
+     */
+    int size() {
+        return ipv4.prefixes + ipv6.prefixes;
+    }
+
+    /**
+     * Returns the number of IPv4 prefixes in the set
+     * @return int - Number of prefixes
+     */
+    int ipv4Size() {
+        return ipv4.prefixes;
+    }
+
+    /**
+     * Returns the number of lines that were skipped when loading because they were not valid prefixes
+     * @return long - Number of lines
+     */
+    long getInvalidLines() {
+        return invalidLines;
+    }
+
+    /**
+     * Finds the most specific prefix containing the address
+     * @param address - IPv4 or IPv6 address
+     * @return String - Matching prefix, or null if no prefix contains it
+     */
+    String lookup(String address) {
+        if (address == null) {
+            throw new IllegalArgumentException("Cannot be null");
+        }
+        long[] key = new long[4];
+        if (!parse(address, 0, address.length(), false, key)) {
+            throw new IllegalArgumentException("Not a valid address");
+        }
+        boolean v4 = key[3] == IPV4_BITS;
+        Trie trie = v4 ? ipv4 : ipv6;
+        int node = trie.lookup(key[0], key[1]);
+        return node < 0 ? null : trie.format(node);
+    }
+
+    /**
+     * Finds the length of the most specific IPv4 prefix containing the address
+     * @param address - IPv4 address as 32 bits
+     * @return int - Length of the matching prefix, or -1 if no prefix contains it
+     */
+    int lookupIPv4(int address) {
+        return ipv4.lookupLength(address);
+    }
+
+    /**
+     * Finds the lengths of the most specific IPv4 prefixes containing each of many addresses, faster than one at a time
+     * @param addresses - IPv4 addresses as 32 bits
+     * @param lengths - Receives the length of each matching prefix, or -1 where no prefix contains the address
+     */
+    void lookupIPv4(int[] addresses, int[] lengths) {
+        if (addresses == null || lengths == null) {
+            throw new IllegalArgumentException("Cannot be null");
+        }
+        if (lengths.length < addresses.length) {
+            throw new IllegalArgumentException("Not a valid size");
+        }
+        ipv4.lookupLengths(addresses, lengths);
+    }
+
+    /**
+     * Returns the fewest prefixes that cover exactly the same addresses as this set
+     * @return PrefixTrie - Aggregated prefixes
+     */
+    PrefixTrie aggregate() {
+        PrefixTrie result = new PrefixTrie();
+        ipv4.aggregate(result.ipv4);
+        ipv6.aggregate(result.ipv6);
+        return result;
+    }
+
+    /**
+     * Returns the addresses of this set that are not in the other set, as the fewest prefixes
+     * @param other - Prefixes to take away
+     * @return PrefixTrie - Prefixes of the difference
+     */
+    PrefixTrie difference(PrefixTrie other) {
+        if (other == null) {
+            throw new IllegalArgumentException("Cannot be null");
+        }
+        PrefixTrie result = new PrefixTrie();
+        ipv4.difference(other.ipv4, result.ipv4);
+        ipv6.difference(other.ipv6, result.ipv6);
+        return result.aggregate();
+    }
+
+    /**
+     * Passes every prefix to the action in address order, IPv4 first
+     * @param action - Action to run on each prefix
+     */
+    void forEach(Consumer<String> action) {
+        ipv4.forEach(action);
+        ipv6.forEach(action);
+    }
+
+    /**
+     * Writes the prefixes to a file, one per line in address order, IPv4 first
+     * @param file - Path of the file to write (created or replaced)
+     * @throws IOException if the file cannot be written
+     */
+    void write(Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            IOException[] failure = new IOException[1];
+            forEach(prefix -> {
+                if (failure[0] == null) {
+                    try {
+                        writer.write(prefix);
+                        writer.newLine();
+                    } catch (IOException e) {
+                        failure[0] = e;
+                    }
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+        }
+    }
+
+    /**
+     * Parses an IPv4 or IPv6 address with an optional prefix length
+     * @param text - Text containing the address
+     * @param start - Index of the first character
+     * @param end - Index after the last character
+     * @param allowLength - True to accept "/length" after the address
+     * @param key - Receives the high and low 64 bits, the prefix length, and 32 for IPv4 or 128 for IPv6
+     * @return boolean - True if the text is a valid address
+     */
+    private static boolean parse(String text, int start, int end, boolean allowLength, long[] key) {
+        int slash = text.indexOf('/', start);
+        int addressEnd = slash >= 0 && slash < end ? slash : end;
+        int length;
+        if (addressEnd < end) {
+            if (!allowLength || end - addressEnd < 2 || end - addressEnd > 4) {
+                return false;
+            }
+            length = 0;
+            for (int i = addressEnd + 1; i < end; i++) {
+                char c = text.charAt(i);
+                if (c < '0' || c > '9') {
+                    return false;
+                }
+                length = length * 10 + (c - '0');
+            }
+        } else {
+            length = -1;
+        }
+
+        boolean v4 = text.indexOf(':', start) < 0 || text.indexOf(':', start) >= addressEnd;
+        int bits = v4 ? IPV4_BITS : IPV6_BITS;
+        boolean valid = v4 ? parseIPv4(text, start, addressEnd, key) : parseIPv6(text, start, addressEnd, key);
+        if (!valid || length > bits) {
+            return false;
+        }
+        length = length < 0 ? bits : length;
+        key[0] &= maskHigh(length);
+        key[1] = v4 ? 0 : key[1] & maskLow(length);
+        key[2] = length;
+        key[3] = bits;
+        return true;
+    }
+
+    private static boolean parseIPv4(String text, int start, int end, long[] key) {
+        long address = 0;
+        int octets = 0;
+        int i = start;
+        while (octets < 4) {
+            int digits = 0;
+            int value = 0;
+            while (i < end && text.charAt(i) >= '0' && text.charAt(i) <= '9' && digits < 3) {
+                value = value * 10 + (text.charAt(i++) - '0');
+                digits++;
+            }
+            if (digits == 0 || value > 255) {
+                return false;
+            }
+            address = address << 8 | value;
+            octets++;
+            if (octets < 4) {
+                if (i >= end || text.charAt(i) != '.') {
+                    return false;
+                }
+                i++;
+            }
+        }
+        key[0] = address << 32;
+        return i == end;
+    }
+
+    private static boolean parseIPv6(String text, int start, int end, long[] key) {
+        int[] groups = new int[8];
+        int count = 0;
+        // Index in groups where "::" stands for the missing zero groups, or -1
+        int gap = -1;
+        int i = start;
+        if (end - start >= 2 && text.startsWith("::", start)) {
+            gap = 0;
+            i += 2;
+        }
+        while (i < end) {
+            int digits = 0;
+            int value = 0;
+            while (i < end && digits < 5 && Character.digit(text.charAt(i), 16) >= 0) {
+                value = value << 4 | Character.digit(text.charAt(i++), 16);
+                digits++;
+            }
+            if (digits == 0 || digits > 4 || count == 8) {
+                return false;
+            }
+            groups[count++] = value;
+            if (i == end) {
+                break;
+            }
+            if (text.charAt(i) != ':') {
+                return false;
+            }
+            i++;
+            if (i < end && text.charAt(i) == ':') {
+                if (gap >= 0) {
+                    return false;
+                }
+                gap = count;
+                i++;
+            } else if (i == end) {
+                return false;
+            }
+        }
+        if (gap < 0 ? count != 8 : count == 8) {
+            return false;
+        }
+        if (gap >= 0) {
+            int missing = 8 - count;
+            System.arraycopy(groups, gap, groups, gap + missing, count - gap);
+            Arrays.fill(groups, gap, gap + missing, 0);
+        }
+        long high = 0;
+        long low = 0;
+        for (int g = 0; g < 4; g++) {
+            high = high << 16 | groups[g];
+            low = low << 16 | groups[g + 4];
+        }
+        key[0] = high;
+        key[1] = low;
+        return true;
+    }
+
+    /**
+     * Formats a prefix as text: dotted decimal for IPv4 and RFC 5952 form for IPv6
+     * @param high - High 64 bits of the address
+     * @param low - Low 64 bits of the address
+     * @param length - Prefix length
+     * @param bits - 32 for IPv4, 128 for IPv6
+     * @return String - Prefix such as "10.0.0.0/8"
+     */
+    private static String format(long high, long low, int length, int bits) {
+        StringBuilder text = new StringBuilder(bits == IPV4_BITS ? 18 : 43);
+        if (bits == IPV4_BITS) {
+            for (int shift = 56; shift >= 32; shift -= 8) {
+                text.append(high >>> shift & 0xFF);
+                if (shift > 32) {
+                    text.append('.');
+                }
+            }
+        } else {
+            int[] groups = new int[8];
+            for (int g = 0; g < 4; g++) {
+                groups[g] = (int) (high >>> (48 - 16 * g) & 0xFFFF);
+                groups[g + 4] = (int) (low >>> (48 - 16 * g) & 0xFFFF);
+            }
+            // The first longest run of two or more zero groups is written as "::"
+            int runStart = -1;
+            int runLength = 1;
+            for (int g = 0; g < 8; ) {
+                int end = g;
+                while (end < 8 && groups[end] == 0) {
+                    end++;
+                }
+                if (end - g > runLength) {
+                    runStart = g;
+                    runLength = end - g;
+                }
+                g = end == g ? g + 1 : end;
+            }
+            for (int g = 0; g < 8; g++) {
+                if (g == runStart) {
+                    text.append("::");
+                    g += runLength - 1;
+                    continue;
+                }
+                if (g > 0 && g != runStart + runLength) {
+                    text.append(':');
+                }
+                text.append(Integer.toHexString(groups[g]));
+            }
+        }
+        return text.append('/').append(length).toString();
+    }
+
+    /**
+     * Returns a mask of the first bits of the high 64 bits that are inside a prefix of the given length
+     * @param length - Prefix length
+     * @return long - Mask of the high bits
+     */
+    private static long maskHigh(int length) {
+        return length == 0 ? 0 : length >= 64 ? -1L : -1L << (64 - length);
+    }
+
+    /**
+     * Returns a mask of the first bits of the low 64 bits that are inside a prefix of the given length
+     * @param length - Prefix length
+     * @return long - Mask of the low bits
+     */
+    private static long maskLow(int length) {
+        return length <= 64 ? 0 : length == 128 ? -1L : -1L << (128 - length);
+    }
+
+    /**
+     * The prefixes of one address family
+     */
+    private static final class Trie {
+
+        private static final int NONE = 0;
+        private static final int PARTIAL = 1;
+        private static final int FULL = 2;
+        // Addresses walked down the trie together by lookupLengths
+        private static final int LOOKUP_GROUP = 16;
+        private static final int MIN_JUMP_BITS = 8;
+        private static final int MAX_JUMP_BITS = 24;
+
+        private final int bits;
+        // Prefix of each node; a node's children share its prefix and differ in the bit after it
+        private long[] high = new long[16];
+        private long[] low = new long[16];
+        private byte[] lengths = new byte[16];
+        // True for nodes that are prefixes of the set rather than only branch points
+        private boolean[] stored = new boolean[16];
+        // Children of node n at 2n (next bit 0) and 2n + 1 (next bit 1), or -1
+        private int[] children = new int[32];
+        private int nodes;
+        private int root = -1;
+        private int prefixes;
+        // Read-only copy of an IPv4 trie for lookups, made on the first lookup after a change, or null. Nodes are
+        // numbered depth first and take two longs each, so one node is one memory access: first the prefix bits in
+        // the top 32 bits, 0x100 if stored, and the length; then the 0 side child in the top 32 bits and the 1 side.
+        private long[] flat;
+        // For each value of the first jumpBits bits, the longest stored prefix shorter than jumpBits plus 1 in the top
+        // 32 bits, and the node to continue from in the rest (-1 if none)
+        private long[] jump;
+        private int jumpBits;
+
+        Trie(int bits) {
+            this.bits = bits;
+        }
+
+        int length(int node) {
+            return lengths[node] & 0xFF;
+        }
+
+        String format(int node) {
+            return PrefixTrie.format(high[node], low[node], length(node), bits);
+        }
+
+        private int newNode(long keyHigh, long keyLow, int length, boolean prefix) {
+            if (nodes == high.length) {
+                int capacity = nodes * 2;
+                high = Arrays.copyOf(high, capacity);
+                low = Arrays.copyOf(low, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+                stored = Arrays.copyOf(stored, capacity);
+                children = Arrays.copyOf(children, capacity * 2);
+            }
+            int node = nodes++;
+            flat = null;
+            high[node] = keyHigh;
+            low[node] = keyLow;
+            lengths[node] = (byte) length;
+            stored[node] = prefix;
+            children[2 * node] = -1;
+            children[2 * node + 1] = -1;
+            if (prefix) {
+                prefixes++;
+            }
+            return node;
+        }
+
+        /**
+         * Returns the bit of the key after the first length bits
+         */
+        private static int bit(long keyHigh, long keyLow, int length) {
+            return (int) (length < 64 ? keyHigh >>> (63 - length) : keyLow >>> (127 - length)) & 1;
+        }
+
+        /**
+         * Determines if the key starts with the first length bits of the node's prefix
+         */
+        private boolean matches(int node, long keyHigh, long keyLow, int length) {
+            return ((keyHigh ^ high[node]) & maskHigh(length)) == 0 && ((keyLow ^ low[node]) & maskLow(length)) == 0;
+        }
+
+        /**
+         * Adds a prefix whose bits past its length are zero
+         * @return boolean - True if it was not already in the trie
+         */
+        boolean add(long keyHigh, long keyLow, int length) {
+            if (root < 0) {
+                root = newNode(keyHigh, keyLow, length, true);
+                return true;
+            }
+            int parentSlot = -1;
+            int node = root;
+            while (true) {
+                int nodeLength = length(node);
+                long differentHigh = keyHigh ^ high[node];
+                int common = differentHigh != 0 ? Long.numberOfLeadingZeros(differentHigh)
+                        : 64 + Long.numberOfLeadingZeros(keyLow ^ low[node]);
+                common = Math.min(common, Math.min(length, nodeLength));
+                if (common < nodeLength) {
+                    // The key leaves the node's prefix early, so a node is put in above this one
+                    int above;
+                    if (common == length) {
+                        above = newNode(keyHigh, keyLow, length, true);
+                        children[2 * above + bit(high[node], low[node], length)] = node;
+                    } else {
+                        above = newNode(keyHigh & maskHigh(common), keyLow & maskLow(common), common, false);
+                        int added = newNode(keyHigh, keyLow, length, true);
+                        int side = bit(keyHigh, keyLow, common);
+                        children[2 * above + side] = added;
+                        children[2 * above + 1 - side] = node;
+                    }
+                    if (parentSlot < 0) {
+                        root = above;
+                    } else {
+                        children[parentSlot] = above;
+                    }
+                    return true;
+                }
+                if (nodeLength == length) {
+                    if (stored[node]) {
+                        return false;
+                    }
+                    stored[node] = true;
+                    prefixes++;
+                    flat = null;
+                    return true;
+                }
+                int slot = 2 * node + bit(keyHigh, keyLow, nodeLength);
+                if (children[slot] < 0) {
+                    // newNode may replace the children array, so it is called before the array is read
+                    int added = newNode(keyHigh, keyLow, length, true);
+                    children[slot] = added;
+                    return true;
+                }
+                parentSlot = slot;
+                node = children[slot];
+            }
+        }
+
+        /**
+         * Finds the length of the most specific prefix containing an IPv4 address
+         * @return int - Length of the prefix, or -1
+         */
+        int lookupLength(int address) {
+            if (flat == null) {
+                compile();
+            }
+            long key = (long) address << 32;
+            long start = jump[address >>> (32 - jumpBits)];
+            int best = (int) (start >> 32) - 1;
+            int node = (int) start;
+            while (node >= 0) {
+                long entry = flat[2 * node];
+                int length = (int) entry & 0xFF;
+                // A shift of 64 would leave the value unchanged, so length 0 is handled by shifting twice
+                if (((key ^ entry) >>> 1 >>> (63 - length)) != 0) {
+                    break;
+                }
+                if ((entry & 0x100) != 0) {
+                    best = length;
+                }
+                if (length == IPV4_BITS) {
+                    break;
+                }
+                // The child is in the top half of the second long for bit 0 and the bottom half for bit 1
+                node = (int) (flat[2 * node + 1] >>> ((~address >>> (31 - length) & 1) << 5));
+            }
+            return best;
+        }
+
+        /**
+         * Finds the lengths of the most specific prefixes containing many IPv4 addresses. A group of addresses is
+         * walked down the trie one step each in turn, so the memory reads of different addresses overlap instead of
+         * each waiting for the last.
+         */
+        void lookupLengths(int[] addresses, int[] results) {
+            if (flat == null) {
+                compile();
+            }
+            int[] nodes = new int[LOOKUP_GROUP];
+            int[] best = new int[LOOKUP_GROUP];
+            for (int first = 0; first < addresses.length; first += LOOKUP_GROUP) {
+                int group = Math.min(LOOKUP_GROUP, addresses.length - first);
+                int walking = 0;
+                for (int i = 0; i < group; i++) {
+                    long start = jump[addresses[first + i] >>> (32 - jumpBits)];
+                    best[i] = (int) (start >> 32) - 1;
+                    nodes[i] = (int) start;
+                    walking += nodes[i] >= 0 ? 1 : 0;
+                }
+                while (walking > 0) {
+                    walking = 0;
+                    for (int i = 0; i < group; i++) {
+                        int node = nodes[i];
+                        if (node < 0) {
+                            continue;
+                        }
+                        int address = addresses[first + i];
+                        long entry = flat[2 * node];
+                        int length = (int) entry & 0xFF;
+                        if ((((long) address << 32 ^ entry) >>> 1 >>> (63 - length)) != 0) {
+                            nodes[i] = -1;
+                            continue;
+                        }
+                        if ((entry & 0x100) != 0) {
+                            best[i] = length;
+                        }
+                        node = length == IPV4_BITS ? -1
+                                : (int) (flat[2 * node + 1] >>> ((~address >>> (31 - length) & 1) << 5));
+                        nodes[i] = node;
+                        walking += node >= 0 ? 1 : 0;
+                    }
+                }
+                System.arraycopy(best, 0, results, first, group);
+            }
+        }
+
+        /**
+         * Makes the read-only copy of an IPv4 trie and the table of where to start for each value of the first bits
+         */
+        private void compile() {
+            long[] copy = new long[2 * Math.max(nodes, 1)];
+            int[] numbers = new int[nodes];
+            int[] order = new int[nodes];
+            int count = 0;
+            int[] stack = new int[bits + 2];
+            int depth = 0;
+            if (root >= 0) {
+                stack[depth++] = root;
+            }
+            while (depth > 0) {
+                int node = stack[--depth];
+                numbers[node] = count;
+                order[count++] = node;
+                for (int side = 1; side >= 0; side--) {
+                    if (children[2 * node + side] >= 0) {
+                        stack[depth++] = children[2 * node + side];
+                    }
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                int node = order[i];
+                int zero = children[2 * node];
+                int one = children[2 * node + 1];
+                copy[2 * i] = high[node] & 0xFFFFFFFF00000000L | (stored[node] ? 0x100 : 0) | length(node);
+                copy[2 * i + 1] = (long) (zero < 0 ? -1 : numbers[zero]) << 32
+                        | (one < 0 ? -1 : numbers[one]) & 0xFFFFFFFFL;
+            }
+
+            // About one bucket per node, so most lookups need at most a step or two past the table
+            int tableBits = Math.max(MIN_JUMP_BITS, Math.min(MAX_JUMP_BITS, 33 - Integer.numberOfLeadingZeros(nodes)));
+            long[] starts = new long[1 << tableBits];
+            Arrays.fill(starts, 0xFFFFFFFFL);
+            if (root >= 0) {
+                fillJump(root, -1, starts, tableBits, numbers);
+            }
+            flat = copy;
+            jump = starts;
+            jumpBits = tableBits;
+        }
+
+        /**
+         * Fills the buckets of the jump table under a node: nodes shorter than the table split their buckets between
+         * their children, and each node at least as long as the table is where lookups in its bucket start
+         * @param node - Node of the trie
+         * @param best - Longest stored prefix above the node, or -1
+         * @param starts - Jump table
+         * @param tableBits - Number of leading bits that index the table
+         * @param numbers - Number of each node in the read-only copy
+         */
+        private void fillJump(int node, int best, long[] starts, int tableBits, int[] numbers) {
+            int length = length(node);
+            int first = (int) (high[node] >>> (64 - tableBits));
+            if (length >= tableBits) {
+                starts[first] = (long) (best + 1) << 32 | numbers[node];
+                return;
+            }
+            if (stored[node]) {
+                best = length;
+            }
+            Arrays.fill(starts, first, first + (1 << (tableBits - length)), (long) (best + 1) << 32 | 0xFFFFFFFFL);
+            for (int side = 0; side < 2; side++) {
+                int child = children[2 * node + side];
+                if (child >= 0) {
+                    fillJump(child, best, starts, tableBits, numbers);
+                }
+            }
+        }
+
+        /**
+         * Finds the most specific prefix containing a 128-bit address
+         * @return int - Node of the prefix, or -1
+         */
+        int lookup(long keyHigh, long keyLow) {
+            int best = -1;
+            int node = root;
+            while (node >= 0) {
+                int length = length(node);
+                if (!matches(node, keyHigh, keyLow, length)) {
+                    break;
+                }
+                if (stored[node]) {
+                    best = node;
+                }
+                if (length == bits) {
+                    break;
+                }
+                node = children[2 * node + bit(keyHigh, keyLow, length)];
+            }
+            return best;
+        }
+
+        /**
+         * Finds how much of a prefix the prefixes of this trie cover
+         * @return int - NONE, PARTIAL, or FULL
+         */
+        private int coverage(long keyHigh, long keyLow, int length) {
+            int node = root;
+            while (node >= 0) {
+                int nodeLength = length(node);
+                if (nodeLength >= length) {
+                    if (!matches(node, keyHigh, keyLow, length)) {
+                        return NONE;
+                    }
+                    // Every path below a node ends in a prefix, so a node inside the key means some is covered
+                    return nodeLength == length && stored[node] ? FULL : PARTIAL;
+                }
+                if (!matches(node, keyHigh, keyLow, nodeLength)) {
+                    return NONE;
+                }
+                if (stored[node]) {
+                    return FULL;
+                }
+                node = children[2 * node + bit(keyHigh, keyLow, nodeLength)];
+            }
+            return NONE;
+        }
+
+        /**
+         * Adds the fewest prefixes covering the same addresses as this trie to another trie
+         */
+        void aggregate(Trie into) {
+            if (root >= 0) {
+                boolean[] full = new boolean[nodes];
+                markFull(root, full);
+                addFull(root, full, into);
+            }
+        }
+
+        /**
+         * Marks the nodes whose addresses are all covered: prefixes, and nodes whose two halves are both covered
+         * @return boolean - True if the node is covered
+         */
+        private boolean markFull(int node, boolean[] full) {
+            int length = length(node);
+            boolean halvesFull = true;
+            for (int side = 0; side < 2; side++) {
+                int child = children[2 * node + side];
+                boolean childFull = child >= 0 && markFull(child, full);
+                halvesFull &= childFull && length(child) == length + 1;
+            }
+            full[node] = stored[node] || (length < bits && halvesFull);
+            return full[node];
+        }
+
+        private void addFull(int node, boolean[] full, Trie into) {
+            if (full[node]) {
+                into.add(high[node], low[node], length(node));
+                return;
+            }
+            for (int side = 0; side < 2; side++) {
+                int child = children[2 * node + side];
+                if (child >= 0) {
+                    addFull(child, full, into);
+                }
+            }
+        }
+
+        /**
+         * Adds the prefixes covering the addresses of this trie that the other trie does not cover to a third trie
+         */
+        void difference(Trie other, Trie into) {
+            Trie aggregated = new Trie(bits);
+            aggregate(aggregated);
+            Trie subtracted = new Trie(bits);
+            other.aggregate(subtracted);
+            aggregated.forEachNode(node -> subtract(aggregated.high[node], aggregated.low[node],
+                    aggregated.length(node), subtracted, into));
+        }
+
+        /**
+         * Adds the parts of a prefix that the other trie does not cover, splitting it in half where partly covered
+         */
+        private static void subtract(long keyHigh, long keyLow, int length, Trie other, Trie into) {
+            switch (other.coverage(keyHigh, keyLow, length)) {
+                case NONE -> into.add(keyHigh, keyLow, length);
+                case PARTIAL -> {
+                    subtract(keyHigh, keyLow, length + 1, other, into);
+                    long oneHigh = length < 64 ? keyHigh | 1L << (63 - length) : keyHigh;
+                    long oneLow = length < 64 ? keyLow : keyLow | 1L << (127 - length);
+                    subtract(oneHigh, oneLow, length + 1, other, into);
+                }
+                default -> {
+                }
+            }
+        }
+
+        void forEach(Consumer<String> action) {
+            forEachNode(node -> action.accept(format(node)));
+        }
+
+        /**
+         * Runs the action on the node of every prefix in address order
+         */
+        private void forEachNode(IntConsumer action) {
+            if (root < 0) {
+                return;
+            }
+            int[] stack = new int[bits + 2];
+            int depth = 0;
+            stack[depth++] = root;
+            while (depth > 0) {
+                int node = stack[--depth];
+                if (stored[node]) {
+                    action.accept(node);
+                }
+                // Push the 1 side first so the 0 side comes out first
+                for (int side = 1; side >= 0; side--) {
+                    int child = children[2 * node + side];
+                    if (child >= 0) {
+                        stack[depth++] = child;
+                    }
+                }
+            }
+        }
+    }
+}
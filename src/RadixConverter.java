@@ -0,0 +1,278 @@
+/*
+ * Converts whole numbers of any size between decimal, binary, and hexadecimal text.
+ * Decimal text is converted by divide and conquer: it is cut into 18-digit pieces that fit in a long, and
+ * neighbouring pieces are joined pairwise (high * 10^k + low) up a tree, so the work is dominated by a few large
+ * multiplications instead of one step per digit. Writing decimal splits the value by the same powers of ten
+ * (high, low = value / 10^k, value % 10^k) down to longs. The powers 10^(18 * 2^i) are computed once by squaring and
+ * shared. BigInteger does the arithmetic with its subquadratic multiplication and division.
+ * Binary and hexadecimal digits map straight to bits, since powers of 2 and 16 are shifts, so those are converted
+ * byte by byte in linear time.
+ * Values may start with a sign. All methods are safe to call from many threads at once.
+ */
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+class RadixConverter {
+
+    // Decimal digits per piece: 10^18 is the largest power of ten that fits in a long
+    private static final int PIECE_DIGITS = 18;
+    private static final long PIECE_POWER = 1_000_000_000_000_000_000L;
+    private static final double BITS_PER_DECIMAL_DIGIT = Math.log(10) / Math.log(2);
+    // Values up to this size are written by BigInteger.toString, which is quicker than splitting them further
+    private static final int SMALL_BITS = 640;
+
+    // POWERS[i] = 10^(18 * 2^i), extended by squaring when a larger one is needed
+    private static volatile BigInteger[] powers = {BigInteger.valueOf(PIECE_POWER)};
+
+    private static final char[] DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private RadixConverter() {
+    }
+
+    /**
+     * Converts a whole number from one base to another
+     * bases: 2, 10, and 16
+     * @param digits - Digits of the number, optionally starting with "-" or "+"
+     * @param fromRadix - Base of the digits
+     * @param toRadix - Base to convert to
+     * @return String - Digits in the new base
+     */
+    static String convert(String digits, int fromRadix, int toRadix) {
+        return format(parse(digits, fromRadix), toRadix);
+    }
+
+    /**
+     * Determines if the String is a whole number in the given base, optionally starting with "-" or "+"
+     * @param digits - String to test
+     * @param radix - 2, 10, or 16 (upper or lower case)
+     * @return boolean - True if valid, false if not
+     */
+    static boolean isValid(String digits, int radix) {
+        if (digits == null) {
+            throw new IllegalArgumentException("Cannot be null");
+        }
+        checkRadix(radix);
+        int start = signLength(digits);
+        if (start == digits.length()) {
+            return false;
+        }
+        for (int i = start; i < digits.length(); i++) {
+            if (Character.digit(digits.charAt(i), radix) < 0 || digits.charAt(i) > 'f') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads a whole number in the given base
+     * @param digits - Digits of the number, optionally starting with "-" or "+"
+     * @param radix - 2, 10, or 16
+     * @return BigInteger - Value of the number
+     */
+    static BigInteger parse(String digits, int radix) {
+        if (!isValid(digits, radix)) {
+            throw new IllegalArgumentException("Not a valid base " + radix + " number");
+        }
+        boolean negative = digits.charAt(0) == '-';
+        int start = signLength(digits);
+        BigInteger value = radix == 10 ? parseDecimal(digits, start)
+                : parsePowerOfTwo(digits, start, radix == 2 ? 1 : 4);
+        return negative ? value.negate() : value;
+    }
+
+    /**
+     * Writes a whole number in the given base
+     * @param value - Number to write
+     * @param radix - 2, 10, or 16
+     * @return String - Digits of the number, starting with "-" if negative
+     */
+    static String format(BigInteger value, int radix) {
+        if (value == null) {
+            throw new IllegalArgumentException("Cannot be null");
+        }
+        checkRadix(radix);
+        BigInteger magnitude = value.abs();
+        // Enough room for every digit of the magnitude plus the sign
+        int capacity = (int) Math.min(Integer.MAX_VALUE - 8,
+                (long) Math.ceil(magnitude.bitLength() / (radix == 16 ? 4.0 : radix == 2 ? 1.0 : BITS_PER_DECIMAL_DIGIT)) + 2);
+        StringBuilder text = new StringBuilder(capacity);
+        if (value.signum() < 0) {
+            text.append('-');
+        }
+        if (radix == 10) {
+            appendDecimal(text, magnitude, 0);
+        } else {
+            appendPowerOfTwo(text, magnitude, radix == 2 ? 1 : 4);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Reads decimal digits by joining 18-digit pieces pairwise, least significant first
+     * @param digits - Decimal digits
+     * @param start - Index of the first digit
+     * @return BigInteger - Value of the digits
+     */
+    private static BigInteger parseDecimal(String digits, int start) {
+        int length = digits.length() - start;
+        int pieces = (length + PIECE_DIGITS - 1) / PIECE_DIGITS;
+        BigInteger[] values = new BigInteger[pieces];
+        int end = digits.length();
+        for (int i = 0; i < pieces; i++) {
+            int from = Math.max(start, end - PIECE_DIGITS);
+            long piece = 0;
+            for (int j = from; j < end; j++) {
+                piece = piece * 10 + (digits.charAt(j) - '0');
+            }
+            values[i] = BigInteger.valueOf(piece);
+            end = from;
+        }
+        // Every value but the last spans exactly 2^level pieces, so it is joined with 10^(18 * 2^level)
+        for (int level = 0, count = pieces; count > 1; level++) {
+            BigInteger power = power(level);
+            int joined = 0;
+            for (int i = 0; i + 1 < count; i += 2) {
+                values[joined++] = values[i + 1].multiply(power).add(values[i]);
+            }
+            if (count % 2 != 0) {
+                values[joined++] = values[count - 1];
+            }
+            count = joined;
+        }
+        return values[0];
+    }
+
+    /**
+     * Writes a non-negative value in decimal by splitting it with powers of ten
+     * @param text - Text to append to
+     * @param value - Non-negative value
+     * @param width - Digits to write, padding with leading zeros, or 0 to write no leading zeros
+     */
+    private static void appendDecimal(StringBuilder text, BigInteger value, int width) {
+        if (value.bitLength() <= SMALL_BITS) {
+            String piece = value.toString();
+            for (int i = piece.length(); i < width; i++) {
+                text.append('0');
+            }
+            text.append(piece);
+            return;
+        }
+        // Split near the middle: the power closest to the square root of the value, as long as it is below the value
+        double half = value.bitLength() / 2.0;
+        int level = 0;
+        while (powerBits(level + 1) <= half) {
+            level++;
+        }
+        if (half - powerBits(level) > powerBits(level + 1) - half && power(level + 1).compareTo(value) <= 0) {
+            level++;
+        }
+        int lowDigits = PIECE_DIGITS << level;
+        BigInteger[] highAndLow = value.divideAndRemainder(power(level));
+        appendDecimal(text, highAndLow[0], width == 0 ? 0 : width - lowDigits);
+        appendDecimal(text, highAndLow[1], lowDigits);
+    }
+
+    /**
+     * Reads binary or hexadecimal digits straight into the bytes of the value
+     * @param digits - Binary or hexadecimal digits
+     * @param start - Index of the first digit
+     * @param bitsPerDigit - 1 for binary, 4 for hexadecimal
+     * @return BigInteger - Value of the digits
+     */
+    private static BigInteger parsePowerOfTwo(String digits, int start, int bitsPerDigit) {
+        long bits = (long) (digits.length() - start) * bitsPerDigit;
+        byte[] bytes = new byte[(int) ((bits + 7) / 8)];
+        // Fill from the least significant end
+        int index = bytes.length - 1;
+        int shift = 0;
+        for (int i = digits.length() - 1; i >= start; i--) {
+            bytes[index] |= (byte) (Character.digit(digits.charAt(i), 16) << shift);
+            shift += bitsPerDigit;
+            if (shift == 8) {
+                shift = 0;
+                index--;
+            }
+        }
+        return new BigInteger(1, bytes);
+    }
+
+    /**
+     * Writes a non-negative value in binary or hexadecimal straight from its bytes
+     * @param text - Text to append to
+     * @param value - Non-negative value
+     * @param bitsPerDigit - 1 for binary, 4 for hexadecimal
+     */
+    private static void appendPowerOfTwo(StringBuilder text, BigInteger value, int bitsPerDigit) {
+        if (value.signum() == 0) {
+            text.append('0');
+            return;
+        }
+        byte[] bytes = value.toByteArray();
+        int mask = (1 << bitsPerDigit) - 1;
+        boolean leading = true;
+        for (byte b : bytes) {
+            for (int shift = 8 - bitsPerDigit; shift >= 0; shift -= bitsPerDigit) {
+                int digit = (b >> shift) & mask;
+                if (leading && digit == 0) {
+                    continue;
+                }
+                leading = false;
+                text.append(DIGITS[digit]);
+            }
+        }
+    }
+
+    /**
+     * Returns the approximate number of bits of 10^(18 * 2^level)
+     * @param level - Level of the power
+     * @return double - Bits of the power
+     */
+    private static double powerBits(int level) {
+        return (double) (PIECE_DIGITS << level) * BITS_PER_DECIMAL_DIGIT;
+    }
+
+    /**
+     * Returns 10^(18 * 2^level), computing and caching the powers up to it if needed
+     * @param level - Level of the power
+     * @return BigInteger - Power of ten
+     */
+    private static BigInteger power(int level) {
+        BigInteger[] cached = powers;
+        if (level < cached.length) {
+            return cached[level];
+        }
+        synchronized (RadixConverter.class) {
+            cached = powers;
+            if (level >= cached.length) {
+                BigInteger[] larger = Arrays.copyOf(cached, level + 1);
+                for (int i = cached.length; i <= level; i++) {
+                    larger[i] = larger[i - 1].multiply(larger[i - 1]);
+                }
+                powers = larger;
+                cached = larger;
+            }
+            return cached[level];
+        }
+    }
+
+    /**
+     * Returns the length of the sign at the start of the digits
+     * @param digits - Digits of a number
+     * @return int - 1 if the digits start with "-" or "+", otherwise 0
+     */
+    private static int signLength(String digits) {
+        return digits.startsWith("-") || digits.startsWith("+") ? 1 : 0;
+    }
+
+    /**
+     * Throws exception if the base is not supported
+     * @param radix - Base to check
+     */
+    private static void checkRadix(int radix) {
+        if (radix != 2 && radix != 10 && radix != 16) {
+            throw new IllegalArgumentException("Not a valid base");
+        }
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Runs the calculator test suites in one of two ways.
+ * Printed: each test runs once as soon as it is declared and prints every step, as the "Run tests" menu options do.
+ * Timed: tests are collected first, then run at the same time on a pool of threads with their printing thrown away.
+ * Each test runs again and again for a set time, and the report gives pass or fail and calls per second for each
+ * function. Tests declared with testAlone change shared state, so they run one at a time after the others finish.
+ * This is the quick self-check to run on a host after deploying.
+ */
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+class SelfCheck {
+
+    /**
+     * Body of one test, which prints to the given output and checks results with the given test
+     */
+    interface Body {
+        void run(ConsoleOutput out, Test test) throws Exception;
+    }
+
+    private final ConsoleOutput printed;
+    private final long nanosPerTest;
+    private final List<Test> tests = new ArrayList<>();
+    private String suite = "";
+
+    private SelfCheck(ConsoleOutput printed, long nanosPerTest) {
+        this.printed = printed;
+        this.nanosPerTest = nanosPerTest;
+    }
+
+    /**
+     * Creates a check that runs each test once, right away, and prints every step
+     * @param out - Output to print to
+     * @return SelfCheck - New check
+     */
+    static SelfCheck printed(ConsoleOutput out) {
+        if (out == null) {
+            throw new IllegalArgumentException("Cannot be null");
+        }
+        return new SelfCheck(out, 0);
+    }
+
+    /**
+     * Creates a check that collects the tests so run can repeat each one for the given time
+     * @param secondsPerTest - Time to keep calling each test, in seconds
+     * @return SelfCheck - New check
+     */
+    static SelfCheck timed(double secondsPerTest) {
+        if (!(secondsPerTest >= 0) || secondsPerTest > TimeUnit.DAYS.toSeconds(1)) {
+            throw new IllegalArgumentException("Not a valid duration");
+        }
+        return new SelfCheck(null, (long) (secondsPerTest * 1e9));
+    }
+
+    /**
+     * Starts a suite of tests, e.g. "Binary operations"
+     * @param name - Name of the suite
+     */
+    void suite(String name) {
+        suite = name;
+        if (printed != null) {
+            printed.println(name + " tests:");
+        }
+    }
+
+    /**
+     * Declares a test of one function of the current suite
+     * @param name - Name of the function
+     * @param body - Steps and checks of the test
+     */
+    void test(String name, Body body) {
+        add(name, body, false);
+    }
+
+    /**
+     * Declares a test that must not run at the same time as any other, such as one that sets a static field
+     * @param name - Name of the function
+     * @param body - Steps and checks of the test
+     */
+    void testAlone(String name, Body body) {
+        add(name, body, true);
+    }
+
+    /**
+     * Runs the test right away when printing, otherwise collects it for run
+     * @param name - Name of the function
+     * @param body - Steps and checks of the test
+     * @param alone - True if no other test may run at the same time
+     */
+    private void add(String name, Body body, boolean alone) {
+        Test test = new Test(suite, name, body, printed, alone);
+        if (printed == null) {
+            tests.add(test);
+            return;
+        }
+        printed.println("-----" + name + "-----");
+        test.runOnce();
+        printed.println();
+    }
+
+    /**
+     * Runs the collected tests at the same time on the given number of threads and prints a report
+     * @param out - Output for the report
+     * @param threads - Number of threads
+     * @return boolean - True if every test passed
+     * @throws InterruptedException if interrupted while waiting for the tests
+     */
+    boolean run(ConsoleOutput out, int threads) throws InterruptedException {
+        if (printed != null) {
+            throw new IllegalStateException("Tests have already run");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("Not a valid number of threads");
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> running = new ArrayList<>(tests.size());
+        long start = System.nanoTime();
+        try {
+            for (Test test : tests) {
+                if (!test.alone) {
+                    running.add(pool.submit(() -> test.runFor(nanosPerTest)));
+                }
+            }
+            for (Future<?> future : running) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    // runFor records its own failures, so this is not expected
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+            for (Test test : tests) {
+                if (test.alone) {
+                    test.runFor(nanosPerTest);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        DoubleFormatter rate = DoubleFormatter.significant(3);
+        int failed = 0;
+        for (Test test : tests) {
+            boolean passed = test.failure == null;
+            out.print(passed ? "PASSED  " : "FAILED  ").print(test.suite + ": " + test.name + " - ")
+                    .print(test.calls == 0 ? 0 : test.calls / (test.nanos / 1e9), rate).println(" calls/second");
+            if (!passed) {
+                failed++;
+                out.println("        " + test.failure);
+            }
+        }
+        out.println(tests.size() - failed + " of " + tests.size() + " tests passed");
+        out.print("Took ").print(seconds, DoubleFormatter.fixed(3)).println(" seconds");
+        return failed == 0;
+    }
+
+    /**
+     * One test and the results of running it
+     */
+    static final class Test {
+
+        private final String suite;
+        private final String name;
+        private final Body body;
+        private final ConsoleOutput printed;
+        private final boolean alone;
+        private long calls;
+        private long nanos;
+        private String failure;
+
+        private Test(String suite, String name, Body body, ConsoleOutput printed, boolean alone) {
+            this.suite = suite;
+            this.name = name;
+            this.body = body;
+            this.printed = printed;
+            this.alone = alone;
+        }
+
+        /**
+         * Asserts that the actual Object is equal to the expected Object.
+         * Prints a message of the result when printing, otherwise keeps the first failure for the report.
+         * @param actual - Actual object
+         * @param expected - Expected object
+         */
+        void assertEquals(Object actual, Object expected) {
+            boolean equal = actual.equals(expected);
+            if (printed != null) {
+                if (equal) {
+                    printed.println("TEST PASSED");
+                } else {
+                    printed.println("TEST FAILED");
+                    printed.println("Expected value: " + expected);
+                    printed.println("But received actual value: " + actual);
+                }
+            } else if (!equal && failure == null) {
+                failure = "Expected value: " + expected + ", but received actual value: " + actual;
+            }
+        }
+
+        /**
+         * Runs the test once, printing every step
+         */
+        private void runOnce() {
+            try {
+                body.run(printed, this);
+            } catch (Throwable e) {
+                printed.println("TEST FAILED");
+                printed.println("Threw " + e);
+            }
+        }
+
+        /**
+         * Runs the test once untimed, then again and again until it fails or the time is up, at least once more
+         * @param duration - Time to keep running in nanoseconds
+         */
+        private void runFor(long duration) {
+            ConsoleOutput quiet = new ConsoleOutput(OutputStream.nullOutputStream());
+            // The first call loads and compiles the code under test, so it is left out of the calls per second
+            runQuietly(quiet);
+            long start = System.nanoTime();
+            long now = start;
+            while (failure == null) {
+                runQuietly(quiet);
+                calls++;
+                now = System.nanoTime();
+                if (now - start >= duration) {
+                    break;
+                }
+            }
+            nanos = now - start;
+        }
+
+        /**
+         * Runs the test once without printing, recording anything it throws as a failure of this test only
+         * @param quiet - Output that throws away what the test prints
+         */
+        private void runQuietly(ConsoleOutput quiet) {
+            try {
+                body.run(quiet, this);
+            } catch (Throwable e) {
+                // Errors such as AssertionError or StackOverflowError fail this test; the other tests go on
+                if (failure == null) {
+                    failure = "Threw " + e;
+                }
+            }
+            quiet.discard();
+        }
+    }
+}
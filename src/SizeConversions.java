@@ -0,0 +1,124 @@
+/*
+ * Lazy view of a data size value converted to every other unit in SIZE_UNITS, returned by convertSizeUnits.
+ * Nothing is converted or formatted until a unit is asked for, and each formatted result is kept for reuse.
+ * As a List it holds the formatted results (e.g. "4000 mb") in SIZE_UNITS order, leaving out the original unit.
+ * The cache is filled without locking: a view shared between threads may format a unit more than once,
+ * but every call returns an equal String.
+ */
+
+import java.util.AbstractList;
+
+class SizeConversions extends AbstractList<String> {
+
+    private static final String[] UNITS = Calculator.SIZE_UNITS;
+    // Views may be used from any thread, so each thread keeps its own formatter
+    private static final ThreadLocal<DoubleFormatter> COMPACT_FORMAT =
+            ThreadLocal.withInitial(DoubleFormatter::compact);
+
+    private final double num;
+    private final String unit;
+    private final int unitIndex;
+    private String[] formatted;
+
+    /**
+     * Creates a view of the given value in every other data size unit
+     * @param num - Value of the data size
+     * @param unit - Unit of the data size value
+     */
+    SizeConversions(double num, String unit) {
+        if (unit == null) {
+            throw new IllegalArgumentException("Cannot be null");
+        }
+        int index = -1;
+        for (int i = 0; i < UNITS.length; i++) {
+            if (UNITS[i].equals(unit)) {
+                index = i;
+            }
+        }
+        if (index < 0) {
+            throw new IllegalArgumentException("Not a valid data size unit");
+        }
+        this.num = num;
+        this.unit = unit;
+        this.unitIndex = index;
+    }
+
+    /**
+     * Returns the original value
+     * @return double - Value of the data size
+     */
+    double getValue() {
+        return num;
+    }
+
+    /**
+     * Returns the original unit
+     * @return String - Unit of the data size value
+     */
+    String getUnit() {
+        return unit;
+    }
+
+    /**
+     * Converts the value to the given unit without formatting it
+     * @param toUnit - Unit to convert to
+     * @return double - Value converted to the unit
+     */
+    double value(String toUnit) {
+        return Calculator.convertSizeUnit(unit, toUnit, num);
+    }
+
+    /**
+     * Converts the value to the given unit and formats it, e.g. "4000 mb".
+     * Whole numbers are shown without a decimal point.
+     * @param toUnit - Unit to convert to
+     * @return String - Converted value followed by the unit
+     */
+    String get(String toUnit) {
+        for (int i = 0; i < UNITS.length; i++) {
+            if (UNITS[i].equals(toUnit)) {
+                return format(i);
+            }
+        }
+        throw new IllegalArgumentException("Not a valid data size unit");
+    }
+
+    /**
+     * Returns the formatted result at the given position, skipping the original unit
+     * @param index - Position in the list, 0 to size() - 1
+     * @return String - Converted value followed by the unit
+     */
+    @Override
+    public String get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " is out of range");
+        }
+        return format(index < unitIndex ? index : index + 1);
+    }
+
+    /**
+     * Returns the number of other units
+     * @return int - Number of results
+     */
+    @Override
+    public int size() {
+        return UNITS.length - 1;
+    }
+
+    /**
+     * Converts and formats the value for the unit at the given index of SIZE_UNITS, reusing an earlier result
+     * @param index - Index of the unit in SIZE_UNITS
+     * @return String - Converted value followed by the unit
+     */
+    private String format(int index) {
+        if (formatted == null) {
+            formatted = new String[UNITS.length];
+        }
+        if (formatted[index] == null) {
+            double converted = Calculator.convertSizeUnit(unit, UNITS[index], num);
+            // Display as a whole number if possible
+            formatted[index] = COMPACT_FORMAT.get().append(new StringBuilder(24), converted, UNITS[index]).toString();
+        }
+        return formatted[index];
+    }
+}
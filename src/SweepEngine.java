@@ -0,0 +1,279 @@
+/*
+ * What-if tables for planning, computed for every combination of two ranges of inputs.
+ * Tables:
+ *    - load time in seconds for file sizes (rows) and bandwidths (columns)
+ *    - website bandwidth in Mbit/s for page views (rows) and page sizes (columns)
+ *    - bandwidth needed for file sizes (rows) to load within target times in seconds (columns)
+ * Load times can use a TransferModel; the needed bandwidth is then found by bisection on the model.
+ * Units are converted once per row and column, and rows are filled in parallel into one flat double array.
+ * A table can be written to a CSV file with the row values in the first column and column values in the first row.
+ */
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.IntStream;
+
+class SweepEngine {
+
+    static final String[] TABLES = {"load-time", "website-bandwidth", "bandwidth-needed"};
+
+    // Bisection stops once the bandwidth is known to this relative precision
+    private static final double PRECISION = 1e-12;
+
+    private final String rowLabel;
+    private final String columnLabel;
+    private final double[] rowValues;
+    private final double[] columnValues;
+    private final double[] values;
+
+    private SweepEngine(String rowLabel, double[] rowValues, String columnLabel, double[] columnValues) {
+        this.rowLabel = rowLabel;
+        this.columnLabel = columnLabel;
+        this.rowValues = rowValues.clone();
+        this.columnValues = columnValues.clone();
+        this.values = new double[Math.multiplyExact(rowValues.length, columnValues.length)];
+    }
+
+    /**
+     * Returns the given number of values from one value to another, spaced evenly on a log scale
+     * @param from - First value, above 0
+     * @param to - Last value, above 0
+     * @param points - Number of values
+     * @return double[] - Values of the range
+     */
+    static double[] logRange(double from, double to, int points) {
+        if (!(from > 0) || !(to > 0) || Double.isInfinite(from) || Double.isInfinite(to)) {
+            throw new IllegalArgumentException("Not a valid range");
+        }
+        if (points < 1) {
+            throw new IllegalArgumentException("Not a valid number of points");
+        }
+        double[] range = new double[points];
+        double logFrom = Math.log(from);
+        double step = points == 1 ? 0 : (Math.log(to) - logFrom) / (points - 1);
+        for (int i = 0; i < points; i++) {
+            range[i] = Math.exp(logFrom + step * i);
+        }
+        // Keep the ends exact
+        range[0] = from;
+        range[points - 1] = points == 1 ? from : to;
+        return range;
+    }
+
+    /**
+     * Calculates the load time in seconds for every file size and bandwidth
+     * @param sizes - File sizes for the rows
+     * @param sizeUnit - Unit of the file sizes
+     * @param bandwidths - Bandwidths for the columns
+     * @param bandwidthUnit - Unit of the bandwidths
+     * @param model - Network model, e.g. TransferModel.IDEAL for the raw link rate
+     * @return SweepEngine - Table of load times
+     */
+    static SweepEngine loadTime(double[] sizes, String sizeUnit, double[] bandwidths, String bandwidthUnit,
+                                TransferModel model) {
+        checkNotNull(sizes, bandwidths, model);
+        double[] bytes = toBytes(sizes, sizeUnit);
+        double[] bytesPerSecond = toBytesPerSecond(bandwidths, bandwidthUnit);
+        SweepEngine table = new SweepEngine("size (" + sizeUnit + ")", sizes,
+                "bandwidth (" + bandwidthUnit + ")", bandwidths);
+        int columns = bandwidths.length;
+        IntStream.range(0, sizes.length).parallel().forEach(row -> {
+            int offset = row * columns;
+            for (int c = 0; c < columns; c++) {
+                table.values[offset + c] = model.seconds(bytes[row], bytesPerSecond[c]);
+            }
+        });
+        return table;
+    }
+
+    /**
+     * Calculates the website bandwidth in Mbit/s, like calculateWebsiteBandwidth, for every number of page views and
+     * page size
+     * @param views - Average page views for the rows
+     * @param timeUnit - Time unit of the page views
+     * @param pageSizes - Average page sizes for the columns
+     * @param sizeUnit - Unit of the page sizes
+     * @param redundancy - The redundancy factor
+     * @return SweepEngine - Table of bandwidths
+     */
+    static SweepEngine websiteBandwidth(double[] views, String timeUnit, double[] pageSizes, String sizeUnit,
+                                        double redundancy) {
+        checkNotNull(views, pageSizes, timeUnit);
+        double viewsToPerSecond = 1 / Calculator.convertTimeUnit(timeUnit, "seconds", 1);
+        double[] megabits = new double[pageSizes.length];
+        for (int i = 0; i < megabits.length; i++) {
+            megabits[i] = Calculator.convertSizeUnit(sizeUnit, "mb", pageSizes[i]);
+        }
+        SweepEngine table = new SweepEngine("views (per " + timeUnit + ")", views,
+                "page size (" + sizeUnit + ")", pageSizes);
+        int columns = pageSizes.length;
+        IntStream.range(0, views.length).parallel().forEach(row -> {
+            double perSecond = views[row] * viewsToPerSecond * redundancy;
+            int offset = row * columns;
+            for (int c = 0; c < columns; c++) {
+                table.values[offset + c] = perSecond * megabits[c];
+            }
+        });
+        return table;
+    }
+
+    /**
+     * Calculates the bandwidth needed to load every file size within every target time.
+     * Targets that no bandwidth can reach with the model, e.g. shorter than its round trips, give Infinity.
+     * @param sizes - File sizes for the rows
+     * @param sizeUnit - Unit of the file sizes
+     * @param seconds - Target load times in seconds for the columns
+     * @param bandwidthUnit - Unit of the results
+     * @param model - Network model, e.g. TransferModel.IDEAL for the raw link rate
+     * @return SweepEngine - Table of bandwidths
+     */
+    static SweepEngine bandwidthNeeded(double[] sizes, String sizeUnit, double[] seconds, String bandwidthUnit,
+                                       TransferModel model) {
+        checkNotNull(sizes, seconds, model);
+        double[] bytes = toBytes(sizes, sizeUnit);
+        // Bandwidth unit per byte per second
+        double toUnit = Calculator.convertBandwidthUnit("bit/s", bandwidthUnit, Calculator.convertSizeUnit("B", "b", 1));
+        SweepEngine table = new SweepEngine("size (" + sizeUnit + ")", sizes, "load time (seconds)", seconds);
+        int columns = seconds.length;
+        IntStream.range(0, sizes.length).parallel().forEach(row -> {
+            int offset = row * columns;
+            for (int c = 0; c < columns; c++) {
+                table.values[offset + c] = solveRate(model, bytes[row], seconds[c]) * toUnit;
+            }
+        });
+        return table;
+    }
+
+    /**
+     * Returns the number of rows
+     * @return int - Number of rows
+     */
+    int rows() {
+        return rowValues.length;
+    }
+
+    /**
+     * Returns the number of columns
+     * @return int - Number of columns
+     */
+    int columns() {
+        return columnValues.length;
+    }
+
+    /**
+     * Returns the value of one cell
+     * @param row - Row index
+     * @param column - Column index
+     * @return double - Value of the cell
+     */
+    double get(int row, int column) {
+        if (row < 0 || row >= rowValues.length || column < 0 || column >= columnValues.length) {
+            throw new IndexOutOfBoundsException("Cell " + row + "," + column + " is out of range");
+        }
+        return values[row * columnValues.length + column];
+    }
+
+    /**
+     * Writes the table to a CSV file. The first row holds the column values and the first column the row values.
+     * @param file - File to write
+     * @throws IOException if the file cannot be written
+     */
+    void writeCsv(Path file) throws IOException {
+        DoubleFormatter format = DoubleFormatter.shortest();
+        StringBuilder line = new StringBuilder(64 + columnValues.length * 24);
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            line.append(rowLabel).append(" / ").append(columnLabel);
+            for (double column : columnValues) {
+                format.append(line.append(','), column);
+            }
+            out.append(line).append('\n');
+            for (int row = 0; row < rowValues.length; row++) {
+                line.setLength(0);
+                format.append(line, rowValues[row]);
+                int offset = row * columnValues.length;
+                for (int c = 0; c < columnValues.length; c++) {
+                    format.append(line.append(','), values[offset + c]);
+                }
+                out.append(line).append('\n');
+            }
+        }
+    }
+
+    /**
+     * Finds the link rate at which the model loads the given bytes in the given time
+     * @param model - Network model
+     * @param bytes - Data to transfer in bytes
+     * @param target - Target load time in seconds
+     * @return double - Link rate in bytes per second, or Infinity if the target cannot be reached
+     */
+    private static double solveRate(TransferModel model, double bytes, double target) {
+        if (bytes == 0) {
+            return 0;
+        }
+        if (!(target > 0) || model.seconds(bytes, Double.POSITIVE_INFINITY) >= target) {
+            return Double.POSITIVE_INFINITY;
+        }
+        // The raw link rate is the least any model can need
+        double low = bytes / target;
+        if (model.seconds(bytes, low) <= target) {
+            return low;
+        }
+        double high = low * 2;
+        while (model.seconds(bytes, high) > target) {
+            low = high;
+            high *= 2;
+        }
+        while (high - low > high * PRECISION) {
+            double middle = low + (high - low) / 2;
+            if (model.seconds(bytes, middle) > target) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+        return high;
+    }
+
+    /**
+     * Converts file sizes to bytes
+     * @param sizes - File sizes
+     * @param unit - Unit of the sizes
+     * @return double[] - Sizes in bytes
+     */
+    private static double[] toBytes(double[] sizes, String unit) {
+        double[] bytes = new double[sizes.length];
+        for (int i = 0; i < sizes.length; i++) {
+            bytes[i] = Calculator.convertSizeUnit(unit, "B", sizes[i]);
+        }
+        return bytes;
+    }
+
+    /**
+     * Converts bandwidths to bytes per second
+     * @param bandwidths - Bandwidths
+     * @param unit - Unit of the bandwidths
+     * @return double[] - Bandwidths in bytes per second
+     */
+    private static double[] toBytesPerSecond(double[] bandwidths, String unit) {
+        double[] rates = new double[bandwidths.length];
+        for (int i = 0; i < bandwidths.length; i++) {
+            rates[i] = Calculator.convertSizeUnit("b", "B", Calculator.convertBandwidthUnit(unit, "bit/s", bandwidths[i]));
+        }
+        return rates;
+    }
+
+    /**
+     * Throws exception if any argument is null
+     * @param rows - Row values
+     * @param columns - Column values
+     * @param other - Other argument
+     */
+    private static void checkNotNull(double[] rows, double[] columns, Object other) {
+        if (rows == null || columns == null || other == null) {
+            throw new IllegalArgumentException("Cannot be null");
+        }
+    }
+}
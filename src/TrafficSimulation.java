@@ -0,0 +1,570 @@
+/*
+ * Discrete-event simulation of many downloads sharing links, as a counterpart to calculateLoadTime's single transfer
+ * with the whole link to itself.
+ * Flows arrive as a Poisson process, with exponentially distributed sizes. Each flow is assigned to one of a number
+ * of identical links, and to a shaping class at random by the classes' shares.
+ * Each link sends one packet at a time:
+ *    - classes are served in strict priority, the first class first
+ *    - a class with a shaping rate may only send while its token bucket holds enough tokens for the packet;
+ *      the bucket fills at the shaping rate up to its burst size
+ *    - flows in the same class take turns a packet at a time, so they share the class's rate evenly
+ * A link left idle only because its classes are out of tokens wakes up when the first bucket has enough again.
+ * Events (arrivals, packets finishing, and bucket wake-ups) are kept in a binary heap ordered by time.
+ * Flow state is kept in primitive arrays indexed by flow number, so millions of flows and events per second can be
+ * simulated without allocating per event.
+ * A simulation is immutable and can be run many times; each run uses its own random numbers from the seed.
+ */
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+class TrafficSimulation {
+
+    // Largest Ethernet payload; flows are sent in packets of this size, the last one smaller
+    static final int PACKET_BYTES = 1500;
+    private static final long PACKET_BITS = PACKET_BYTES * 8L;
+    private static final double TOKEN_SLACK = 1e-9;
+
+    private final double linkBitsPerSecond;
+    private final int links;
+    private final ShapingClass[] classes;
+    private final long seed;
+
+    /**
+     * Creates a simulation.
+     * bandwidth units: "bit/s", "Kbit/s", "Mbit/s", "Gbit/s", and "Tbit/s"
+     * @param linkRate - Rate of each link
+     * @param linkUnit - Unit of the link rate
+     * @param links - Number of links
+     * @param seed - Seed for the random numbers
+     * @param classes - Shaping classes, highest priority first
+     */
+    TrafficSimulation(double linkRate, String linkUnit, int links, long seed, ShapingClass... classes) {
+        if (classes == null || linkUnit == null) {
+            throw new IllegalArgumentException("Cannot be null");
+        }
+        if (!(linkRate > 0) || Double.isInfinite(linkRate)) {
+            throw new IllegalArgumentException("Not a valid link rate");
+        }
+        if (links <= 0) {
+            throw new IllegalArgumentException("Not a valid number of links");
+        }
+        if (classes.length == 0 || classes.length > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Not a valid number of classes");
+        }
+        double shares = 0;
+        for (ShapingClass shapingClass : classes) {
+            if (shapingClass == null) {
+                throw new IllegalArgumentException("Cannot be null");
+            }
+            shares += shapingClass.share;
+        }
+        if (!(shares > 0)) {
+            throw new IllegalArgumentException("Not a valid share");
+        }
+        this.linkBitsPerSecond = Calculator.convertBandwidthUnit(linkUnit, "bit/s", linkRate);
+        this.links = links;
+        this.classes = classes.clone();
+        this.seed = seed;
+    }
+
+    /**
+     * Simulates the given number of flows until every one has finished
+     * size units: "b", "kb", "mb", "gb", "tb", "B", "KB", "MB", "GB", and "TB"
+     * @param flowsPerSecond - Average number of flows arriving per second, across all links
+     * @param meanSize - Average flow size
+     * @param sizeUnit - Unit of the flow size
+     * @param flows - Number of flows
+     * @return Result - Completion time of every flow and use of every link
+     */
+    Result run(double flowsPerSecond, double meanSize, String sizeUnit, int flows) {
+        if (!(flowsPerSecond > 0) || Double.isInfinite(flowsPerSecond)) {
+            throw new IllegalArgumentException("Not a valid arrival rate");
+        }
+        if (!(meanSize > 0) || Double.isInfinite(meanSize)) {
+            throw new IllegalArgumentException("Not a valid flow size");
+        }
+        if (flows <= 0) {
+            throw new IllegalArgumentException("Not a valid number of flows");
+        }
+        double meanBits = Calculator.convertSizeUnit(sizeUnit, "b", meanSize);
+        return new Run(flows).simulate(flowsPerSecond, meanBits);
+    }
+
+    /**
+     * A class of traffic with a share of the flows and an optional token bucket limiting its rate
+     */
+    static final class ShapingClass {
+
+        private final double share;
+        // 0 when the class is not shaped
+        private final double bitsPerSecond;
+        private final double burstBits;
+
+        /**
+         * Creates a class whose rate is not limited
+         * @param share - Relative share of the flows in this class
+         */
+        ShapingClass(double share) {
+            this(share, 0, "bit/s", 0, "b");
+        }
+
+        /**
+         * Creates a class shaped by a token bucket.
+         * bandwidth units: "bit/s", "Kbit/s", "Mbit/s", "Gbit/s", and "Tbit/s"
+         * size units: "b", "kb", "mb", "gb", "tb", "B", "KB", "MB", "GB", and "TB"
+         * @param share - Relative share of the flows in this class
+         * @param rate - Rate the bucket fills at, or 0 for no shaping
+         * @param rateUnit - Unit of the rate
+         * @param burst - Most tokens the bucket holds; raised to one packet if smaller
+         * @param burstUnit - Unit of the burst
+         */
+        ShapingClass(double share, double rate, String rateUnit, double burst, String burstUnit) {
+            if (!(share >= 0) || Double.isInfinite(share)) {
+                throw new IllegalArgumentException("Not a valid share");
+            }
+            if (!(rate >= 0) || Double.isInfinite(rate) || !(burst >= 0) || Double.isInfinite(burst)) {
+                throw new IllegalArgumentException("Not a valid shaping rate");
+            }
+            this.share = share;
+            this.bitsPerSecond = Calculator.convertBandwidthUnit(rateUnit, "bit/s", rate);
+            this.burstBits = Math.max(PACKET_BITS, Calculator.convertSizeUnit(burstUnit, "b", burst));
+        }
+    }
+
+    /**
+     * The outcome of a run
+     */
+    static final class Result {
+
+        private final double[] arrivalSeconds;
+        private final double[] completionSeconds;
+        private final long[] sizeBits;
+        private final byte[] flowClass;
+        private final int classes;
+        private final int links;
+        private final double[] utilization;
+        private final double averageActive;
+        private final int mostActive;
+        private final long events;
+        private final double endSeconds;
+
+        private Result(Run run) {
+            this.arrivalSeconds = run.arrival;
+            this.completionSeconds = run.completion;
+            this.sizeBits = run.remaining;
+            this.flowClass = run.flowClass;
+            this.classes = run.classCount;
+            this.links = run.linkCount;
+            this.utilization = new double[run.linkCount];
+            for (int link = 0; link < run.linkCount; link++) {
+                utilization[link] = run.now > 0 ? run.busySeconds[link] / run.now : 0;
+            }
+            this.averageActive = run.now > 0 ? run.activeArea / run.now : 0;
+            this.mostActive = run.mostActive;
+            this.events = run.events;
+            this.endSeconds = run.now;
+        }
+
+        /**
+         * Returns the number of flows
+         * @return int - Number of flows
+         */
+        int flows() {
+            return completionSeconds.length;
+        }
+
+        /**
+         * Returns the time a flow took from arriving to its last bit being sent
+         * @param flow - Number of the flow, in order of arrival
+         * @return double - Completion time in seconds
+         */
+        double getCompletionSeconds(int flow) {
+            return completionSeconds[flow];
+        }
+
+        /**
+         * Returns the size of a flow
+         * @param flow - Number of the flow, in order of arrival
+         * @return long - Size in bits
+         */
+        long getSizeBits(int flow) {
+            return sizeBits[flow];
+        }
+
+        /**
+         * Returns the share of the simulated time a link spent sending
+         * @param link - Number of the link
+         * @return double - Utilization between 0 and 1
+         */
+        double getUtilization(int link) {
+            return utilization[link];
+        }
+
+        /**
+         * Returns the average number of flows in progress at once, across all links
+         * @return double - Time-weighted average
+         */
+        double getAverageActiveFlows() {
+            return averageActive;
+        }
+
+        /**
+         * Returns the most flows in progress at once, across all links
+         * @return int - Number of flows
+         */
+        int getMostActiveFlows() {
+            return mostActive;
+        }
+
+        /**
+         * Returns the number of events simulated
+         * @return long - Number of events
+         */
+        long getEvents() {
+            return events;
+        }
+
+        /**
+         * Returns the simulated time until the last flow finished
+         * @return double - Time in seconds
+         */
+        double getEndSeconds() {
+            return endSeconds;
+        }
+
+        /**
+         * Returns statistics of the completion times of the flows in a class
+         * @param shapingClass - Number of the class, or -1 for all flows
+         * @return Map of the results in seconds with keys "flows" (a count), "mean", "p50", "p99", and "max";
+         * only "flows" when the class had no flows
+         */
+        Map<String, Double> summary(int shapingClass) {
+            if (shapingClass < -1 || shapingClass >= classes) {
+                throw new IllegalArgumentException("Not a valid class");
+            }
+            double[] times = new double[completionSeconds.length];
+            int count = 0;
+            double sum = 0;
+            for (int flow = 0; flow < completionSeconds.length; flow++) {
+                if (shapingClass == -1 || flowClass[flow] == shapingClass) {
+                    times[count++] = completionSeconds[flow];
+                    sum += completionSeconds[flow];
+                }
+            }
+            Map<String, Double> summary = new HashMap<>();
+            summary.put("flows", (double) count);
+            if (count == 0) {
+                return summary;
+            }
+            Arrays.sort(times, 0, count);
+            summary.put("mean", sum / count);
+            summary.put("p50", times[Math.max(0, (int) Math.ceil(0.50 * count) - 1)]);
+            summary.put("p99", times[Math.max(0, (int) Math.ceil(0.99 * count) - 1)]);
+            summary.put("max", times[count - 1]);
+            return summary;
+        }
+
+        /**
+         * Writes one line per flow: flow, class, link, arrival seconds, size in bits, and completion seconds
+         * @param file - File to write
+         * @throws IOException if the file cannot be written
+         */
+        void writeCsv(Path file) throws IOException {
+            DoubleFormatter format = DoubleFormatter.shortest();
+            StringBuilder line = new StringBuilder(96);
+            try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+                out.append("flow,class,link,arrival seconds,size bits,completion seconds\n");
+                for (int flow = 0; flow < completionSeconds.length; flow++) {
+                    line.setLength(0);
+                    line.append(flow).append(',').append(flowClass[flow]).append(',').append(flow % links).append(',');
+                    format.append(line, arrivalSeconds[flow]).append(',').append(sizeBits[flow]).append(',');
+                    format.append(line, completionSeconds[flow]);
+                    out.append(line).append('\n');
+                }
+            }
+        }
+    }
+
+    /**
+     * State of one run
+     */
+    private final class Run {
+
+        private static final int ARRIVAL = 0;
+        private static final int DEPARTURE = 1;
+        private static final int WAKE = 2;
+        private static final int NONE = -1;
+
+        private final int classCount = classes.length;
+        private final int linkCount = links;
+
+        // Per flow
+        private final double[] arrival;
+        private final double[] completion;
+        private final long[] remaining;
+        private final byte[] flowClass;
+        private final int[] next;
+        private final int[] previous;
+
+        // Per link and class, at index link * classCount + shapingClass
+        private final int[] head;
+        private final double[] tokens;
+        private final double[] refilled;
+
+        // Per link
+        private final int[] sending;
+        private final long[] sendingBits;
+        private final double[] wakeAt;
+        private final double[] busySeconds;
+
+        // Event heap ordered by time; each event is its type and a flow or link number
+        private double[] eventTime = new double[16];
+        private long[] eventData = new long[16];
+        private int eventCount;
+
+        private double now;
+        private int active;
+        private int mostActive;
+        private double activeArea;
+        private long events;
+
+        private Run(int flows) {
+            arrival = new double[flows];
+            completion = new double[flows];
+            remaining = new long[flows];
+            flowClass = new byte[flows];
+            next = new int[flows];
+            previous = new int[flows];
+            head = new int[linkCount * classCount];
+            Arrays.fill(head, NONE);
+            tokens = new double[linkCount * classCount];
+            refilled = new double[linkCount * classCount];
+            for (int link = 0; link < linkCount; link++) {
+                for (int c = 0; c < classCount; c++) {
+                    tokens[link * classCount + c] = classes[c].burstBits;
+                }
+            }
+            sending = new int[linkCount];
+            Arrays.fill(sending, NONE);
+            sendingBits = new long[linkCount];
+            wakeAt = new double[linkCount];
+            Arrays.fill(wakeAt, Double.POSITIVE_INFINITY);
+            busySeconds = new double[linkCount];
+        }
+
+        /**
+         * Runs every event until the last flow has finished
+         * @param flowsPerSecond - Average number of flows arriving per second
+         * @param meanBits - Average flow size in bits
+         * @return Result - Outcome of the run
+         */
+        private Result simulate(double flowsPerSecond, double meanBits) {
+            SplittableRandom random = new SplittableRandom(seed);
+            double[] cumulativeShares = new double[classCount];
+            double shares = 0;
+            for (int c = 0; c < classCount; c++) {
+                shares += classes[c].share;
+                cumulativeShares[c] = shares;
+            }
+
+            // Draw every flow up front; arrivals then only need their flow number
+            double time = 0;
+            for (int flow = 0; flow < arrival.length; flow++) {
+                time += -Math.log(1 - random.nextDouble()) / flowsPerSecond;
+                arrival[flow] = time;
+                remaining[flow] = Math.max(1, (long) Math.ceil(-Math.log(1 - random.nextDouble()) * meanBits));
+                double pick = random.nextDouble() * shares;
+                int c = 0;
+                while (c < classCount - 1 && pick >= cumulativeShares[c]) {
+                    c++;
+                }
+                flowClass[flow] = (byte) c;
+            }
+            long[] sizes = remaining.clone();
+
+            push(arrival[0], ARRIVAL, 0);
+            while (eventCount > 0) {
+                double eventAt = eventTime[0];
+                long data = eventData[0];
+                pop();
+                activeArea += active * (eventAt - now);
+                now = eventAt;
+                events++;
+                int type = (int) (data >>> 32);
+                int index = (int) data;
+                if (type == ARRIVAL) {
+                    arrive(index);
+                    if (index + 1 < arrival.length) {
+                        push(arrival[index + 1], ARRIVAL, index + 1);
+                    }
+                } else if (type == DEPARTURE) {
+                    depart(index);
+                } else if (now >= wakeAt[index]) {
+                    wakeAt[index] = Double.POSITIVE_INFINITY;
+                    if (sending[index] == NONE) {
+                        startNext(index);
+                    }
+                }
+            }
+            // Completion times were kept as finishing times until now
+            for (int flow = 0; flow < completion.length; flow++) {
+                completion[flow] -= arrival[flow];
+            }
+            System.arraycopy(sizes, 0, remaining, 0, sizes.length);
+            return new Result(this);
+        }
+
+        /**
+         * Adds a flow to the end of its class's turn order on its link and starts sending if the link is idle
+         * @param flow - Number of the flow
+         */
+        private void arrive(int flow) {
+            int link = flow % linkCount;
+            int queue = link * classCount + flowClass[flow];
+            int first = head[queue];
+            if (first == NONE) {
+                next[flow] = flow;
+                previous[flow] = flow;
+                head[queue] = flow;
+            } else {
+                int last = previous[first];
+                next[last] = flow;
+                previous[flow] = last;
+                next[flow] = first;
+                previous[first] = flow;
+            }
+            active++;
+            mostActive = Math.max(mostActive, active);
+            if (sending[link] == NONE) {
+                startNext(link);
+            }
+        }
+
+        /**
+         * Finishes the packet a link was sending, then moves on to the next flow's turn
+         * @param link - Number of the link
+         */
+        private void depart(int link) {
+            int flow = sending[link];
+            sending[link] = NONE;
+            remaining[flow] -= sendingBits[link];
+            int queue = link * classCount + flowClass[flow];
+            if (remaining[flow] == 0) {
+                completion[flow] = now;
+                active--;
+                if (next[flow] == flow) {
+                    head[queue] = NONE;
+                } else {
+                    next[previous[flow]] = next[flow];
+                    previous[next[flow]] = previous[flow];
+                    head[queue] = next[flow];
+                }
+            } else {
+                head[queue] = next[flow];
+            }
+            startNext(link);
+        }
+
+        /**
+         * Starts sending a packet from the highest priority class that has a flow waiting and enough tokens.
+         * If classes are only waiting for tokens, wakes the link when the first of them has enough.
+         * @param link - Number of an idle link
+         */
+        private void startNext(int link) {
+            double wake = Double.POSITIVE_INFINITY;
+            for (int c = 0; c < classCount; c++) {
+                int queue = link * classCount + c;
+                int flow = head[queue];
+                if (flow == NONE) {
+                    continue;
+                }
+                long bits = Math.min(PACKET_BITS, remaining[flow]);
+                ShapingClass shapingClass = classes[c];
+                if (shapingClass.bitsPerSecond > 0) {
+                    tokens[queue] = Math.min(shapingClass.burstBits,
+                            tokens[queue] + (now - refilled[queue]) * shapingClass.bitsPerSecond);
+                    refilled[queue] = now;
+                    // A bucket short by no more than rounding error counts as full enough, and the wake-up is
+                    // rounded up, so a class waiting for tokens always gets them when it wakes
+                    if (tokens[queue] < bits - shapingClass.burstBits * TOKEN_SLACK) {
+                        wake = Math.min(wake,
+                                Math.nextUp(now + (bits - tokens[queue]) / shapingClass.bitsPerSecond));
+                        continue;
+                    }
+                    tokens[queue] = Math.max(0, tokens[queue] - bits);
+                }
+                double seconds = bits / linkBitsPerSecond;
+                sending[link] = flow;
+                sendingBits[link] = bits;
+                busySeconds[link] += seconds;
+                push(now + seconds, DEPARTURE, link);
+                return;
+            }
+            if (wake < wakeAt[link]) {
+                wakeAt[link] = wake;
+                push(wake, WAKE, link);
+            }
+        }
+
+        /**
+         * Adds an event to the heap
+         * @param time - Time of the event in seconds
+         * @param type - ARRIVAL, DEPARTURE, or WAKE
+         * @param index - Flow number for arrivals, otherwise link number
+         */
+        private void push(double time, int type, int index) {
+            if (eventCount == eventTime.length) {
+                eventTime = Arrays.copyOf(eventTime, eventCount * 2);
+                eventData = Arrays.copyOf(eventData, eventCount * 2);
+            }
+            long data = (long) type << 32 | index;
+            int child = eventCount++;
+            while (child > 0) {
+                int parent = (child - 1) >>> 1;
+                if (eventTime[parent] <= time) {
+                    break;
+                }
+                eventTime[child] = eventTime[parent];
+                eventData[child] = eventData[parent];
+                child = parent;
+            }
+            eventTime[child] = time;
+            eventData[child] = data;
+        }
+
+        /**
+         * Removes the earliest event from the heap
+         */
+        private void pop() {
+            int last = --eventCount;
+            double time = eventTime[last];
+            long data = eventData[last];
+            int parent = 0;
+            while (true) {
+                int child = 2 * parent + 1;
+                if (child >= last) {
+                    break;
+                }
+                if (child + 1 < last && eventTime[child + 1] < eventTime[child]) {
+                    child++;
+                }
+                if (eventTime[child] >= time) {
+                    break;
+                }
+                eventTime[parent] = eventTime[child];
+                eventData[parent] = eventData[child];
+                parent = child;
+            }
+            eventTime[parent] = time;
+            eventData[parent] = data;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Network model for download/upload times that accounts for more than the raw link rate.
+ * A transfer pays one round trip to open the connection. Each TCP stream then starts with a small congestion
+ * window that doubles every round trip (slow start) until a round trip's worth of data fills the link. From then
+ * on data flows at the link rate, less packet header overhead, and limited by the largest window the receiver allows.
+ * The last byte needs half a round trip to arrive.
+ * Parallel streams share the link evenly and each goes through slow start on its own share.
+ * Times are worked out directly, one step per doubling of the window rather than per packet, and without
+ * allocating, so a model can be evaluated millions of times.
+ * Models are immutable and safe to share between threads.
+ */
+
+class TransferModel {
+
+    // Raw link rate with no round trips or overhead; gives the same times as calculateLoadTime
+    static final TransferModel IDEAL = new TransferModel(0, 1460, 0, 10, 0, 1);
+
+    private static final int TCP_SEGMENT_BYTES = 1460;
+    // IPv4 and TCP headers without options
+    private static final int TCP_HEADER_BYTES = 40;
+    // Initial congestion window from RFC 6928
+    private static final int TCP_INITIAL_WINDOW = 10;
+
+    private final double rttSeconds;
+    private final int segmentBytes;
+    private final int headerBytes;
+    private final int initialWindow;
+    private final long maxWindowBytes;
+    private final int streams;
+
+    /**
+     * Creates a network model
+     * @param rttSeconds - Round trip time in seconds
+     * @param segmentBytes - Data bytes carried by each packet
+     * @param headerBytes - Header bytes added to each packet
+     * @param initialWindow - Packets in the first congestion window
+     * @param maxWindowBytes - Largest window the receiver allows in bytes, or 0 for no limit
+     * @param streams - Number of parallel connections
+     */
+    TransferModel(double rttSeconds, int segmentBytes, int headerBytes, int initialWindow, long maxWindowBytes, int streams) {
+        if (!(rttSeconds >= 0) || Double.isInfinite(rttSeconds)) {
+            throw new IllegalArgumentException("Not a valid round trip time");
+        }
+        if (segmentBytes <= 0 || headerBytes < 0) {
+            throw new IllegalArgumentException("Not a valid packet size");
+        }
+        if (initialWindow <= 0 || maxWindowBytes < 0) {
+            throw new IllegalArgumentException("Not a valid window size");
+        }
+        if (streams <= 0) {
+            throw new IllegalArgumentException("Not a valid number of streams");
+        }
+        this.rttSeconds = rttSeconds;
+        this.segmentBytes = segmentBytes;
+        this.headerBytes = headerBytes;
+        this.initialWindow = initialWindow;
+        this.maxWindowBytes = maxWindowBytes;
+        this.streams = streams;
+    }
+
+    /**
+     * Creates a model of TCP over IPv4 with typical packet sizes and no receive window limit
+     * @param rttSeconds - Round trip time in seconds
+     * @param streams - Number of parallel connections
+     * @return TransferModel - New model
+     */
+    static TransferModel tcp(double rttSeconds, int streams) {
+        return new TransferModel(rttSeconds, TCP_SEGMENT_BYTES, TCP_HEADER_BYTES, TCP_INITIAL_WINDOW, 0, streams);
+    }
+
+    /**
+     * Returns the round trip time of the model
+     * @return double - Round trip time in seconds
+     */
+    double getRttSeconds() {
+        return rttSeconds;
+    }
+
+    /**
+     * Returns the number of parallel connections of the model
+     * @return int - Number of streams
+     */
+    int getStreams() {
+        return streams;
+    }
+
+    /**
+     * Calculates the time to transfer the given file size over the given bandwidth
+     * size units: "b", "kb", "mb", "gb", "tb", "B", "KB", "MB", "GB", and "TB"
+     * bandwidth units: "bit/s", "Kbit/s", "Mbit/s", "Gbit/s", and "Tbit/s"
+     * @param size - Value of the file size
+     * @param sizeUnit - Unit of the file size
+     * @param bandwidth - Value of the bandwidth
+     * @param bandwidthUnit - Unit of the bandwidth
+     * @return double - Transfer time in seconds
+     */
+    double seconds(double size, String sizeUnit, double bandwidth, String bandwidthUnit) {
+        double bytes = Calculator.convertSizeUnit(sizeUnit, "B", size);
+        double bytesPerSecond = Calculator.convertSizeUnit("b", "B", Calculator.convertBandwidthUnit(bandwidthUnit, "bit/s", bandwidth));
+        return seconds(bytes, bytesPerSecond);
+    }
+
+    /**
+     * Calculates the time to transfer the given number of bytes over a link with the given raw rate
+     * @param bytes - Data to transfer in bytes
+     * @param bytesPerSecond - Raw link rate in bytes per second, including packet headers
+     * @return double - Transfer time in seconds
+     */
+    double seconds(double bytes, double bytesPerSecond) {
+        if (!(bytes >= 0) || !(bytesPerSecond >= 0)) {
+            throw new IllegalArgumentException("Not a valid transfer");
+        }
+        if (bytes == 0) {
+            return 0;
+        }
+        // Data bytes per second each stream gets once its window is large enough
+        double rate = bytesPerSecond / streams;
+        if (headerBytes != 0) {
+            rate = rate * segmentBytes / (segmentBytes + headerBytes);
+        }
+        if (maxWindowBytes > 0 && rttSeconds > 0) {
+            rate = Math.min(rate, maxWindowBytes / rttSeconds);
+        }
+        double remaining = bytes / streams;
+        double time = rttSeconds;
+
+        // Slow start: each round trip sends one window, then the window doubles.
+        // It ends once a window holds a full round trip of data; from then on the link is always busy.
+        double pipeBytes = rate * rttSeconds;
+        double window = (double) initialWindow * segmentBytes;
+        double sent = 0;
+        while (window < pipeBytes) {
+            if (sent + window >= remaining) {
+                // Finishes during slow start: the last window is sent without waiting for another round trip
+                return time + (remaining - sent) / rate + rttSeconds / 2;
+            }
+            sent += window;
+            window *= 2;
+            time += rttSeconds;
+        }
+        return time + (remaining - sent) / rate + rttSeconds / 2;
+    }
+}
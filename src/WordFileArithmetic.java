@@ -0,0 +1,395 @@
+/*
+ * Word arithmetic over binary files for the hexadecimal calculator, e.g. to check firmware images.
+ * The file is read as 16-, 32-, or 64-bit words in big- or little-endian order, and one pass gives:
+ *    - the sum of the words as unsigned numbers, both wrapped to the word width and with every carry kept
+ *    - the XOR of the words
+ *    - the one's complement checksum: the ones' complement of the sum with end-around carry, as in RFC 1071
+ *    - the CRC-32C of the bytes, which does not depend on the word width or byte order
+ * A partial word at the end of the file is padded with zero bytes.
+ * The file is memory-mapped in fixed-size chunks that are processed on all cores. Each chunk is read 64 bits at a
+ * time, which holds whole words of every width, and gives its own sum, XOR, and CRC; the partial results are then
+ * combined in file order.
+ */
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32C;
+
+class WordFileArithmetic {
+
+    static final String BIG_ENDIAN = "big-endian";
+    static final String LITTLE_ENDIAN = "little-endian";
+    static final String[] BYTE_ORDERS = {BIG_ENDIAN, LITTLE_ENDIAN};
+
+    // Bytes mapped per task. Must be a multiple of 8 so every chunk but the last holds whole 64-bit reads.
+    private static final int CHUNK_SIZE = 1 << 26;
+    // Words copied into the working array at a time
+    private static final int BLOCK_WORDS = 1 << 13;
+    // Reversed CRC-32C (Castagnoli) polynomial
+    private static final int CRC32C_POLYNOMIAL = 0x82F63B78;
+
+    private final int width;
+    private final long bytes;
+    // Sum of the words as an unsigned 128-bit number
+    private final long sumHigh;
+    private final long sumLow;
+    private final long xor;
+    private final int crc32c;
+
+    private WordFileArithmetic(int width, long bytes, long sumHigh, long sumLow, long xor, int crc32c) {
+        this.width = width;
+        this.bytes = bytes;
+        this.sumHigh = sumHigh;
+        this.sumLow = sumLow;
+        this.xor = xor;
+        this.crc32c = crc32c;
+    }
+
+    /**
+     * Reads the file as words of the given width and byte order and calculates their sums, XOR, and CRC-32C
+     * @param file - Path of the file
+     * @param width - Word width in bits: 16, 32, or 64
+     * @param byteOrder - "big-endian" or "little-endian"
+     * @return WordFileArithmetic - Results for the file
+     * @throws IOException if the file cannot be read
+     */
+    static WordFileArithmetic calculate(Path file, int width, String byteOrder) throws IOException {
+        return calculate(file, width, byteOrder, CHUNK_SIZE);
+    }
+
+    /**
+     * Reads the file as words of the given width and byte order, in chunks of the given size
+     * @param file - Path of the file
+     * @param width - Word width in bits: 16, 32, or 64
+     * @param byteOrder - "big-endian" or "little-endian"
+     * @param chunkSize - Bytes per chunk, a multiple of 8
+     * @return WordFileArithmetic - Results for the file
+     * @throws IOException if the file cannot be read
+     */
+    static WordFileArithmetic calculate(Path file, int width, String byteOrder, int chunkSize) throws IOException {
+        if (file == null || byteOrder == null) {
+            throw new IllegalArgumentException("Cannot be null");
+        }
+        if (!isValidWidth(width)) {
+            throw new IllegalArgumentException("Not a valid width");
+        }
+        if (!byteOrder.equals(BIG_ENDIAN) && !byteOrder.equals(LITTLE_ENDIAN)) {
+            throw new IllegalArgumentException("Not a valid byte order");
+        }
+        if (chunkSize <= 0 || chunkSize % 8 != 0) {
+            throw new IllegalArgumentException("Not a valid size");
+        }
+        ByteOrder order = byteOrder.equals(BIG_ENDIAN) ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int chunks = (int) ((size + chunkSize - 1) / chunkSize);
+            long[][] partials = new long[chunks][];
+            try {
+                IntStream.range(0, chunks).parallel().forEach(chunk -> {
+                    long position = (long) chunk * chunkSize;
+                    int length = (int) Math.min(chunkSize, size - position);
+                    try {
+                        partials[chunk] = calculateChunk(channel.map(FileChannel.MapMode.READ_ONLY, position, length),
+                                width, order);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            long high = 0;
+            long low = 0;
+            long xor = 0;
+            int crc = 0;
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                long[] partial = partials[chunk];
+                long sum = low + partial[0];
+                high += partial[1] + (Long.compareUnsigned(sum, low) < 0 ? 1 : 0);
+                low = sum;
+                xor ^= partial[2];
+                int length = (int) Math.min(chunkSize, size - (long) chunk * chunkSize);
+                crc = combineCrc32c(crc, (int) partial[3], length);
+            }
+            return new WordFileArithmetic(width, size, high, low, foldXor(xor, width), crc);
+        }
+    }
+
+    /**
+     * Determines if the width is one that words can be read in
+     * @param width - Width in bits
+     * @return boolean - True for 16, 32, and 64
+     */
+    static boolean isValidWidth(int width) {
+        return width == 16 || width == 32 || width == 64;
+    }
+
+    /**
+     * Calculates the partial results of one chunk
+     * @param chunk - Mapped bytes of the chunk
+     * @param width - Word width in bits
+     * @param order - Byte order of the words
+     * @return long[] - Low 64 bits of the sum, carries out of them, XOR of the 64-bit reads, and CRC-32C
+     */
+    private static long[] calculateChunk(ByteBuffer chunk, int width, ByteOrder order) {
+        CRC32C crc = new CRC32C();
+        crc.update(chunk.duplicate());
+        chunk.order(order);
+
+        LongBuffer words = chunk.asLongBuffer();
+        long[] block = new long[BLOCK_WORDS];
+        long low = 0;
+        long high = 0;
+        long xor = 0;
+        int count = words.limit();
+        for (int start = 0; start < count; start += BLOCK_WORDS) {
+            int n = Math.min(BLOCK_WORDS, count - start);
+            words.get(start, block, 0, n);
+            if (width == 64) {
+                for (int i = 0; i < n; i++) {
+                    long v = block[i];
+                    long sum = low + v;
+                    if (Long.compareUnsigned(sum, low) < 0) {
+                        high++;
+                    }
+                    low = sum;
+                    xor ^= v;
+                }
+                continue;
+            }
+            // Narrow words cannot overflow a long within one block, so their carries are counted once per block
+            long sum = 0;
+            if (width == 32) {
+                for (int i = 0; i < n; i++) {
+                    long v = block[i];
+                    sum += (v & 0xFFFFFFFFL) + (v >>> 32);
+                    xor ^= v;
+                }
+            } else {
+                for (int i = 0; i < n; i++) {
+                    long v = block[i];
+                    sum += (v & 0xFFFF) + (v >>> 16 & 0xFFFF) + (v >>> 32 & 0xFFFF) + (v >>> 48);
+                    xor ^= v;
+                }
+            }
+            long total = low + sum;
+            if (Long.compareUnsigned(total, low) < 0) {
+                high++;
+            }
+            low = total;
+        }
+
+        // Leftover bytes at the end of the file, padded with zero bytes to a 64-bit read
+        int whole = count * 8;
+        if (whole < chunk.limit()) {
+            ByteBuffer padded = ByteBuffer.allocate(8).order(order);
+            for (int i = whole; i < chunk.limit(); i++) {
+                padded.put(chunk.get(i));
+            }
+            long v = padded.getLong(0);
+            long sum = switch (width) {
+                case 16 -> (v & 0xFFFF) + (v >>> 16 & 0xFFFF) + (v >>> 32 & 0xFFFF) + (v >>> 48);
+                case 32 -> (v & 0xFFFFFFFFL) + (v >>> 32);
+                default -> v;
+            };
+            long total = low + sum;
+            if (Long.compareUnsigned(total, low) < 0) {
+                high++;
+            }
+            low = total;
+            xor ^= v;
+        }
+        return new long[] {low, high, xor, crc.getValue()};
+    }
+
+    /**
+     * XORs the words packed in a 64-bit value together
+     * @param value - XOR of 64-bit reads
+     * @param width - Word width in bits
+     * @return long - XOR of the words
+     */
+    private static long foldXor(long value, int width) {
+        for (int w = 64; w > width; w /= 2) {
+            value = (value ^ value >>> w / 2) & FixedWidthArithmetic.mask(w / 2);
+        }
+        return value;
+    }
+
+    /**
+     * Adds a value to a one's complement sum, wrapping the carry out of the top bit around to the bottom
+     * @param sum - One's complement sum so far, less than 2^width
+     * @param value - Value to add, less than 2^width
+     * @param width - Word width in bits
+     * @return long - New sum, less than 2^width
+     */
+    private static long addOnesComplement(long sum, long value, int width) {
+        long total = sum + value;
+        if (width == 64) {
+            return Long.compareUnsigned(total, sum) < 0 ? total + 1 : total;
+        }
+        return (total >>> width) != 0 ? (total & FixedWidthArithmetic.mask(width)) + 1 : total;
+    }
+
+    /**
+     * Calculates the CRC-32C of two pieces of data joined together from the CRC-32C of each piece.
+     * Appending zeros to data is a linear operation on its CRC, so the first CRC is advanced past as many zero
+     * bytes as the second piece is long, by repeatedly squaring the matrix that appends one zero bit.
+     * @param first - CRC-32C of the first piece
+     * @param second - CRC-32C of the second piece
+     * @param secondLength - Length of the second piece in bytes
+     * @return int - CRC-32C of both pieces
+     */
+    static int combineCrc32c(int first, int second, long secondLength) {
+        if (secondLength <= 0) {
+            return first;
+        }
+        int[] even = new int[32];
+        int[] odd = new int[32];
+        // Matrix for one zero bit
+        odd[0] = CRC32C_POLYNOMIAL;
+        for (int n = 1; n < 32; n++) {
+            odd[n] = 1 << (n - 1);
+        }
+        square(even, odd);
+        // Matrix for four zero bits
+        square(odd, even);
+        // Each pass squares again, so the first applied matrix appends one zero byte
+        do {
+            square(even, odd);
+            if ((secondLength & 1) != 0) {
+                first = times(even, first);
+            }
+            secondLength >>>= 1;
+            if (secondLength == 0) {
+                break;
+            }
+            square(odd, even);
+            if ((secondLength & 1) != 0) {
+                first = times(odd, first);
+            }
+            secondLength >>>= 1;
+        } while (secondLength != 0);
+        return first ^ second;
+    }
+
+    private static int times(int[] matrix, int vector) {
+        int result = 0;
+        for (int i = 0; vector != 0; i++, vector >>>= 1) {
+            if ((vector & 1) != 0) {
+                result ^= matrix[i];
+            }
+        }
+        return result;
+    }
+
+    private static void square(int[] result, int[] matrix) {
+        for (int n = 0; n < 32; n++) {
+            result[n] = times(matrix, matrix[n]);
+        }
+    }
+
+    /**
+     * Returns the word width
+     * @return int - Width in bits
+     */
+    int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the size of the file
+     * @return long - Size in bytes
+     */
+    long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the number of words, counting a partial word at the end
+     * @return long - Number of words
+     */
+    long getWords() {
+        int wordBytes = width / 8;
+        return (bytes + wordBytes - 1) / wordBytes;
+    }
+
+    /**
+     * Returns the sum of the words wrapped to the word width
+     * @return long - Sum modulo 2^width
+     */
+    long getSum() {
+        return sumLow & FixedWidthArithmetic.mask(width);
+    }
+
+    /**
+     * Returns the number of times the sum carried out of the word width
+     * @return long - Sum divided by 2^width
+     */
+    long getCarries() {
+        return width == 64 ? sumHigh : sumHigh << (64 - width) | sumLow >>> width;
+    }
+
+    /**
+     * Returns the XOR of the words
+     * @return long - XOR of the words
+     */
+    long getXor() {
+        return xor;
+    }
+
+    /**
+     * Returns the one's complement checksum: the ones' complement of the sum of the words with end-around carry
+     * @return long - Checksum of the word width
+     */
+    long getOnesComplementChecksum() {
+        long mask = FixedWidthArithmetic.mask(width);
+        // 2^64 is 1 modulo 2^width - 1, so every width-bit piece of the 128-bit sum can be added in
+        long sum = 0;
+        for (long half : new long[] {sumLow, sumHigh}) {
+            for (int shift = 0; shift < 64; shift += width) {
+                sum = addOnesComplement(sum, half >>> shift & mask, width);
+            }
+        }
+        return ~sum & mask;
+    }
+
+    /**
+     * Returns the CRC-32C of the bytes of the file
+     * @return int - CRC-32C
+     */
+    int getCrc32c() {
+        return crc32c;
+    }
+
+    /**
+     * Formats a value of the word width as zero-padded uppercase hexadecimal digits
+     * @param value - Value to format
+     * @return String - Hexadecimal digits, width / 4 characters long
+     */
+    String format(long value) {
+        return FixedWidthArithmetic.format(value, 16, width);
+    }
+
+    /**
+     * Formats the sum of the words with every carry kept, as uppercase hexadecimal digits without leading zeros
+     * @return String - Hexadecimal digits of the sum
+     */
+    String formatFullSum() {
+        String digits = (sumHigh == 0 ? "" : Long.toHexString(sumHigh).toUpperCase())
+                + FixedWidthArithmetic.format(sumLow, 16, 64);
+        int start = 0;
+        while (start < digits.length() - 1 && digits.charAt(start) == '0') {
+            start++;
+        }
+        return digits.substring(start);
+    }
+}